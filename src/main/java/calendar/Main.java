@@ -1,6 +1,10 @@
 package calendar;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Paths;
 import java.util.TimeZone;
 
 import javax.swing.*;
@@ -8,6 +12,12 @@ import javax.swing.*;
 import calendar.controller.CommandController;
 import calendar.controller.SwingController;
 import calendar.manager.CalendarManager;
+import calendar.persistence.CommandRecorder;
+import calendar.persistence.PersistentStore;
+import calendar.utils.MetricsRegistry;
+import calendar.view.CommandOutput;
+import calendar.view.CommandServer;
+import calendar.view.HttpCalendarServer;
 import calendar.view.Interpreter;
 import calendar.view.SwingUI;
 
@@ -36,6 +46,9 @@ import calendar.view.SwingUI;
  * </ul>
  */
 public class Main {
+  private static final long METRICS_PERIOD_MILLIS = 10_000;
+  private static final String STORES_DIRECTORY = "stores";
+
   /**
    * The application entry point.
    * 
@@ -46,44 +59,84 @@ public class Main {
    * <ul>
    *   <li>GUI Mode (default): java -jar Program.jar</li>
    *   <li>Interactive Mode: java -jar Program.jar --mode interactive</li>
-   *   <li>Headless Mode: java -jar Program.jar --mode headless path-of-script-file</li>
+   *   <li>Headless Mode: java -jar Program.jar --mode headless path-of-script-file
+   *   [--quiet] [--json] [--output file] [--parallel threads]</li>
+   *   <li>Server Mode: java -jar Program.jar --mode server --port port</li>
+   *   <li>HTTP Mode: java -jar Program.jar --mode http --port port</li>
    * </ul>
    *
-   * @param args Command line arguments (--mode [interactive|headless] [script-file-path])
+   * <p>The options after the mode arguments may come in any order. The interactive and headless
+   * modes accept {@code --data-dir <directory>}, which keeps calendars durable across runs with
+   * snapshots and a command journal. The interactive, headless and server modes accept
+   * {@code --record <file>}, which logs every incoming command for replaying the load later.
+   * Every mode but HTTP accepts {@code --metrics <file>}, which writes the command counts and
+   * latencies to the file every ten seconds and on exit. The output options and
+   * {@code --parallel} only apply to headless mode.</p>
+   *
+   * @param args Command line arguments (--mode [interactive|headless|server|http] [script-file-path]
+   *             [--port port] [--data-dir directory] [--record file] [--metrics file])
    */
   public static void main(String[] args) {
     // Create the shared calendar manager (model)
     CalendarManager manager = new CalendarManager();
-    
-    // Parse command line arguments
-    if (args.length == 0) {
-      // No arguments - launch GUI mode
-      launchGuiMode(manager);
-    } else if (args.length >= 2 && args[0].equals("--mode")) {
-      switch (args[1]) {
-        case "interactive":
-          if (args.length == 2) {
-            // Interactive CLI mode
-            launchInteractiveMode(manager);
-          } else {
-            displayInvalidArgsError();
-          }
-          break;
-        case "headless":
-          if (args.length == 3) {
-            // Headless mode with script file
-            String scriptFilePath = args[2];
-            launchHeadlessMode(manager, scriptFilePath);
-          } else {
-            displayInvalidArgsError();
-          }
-          break;
-        default:
+    closeStoresOnExit(manager);
+
+    String mode = args.length >= 2 && args[0].equals("--mode") ? args[1] : "gui";
+    int optionsStart;
+    switch (mode) {
+      case "gui":
+        optionsStart = 0;
+        break;
+      case "interactive":
+        optionsStart = 2;
+        break;
+      case "headless":
+        optionsStart = 3;
+        break;
+      case "server":
+      case "http":
+        if (args.length < 4 || !args[2].equals("--port")) {
           displayInvalidArgsError();
-      }
-    } else {
+        }
+        optionsStart = 4;
+        break;
+      default:
+        optionsStart = args.length;
+        displayInvalidArgsError();
+    }
+    if (args.length < optionsStart) {
       displayInvalidArgsError();
     }
+    LaunchOptions options = LaunchOptions.parse(args, optionsStart);
+    boolean durable = mode.equals("interactive") || mode.equals("headless");
+    if (options.dataDir != null && !durable
+            || options.recordFile != null && !(durable || mode.equals("server"))
+            || options.metricsFile != null && mode.equals("http")
+            || options.hasHeadlessOptions() && !mode.equals("headless")) {
+      displayInvalidArgsError();
+    }
+    if (options.metricsFile != null) {
+      startMetricsDump(options.metricsFile);
+    }
+
+    switch (mode) {
+      case "gui":
+        launchGuiMode(manager);
+        break;
+      case "interactive":
+        launchInteractiveMode(manager, options.dataDir, options.recordFile);
+        break;
+      case "headless":
+        launchHeadlessMode(manager, args[2], options);
+        break;
+      case "server":
+        // Command server for local clients
+        launchServerMode(manager, parsePort(args[3]), options.recordFile);
+        break;
+      default:
+        // JSON API over HTTP for local clients
+        launchHttpMode(manager, parsePort(args[3]));
+    }
   }
   
   /**
@@ -109,14 +162,20 @@ public class Main {
    * Launches the application in interactive command-line mode.
    * 
    * @param manager The calendar manager instance to use
+   * @param dataDir The directory keeping calendars durable, or null for in-memory only
+   * @param recordFile The file recording incoming commands, or null to record nothing
    */
-  private static void launchInteractiveMode(CalendarManager manager) {
+  private static void launchInteractiveMode(CalendarManager manager, String dataDir,
+                                            String recordFile) {
     // Create the interpreter and controller
     Interpreter interpreter = new Interpreter();
     CommandController controller = new CommandController(manager, interpreter);
+    PersistentStore store = openPersistentStore(dataDir, manager, controller);
+    controller.setRecorder(openRecorder(recordFile), 0);
     
     // Start directly in interactive mode using the interpreter
     interpreter.startInteractiveMode(controller);
+    closePersistentStore(store);
   }
   
   /**
@@ -124,8 +183,10 @@ public class Main {
    * 
    * @param manager The calendar manager instance to use
    * @param scriptFilePath Path to the script file containing commands
+   * @param options The options following the script file path
    */
-  private static void launchHeadlessMode(CalendarManager manager, String scriptFilePath) {
+  private static void launchHeadlessMode(CalendarManager manager, String scriptFilePath,
+                                         LaunchOptions options) {
     File scriptFile = new File(scriptFilePath);
     if (!scriptFile.exists() || !scriptFile.isFile()) {
       System.err.println("Error: Script file not found: " + scriptFilePath);
@@ -135,9 +196,225 @@ public class Main {
     // Create the interpreter and controller
     Interpreter interpreter = new Interpreter();
     CommandController controller = new CommandController(manager, interpreter);
+    if (options.hasOutputOptions()) {
+      controller.setOutput(openOutput(options));
+    }
+    PersistentStore store = openPersistentStore(options.dataDir, manager, controller);
+    controller.setRecorder(openRecorder(options.recordFile), 0);
     
     // Execute the script file using the interpreter
-    interpreter.executeScriptFile(scriptFilePath, controller);
+    interpreter.executeScriptFile(scriptFilePath, controller, options.threads);
+    closePersistentStore(store);
+  }
+
+  /**
+   * Launches the command server, serving the command language to local TCP clients until the
+   * process is stopped.
+   *
+   * @param manager The calendar manager shared by all sessions
+   * @param port The loopback port to listen on
+   * @param recordFile The file recording incoming commands, or null to record nothing
+   */
+  private static void launchServerMode(CalendarManager manager, int port, String recordFile) {
+    try (CommandServer server = new CommandServer(manager, port)) {
+      server.setRecorder(openRecorder(recordFile));
+      System.out.println("Serving calendar commands on " + InetAddress.getLoopbackAddress()
+              .getHostAddress() + ":" + server.getPort());
+      server.serve();
+    } catch (IOException e) {
+      System.err.println("Error: Could not serve on port " + port + ": " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Launches the HTTP server, serving the calendars as a JSON API to local clients until the
+   * process is stopped.
+   *
+   * @param manager The calendar manager to serve
+   * @param port The loopback port to listen on
+   */
+  private static void launchHttpMode(CalendarManager manager, int port) {
+    // without TCP_NODELAY the last chunk of every streamed listing waits for a delayed ACK
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+    try {
+      HttpCalendarServer server = new HttpCalendarServer(manager, port);
+      server.start();
+      System.out.println("Serving the calendar API on http://" + InetAddress.getLoopbackAddress()
+              .getHostAddress() + ":" + server.getPort() + "/calendars");
+    } catch (IOException e) {
+      System.err.println("Error: Could not serve on port " + port + ": " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Opens the command recording for the {@code --record <file>} option. The recording is closed
+   * when the process exits, however it exits.
+   *
+   * @param recordFile The file to record to, or null to record nothing
+   * @return the recorder, or null if nothing is recorded
+   */
+  private static CommandRecorder openRecorder(String recordFile) {
+    if (recordFile == null) {
+      return null;
+    }
+    try {
+      CommandRecorder recorder = new CommandRecorder(Paths.get(recordFile));
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          recorder.close();
+        } catch (IOException e) {
+          System.err.println("Error: Could not write command recording: " + e.getMessage());
+        }
+      }, "command-recorder"));
+      return recorder;
+    } catch (IOException e) {
+      System.err.println("Error: Could not record commands to " + recordFile + ": "
+              + e.getMessage());
+      System.exit(1);
+      return null;
+    }
+  }
+
+  /**
+   * Starts writing the metrics of the {@code --metrics <file>} option periodically. The last
+   * report is written when the process exits, however it exits.
+   *
+   * @param metricsFile The file to write the metrics to
+   */
+  private static void startMetricsDump(String metricsFile) {
+    Closeable dump = MetricsRegistry.shared().startDump(Paths.get(metricsFile),
+            METRICS_PERIOD_MILLIS);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        dump.close();
+      } catch (IOException e) {
+        System.err.println("Error: Could not write metrics: " + e.getMessage());
+      }
+    }, "metrics-dump"));
+  }
+
+  /**
+   * Closes the event stores of the calendars when the process exits, however it exits, so file
+   * backed stores write their last changes and scratch files are removed.
+   *
+   * @param manager The calendar manager owning the stores
+   */
+  private static void closeStoresOnExit(CalendarManager manager) {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        manager.close();
+      } catch (IOException e) {
+        System.err.println("Error: Could not close event storage: " + e.getMessage());
+      }
+    }, "event-stores"));
+  }
+
+  /**
+   * Parses the port of the {@code --port <port>} option.
+   *
+   * @param value The option value
+   * @return the port, 0 to pick any free port
+   */
+  private static int parsePort(String value) {
+    try {
+      int port = Integer.parseInt(value);
+      if (port >= 0 && port <= 65535) {
+        return port;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    displayInvalidArgsError();
+    return 0;
+  }
+
+  /**
+   * Opens a buffered output for the headless output options {@code --quiet}, which leaves out
+   * the echo of executed commands, {@code --json}, which writes JSON lines, and
+   * {@code --output <file>}, which writes to a file instead of the standard output.
+   *
+   * @param options The launch options holding the output options
+   * @return the buffered output
+   */
+  private static CommandOutput openOutput(LaunchOptions options) {
+    try {
+      return CommandOutput.open(options.outputFile, options.format, options.quiet);
+    } catch (IOException e) {
+      System.err.println("Error: Could not open output " + options.outputFile + ": "
+              + e.getMessage());
+      System.exit(1);
+      return null;
+    }
+  }
+
+  /**
+   * Parses the thread count of the {@code --parallel <threads>} option, which runs the commands
+   * of different calendars on that many worker threads.
+   *
+   * @param value The option value
+   * @return the positive thread count
+   */
+  private static int parseThreads(String value) {
+    try {
+      int threads = Integer.parseInt(value);
+      if (threads > 0) {
+        return threads;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    displayInvalidArgsError();
+    return 0;
+  }
+
+  /**
+   * Recovers the calendars kept in the data directory and starts journaling new commands.
+   * File backed event stores keep their files in a directory of the data directory, so they are
+   * reopened from the snapshot on the next run.
+   *
+   * @param dataDir The data directory, or null when persistence is disabled
+   * @param manager The calendar manager instance to recover into
+   * @param controller The controller executing the journaled commands
+   * @return the opened store, or null when persistence is disabled
+   */
+  private static PersistentStore openPersistentStore(String dataDir, CalendarManager manager,
+                                                     CommandController controller) {
+    if (dataDir == null) {
+      return null;
+    }
+    try {
+      manager.setStorageDirectory(Paths.get(dataDir).resolve(STORES_DIRECTORY));
+      PersistentStore store = new PersistentStore(
+              Paths.get(dataDir), manager, PersistentStore.DEFAULT_SNAPSHOT_INTERVAL);
+      store.recover(controller::parseCommand, controller.getOutput());
+      controller.setPersistentStore(store);
+      return store;
+    } catch (IOException e) {
+      System.err.println("Error: Could not recover calendars from " + dataDir + ": "
+              + e.getMessage());
+      System.exit(1);
+      return null;
+    }
+  }
+
+  /**
+   * Writes a final snapshot and closes the journal.
+   *
+   * @param store The store to close, or null when persistence is disabled
+   */
+  private static void closePersistentStore(PersistentStore store) {
+    if (store == null) {
+      return;
+    }
+    try {
+      store.close();
+    } catch (IOException e) {
+      System.err.println("Error: Could not write final snapshot: " + e.getMessage());
+    }
   }
   
   /**
@@ -149,6 +426,80 @@ public class Main {
     System.err.println("  java -jar Program.jar                            # Launch GUI mode");
     System.err.println("  java -jar Program.jar --mode interactive         # Launch interactive CLI mode");
     System.err.println("  java -jar Program.jar --mode headless script.txt # Execute script file in headless mode");
+    System.err.println("  java -jar Program.jar --mode server --port 7070    # Serve commands to local TCP clients");
+    System.err.println("  java -jar Program.jar --mode http --port 8080      # Serve the JSON API to local HTTP clients");
+    System.err.println("  Append --quiet, --json or --output <file> to the script file for buffered headless output");
+    System.err.println("  Append --parallel <threads> to run the commands of different calendars in parallel");
+    System.err.println("  Append --data-dir <dir> to interactive or headless mode to keep calendars across runs");
+    System.err.println("  Append --record <file> to interactive, headless or server mode to record incoming commands");
+    System.err.println("  Append --metrics <file> to any mode but http to write command latencies every 10s");
     System.exit(1);
   }
+
+  /**
+   * The options following the mode arguments, parsed in one pass so that they may come in any
+   * order. Each option may be given once.
+   */
+  private static final class LaunchOptions {
+    private String metricsFile;
+    private String recordFile;
+    private String dataDir;
+    private String outputFile;
+    private int threads;
+    private boolean quiet;
+    private CommandOutput.Format format = CommandOutput.Format.TEXT;
+
+    /**
+     * Parses the options of the command line from an index to its end, exiting with the usage
+     * for unknown, repeated or incomplete options.
+     *
+     * @param args The command line arguments
+     * @param start The index of the first option
+     * @return the parsed options
+     */
+    static LaunchOptions parse(String[] args, int start) {
+      LaunchOptions options = new LaunchOptions();
+      for (int i = start; i < args.length; i++) {
+        String option = args[i];
+        if (option.equals("--quiet") && !options.quiet) {
+          options.quiet = true;
+        } else if (option.equals("--json") && options.format == CommandOutput.Format.TEXT) {
+          options.format = CommandOutput.Format.JSON;
+        } else if (i + 1 >= args.length) {
+          displayInvalidArgsError();
+        } else if (option.equals("--metrics") && options.metricsFile == null) {
+          options.metricsFile = args[++i];
+        } else if (option.equals("--record") && options.recordFile == null) {
+          options.recordFile = args[++i];
+        } else if (option.equals("--data-dir") && options.dataDir == null) {
+          options.dataDir = args[++i];
+        } else if (option.equals("--output") && options.outputFile == null) {
+          options.outputFile = args[++i];
+        } else if (option.equals("--parallel") && options.threads == 0) {
+          options.threads = parseThreads(args[++i]);
+        } else {
+          displayInvalidArgsError();
+        }
+      }
+      return options;
+    }
+
+    /**
+     * Checks if any option changing the headless output was given.
+     *
+     * @return true if the output has to be opened from the options
+     */
+    boolean hasOutputOptions() {
+      return quiet || format == CommandOutput.Format.JSON || outputFile != null;
+    }
+
+    /**
+     * Checks if any option only headless mode accepts was given.
+     *
+     * @return true if an output option or {@code --parallel} was given
+     */
+    boolean hasHeadlessOptions() {
+      return hasOutputOptions() || threads != 0;
+    }
+  }
 }
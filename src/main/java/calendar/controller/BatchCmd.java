@@ -0,0 +1,31 @@
+package calendar.controller;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Opens, commits or rolls back a batch of commands. Batches belong to a controller, so these
+ * commands are carried out by {@link CommandController#execute} rather than on their own.
+ */
+final class BatchCmd implements Command {
+  private final CommandType type;
+
+  /**
+   * Construct the command.
+   *
+   * @param type one of the batch command types.
+   */
+  BatchCmd(CommandType type) {
+    this.type = type;
+  }
+
+  @Override
+  public CommandType getType() {
+    return type;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    throw new IllegalStateException("'" + type + "' can only be executed by a command controller");
+  }
+}
@@ -0,0 +1,29 @@
+package calendar.controller;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * A command line compiled into its arguments. Compiling parses and validates every argument, so
+ * executing only touches calendar state; calendars are looked up on execution, since earlier
+ * commands may change which one is active. Commands are immutable and may be handed from the
+ * thread that compiled them to the thread that executes them.
+ */
+public interface Command {
+
+  /**
+   * Get the kind of the command.
+   *
+   * @return the command type.
+   */
+  CommandType getType();
+
+  /**
+   * Execute the command.
+   *
+   * @param calendarManager the calendars to execute against.
+   * @param output          the output receiving messages and query results.
+   * @throws IllegalArgumentException if the command cannot be applied to the calendars.
+   */
+  void execute(ICalendarManager calendarManager, CommandOutput output);
+}
@@ -0,0 +1,97 @@
+package calendar.controller;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+import calendar.utils.EventUtils;
+
+/**
+ * The commands of an open batch. Created events are expanded and buffered per calendar when
+ * their command is executed; committing checks the buffered events of every calendar with one
+ * sorted conflict sweep per day before any calendar is changed, and then adds them all. Command
+ * lines are kept to be journaled once the batch is over.
+ */
+final class CommandBatch {
+  private final EventUtils eventUtils = new EventUtils();
+  private final Map<ICalendar, Pending> pending = new IdentityHashMap<>();
+  private final List<ICalendar> calendars = new ArrayList<>();
+  private final List<String> lines = new ArrayList<>();
+  private final List<String> appliedLines = new ArrayList<>();
+
+  /**
+   * Buffer the events of a create event command.
+   *
+   * @param command  the given command.
+   * @param calendar the calendar active when the command was executed.
+   * @param input    the command line, journaled on commit.
+   * @throws IllegalArgumentException if the times of the command are invalid.
+   */
+  void add(CreateEventCmd command, ICalendar calendar, String input) {
+    List<IEvent> events = command.expand(eventUtils);
+    Pending calendarEvents = pending.get(calendar);
+    if (calendarEvents == null) {
+      calendarEvents = new Pending();
+      pending.put(calendar, calendarEvents);
+      calendars.add(calendar);
+    }
+    calendarEvents.events.addAll(events);
+    calendarEvents.autoDecline |= command.isAutoDecline();
+    lines.add(input);
+  }
+
+  /**
+   * Record a command that took effect right away, such as switching calendars.
+   *
+   * @param input the command line.
+   */
+  void applied(String input) {
+    lines.add(input);
+    appliedLines.add(input);
+  }
+
+  /**
+   * Add the buffered events of every calendar, or none of them if one conflicts.
+   *
+   * @throws IllegalArgumentException if a buffered event conflicts.
+   */
+  void commit() {
+    for (ICalendar calendar : calendars) {
+      Pending calendarEvents = pending.get(calendar);
+      calendar.setAutoDeclineConflicts(calendarEvents.autoDecline);
+      calendar.checkEvents(calendarEvents.events);
+    }
+    for (ICalendar calendar : calendars) {
+      calendar.restoreEvents(pending.get(calendar).events);
+    }
+  }
+
+  /**
+   * Get the command lines to journal after a commit, in the order they were executed.
+   *
+   * @return the lines of the batch.
+   */
+  List<String> getLines() {
+    return lines;
+  }
+
+  /**
+   * Get the command lines to journal after a rollback, the ones that took effect anyway.
+   *
+   * @return the lines that were applied right away.
+   */
+  List<String> getAppliedLines() {
+    return appliedLines;
+  }
+
+  /**
+   * The buffered events of one calendar.
+   */
+  private static final class Pending {
+    private final List<IEvent> events = new ArrayList<>();
+    private boolean autoDecline;
+  }
+}
@@ -3,22 +3,38 @@ package calendar.controller;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 import calendar.manager.ICalendarManager;
-import calendar.model.Calendar;
-import calendar.model.ICalendar;
+import calendar.persistence.CommandRecorder;
+import calendar.persistence.PersistentStore;
 import calendar.utils.DateTimeUtils;
-import calendar.utils.EventsExporterFactory;
-import calendar.utils.ExportEvents;
+import calendar.utils.MetricsRegistry;
+import calendar.utils.jfr.CommandExecutionEvent;
+import calendar.utils.jfr.FlightEvents;
+import calendar.view.CommandOutput;
 import calendar.view.Interpreter;
 
 /**
  * The class for managing inputs commands to actual calendar operations.
  */
 public class CommandController {
+  static final int GZIP_BUFFER_SIZE = 1 << 16;
+  private static final String INVALID_METRIC = "invalid";
   private ICalendarManager calendarManager;
   private DateTimeUtils dateTimeUtils;
   private Interpreter interpreter;
+  private PersistentStore persistentStore;
+  private CommandRecorder recorder;
+  private int recordedSession;
+  private CommandOutput output = new CommandOutput();
+  private final CommandTokenizer tokens = new CommandTokenizer();
+  private CommandBatch batch;
+  private MetricsRegistry metrics = MetricsRegistry.shared();
+  private final MetricsRegistry.Timer[] timers = new MetricsRegistry.Timer[
+          CommandType.values().length];
 
   /**
    * Constructs a CommandController with dependencies injected.
@@ -45,6 +61,86 @@ public class CommandController {
     return calendarManager;
   }
 
+  /**
+   * Attach a persistent store that journals every command changing calendar state.
+   *
+   * @param persistentStore the store to journal to, or null to stop journaling.
+   */
+  public void setPersistentStore(PersistentStore persistentStore) {
+    this.persistentStore = persistentStore;
+  }
+
+  /**
+   * Attach a recorder that logs every command line executed by the controller, including queries
+   * and commands that fail, for replaying the load later. Commands compiled ahead of execution
+   * are logged when they execute, so lines never reached are not logged.
+   *
+   * @param recorder the recorder to log to, or null to stop recording.
+   * @param session  the session the commands of this controller are logged under.
+   */
+  public void setRecorder(CommandRecorder recorder, int session) {
+    this.recorder = recorder;
+    this.recordedSession = session;
+  }
+
+  /**
+   * Log a command line with the attached recorder, if any. The controller logs the commands it
+   * executes itself; executors running compiled commands without it, or reporting a line that
+   * did not compile, log the line when they reach it.
+   *
+   * @param input the given command line.
+   */
+  public void record(String input) {
+    if (recorder != null && input != null) {
+      recorder.record(recordedSession, input);
+    }
+  }
+
+  /**
+   * Record command counts and latencies to a registry other than the shared one.
+   *
+   * @param metrics the given registry.
+   */
+  public void setMetrics(MetricsRegistry metrics) {
+    this.metrics = metrics;
+    Arrays.fill(timers, null);
+  }
+
+  /**
+   * Get the timer recording the executions of a command type, for executors running compiled
+   * commands without the controller. Timers may be used from any thread.
+   *
+   * @param type the given command type.
+   * @return the timer.
+   */
+  public MetricsRegistry.Timer timer(CommandType type) {
+    MetricsRegistry.Timer timer = timers[type.ordinal()];
+    if (timer == null) {
+      // racing threads store the same timer, since the registry creates one per name
+      timer = metrics.timer(type.toString());
+      timers[type.ordinal()] = timer;
+    }
+    return timer;
+  }
+
+  /**
+   * Send command output and query results to an output other than the standard output.
+   *
+   * @param output the given output.
+   */
+  public void setOutput(CommandOutput output) {
+    this.output = output;
+  }
+
+  /**
+   * Returns the output receiving command output and query results.
+   *
+   * @return the output
+   */
+  public CommandOutput getOutput() {
+    return output;
+  }
+
   /**
    * Main function for mapping commands to its correct execution function.
    *
@@ -52,342 +148,636 @@ public class CommandController {
    * @throws IllegalArgumentException throws error if the command is invalid.
    */
   public void parseCommand(String input) throws IllegalArgumentException {
-    if (input == null || input.trim().isEmpty()) {
-      throw new IllegalArgumentException("Input command cannot be empty.");
+    Command command;
+    try {
+      command = compile(input);
+    } catch (IllegalArgumentException e) {
+      record(input);
+      throw e;
     }
+    execute(command, input);
+  }
 
-    String[] tokens = input.trim().split("\\s+");
-    if (tokens.length < 2) {
-      throw new IllegalArgumentException("Invalid command format.");
+  /**
+   * Compile a command line into a command object without executing it. Compiling reuses one
+   * tokenizer, so only one thread at a time may compile with a controller.
+   *
+   * @param input the given command.
+   * @return the compiled command.
+   * @throws IllegalArgumentException throws error if the command is invalid.
+   */
+  public Command compile(String input) throws IllegalArgumentException {
+    try {
+      return compileTokens(input);
+    } catch (RuntimeException e) {
+      metrics.timer(INVALID_METRIC).count(true);
+      throw e;
     }
+  }
 
-    String commandType = tokens[0] + " " + tokens[1];
+  private Command compileTokens(String input) {
+    if (input == null || tokens.reset(input).size() == 0) {
+      throw new IllegalArgumentException("Input command cannot be empty.");
+    }
+
+    CommandType commandType = CommandType.of(tokens);
+    if (commandType == null) {
+      if (tokens.size() < 2) {
+        throw new IllegalArgumentException("Invalid command format.");
+      }
+      throw new IllegalArgumentException("Unknown command: " + tokens.get(0) + " "
+              + tokens.get(1));
+    }
 
     switch (commandType) {
-      case "create calendar":
-        parseCreateCalendarCommand(tokens);
-        break;
-      case "edit calendar":
-        parseEditCalendarCommand(tokens);
-        break;
-      case "use calendar":
-        parseUseCalendarCommand(tokens);
-        break;
-      case "copy event":
-        parseCopyEventCommand(tokens);
-        break;
-      case "copy events":
-        parseCopyEventsCommand(tokens);
-        break;
-      case "create event":
-        parseCreateEventCommand(tokens);
-        break;
-      case "edit event":
-        parseEditEventCommand(tokens);
-        break;
-      case "edit events":
-        parseEditEventsCommand(tokens);
-        break;
-      case "print events":
-        parsePrintEventsCommand(tokens);
-        break;
-      case "export cal":
-        parseExportCalCommand(tokens);
-        break;
-      case "show status":
-        parseShowStatusCommand(tokens);
-        break;
+      case CREATE_CALENDAR:
+        return compileCreateCalendarCommand(tokens);
+      case EDIT_CALENDAR:
+        return compileEditCalendarCommand(tokens);
+      case USE_CALENDAR:
+        return compileUseCalendarCommand(tokens);
+      case COPY_EVENT:
+        return compileCopyEventCommand(tokens);
+      case COPY_EVENTS:
+        return compileCopyEventsCommand(tokens);
+      case CREATE_EVENT:
+        return compileCreateEventCommand(tokens);
+      case EDIT_EVENT:
+        return compileEditEventCommand(tokens);
+      case EDIT_EVENTS:
+        return compileEditEventsCommand(tokens);
+      case PRINT_EVENTS:
+        return compilePrintEventsCommand(tokens);
+      case EXPORT_CAL:
+        return compileExportCalCommand(tokens);
+      case IMPORT_CAL:
+        return compileImportCalCommand(tokens);
+      case SHOW_STATUS:
+        return compileShowStatusCommand(tokens);
+      case SHOW_METRICS:
+        return compileShowMetricsCommand(tokens);
+      case DISCARD_TOMBSTONES:
+        return compileDiscardTombstonesCommand(tokens);
+      case BEGIN_BATCH:
+      case COMMIT:
+      case ROLLBACK:
+        return compileBatchCommand(tokens, commandType);
       default:
         throw new IllegalArgumentException("Unknown command: " + commandType);
     }
   }
 
+  /**
+   * Execute a compiled command and journal it if it changed calendar state. While a batch is
+   * open, created events are buffered until the batch is committed, calendars can still be
+   * switched and queried, and other changes are refused. The command is logged with the
+   * attached recorder and counted under its type, whether it succeeds or not, and spans a flight
+   * recorder event while recording.
+   *
+   * @param command the compiled command.
+   * @param input   the command line the command was compiled from.
+   * @throws IllegalArgumentException throws error if the command cannot be executed.
+   */
+  public void execute(Command command, String input) throws IllegalArgumentException {
+    record(input);
+    MetricsRegistry.Timer timer = timer(command.getType());
+    CommandExecutionEvent event = FlightEvents.isEnabled() ? new CommandExecutionEvent() : null;
+    long start = timer.start();
+    boolean failed = true;
+    try {
+      executeCommand(command, input);
+      failed = false;
+    } finally {
+      timer.stop(start, failed);
+      if (event != null) {
+        event.commit(command.getType(), calendarManager, failed);
+      }
+    }
+  }
+
+  private void executeCommand(Command command, String input) {
+    switch (command.getType()) {
+      case BEGIN_BATCH:
+        beginBatch();
+        return;
+      case COMMIT:
+        commitBatch();
+        return;
+      case ROLLBACK:
+        rollbackBatch();
+        return;
+      default:
+    }
+    if (batch == null) {
+      command.execute(calendarManager, output);
+      journal(command, input);
+    } else if (command.getType() == CommandType.CREATE_EVENT) {
+      batch.add((CreateEventCmd) command, calendarManager.getActiveCalendar(), input.trim());
+    } else if (command.getType() == CommandType.USE_CALENDAR) {
+      command.execute(calendarManager, output);
+      batch.applied(input.trim());
+    } else if (!command.getType().isStateChanging()) {
+      command.execute(calendarManager, output);
+    } else {
+      throw new IllegalArgumentException("Command '" + command.getType()
+              + "' cannot be used inside a batch; commit or rollback first.");
+    }
+  }
+
+  /**
+   * Check if a batch is open, so that commands are buffered rather than applied.
+   *
+   * @return true if a batch is open.
+   */
+  public boolean isBatchOpen() {
+    return batch != null;
+  }
+
+  private void beginBatch() {
+    if (batch != null) {
+      throw new IllegalArgumentException("A batch is already open.");
+    }
+    batch = new CommandBatch();
+  }
+
+  /**
+   * Apply the buffered events of the open batch together. If any of them conflicts, none is
+   * added and the batch is closed as if rolled back.
+   */
+  private void commitBatch() {
+    if (batch == null) {
+      throw new IllegalArgumentException("No batch is open.");
+    }
+    CommandBatch committed = batch;
+    batch = null;
+    try {
+      committed.commit();
+    } catch (IllegalArgumentException e) {
+      journalLines(committed.getAppliedLines());
+      throw e;
+    }
+    journalLines(committed.getLines());
+  }
+
+  private void rollbackBatch() {
+    if (batch == null) {
+      throw new IllegalArgumentException("No batch is open.");
+    }
+    journalLines(batch.getAppliedLines());
+    batch = null;
+  }
+
+  private void journalLines(List<String> lines) {
+    if (persistentStore != null) {
+      for (String line : lines) {
+        persistentStore.record(line);
+      }
+    }
+  }
+
+  /**
+   * Journal a command that was executed outside of the controller, if it changed calendar
+   * state. Commands have to be journaled in the order they took effect. An import is not
+   * journaled, since replaying it would read its file again; a snapshot is taken instead.
+   *
+   * @param command the executed command.
+   * @param input   the command line the command was compiled from.
+   */
+  public void journal(Command command, String input) {
+    if (persistentStore == null || !command.getType().isStateChanging()) {
+      return;
+    }
+    if (command.getType() == CommandType.IMPORT_CAL) {
+      persistentStore.checkpoint();
+    } else {
+      persistentStore.record(input.trim());
+    }
+  }
+
+  private LocalDateTime parseDateTime(CommandTokenizer tokens, int index) {
+    return dateTimeUtils.parseDateTime(tokens.input(), tokens.start(index), tokens.end(index));
+  }
+
+  private LocalDateTime parseDate(CommandTokenizer tokens, int index) {
+    return dateTimeUtils.parseDateToDateTime(tokens.input(), tokens.start(index),
+            tokens.end(index));
+  }
+
+  /**
+   * Parse a token that is either a date time or a date, picking the parser from the shape of
+   * the token rather than by catching the failure of the other one.
+   *
+   * @param tokens   the given input parameters.
+   * @param index    the token index.
+   * @param endOfDay whether a date resolves to the end of the day instead of its start.
+   * @return the parsed date time.
+   */
+  private LocalDateTime parseDateOrDateTime(CommandTokenizer tokens, int index,
+                                            boolean endOfDay) {
+    return dateTimeUtils.parseDateOrDateTime(tokens.input(), tokens.start(index),
+            tokens.end(index), endOfDay);
+  }
+
   /**
    * Input mapping function for create calendar commands.
    * 
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parseCreateCalendarCommand(String[] tokens) {
+  private Command compileCreateCalendarCommand(CommandTokenizer tokens) {
     int index = 3;
-    String calendarName = tokens[index++];
+    String calendarName = tokens.get(index++);
     index++;
-    ZoneId calendarTimeZone = dateTimeUtils.parseZoneId(tokens[index]);
-    calendarManager.createCalendar(calendarName, calendarTimeZone);
+    ZoneId calendarTimeZone = dateTimeUtils.parseZoneId(tokens.get(index++));
+    if (index == tokens.size()) {
+      return new CreateCalendarCmd(calendarName, calendarTimeZone, null);
+    } else if (tokens.is(index, "--storage") && index + 2 == tokens.size()) {
+      return new CreateCalendarCmd(calendarName, calendarTimeZone, tokens.get(index + 1));
+    } else {
+      throw new IllegalArgumentException("Unknown create calendar option: " + tokens.get(index));
+    }
   }
 
   /**
    * Input mapping function for use calendar commands.
    * 
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parseUseCalendarCommand(String[] tokens) {
+  private Command compileUseCalendarCommand(CommandTokenizer tokens) {
     int index = 3;
-    String calendarName = tokens[index];
-    calendarManager.useCalendar(calendarName);
+    String calendarName = tokens.get(index);
+    return new UseCalendarCmd(calendarName);
   }
 
   /**
    * Input mapping function for edit calendar commands.
    * 
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parseEditCalendarCommand(String[] tokens) {
+  private Command compileEditCalendarCommand(CommandTokenizer tokens) {
     int index = 3;
-    String calendarName = tokens[index++];
+    String calendarName = tokens.get(index++);
     index++;
-    String propertyName = tokens[index++];
-    String newValue = tokens[index];
-    calendarManager.editCalendarProperty(calendarName, propertyName, newValue);
+    String propertyName = tokens.get(index++);
+    String newValue = tokens.get(index);
+    return new EditCalendarCmd(calendarName, propertyName, newValue);
   }
 
   /**
    * Input mapping function for copy event commands.
    * 
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parseCopyEventCommand(String[] tokens) {
+  private Command compileCopyEventCommand(CommandTokenizer tokens) {
     int index = 2;
-    String eventName = tokens[index++];
+    String eventName = tokens.get(index++);
     index++;
-    LocalDateTime startDateTime = dateTimeUtils.parseDateTime(tokens[index++]);
+    LocalDateTime startDateTime = parseDateTime(tokens, index++);
     index++;
-    String targetCalendarName = tokens[index++];
+    String targetCalendarName = tokens.get(index++);
     index++;
-    LocalDateTime targetStartDateTime = dateTimeUtils.parseDateTime(tokens[index]);
-    calendarManager.copyCalendarEvent(
-            eventName, startDateTime, targetCalendarName, targetStartDateTime);
-
+    LocalDateTime targetStartDateTime = parseDateTime(tokens, index);
+    return new CopyEventCmd(eventName, startDateTime, targetCalendarName, targetStartDateTime);
   }
 
   /**
    * Input mapping function for copy events commands.
    * 
    * @param tokens the given input parameters.
+   * @return the compiled command.
    * @throws IllegalArgumentException if the command format is unknown
    */
-  private void parseCopyEventsCommand(String[] tokens) {
+  private Command compileCopyEventsCommand(CommandTokenizer tokens) {
     int index = 2;
     LocalDateTime startDateTime;
     LocalDateTime endDateTime;
-    if (tokens[index].equals("on")) {
+    if (tokens.is(index, "on")) {
       index++;
-      startDateTime = dateTimeUtils.parseDateToDateTime(tokens[index++]);
+      startDateTime = parseDate(tokens, index++);
       endDateTime = startDateTime.toLocalDate().atTime(LocalTime.of(23, 59));
-    } else if (tokens[index].equals("between")) {
+    } else if (tokens.is(index, "between")) {
       index++;
-      startDateTime = dateTimeUtils.parseDateToDateTime(tokens[index++]);
+      startDateTime = parseDate(tokens, index++);
       index++;
-      endDateTime = dateTimeUtils.parseDateToDateTime(
-              tokens[index++]).toLocalDate().atTime(LocalTime.of(23, 59));
+      endDateTime = parseDate(tokens, index++).toLocalDate().atTime(LocalTime.of(23, 59));
     } else {
-      throw new IllegalArgumentException("Unknown command: " + tokens[index]);
+      throw new IllegalArgumentException("Unknown command: " + tokens.get(index));
     }
     index++;
-    String targetCalendarName = tokens[index++];
+    String targetCalendarName = tokens.get(index++);
     index++;
-    LocalDateTime targetStartDateTime = dateTimeUtils.parseDateToDateTime((tokens[index]));
-    calendarManager.copyCalendarEvents(
-            startDateTime, endDateTime, targetCalendarName, targetStartDateTime);
-
+    LocalDateTime targetStartDateTime = parseDate(tokens, index);
+    return new CopyEventsCmd(startDateTime, endDateTime, targetCalendarName,
+            targetStartDateTime);
   }
 
   /**
    * Input mapping functions for create event commands.
    *
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parseCreateEventCommand(String[] tokens) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
+  private Command compileCreateEventCommand(CommandTokenizer tokens) {
     int index = 2;
     boolean autoDecline = true;
     String eventName;
     LocalDateTime startDateTime;
     LocalDateTime endDateTime;
-    String recurringDays;
+    String recurringDays = null;
     int occurrences = 0;
     LocalDateTime endRecurringDateTime = null;
 
-    if (tokens[index].equals("--autoDecline")) {
+    if (tokens.is(index, "--autoDecline")) {
       autoDecline = true;
       index++;
     }
 
-    eventName = tokens[index++];
+    eventName = tokens.get(index++);
 
-    if (tokens[index].equals("from")) {
+    if (tokens.is(index, "from")) {
       // Handle "create event from ... to ..."
       index++;
-      startDateTime = dateTimeUtils.parseDateTime(tokens[index++]);
-      if (!tokens[index].equals("to")) {
+      startDateTime = parseDateTime(tokens, index++);
+      if (!tokens.is(index, "to")) {
         throw new IllegalArgumentException("Expected 'to' after start date/time.");
       }
       index++;
-      endDateTime = dateTimeUtils.parseDateTime(tokens[index++]);
-    } else if (tokens[index].equals("on")) {
+      endDateTime = parseDateTime(tokens, index++);
+    } else if (tokens.is(index, "on")) {
       // Handle "create event on ..."
       index++;
-      String startDateTimeString = tokens[index++];
-      try {
-        startDateTime = dateTimeUtils.parseDateTime(startDateTimeString);
-      } catch (IllegalArgumentException e) {
-        startDateTime = dateTimeUtils.parseDateToDateTime(startDateTimeString);
-      }
+      startDateTime = parseDateOrDateTime(tokens, index++, false);
       endDateTime = startDateTime.toLocalDate().atTime(LocalTime.of(23, 59));
     } else {
       throw new IllegalArgumentException("Expected 'from' or 'on' after event name.");
     }
 
     // Handle recurring events
-    if (index < tokens.length && tokens[index].equals("repeats")) {
+    if (index < tokens.size() && tokens.is(index, "repeats")) {
       index++;
-      recurringDays = tokens[index++];
-      if (index >= tokens.length || (!tokens[index].equals("for") &&
-              !tokens[index].equals("until"))) {
+      recurringDays = tokens.get(index++);
+      if (index >= tokens.size() || (!tokens.is(index, "for") &&
+              !tokens.is(index, "until"))) {
         throw new IllegalArgumentException("Expected 'for' or 'until' after weekdays.");
       }
-      if (tokens[index].equals("for")) {
+      if (tokens.is(index, "for")) {
         index++;
-        occurrences = Integer.parseInt(tokens[index++]);
+        occurrences = Integer.parseInt(tokens.get(index++));
       } else {
         index++;
-        String endDateTimeString = tokens[index++];
-        try {
-          endRecurringDateTime = dateTimeUtils.parseDateTime(endDateTimeString);
-        } catch (IllegalArgumentException e) {
-          endRecurringDateTime = dateTimeUtils.parseDateToDateTime(endDateTimeString);
-          endRecurringDateTime = endRecurringDateTime.toLocalDate().atTime(LocalTime.of(23, 59));
-        }
+        endRecurringDateTime = parseDateOrDateTime(tokens, index++, true);
       }
-      calendar.setAutoDeclineConflicts(autoDecline);
-      calendar.addRecurringEvents(eventName, "", startDateTime, endDateTime,
-              endRecurringDateTime, recurringDays, occurrences);
-    } else {
-      calendar.setAutoDeclineConflicts(autoDecline);
-      calendar.addEvent(eventName, "", startDateTime, endDateTime);
     }
+    return new CreateEventCmd(autoDecline, eventName, startDateTime, endDateTime, recurringDays,
+            occurrences, endRecurringDateTime);
   }
 
   /**
    * Input mapping functions for edit event commands.
    *
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parseEditEventCommand(String[] tokens) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
+  private Command compileEditEventCommand(CommandTokenizer tokens) {
     int index = 2;
-    String propertyName = tokens[index++];
-    String eventName = tokens[index++];
+    String propertyName = tokens.get(index++);
+    String eventName = tokens.get(index++);
     LocalDateTime startDateTime;
     LocalDateTime endDateTime;
 
-    if (tokens[index].equals("from")) {
+    if (tokens.is(index, "from")) {
       index++;
-      startDateTime = dateTimeUtils.parseDateTime(tokens[index++]);
-      if (!tokens[index].equals("to")) {
+      startDateTime = parseDateTime(tokens, index++);
+      if (!tokens.is(index, "to")) {
         throw new IllegalArgumentException("Expected 'to' after start date/time.");
       }
       index++;
-      endDateTime = dateTimeUtils.parseDateTime(tokens[index++]);
+      endDateTime = parseDateTime(tokens, index++);
     } else {
       throw new IllegalArgumentException("Expected 'from' after event name.");
     }
 
-    if (!tokens[index].equals("with")) {
+    if (!tokens.is(index, "with")) {
       throw new IllegalArgumentException("Expected 'with' after end date/time.");
     }
     index++;
-    String newValue = tokens[index++];
-    calendar.editEventSingle(eventName, startDateTime, endDateTime, propertyName, newValue);
+    String newValue = tokens.get(index++);
+    return new EditEventCmd(propertyName, eventName, startDateTime, endDateTime, newValue);
   }
 
   /**
    * Input mapping functions for edit recurring event commands.
    *
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parseEditEventsCommand(String[] tokens) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
+  private Command compileEditEventsCommand(CommandTokenizer tokens) {
     int index = 2;
-    String propertyName = tokens[index++];
-    String eventName = tokens[index++];
+    String propertyName = tokens.get(index++);
+    String eventName = tokens.get(index++);
     LocalDateTime startDateTime = null;
     String newValue = "";
 
-    if (tokens[index].equals("from")) {
+    if (tokens.is(index, "from")) {
       index++;
-      startDateTime = dateTimeUtils.parseDateTime(tokens[index++]);
-      if (!tokens[index].equals("with")) {
+      startDateTime = parseDateTime(tokens, index++);
+      if (!tokens.is(index, "with")) {
         throw new IllegalArgumentException("Expected 'with' after start date/time.");
       }
       index++;
     }
 
-    newValue = tokens[index++];
-    calendar.editEventRecurring(eventName, startDateTime, propertyName, newValue);
+    newValue = tokens.get(index++);
+    return new EditEventsCmd(propertyName, eventName, startDateTime, newValue);
   }
 
   /**
    * Input mapping functions for print commands.
    *
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parsePrintEventsCommand(String[] tokens) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
+  private Command compilePrintEventsCommand(CommandTokenizer tokens) {
     int index = 2;
     LocalDateTime startDateTime;
     LocalDateTime endDateTime = null;
 
-    if (tokens[index].equals("on")) {
+    if (tokens.is(index, "on")) {
       index++;
-      startDateTime = dateTimeUtils.parseDateToDateTime(tokens[index++]);
-    } else if (tokens[index].equals("from")) {
+      startDateTime = parseDate(tokens, index++);
+    } else if (tokens.is(index, "from")) {
       index++;
-      startDateTime = dateTimeUtils.parseDateTime(tokens[index++]);
-      if (!tokens[index].equals("to")) {
+      startDateTime = parseDateTime(tokens, index++);
+      if (!tokens.is(index, "to")) {
         throw new IllegalArgumentException("Expected 'to' after start date/time.");
       }
       index++;
-      endDateTime = dateTimeUtils.parseDateTime(tokens[index++]);
+      endDateTime = parseDateTime(tokens, index++);
     } else {
       throw new IllegalArgumentException("Expected 'on' or 'from' after 'print events'.");
     }
 
-    calendar.printEvents(startDateTime, endDateTime);
+    return new PrintEventsCmd(startDateTime, endDateTime);
+  }
+
+  /**
+   * Input mapping functions for export commands. A trailing --parallel formats the file on all
+   * cores.
+   *
+   * @param tokens the given input parameters.
+   * @return the compiled command.
+   */
+  private Command compileExportCalCommand(CommandTokenizer tokens) {
+    String fileName = tokens.get(2);
+    boolean parallel = false;
+    Long watermark = null;
+    LocalDateTime from = null;
+    LocalDateTime to = null;
+    for (int i = 3; i < tokens.size(); i++) {
+      if (tokens.is(i, "--parallel")) {
+        parallel = true;
+      } else if (tokens.is(i, "--since") && i + 1 < tokens.size()) {
+        watermark = parseWatermark(tokens.get(++i));
+      } else if (tokens.is(i, "--from") && i + 1 < tokens.size()) {
+        from = parseRangeBound(tokens.get(++i), false);
+      } else if (tokens.is(i, "--to") && i + 1 < tokens.size()) {
+        to = parseRangeBound(tokens.get(++i), true);
+      } else {
+        throw new IllegalArgumentException("Unknown export option: " + tokens.get(i));
+      }
+    }
+    if (watermark != null && (from != null || to != null)) {
+      throw new IllegalArgumentException("--since cannot be combined with --from or --to.");
+    }
+    return new ExportCalCmd(fileName, fileFormat(fileName), isCompressed(fileName), parallel,
+            watermark, from, to);
+  }
+
+  private static long parseWatermark(String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid watermark: " + value);
+    }
+  }
+
+  /**
+   * Parse an export range bound given as a date or a date time. A date starts the range at the
+   * start of the day, or ends it at the end of the day.
+   *
+   * @param value the given date or date time string.
+   * @param end   whether the bound ends the range.
+   * @return the bound.
+   */
+  private LocalDateTime parseRangeBound(String value, boolean end) {
+    if (value.contains("T")) {
+      return dateTimeUtils.parseDateTime(value);
+    }
+    LocalDateTime date = dateTimeUtils.parseDateToDateTime(value);
+    return end ? dateTimeUtils.convertToEODDateTime(date) : date;
+  }
+
+  private static boolean isCompressed(String fileName) {
+    return fileName.toLowerCase(Locale.ROOT).endsWith(".gz");
+  }
+
+  /**
+   * Get the format of a file from its extension, ignoring a trailing .gz.
+   *
+   * @param fileName the given file name.
+   * @return the format, csv when the file has no extension.
+   */
+  private static String fileFormat(String fileName) {
+    String name = isCompressed(fileName) ? fileName.substring(0, fileName.length() - 3)
+            : fileName;
+    int dotIndex = name.lastIndexOf('.');
+    if (dotIndex != -1 && dotIndex < name.length() - 1) {
+      return name.substring(dotIndex + 1);
+    }
+    return "csv";
   }
 
   /**
-   * Input mapping functions for export commands.
+   * Input mapping functions for import calendar commands.
    *
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parseExportCalCommand(String[] tokens) {
-    Calendar calendar = calendarManager.getActiveCalendar();
-    String fileName = tokens[2];
+  private Command compileImportCalCommand(CommandTokenizer tokens) {
+    if (tokens.size() < 3) {
+      throw new IllegalArgumentException("Missing file name for import.");
+    }
+    String fileName = tokens.get(2);
+    boolean parallel = false;
+    boolean skipExisting = false;
+    for (int i = 3; i < tokens.size(); i++) {
+      if (tokens.is(i, "--parallel")) {
+        parallel = true;
+      } else if (tokens.is(i, "--skip-existing")) {
+        skipExisting = true;
+      } else {
+        throw new IllegalArgumentException("Unknown import option: " + tokens.get(i));
+      }
+    }
+    return new ImportCalCmd(fileName, fileFormat(fileName), isCompressed(fileName), parallel,
+            skipExisting);
+  }
 
-    String format = "csv";
-    int dotIndex = fileName.lastIndexOf('.');
-    if (dotIndex != -1 && dotIndex < fileName.length() - 1) {
-      format = fileName.substring(dotIndex + 1);
+  /**
+   * Input mapping function for the batch commands {@code begin batch}, {@code commit} and
+   * {@code rollback}.
+   *
+   * @param tokens      the given input parameters.
+   * @param commandType the batch command type.
+   * @return the compiled command.
+   */
+  private Command compileBatchCommand(CommandTokenizer tokens, CommandType commandType) {
+    int size = commandType == CommandType.BEGIN_BATCH ? 2 : 1;
+    if (tokens.size() > size) {
+      throw new IllegalArgumentException("Unexpected argument after '" + commandType + "': "
+              + tokens.get(size));
     }
+    return new BatchCmd(commandType);
+  }
 
-    ExportEvents exporter = EventsExporterFactory.getExporter(format);
-    String exportedContent = exporter.exportEvents(calendar.getEventManager());
+  /**
+   * Input mapping functions for show metrics commands.
+   *
+   * @param tokens the given input parameters.
+   * @return the compiled command.
+   */
+  private Command compileShowMetricsCommand(CommandTokenizer tokens) {
+    if (tokens.size() > 2) {
+      throw new IllegalArgumentException("Unexpected argument after 'show metrics': "
+              + tokens.get(2));
+    }
+    return new ShowMetricsCmd(metrics);
+  }
 
-    try (java.io.PrintWriter out = new java.io.PrintWriter(fileName)) {
-      out.print(exportedContent);
-    } catch (Exception e) {
-      throw new IllegalArgumentException("Error exporting calendar: " + e.getMessage(), e);
+  /**
+   * Input mapping functions for discard tombstones commands.
+   *
+   * @param tokens the given input parameters.
+   * @return the compiled command.
+   */
+  private Command compileDiscardTombstonesCommand(CommandTokenizer tokens) {
+    if (tokens.size() != 3) {
+      throw new IllegalArgumentException("Expected 'discard tombstones <watermark>'.");
     }
+    return new DiscardTombstonesCmd(parseWatermark(tokens.get(2)));
   }
 
   /**
    * Input mapping functions for show status commands.
    *
    * @param tokens the given input parameters.
+   * @return the compiled command.
    */
-  private void parseShowStatusCommand(String[] tokens) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
-    LocalDateTime date = dateTimeUtils.parseDateTime((tokens[3]));
-    calendar.isBusy(date);
+  private Command compileShowStatusCommand(CommandTokenizer tokens) {
+    LocalDateTime date = parseDateTime(tokens, 3);
+    return new ShowStatusCmd(date);
   }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package calendar.controller;
+
+import java.util.Arrays;
+
+/**
+ * Splits a command line into whitespace separated tokens by recording the start and end offset
+ * of each token, without a regex and without creating a string per token. Keywords are matched
+ * against the input in place; only argument values that are kept, such as event names, are
+ * copied into strings. Whitespace is the same set {@code \s} matches: space, tab, line feed,
+ * vertical tab, form feed and carriage return.
+ *
+ * <p>A tokenizer is reused for every command of a controller, so it is not thread safe.</p>
+ */
+public class CommandTokenizer {
+  private CharSequence input = "";
+  private int[] starts = new int[16];
+  private int[] ends = new int[16];
+  private int size;
+
+  /**
+   * Scan a command line, replacing the tokens of the previous one.
+   *
+   * @param line the given command line.
+   * @return this tokenizer.
+   */
+  public CommandTokenizer reset(CharSequence line) {
+    input = line;
+    size = 0;
+    int length = line.length();
+    int i = 0;
+    while (true) {
+      while (i < length && isWhitespace(line.charAt(i))) {
+        i++;
+      }
+      if (i == length) {
+        return this;
+      }
+      int start = i;
+      while (i < length && !isWhitespace(line.charAt(i))) {
+        i++;
+      }
+      if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+        ends = Arrays.copyOf(ends, size * 2);
+      }
+      starts[size] = start;
+      ends[size] = i;
+      size++;
+    }
+  }
+
+  /**
+   * Get the number of tokens.
+   *
+   * @return the token count.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Check if a token equals a keyword, comparing the characters in place.
+   *
+   * @param index   the token index.
+   * @param keyword the given keyword.
+   * @return true if the token exists and equals the keyword.
+   */
+  public boolean is(int index, String keyword) {
+    if (index >= size || ends[index] - starts[index] != keyword.length()) {
+      return false;
+    }
+    int start = starts[index];
+    for (int i = 0; i < keyword.length(); i++) {
+      if (input.charAt(start + i) != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get a token as a string.
+   *
+   * @param index the token index.
+   * @return the token.
+   * @throws IllegalArgumentException if the command has fewer tokens.
+   */
+  public String get(int index) {
+    checkIndex(index);
+    return input.subSequence(starts[index], ends[index]).toString();
+  }
+
+  /**
+   * Get the offset of the first character of a token.
+   *
+   * @param index the token index.
+   * @return the start offset in the input.
+   * @throws IllegalArgumentException if the command has fewer tokens.
+   */
+  public int start(int index) {
+    checkIndex(index);
+    return starts[index];
+  }
+
+  /**
+   * Get the offset after the last character of a token.
+   *
+   * @param index the token index.
+   * @return the end offset in the input.
+   * @throws IllegalArgumentException if the command has fewer tokens.
+   */
+  public int end(int index) {
+    checkIndex(index);
+    return ends[index];
+  }
+
+  /**
+   * Get the scanned command line.
+   *
+   * @return the input the offsets refer to.
+   */
+  public CharSequence input() {
+    return input;
+  }
+
+  private void checkIndex(int index) {
+    if (index >= size) {
+      throw new IllegalArgumentException("Incomplete command: missing argument " + (index + 1)
+              + " of '" + input.toString().trim() + "'.");
+    }
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || (c >= '\t' && c <= '\r');
+  }
+}
@@ -0,0 +1,68 @@
+package calendar.controller;
+
+/**
+ * The commands understood by {@link CommandController}, identified by their first two keywords,
+ * or by a single keyword for commands without a noun.
+ */
+public enum CommandType {
+  CREATE_CALENDAR("create", "calendar", true),
+  EDIT_CALENDAR("edit", "calendar", true),
+  USE_CALENDAR("use", "calendar", true),
+  COPY_EVENT("copy", "event", true),
+  COPY_EVENTS("copy", "events", true),
+  CREATE_EVENT("create", "event", true),
+  EDIT_EVENT("edit", "event", true),
+  EDIT_EVENTS("edit", "events", true),
+  PRINT_EVENTS("print", "events", false),
+  EXPORT_CAL("export", "cal", false),
+  IMPORT_CAL("import", "cal", true),
+  SHOW_STATUS("show", "status", false),
+  SHOW_METRICS("show", "metrics", false),
+  DISCARD_TOMBSTONES("discard", "tombstones", false),
+  BEGIN_BATCH("begin", "batch", false),
+  COMMIT("commit", null, false),
+  ROLLBACK("rollback", null, false);
+
+  private static final CommandType[] TYPES = values();
+  private final String verb;
+  private final String noun;
+  private final boolean stateChanging;
+
+  CommandType(String verb, String noun, boolean stateChanging) {
+    this.verb = verb;
+    this.noun = noun;
+    this.stateChanging = stateChanging;
+  }
+
+  /**
+   * Find the command a tokenized line starts with, comparing keywords in place. Commands without
+   * a noun match on their keyword alone, so that the compiler can report trailing tokens.
+   *
+   * @param tokens the tokenized command line.
+   * @return the command type, or null if the first two tokens name no command.
+   */
+  public static CommandType of(CommandTokenizer tokens) {
+    for (CommandType type : TYPES) {
+      if ((type.noun == null || tokens.is(1, type.noun)) && tokens.is(0, type.verb)) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Check if the command changes calendar state and therefore has to be journaled. The active
+   * calendar counts as state, since later commands depend on it. Batch commands do not count:
+   * the commands of a batch are journaled when it is committed.
+   *
+   * @return true if the command changes calendar state.
+   */
+  public boolean isStateChanging() {
+    return stateChanging;
+  }
+
+  @Override
+  public String toString() {
+    return noun == null ? verb : verb + " " + noun;
+  }
+}
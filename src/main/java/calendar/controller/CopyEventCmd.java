@@ -0,0 +1,42 @@
+package calendar.controller;
+
+import java.time.LocalDateTime;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Copies one event of the active calendar to another calendar.
+ */
+final class CopyEventCmd implements Command {
+  private final String eventName;
+  private final LocalDateTime start;
+  private final String targetCalendarName;
+  private final LocalDateTime targetStart;
+
+  /**
+   * Construct the command.
+   *
+   * @param eventName          the given event name.
+   * @param start              the start of the event.
+   * @param targetCalendarName the calendar to copy to.
+   * @param targetStart        the start of the copy.
+   */
+  CopyEventCmd(String eventName, LocalDateTime start, String targetCalendarName,
+               LocalDateTime targetStart) {
+    this.eventName = eventName;
+    this.start = start;
+    this.targetCalendarName = targetCalendarName;
+    this.targetStart = targetStart;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.COPY_EVENT;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    calendarManager.copyCalendarEvent(eventName, start, targetCalendarName, targetStart);
+  }
+}
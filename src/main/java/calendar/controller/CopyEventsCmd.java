@@ -0,0 +1,42 @@
+package calendar.controller;
+
+import java.time.LocalDateTime;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Copies the events of the active calendar within a range of days to another calendar.
+ */
+final class CopyEventsCmd implements Command {
+  private final LocalDateTime start;
+  private final LocalDateTime end;
+  private final String targetCalendarName;
+  private final LocalDateTime targetStart;
+
+  /**
+   * Construct the command.
+   *
+   * @param start              the start of the range.
+   * @param end                the end of the range.
+   * @param targetCalendarName the calendar to copy to.
+   * @param targetStart        the day the range is copied to.
+   */
+  CopyEventsCmd(LocalDateTime start, LocalDateTime end, String targetCalendarName,
+                LocalDateTime targetStart) {
+    this.start = start;
+    this.end = end;
+    this.targetCalendarName = targetCalendarName;
+    this.targetStart = targetStart;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.COPY_EVENTS;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    calendarManager.copyCalendarEvents(start, end, targetCalendarName, targetStart);
+  }
+}
@@ -0,0 +1,42 @@
+package calendar.controller;
+
+import java.time.ZoneId;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Creates a calendar, optionally on a chosen storage backend.
+ */
+final class CreateCalendarCmd implements Command {
+  private final String name;
+  private final ZoneId timezone;
+  private final String storage;
+
+  /**
+   * Construct the command.
+   *
+   * @param name     the given calendar name.
+   * @param timezone the given timezone.
+   * @param storage  the storage backend, or null for the default one.
+   */
+  CreateCalendarCmd(String name, ZoneId timezone, String storage) {
+    this.name = name;
+    this.timezone = timezone;
+    this.storage = storage;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.CREATE_CALENDAR;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    if (storage == null) {
+      calendarManager.createCalendar(name, timezone);
+    } else {
+      calendarManager.createCalendar(name, timezone, storage);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package calendar.controller;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import calendar.manager.ICalendarManager;
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+import calendar.utils.EventUtils;
+import calendar.view.CommandOutput;
+
+/**
+ * Creates a single or a recurring event in the active calendar.
+ */
+final class CreateEventCmd implements Command {
+  private final boolean autoDecline;
+  private final String eventName;
+  private final LocalDateTime start;
+  private final LocalDateTime end;
+  private final String recurringDays;
+  private final int occurrences;
+  private final LocalDateTime endRecurring;
+
+  /**
+   * Construct the command.
+   *
+   * @param autoDecline   whether conflicting events are declined.
+   * @param eventName     the given event name.
+   * @param start         the start of the (first) event.
+   * @param end           the end of the (first) event.
+   * @param recurringDays the weekdays the event repeats on, or null for a single event.
+   * @param occurrences   the number of occurrences, or 0 when repeating until a date.
+   * @param endRecurring  the date the event repeats until, or null.
+   */
+  CreateEventCmd(boolean autoDecline, String eventName, LocalDateTime start, LocalDateTime end,
+                 String recurringDays, int occurrences, LocalDateTime endRecurring) {
+    this.autoDecline = autoDecline;
+    this.eventName = eventName;
+    this.start = start;
+    this.end = end;
+    this.recurringDays = recurringDays;
+    this.occurrences = occurrences;
+    this.endRecurring = endRecurring;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.CREATE_EVENT;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    ICalendar calendar = calendarManager.getActiveCalendar();
+    calendar.setAutoDeclineConflicts(autoDecline);
+    if (recurringDays != null) {
+      calendar.addRecurringEvents(eventName, "", start, end, endRecurring, recurringDays,
+              occurrences);
+    } else {
+      calendar.addEvent(eventName, "", start, end);
+    }
+  }
+
+  /**
+   * Check whether conflicting events are declined.
+   *
+   * @return true if conflicts are declined.
+   */
+  boolean isAutoDecline() {
+    return autoDecline;
+  }
+
+  /**
+   * Expand the command into the events it creates, one per day for a single event spanning
+   * days and one per occurrence for a recurring event, as executing it would store them.
+   *
+   * @param eventUtils the utilities splitting the events.
+   * @return the events to store.
+   * @throws IllegalArgumentException if the times are invalid.
+   */
+  List<IEvent> expand(EventUtils eventUtils) {
+    if (recurringDays != null) {
+      return eventUtils.generateRecurringEvents(eventName, "", start, end, endRecurring,
+              recurringDays, occurrences);
+    }
+    return eventUtils.splitIntoDays(eventName, "", start, end);
+  }
+}
@@ -0,0 +1,32 @@
+package calendar.controller;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Drops the tombstones of the active calendar up to a watermark every change consumer has
+ * exported, so removed events stop taking memory. Exports since an older watermark start over
+ * with a reset afterwards.
+ */
+final class DiscardTombstonesCmd implements Command {
+  private final long watermark;
+
+  /**
+   * Construct the command.
+   *
+   * @param watermark the sequence up to which tombstones are dropped.
+   */
+  DiscardTombstonesCmd(long watermark) {
+    this.watermark = watermark;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.DISCARD_TOMBSTONES;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    calendarManager.getActiveCalendar().getEventManager().discardTombstones(watermark);
+  }
+}
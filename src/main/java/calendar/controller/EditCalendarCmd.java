@@ -0,0 +1,36 @@
+package calendar.controller;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Changes the name or the timezone of a calendar.
+ */
+final class EditCalendarCmd implements Command {
+  private final String name;
+  private final String property;
+  private final String value;
+
+  /**
+   * Construct the command.
+   *
+   * @param name     the given calendar name.
+   * @param property the property to edit.
+   * @param value    the new value.
+   */
+  EditCalendarCmd(String name, String property, String value) {
+    this.name = name;
+    this.property = property;
+    this.value = value;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.EDIT_CALENDAR;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    calendarManager.editCalendarProperty(name, property, value);
+  }
+}
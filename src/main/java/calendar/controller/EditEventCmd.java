@@ -0,0 +1,45 @@
+package calendar.controller;
+
+import java.time.LocalDateTime;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Edits a property of one event of the active calendar.
+ */
+final class EditEventCmd implements Command {
+  private final String property;
+  private final String eventName;
+  private final LocalDateTime start;
+  private final LocalDateTime end;
+  private final String value;
+
+  /**
+   * Construct the command.
+   *
+   * @param property  the property to edit.
+   * @param eventName the given event name.
+   * @param start     the start of the event.
+   * @param end       the end of the event.
+   * @param value     the new value.
+   */
+  EditEventCmd(String property, String eventName, LocalDateTime start, LocalDateTime end,
+               String value) {
+    this.property = property;
+    this.eventName = eventName;
+    this.start = start;
+    this.end = end;
+    this.value = value;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.EDIT_EVENT;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    calendarManager.getActiveCalendar().editEventSingle(eventName, start, end, property, value);
+  }
+}
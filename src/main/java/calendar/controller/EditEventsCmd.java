@@ -0,0 +1,42 @@
+package calendar.controller;
+
+import java.time.LocalDateTime;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Edits a property of all events of a series in the active calendar, optionally only from a
+ * start onwards.
+ */
+final class EditEventsCmd implements Command {
+  private final String property;
+  private final String eventName;
+  private final LocalDateTime start;
+  private final String value;
+
+  /**
+   * Construct the command.
+   *
+   * @param property  the property to edit.
+   * @param eventName the given event name.
+   * @param start     the first event to edit, or null for all of them.
+   * @param value     the new value.
+   */
+  EditEventsCmd(String property, String eventName, LocalDateTime start, String value) {
+    this.property = property;
+    this.eventName = eventName;
+    this.start = start;
+    this.value = value;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.EDIT_EVENTS;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    calendarManager.getActiveCalendar().editEventRecurring(eventName, start, property, value);
+  }
+}
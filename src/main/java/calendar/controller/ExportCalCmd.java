@@ -0,0 +1,111 @@
+package calendar.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.GZIPOutputStream;
+
+import calendar.manager.ICalendarManager;
+import calendar.model.Calendar;
+import calendar.utils.EventsExporterFactory;
+import calendar.utils.ExportCSV;
+import calendar.utils.ExportEvents;
+import calendar.view.CommandOutput;
+
+/**
+ * Exports the active calendar to a file, either completely, within a range, or as the changes
+ * since a watermark.
+ */
+final class ExportCalCmd implements Command {
+  private final String fileName;
+  private final String format;
+  private final boolean compressed;
+  private final boolean parallel;
+  private final Long watermark;
+  private final LocalDateTime from;
+  private final LocalDateTime to;
+
+  /**
+   * Construct the command.
+   *
+   * @param fileName   the given file name.
+   * @param format     the file format.
+   * @param compressed whether the file is gzip compressed.
+   * @param parallel   whether the file is formatted on all cores.
+   * @param watermark  the watermark to export the changes since, or null for the events.
+   * @param from       the start of the exported range, or null.
+   * @param to         the end of the exported range, or null.
+   */
+  ExportCalCmd(String fileName, String format, boolean compressed, boolean parallel,
+               Long watermark, LocalDateTime from, LocalDateTime to) {
+    this.fileName = fileName;
+    this.format = format;
+    this.compressed = compressed;
+    this.parallel = parallel;
+    this.watermark = watermark;
+    this.from = from;
+    this.to = to;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.EXPORT_CAL;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    Calendar calendar = calendarManager.getActiveCalendar();
+    if (watermark != null) {
+      exportChanges(calendar, output);
+      return;
+    }
+
+    ZoneId zone = calendar.getTimeZone();
+    ExportEvents exporter = parallel ? EventsExporterFactory.getParallelExporter(format, zone)
+            : EventsExporterFactory.getExporter(format, zone);
+    try (FileChannel out = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      if (compressed) {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(out),
+                CommandController.GZIP_BUFFER_SIZE)) {
+          exporter.export(calendar.getEventManager(), from, to, Channels.newChannel(gzip));
+        }
+      } else {
+        exporter.export(calendar.getEventManager(), from, to, out);
+      }
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Error exporting calendar: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Export the changes since the watermark and print the watermark for the next export.
+   *
+   * @param calendar the calendar to export.
+   * @param output   the output receiving the next watermark.
+   */
+  private void exportChanges(Calendar calendar, CommandOutput output) {
+    if (!"csv".equalsIgnoreCase(format)) {
+      throw new IllegalArgumentException("Change export is only supported for csv files.");
+    }
+    try (OutputStream file = Files.newOutputStream(Paths.get(fileName));
+         Writer writer = new BufferedWriter(new OutputStreamWriter(compressed
+                 ? new GZIPOutputStream(file, CommandController.GZIP_BUFFER_SIZE) : file,
+                 StandardCharsets.UTF_8), CommandController.GZIP_BUFFER_SIZE)) {
+      long next = new ExportCSV().exportChanges(calendar.getEventManager(), watermark, writer);
+      output.watermark(next);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Error exporting calendar: " + e.getMessage(), e);
+    }
+  }
+}
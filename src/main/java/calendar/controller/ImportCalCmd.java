@@ -0,0 +1,70 @@
+package calendar.controller;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+import calendar.manager.ICalendarManager;
+import calendar.model.Calendar;
+import calendar.utils.EventsImporterFactory;
+import calendar.utils.ImportEvents;
+import calendar.view.CommandOutput;
+
+/**
+ * Imports the events of a file into the active calendar.
+ */
+final class ImportCalCmd implements Command {
+  private final String fileName;
+  private final String format;
+  private final boolean compressed;
+  private final boolean parallel;
+  private final boolean skipExisting;
+
+  /**
+   * Construct the command.
+   *
+   * @param fileName     the given file name.
+   * @param format       the file format.
+   * @param compressed   whether the file is gzip compressed.
+   * @param parallel     whether the file is parsed on all cores.
+   * @param skipExisting whether events already in the calendar are skipped.
+   */
+  ImportCalCmd(String fileName, String format, boolean compressed, boolean parallel,
+               boolean skipExisting) {
+    this.fileName = fileName;
+    this.format = format;
+    this.compressed = compressed;
+    this.parallel = parallel;
+    this.skipExisting = skipExisting;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.IMPORT_CAL;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    Calendar calendar = calendarManager.getActiveCalendar();
+    ImportEvents importer = parallel
+            ? EventsImporterFactory.getParallelImporter(format, skipExisting)
+            : EventsImporterFactory.getImporter(format, skipExisting);
+    try {
+      if (compressed) {
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(
+                Files.newInputStream(Paths.get(fileName)), CommandController.GZIP_BUFFER_SIZE),
+                StandardCharsets.UTF_8)) {
+          importer.importEvents(reader, calendar);
+        }
+      } else {
+        importer.importEvents(Paths.get(fileName), calendar);
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Error importing calendar: " + e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package calendar.controller;
+
+import java.time.LocalDateTime;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Prints the events of the active calendar on a day or within a range.
+ */
+final class PrintEventsCmd implements Command {
+  private final LocalDateTime start;
+  private final LocalDateTime end;
+
+  /**
+   * Construct the command.
+   *
+   * @param start the day or the start of the range.
+   * @param end   the end of the range, or null to print one day.
+   */
+  PrintEventsCmd(LocalDateTime start, LocalDateTime end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.PRINT_EVENTS;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    calendarManager.getActiveCalendar().printEvents(start, end, output);
+  }
+}
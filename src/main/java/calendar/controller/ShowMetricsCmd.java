@@ -0,0 +1,31 @@
+package calendar.controller;
+
+import calendar.manager.ICalendarManager;
+import calendar.utils.MetricsRegistry;
+import calendar.view.CommandOutput;
+
+/**
+ * Shows the counts and latencies of the commands executed so far.
+ */
+final class ShowMetricsCmd implements Command {
+  private final MetricsRegistry metrics;
+
+  /**
+   * Construct the command.
+   *
+   * @param metrics the registry to show.
+   */
+  ShowMetricsCmd(MetricsRegistry metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.SHOW_METRICS;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    output.metrics(metrics);
+  }
+}
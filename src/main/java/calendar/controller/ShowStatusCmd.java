@@ -0,0 +1,32 @@
+package calendar.controller;
+
+import java.time.LocalDateTime;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Shows whether the active calendar is busy at a time.
+ */
+final class ShowStatusCmd implements Command {
+  private final LocalDateTime dateTime;
+
+  /**
+   * Construct the command.
+   *
+   * @param dateTime the time to check.
+   */
+  ShowStatusCmd(LocalDateTime dateTime) {
+    this.dateTime = dateTime;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.SHOW_STATUS;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    calendarManager.getActiveCalendar().isBusy(dateTime, output);
+  }
+}
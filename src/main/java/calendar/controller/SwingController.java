@@ -1,14 +1,15 @@
 package calendar.controller;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.function.Supplier;
 
 import calendar.manager.ICalendarManager;
 import calendar.model.Calendar;
@@ -16,7 +17,9 @@ import calendar.model.ICalendar;
 import calendar.model.IEvent;
 import calendar.utils.DateTimeUtils;
 import calendar.utils.EventsExporterFactory;
+import calendar.utils.EventsImporterFactory;
 import calendar.utils.ExportEvents;
+import calendar.utils.MetricsRegistry;
 
 /**
  * The class for managing inputs commands to actual calendar operations coming from GUI.
@@ -26,6 +29,7 @@ public class SwingController {
   private ICalendarManager calendarManager;
   private String currentCalendar;
   private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+  private final MetricsRegistry metrics = MetricsRegistry.shared();
 
   /**
    * Initiating the controller taking in the CalendarManager.
@@ -48,12 +52,14 @@ public class SwingController {
    * @throws IllegalArgumentException
    */
   public void createCalendar(String calendarName, String timezone) throws IllegalArgumentException {
-    ZoneId calendarTimeZone = dateTimeUtils.parseZoneId(timezone);
-    calendarManager.createCalendar(calendarName, calendarTimeZone);
-    if (currentCalendar == null) {
-      currentCalendar = calendarName;
-      calendarManager.useCalendar(calendarName);
-    }
+    timed("createCalendar", () -> {
+      ZoneId calendarTimeZone = dateTimeUtils.parseZoneId(timezone);
+      calendarManager.createCalendar(calendarName, calendarTimeZone);
+      if (currentCalendar == null) {
+        currentCalendar = calendarName;
+        calendarManager.useCalendar(calendarName);
+      }
+    });
   }
 
   /**
@@ -64,10 +70,12 @@ public class SwingController {
    * @throws IllegalArgumentException
    */
   public void editCalendarProperty(String calendarName, String property, String value) throws IllegalArgumentException {
-    calendarManager.editCalendarProperty(calendarName, property, value);
-    if (property.equals("name") && currentCalendar.equals(calendarName)) {
-      currentCalendar = value;
-    }
+    timed("editCalendarProperty", () -> {
+      calendarManager.editCalendarProperty(calendarName, property, value);
+      if (property.equals("name") && currentCalendar.equals(calendarName)) {
+        currentCalendar = value;
+      }
+    });
   }
 
   /**
@@ -83,11 +91,13 @@ public class SwingController {
    * @param calendarName to use.
    */
   public void setCurrentCalendar(String calendarName) {
-    if (!calendarManager.getAllCalendarNames().contains(calendarName)) {
-      throw new IllegalArgumentException("Calendar does not exist: " + calendarName);
-    }
-    this.currentCalendar = calendarName;
-    calendarManager.useCalendar(calendarName);
+    timed("setCurrentCalendar", () -> {
+      if (!calendarManager.getAllCalendarNames().contains(calendarName)) {
+        throw new IllegalArgumentException("Calendar does not exist: " + calendarName);
+      }
+      this.currentCalendar = calendarName;
+      calendarManager.useCalendar(calendarName);
+    });
   }
 
   /**
@@ -114,10 +124,12 @@ public class SwingController {
    * @param endTimeStr end time of the event.
    */
   public void addEvent(String subject, String description, String startTimeStr, String endTimeStr) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
-    LocalDateTime startTime = LocalDateTime.parse(startTimeStr, formatter);
-    LocalDateTime endTime = LocalDateTime.parse(endTimeStr, formatter);
-    calendar.addEvent(subject, description, startTime, endTime);
+    timed("addEvent", () -> {
+      ICalendar calendar = calendarManager.getActiveCalendar();
+      LocalDateTime startTime = LocalDateTime.parse(startTimeStr, formatter);
+      LocalDateTime endTime = LocalDateTime.parse(endTimeStr, formatter);
+      calendar.addEvent(subject, description, startTime, endTime);
+    });
   }
 
   /**
@@ -132,11 +144,13 @@ public class SwingController {
    */
   public void addRecurringEvent(String subject, String description, String startTimeStr, 
                               String endTimeStr, String endRecurringStr, String recurringDays, int occurrences) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
-    LocalDateTime startTime = LocalDateTime.parse(startTimeStr, formatter);
-    LocalDateTime endTime = LocalDateTime.parse(endTimeStr, formatter);
-    LocalDateTime endRecurring = endRecurringStr.isEmpty() ? null : LocalDateTime.parse(endRecurringStr, formatter);
-    calendar.addRecurringEvents(subject, description, startTime, endTime, endRecurring, recurringDays, occurrences);
+    timed("addRecurringEvent", () -> {
+      ICalendar calendar = calendarManager.getActiveCalendar();
+      LocalDateTime startTime = LocalDateTime.parse(startTimeStr, formatter);
+      LocalDateTime endTime = LocalDateTime.parse(endTimeStr, formatter);
+      LocalDateTime endRecurring = endRecurringStr.isEmpty() ? null : LocalDateTime.parse(endRecurringStr, formatter);
+      calendar.addRecurringEvents(subject, description, startTime, endTime, endRecurring, recurringDays, occurrences);
+    });
   }
 
   /**
@@ -149,10 +163,12 @@ public class SwingController {
    */
   public void editEventSingle(String subject, String startTimeStr, String endTimeStr, 
                             String property, String newValue) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
-    LocalDateTime startTime = LocalDateTime.parse(startTimeStr, formatter);
-    LocalDateTime endTime = LocalDateTime.parse(endTimeStr, formatter);
-    calendar.editEventSingle(subject, startTime, endTime, property, newValue);
+    timed("editEventSingle", () -> {
+      ICalendar calendar = calendarManager.getActiveCalendar();
+      LocalDateTime startTime = LocalDateTime.parse(startTimeStr, formatter);
+      LocalDateTime endTime = LocalDateTime.parse(endTimeStr, formatter);
+      calendar.editEventSingle(subject, startTime, endTime, property, newValue);
+    });
   }
 
   /**
@@ -161,10 +177,12 @@ public class SwingController {
    * @return the total list of event on a date.
    */
   public List<IEvent> getEventsForDay(LocalDate date) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
-    LocalDateTime dayStart = date.atStartOfDay();
-    LocalDateTime dayEnd = date.atTime(23, 59);
-    return calendar.searchEvents(null, dayStart, dayEnd);
+    return timedQuery("getEventsForDay", () -> {
+      ICalendar calendar = calendarManager.getActiveCalendar();
+      LocalDateTime dayStart = date.atStartOfDay();
+      LocalDateTime dayEnd = date.atTime(23, 59);
+      return calendar.searchEvents(null, dayStart, dayEnd);
+    });
   }
 
   /**
@@ -174,10 +192,12 @@ public class SwingController {
    * @return the list of events in a month.
    */
   public List<IEvent> getEventsForMonth(LocalDate monthStart, LocalDate monthEnd) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
-    LocalDateTime start = monthStart.atStartOfDay();
-    LocalDateTime end = monthEnd.atTime(23, 59);
-    return calendar.searchEvents(null, start, end);
+    return timedQuery("getEventsForMonth", () -> {
+      ICalendar calendar = calendarManager.getActiveCalendar();
+      LocalDateTime start = monthStart.atStartOfDay();
+      LocalDateTime end = monthEnd.atTime(23, 59);
+      return calendar.searchEvents(null, start, end);
+    });
   }
 
   /**
@@ -185,16 +205,18 @@ public class SwingController {
    * @param fileName the name of the file to be named.
    */
   public void exportCalendarToCSV(String fileName) {
-    Calendar calendar = calendarManager.getActiveCalendar();
-    String format = "csv";
-    ExportEvents exporter = EventsExporterFactory.getExporter(format);
-    String exportedContent = exporter.exportEvents(calendar.getEventManager());
-
-    try (java.io.PrintWriter out = new java.io.PrintWriter(fileName)) {
-      out.print(exportedContent);
-    } catch (Exception e) {
-      throw new IllegalArgumentException("Error exporting calendar: " + e.getMessage(), e);
-    }
+    timed("exportCalendarToCSV", () -> {
+      Calendar calendar = calendarManager.getActiveCalendar();
+      String format = "csv";
+      ExportEvents exporter = EventsExporterFactory.getExporter(format,
+              calendar.getTimeZone());
+      try (FileChannel out = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        exporter.export(calendar.getEventManager(), out);
+      } catch (Exception e) {
+        throw new IllegalArgumentException("Error exporting calendar: " + e.getMessage(), e);
+      }
+    });
   }
 
   /**
@@ -202,45 +224,56 @@ public class SwingController {
    * @param fileName
    */
   public void importCalendarFromCSV(String fileName) {
-    ICalendar calendar = calendarManager.getActiveCalendar();
-    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-    DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
-
-    try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
-      String line;
-      boolean isFirstLine = true;
-      while ((line = br.readLine()) != null) {
-        if (isFirstLine) {
-          isFirstLine = false;
-          continue;
-        }
-        if (line.trim().isEmpty()) {
-          continue;
-        }
-        String[] tokens = line.split(",", -1);
-        if (tokens.length < 6) {
-          throw new IllegalArgumentException("Invalid CSV format: " + line);
-        }
-
-        String subject = tokens[0].trim();
-        String startDateStr = tokens[1].trim();
-        String startTimeStr = tokens[2].trim();
-        String endDateStr = tokens[3].trim();
-        String endTimeStr = tokens[4].trim();
-        String description = tokens[5].trim();
+    importCalendarFromCSV(fileName, false);
+  }
 
-        LocalDate startDate = LocalDate.parse(startDateStr, dateFormatter);
-        LocalTime startTime = LocalTime.parse(startTimeStr, timeFormatter);
-        LocalDateTime startDateTime = LocalDateTime.of(startDate, startTime);
+  /**
+   * Importing the csv file into the calendar, optionally skipping rows that are already in the
+   * calendar so the same file can be imported again.
+   * @param fileName the given file name.
+   * @param skipExisting whether rows already in the calendar are skipped.
+   * @return the number of imported events.
+   */
+  public int importCalendarFromCSV(String fileName, boolean skipExisting) {
+    return timedQuery("importCalendarFromCSV", () -> {
+      ICalendar calendar = calendarManager.getActiveCalendar();
+      try {
+        return EventsImporterFactory.getImporter("csv", skipExisting)
+                .importEvents(Paths.get(fileName), calendar);
+      } catch (IOException | RuntimeException ex) {
+        throw new RuntimeException(ex.getMessage(), ex);
+      }
+    });
+  }
 
-        LocalDate endDate = LocalDate.parse(endDateStr, dateFormatter);
-        LocalTime endTime = LocalTime.parse(endTimeStr, timeFormatter);
-        LocalDateTime endDateTime = LocalDateTime.of(endDate, endTime);
+  /**
+   * Run a GUI operation, recording its latency under "gui" and its name.
+   * @param name the name of the operation.
+   * @param operation the operation.
+   */
+  private void timed(String name, Runnable operation) {
+    timedQuery(name, () -> {
+      operation.run();
+      return null;
+    });
+  }
 
-        calendar.addEvent(subject, description, startDateTime, endDateTime);
-      }
-    } catch (IOException | RuntimeException ex) {
-      throw new RuntimeException(ex.getMessage(), ex);
+  /**
+   * Run a GUI operation returning a result, recording its latency under "gui" and its name.
+   * @param name the name of the operation.
+   * @param operation the operation.
+   * @return the result of the operation.
+   */
+  private <T> T timedQuery(String name, Supplier<T> operation) {
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      T result = operation.get();
+      failed = false;
+      return result;
+    } finally {
+      // GUI operations are few and slow enough to time every one
+      metrics.timer("gui " + name).record(System.nanoTime() - start, failed);
     }
   }
 
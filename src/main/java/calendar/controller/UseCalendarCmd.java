@@ -0,0 +1,30 @@
+package calendar.controller;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Makes a calendar the active one.
+ */
+final class UseCalendarCmd implements Command {
+  private final String name;
+
+  /**
+   * Construct the command.
+   *
+   * @param name the given calendar name.
+   */
+  UseCalendarCmd(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public CommandType getType() {
+    return CommandType.USE_CALENDAR;
+  }
+
+  @Override
+  public void execute(ICalendarManager calendarManager, CommandOutput output) {
+    calendarManager.useCalendar(name);
+  }
+}
@@ -4,7 +4,12 @@ import calendar.model.Calendar;
 import calendar.model.ICalendar;
 import calendar.model.IEvent;
 import calendar.utils.DateTimeUtils;
+import calendar.utils.jfr.FlightEvents;
+import calendar.utils.jfr.TimezoneRewriteEvent;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -14,12 +19,14 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Manager class for handling multiple calendars.
+ * Manager class for handling multiple calendars. Closing the manager closes the event stores
+ * of its calendars.
  */
-public class CalendarManager implements ICalendarManager {
+public class CalendarManager implements ICalendarManager, Closeable {
   private Map<String, ICalendar> calendarMap;
   private DateTimeUtils dateTimeUtils;
   private String activeCalendarName;
+  private Path storageDirectory;
 
   /**
    * Create a new calendar manager.
@@ -44,6 +51,52 @@ public class CalendarManager implements ICalendarManager {
     calendarMap.put(name, calendar);
   }
 
+  /**
+   * Create a new calendar with the specified name and timezone, storing its events in the given
+   * storage backend. File backed stores keep their files in the storage directory.
+   *
+   * @param name     The calendar name
+   * @param timezone The calendar timezone
+   * @param storage  The name of a backend registered in {@link EventStores}
+   * @throws IllegalArgumentException if a calendar with the name already exists, the timezone is
+   *                                  invalid or the backend is unknown
+   */
+  public void createCalendar(String name, ZoneId timezone, String storage)
+          throws IllegalArgumentException {
+    this.notIncludeCalendar(name);
+    EventStore store = EventStores.create(storage, storageDirectory);
+    Calendar calendar = new Calendar(timezone, new EventManager(store));
+    calendarMap.put(name, calendar);
+  }
+
+  /**
+   * Add a calendar whose events are kept in a store reopened in the state of a checkpoint.
+   *
+   * @param name       The calendar name
+   * @param timezone   The calendar timezone
+   * @param checkpoint The checkpoint of the store of the calendar
+   * @throws IllegalArgumentException if a calendar with the name already exists or the store
+   *                                  cannot be reopened
+   */
+  public void openCalendar(String name, ZoneId timezone, StoreCheckpoint checkpoint)
+          throws IllegalArgumentException {
+    this.notIncludeCalendar(name);
+    EventStore store = EventStores.open(checkpoint);
+    Calendar calendar = new Calendar(timezone, new EventManager(store));
+    calendarMap.put(name, calendar);
+  }
+
+  /**
+   * Set the directory where file backed event stores keep their files. Stores created there
+   * outlive the process and are reopened from snapshots; without a directory, they are scratch
+   * files in the system temporary directory.
+   *
+   * @param storageDirectory the directory, or null for the system temporary directory.
+   */
+  public void setStorageDirectory(Path storageDirectory) {
+    this.storageDirectory = storageDirectory;
+  }
+
   /**
    * Set a calendar as the active calendar.
    *
@@ -74,12 +127,14 @@ public class CalendarManager implements ICalendarManager {
         this.notIncludeCalendar(value);
         calendarMap.remove(name);
         calendarMap.put(value, calendar);
-        if (activeCalendarName.equals(name)) {
+        if (name.equals(activeCalendarName)) {
           activeCalendarName = value;
         }
         break;
       case "timezone":
         ZoneId newTimezone = this.dateTimeUtils.parseZoneId(value);
+        TimezoneRewriteEvent rewrite = FlightEvents.isEnabled() ? new TimezoneRewriteEvent()
+                : null;
         calendar.setAutoDeclineConflicts(false);
         List<IEvent> foundEvents = calendar.getAllEvents();
         for (IEvent event : foundEvents) {
@@ -93,6 +148,9 @@ public class CalendarManager implements ICalendarManager {
                   convertedEndDateTime);
         }
         calendar.setAutoDeclineConflicts(true);
+        if (rewrite != null) {
+          rewrite.commit(name, calendar.getTimeZone(), newTimezone, foundEvents.size());
+        }
         calendar.setTimeZone(newTimezone);
         break;
       default:
@@ -189,6 +247,55 @@ public class CalendarManager implements ICalendarManager {
     return new ArrayList<>(calendarMap.keySet());
   }
 
+  /**
+   * Get a calendar by its name.
+   *
+   * @param name The calendar name
+   * @return The calendar with the given name
+   * @throws IllegalArgumentException if no calendar with the given name exists
+   */
+  public ICalendar getCalendar(String name) throws IllegalArgumentException {
+    this.hasCalendar(name);
+    return calendarMap.get(name);
+  }
+
+  /**
+   * Get the name of the active calendar.
+   *
+   * @return The active calendar name, or null if no calendar is active
+   */
+  public String getActiveCalendarName() {
+    return activeCalendarName;
+  }
+
+  /**
+   * Close the event stores of every calendar, so file backed stores write their last changes
+   * and scratch files are removed. Every store is closed even if closing one fails.
+   *
+   * @throws IOException if a store cannot be closed cleanly.
+   */
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (ICalendar calendar : calendarMap.values()) {
+      IEventManager eventManager = ((Calendar) calendar).getEventManager();
+      if (eventManager instanceof Closeable) {
+        try {
+          ((Closeable) eventManager).close();
+        } catch (IOException e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
   /**
    * Check if a calendar with the given name exists.
    *
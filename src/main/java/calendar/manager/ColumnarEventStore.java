@@ -0,0 +1,148 @@
+package calendar.manager;
+
+import calendar.model.IEvent;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Store keeping all events in one array sorted by start time, next to a column of start times
+ * as epoch seconds. Day lookups and range scans binary-search the primitive start column instead
+ * of walking a tree of days, and iteration walks contiguous memory. Inserting in the middle shifts
+ * the later entries, so the backend suits calendars that mostly grow at the end, such as imports
+ * of feeds sorted by date.
+ */
+public class ColumnarEventStore implements EventStore {
+  static final String NAME = "columnar";
+  private static final int INITIAL_CAPACITY = 64;
+
+  private long[] starts = new long[INITIAL_CAPACITY];
+  private IEvent[] events = new IEvent[INITIAL_CAPACITY];
+  private int size;
+  private int modifications;
+
+  @Override
+  public void add(IEvent event) {
+    long start = toEpochSecond(event.getStartTime());
+    if (size == events.length) {
+      events = Arrays.copyOf(events, size * 2);
+      starts = Arrays.copyOf(starts, size * 2);
+    }
+    int index = upperBound(start);
+    System.arraycopy(events, index, events, index + 1, size - index);
+    System.arraycopy(starts, index, starts, index + 1, size - index);
+    events[index] = event;
+    starts[index] = start;
+    size++;
+    modifications++;
+  }
+
+  @Override
+  public boolean remove(IEvent event) {
+    long start = toEpochSecond(event.getStartTime());
+    for (int index = lowerBound(start); index < size && starts[index] == start; index++) {
+      if (events[index] == event) {
+        System.arraycopy(events, index + 1, events, index, size - index - 1);
+        System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+        events[--size] = null;
+        modifications++;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Collection<IEvent> getEvents(LocalDate date) {
+    int from = lowerBound(date.toEpochDay() * 86400);
+    int to = lowerBound(date.plusDays(1).toEpochDay() * 86400);
+    if (from == to) {
+      return Collections.emptyList();
+    }
+    List<IEvent> day = Arrays.asList(Arrays.copyOfRange(events, from, to));
+    return Collections.unmodifiableList(day);
+  }
+
+  @Override
+  public Iterator<IEvent> iterator(LocalDate from, LocalDate to) {
+    int first = from == null ? 0 : lowerBound(from.toEpochDay() * 86400);
+    int last = to == null ? size : lowerBound(to.plusDays(1).toEpochDay() * 86400);
+    return new Iterator<IEvent>() {
+      private final int expectedModifications = modifications;
+      private int index = first;
+
+      @Override
+      public boolean hasNext() {
+        return index < last;
+      }
+
+      @Override
+      public IEvent next() {
+        if (modifications != expectedModifications) {
+          throw new ConcurrentModificationException();
+        }
+        if (index >= last) {
+          throw new NoSuchElementException();
+        }
+        return events[index++];
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Find the first entry starting at or after a time.
+   *
+   * @param epochSecond the given start time as epoch seconds.
+   * @return the index of the entry, or the size if there is none.
+   */
+  private int lowerBound(long epochSecond) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts[middle] < epochSecond) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Find the first entry starting after a time, so events with equal starts keep their order.
+   *
+   * @param epochSecond the given start time as epoch seconds.
+   * @return the index of the entry, or the size if there is none.
+   */
+  private int upperBound(long epochSecond) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts[middle] <= epochSecond) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static long toEpochSecond(LocalDateTime time) {
+    return time.toEpochSecond(ZoneOffset.UTC);
+  }
+}
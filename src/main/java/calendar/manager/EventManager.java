@@ -1,37 +1,50 @@
 package calendar.manager;
 
+import calendar.model.EventChange;
+import calendar.model.EventPrinter;
 import calendar.model.IEvent;
 import calendar.model.RecurringEvent;
-import calendar.model.OneTimeEvent;
+import calendar.model.TextEventPrinter;
 import calendar.utils.EventUtils;
-import calendar.utils.ExportUtils;
+import calendar.utils.ExportCSV;
+import calendar.utils.FingerprintSet;
+import calendar.utils.jfr.ConflictCheckEvent;
+import calendar.utils.jfr.FlightEvents;
 
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
-import java.time.DayOfWeek;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.NavigableMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.stream.StreamSupport;
 
 /**
- * Manager class for handling events operations.
+ * Manager class for handling events operations. Events are kept in an {@link EventStore}, the
+ * tree backend unless another one is given.
  */
-public class EventManager implements IEventManager {
-  private Map<LocalDate, Set<IEvent>> calendar;
-  private final DateTimeFormatter DATE_TIME_FORMATTER =
-          DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-  private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-  private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
+public class EventManager implements IEventManager, Closeable {
+  private final EventStore store;
+  private final NavigableMap<Long, EventChange> changeLog;
+  private final Map<IEvent, Long> changeSequences;
+  private long changeSequence;
+  private long historyStart;
+  private final FingerprintSet fingerprints;
   private EventUtils eventUtils;
-  private ExportUtils exportUtils;
+  private List<EventChange> trackedChanges;
 
   /**
    * Constructs a new EventManager with default settings.
@@ -39,9 +52,29 @@ public class EventManager implements IEventManager {
    * Auto-decline conflicts is enabled by default.
    */
   public EventManager() {
-    this.calendar = new TreeMap<>(Comparator.naturalOrder());
+    this(new TreeEventStore());
+  }
+
+  /**
+   * Constructs a new EventManager on top of the given store. Events already in the store, for
+   * example replayed from a journal, are taken over as added.
+   *
+   * @param store the store keeping the events.
+   */
+  public EventManager(EventStore store) {
+    this.store = store;
     this.eventUtils = new EventUtils();
-    this.exportUtils = new ExportUtils();
+    this.changeLog = new TreeMap<>();
+    this.changeSequences = new HashMap<>();
+    this.changeSequence = System.currentTimeMillis() << 20;
+    this.historyStart = changeSequence;
+    this.fingerprints = new FingerprintSet();
+    Iterator<IEvent> stored = store.iterator(null, null);
+    while (stored.hasNext()) {
+      IEvent event = stored.next();
+      fingerprints.add(eventUtils.fingerprint(event));
+      stamp(event, false);
+    }
   }
 
   /**
@@ -56,37 +89,84 @@ public class EventManager implements IEventManager {
   public void addEvent(String subject, String description, LocalDateTime startTime,
                        LocalDateTime endTime, boolean autoDeclineConflicts)
           throws IllegalArgumentException {
-    List<IEvent> events = new ArrayList<>();
-    LocalDate startDate = startTime.toLocalDate();
-    LocalDate endDate = endTime.toLocalDate();
+    List<IEvent> events = eventUtils.splitIntoDays(subject, description, startTime, endTime);
 
-    if (startDate.isAfter(endDate)) {
-      throw new IllegalArgumentException("Start date cannot be after end date");
-    } else if (endDate.isEqual(startDate)) {
-      events.add(new OneTimeEvent(subject, description, startTime, endTime));
-    } else {
-      LocalDateTime currentStartTime = startTime;
-      LocalDateTime currentEndTime = startTime.toLocalDate().atTime(LocalTime.of(23, 59));
-      while (currentStartTime.isBefore(endTime) || currentStartTime.isEqual(endTime)) {
-        currentStartTime = currentStartTime.toLocalDate().equals(startDate) ? startTime :
-                currentStartTime;
-        currentEndTime = currentEndTime.toLocalDate().equals(endDate) ? endTime : currentEndTime;
-        events.add(new OneTimeEvent(subject, description, currentStartTime, currentEndTime));
-        currentStartTime = currentStartTime.toLocalDate().atStartOfDay().plusDays(1);
-        currentEndTime = currentEndTime.plusDays(1);
-      }
+    if (autoDeclineConflicts && hasConflict(events)) {
+      throw new IllegalArgumentException("Conflicted event and auto-decline is enabled.");
     }
 
     for (IEvent event : events) {
-      if (eventUtils.hasConflict(calendar, event) && autoDeclineConflicts) {
-        throw new IllegalArgumentException("Conflicted event and auto-decline is enabled.");
+      insert(event);
+    }
+    flush();
+  }
+
+  /**
+   * Add a batch of events at once. Events spanning multiple days are split like in
+   * {@link #addEvent}. When conflicts are declined the whole batch is checked with one sorted
+   * sweep per day before anything is inserted, so either every event is added or none is.
+   *
+   * @param events               the given events.
+   * @param autoDeclineConflicts whether conflicting events are rejected.
+   * @throws IllegalArgumentException throws error if an event is invalid or conflicts.
+   */
+  public void addEvents(List<IEvent> events, boolean autoDeclineConflicts)
+          throws IllegalArgumentException {
+    Map<LocalDate, List<IEvent>> byDate = new TreeMap<>();
+    for (IEvent event : events) {
+      for (IEvent dayEvent : eventUtils.splitIntoDays(event.getSubject(), event.getDescription(),
+              event.getStartTime(), event.getEndTime())) {
+        byDate.computeIfAbsent(
+                dayEvent.getStartTime().toLocalDate(), k -> new ArrayList<>()).add(dayEvent);
       }
     }
+    insertBatch(byDate, autoDeclineConflicts);
+  }
 
+  /**
+   * Add the events of a batch that are not in the calendar yet. Every day of an event is looked
+   * up by its fingerprint, so rows seen before, in the calendar or earlier in the same batch, are
+   * skipped without a conflict scan. The remaining events are added like in {@link #addEvents}.
+   *
+   * @param events               the given events.
+   * @param autoDeclineConflicts whether conflicting events are rejected.
+   * @return the number of events that were not present and have been added.
+   * @throws IllegalArgumentException throws error if an event is invalid or conflicts.
+   */
+  public int addNewEvents(List<IEvent> events, boolean autoDeclineConflicts)
+          throws IllegalArgumentException {
+    Map<LocalDate, List<IEvent>> byDate = new TreeMap<>();
+    FingerprintSet batchFingerprints = new FingerprintSet();
+    int added = 0;
     for (IEvent event : events) {
-      calendar.computeIfAbsent(
-              event.getStartTime().toLocalDate(), k -> new HashSet<>()).add(event);
+      boolean isNew = false;
+      for (IEvent dayEvent : eventUtils.splitIntoDays(event.getSubject(), event.getDescription(),
+              event.getStartTime(), event.getEndTime())) {
+        long fingerprint = eventUtils.fingerprint(dayEvent);
+        if (fingerprints.contains(fingerprint) || batchFingerprints.contains(fingerprint)) {
+          continue;
+        }
+        batchFingerprints.add(fingerprint);
+        byDate.computeIfAbsent(
+                dayEvent.getStartTime().toLocalDate(), k -> new ArrayList<>()).add(dayEvent);
+        isNew = true;
+      }
+      if (isNew) {
+        added++;
+      }
     }
+    insertBatch(byDate, autoDeclineConflicts);
+    return added;
+  }
+
+  /**
+   * Check if an event with the same subject, times and description is stored.
+   *
+   * @param event the given event.
+   * @return true if an equal event is in the calendar.
+   */
+  public boolean containsEvent(IEvent event) {
+    return fingerprints.contains(eventUtils.fingerprint(event));
   }
 
   /**
@@ -106,16 +186,17 @@ public class EventManager implements IEventManager {
           String subject, String description, LocalDateTime startTime, LocalDateTime endTime,
           LocalDateTime endRecurring, String recurringDays, int occurrences)
           throws IllegalArgumentException {
-    List<IEvent> events = generateRecurringEvents(subject, description, startTime, endTime,
-            endRecurring, recurringDays, occurrences);
-    if (eventUtils.hasAnyConflict(calendar, events)) {
-      throw new IllegalArgumentException("Recurring event series conflicts with existing events.");
+    List<IEvent> events = eventUtils.generateRecurringEvents(subject, description, startTime,
+            endTime, endRecurring, recurringDays, occurrences);
+    if (hasConflict(events)) {
+      throw new IllegalArgumentException(
+              "Recurring event series conflicts with existing events.");
     }
 
     for (IEvent event : events) {
-      calendar.computeIfAbsent(
-              event.getStartTime().toLocalDate(), k -> new HashSet<>()).add(event);
+      insert(event);
     }
+    flush();
   }
 
   /**
@@ -277,20 +358,29 @@ public class EventManager implements IEventManager {
    * @param endTime   the given end time.
    */
   public void printEvents(LocalDateTime startTime, LocalDateTime endTime) {
+    printEvents(startTime, endTime, new TextEventPrinter());
+  }
+
+  /**
+   * Hand all events in the calendar from start time to end time to a printer, one day at a time.
+   *
+   * @param startTime the given start time.
+   * @param endTime   the given end time, or null for the rest of the start day.
+   * @param printer   the printer receiving the days and events.
+   */
+  public void printEvents(LocalDateTime startTime, LocalDateTime endTime, EventPrinter printer) {
     LocalDate currentDate = startTime.toLocalDate();
     LocalDate endDate = endTime != null ? endTime.toLocalDate() : currentDate;
     endTime = endTime != null ? endTime : currentDate.atTime(LocalTime.of(23, 59));
     while (currentDate.isEqual(endDate) || currentDate.isBefore(endDate)) {
-      if (calendar.containsKey(currentDate) && !calendar.get(currentDate).isEmpty()) {
-        System.out.println("Date: " + dateFormatter.format(currentDate));
-        for (IEvent event : calendar.get(currentDate)) {
+      Collection<IEvent> dayEvents = store.getEvents(currentDate);
+      if (!dayEvents.isEmpty()) {
+        printer.printDay(currentDate);
+        for (IEvent event : dayEvents) {
           if ((event.getStartTime().isEqual(startTime) || event.getStartTime().isAfter(startTime))
                   && (event.getEndTime().isEqual(endTime) ||
                   event.getEndTime().isBefore(endTime))) {
-            System.out.println("  -Subject :  " + event.getSubject());
-            System.out.println("  -Description :  " + event.getDescription());
-            System.out.println("  -Start Time :  " + event.getStartTime());
-            System.out.println("  -End Time :  " + event.getEndTime().format(DATE_TIME_FORMATTER));
+            printer.printEvent(event);
           }
         }
       }
@@ -304,45 +394,39 @@ public class EventManager implements IEventManager {
    * @param fileName the given file name.
    */
   public void exportCSV(String fileName) {
-    try (FileWriter writer = new FileWriter(fileName)) {
-      writer.write("Subject,Start Date,Start Time,End Date,End Time,Description\n");
-
-      for (Map.Entry<LocalDate, Set<IEvent>> entry : calendar.entrySet()) {
-        for (IEvent event : entry.getValue()) {
-          String subject = exportUtils.escapeCSV(event.getSubject());
-          String description = exportUtils.escapeCSV(event.getDescription());
-          String startDate = event.getStartTime().format(dateFormatter);
-          String startTime = event.getStartTime().format(timeFormatter);
-          String endDate = event.getEndTime().format(dateFormatter);
-          String endTime = event.getEndTime().format(timeFormatter);
-
-          writer.write(String.format("%s,%s,%s,%s,%s,%s\n",
-                  subject, startDate, startTime, endDate, endTime, description));
-        }
-      }
+    try (Writer writer = Files.newBufferedWriter(Paths.get(fileName))) {
+      new ExportCSV().export(this, writer);
       System.out.println("Calendar exported successfully to " + fileName);
     } catch (IOException e) {
       System.err.println("Error exporting calendar to CSV: " + e.getMessage());
     }
   }
 
-
-
   /**
    * Print out the status based on a given date time, whether it's busy or available.
    *
    * @param dateTime the given date time.
    */
   public void isBusy(LocalDateTime dateTime) {
-    String result = "available";
+    isBusy(dateTime, new TextEventPrinter());
+  }
+
+  /**
+   * Hand the status at a given date time, whether it's busy or available, to a printer.
+   *
+   * @param dateTime the given date time.
+   * @param printer  the printer receiving the status.
+   */
+  public void isBusy(LocalDateTime dateTime, EventPrinter printer) {
+    boolean busy = false;
     LocalDate currentDate = dateTime.toLocalDate();
-    for (IEvent event : calendar.get(currentDate)) {
+    for (IEvent event : store.getEvents(currentDate)) {
       if (event.getStartTime().isEqual(dateTime) || event.getStartTime().isBefore(dateTime)
               && event.getEndTime().isAfter(dateTime)) {
-        result = "busy";
+        busy = true;
       }
     }
-    System.out.println(result);
+    printer.printStatus(dateTime, busy);
   }
 
   /**
@@ -354,30 +438,29 @@ public class EventManager implements IEventManager {
    */
   public List<IEvent> searchEvents(String subject, LocalDateTime startTime, LocalDateTime endTime) {
     List<IEvent> foundEvents = new ArrayList<>();
-    for (Map.Entry<LocalDate, Set<IEvent>> entry : calendar.entrySet()) {
-      Set<IEvent> events = entry.getValue();
-      for (IEvent event : events) {
-        if (event.getSubject().equals(subject) || subject == null) {
-          if (startTime != null) {
-            LocalDate currentDate = event.getStartTime().toLocalDate();
-            LocalDate searchDate = startTime.toLocalDate();
-            LocalTime currentTime = event.getStartTime().toLocalTime();
-            LocalTime searchTime = startTime.toLocalTime();
-            if (((currentDate.equals(searchDate) && (currentTime.equals(searchTime) ||
-                    currentTime.isAfter(searchTime))) ||
-                    currentDate.isAfter(searchDate))
-            ) {
-              if (endTime != null) {
-                if (event.getEndTime().isBefore(endTime) || event.getEndTime().equals(endTime)) {
-                  foundEvents.add(event);
-                }
-              } else {
+    Iterator<IEvent> events = store.iterator(null, null);
+    while (events.hasNext()) {
+      IEvent event = events.next();
+      if (event.getSubject().equals(subject) || subject == null) {
+        if (startTime != null) {
+          LocalDate currentDate = event.getStartTime().toLocalDate();
+          LocalDate searchDate = startTime.toLocalDate();
+          LocalTime currentTime = event.getStartTime().toLocalTime();
+          LocalTime searchTime = startTime.toLocalTime();
+          if (((currentDate.equals(searchDate) && (currentTime.equals(searchTime) ||
+                  currentTime.isAfter(searchTime))) ||
+                  currentDate.isAfter(searchDate))
+          ) {
+            if (endTime != null) {
+              if (event.getEndTime().isBefore(endTime) || event.getEndTime().equals(endTime)) {
                 foundEvents.add(event);
               }
+            } else {
+              foundEvents.add(event);
             }
-          } else {
-            foundEvents.add(event);
           }
+        } else {
+          foundEvents.add(event);
         }
       }
     }
@@ -390,16 +473,40 @@ public class EventManager implements IEventManager {
    * @return the list of found events.
    */
   public List<IEvent> getAllEvents() {
-    List<IEvent> foundEvents = new ArrayList<>();
-    for (Map.Entry<LocalDate, Set<IEvent>> entry : calendar.entrySet()) {
-      Set<IEvent> events = entry.getValue();
-      for (IEvent event : events) {
-        foundEvents.add(event);
-      }
+    List<IEvent> foundEvents = new ArrayList<>(store.size());
+    Iterator<IEvent> events = store.iterator(null, null);
+    while (events.hasNext()) {
+      foundEvents.add(events.next());
     }
     return foundEvents;
   }
 
+  /**
+   * Iterate over all events in date order without copying them into a list first.
+   *
+   * @return an iterator over all events in the calendar.
+   */
+  public Iterator<IEvent> eventIterator() {
+    return store.iterator(null, null);
+  }
+
+  /**
+   * Iterate over the events starting within a range, walking only the days of the range.
+   *
+   * @param from the earliest start time, or null for no lower bound.
+   * @param to   the latest start time, or null for no upper bound.
+   * @return an iterator over the events in the range.
+   */
+  public Iterator<IEvent> eventIterator(LocalDateTime from, LocalDateTime to) {
+    Iterator<IEvent> days = store.iterator(from == null ? null : from.toLocalDate(),
+            to == null ? null : to.toLocalDate());
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(days, Spliterator.ORDERED),
+            false)
+            .filter(event -> (from == null || !event.getStartTime().isBefore(from))
+                    && (to == null || !event.getStartTime().isAfter(to)))
+            .iterator();
+  }
+
   /**
    * Get the eventManager.
    *
@@ -416,13 +523,203 @@ public class EventManager implements IEventManager {
    */
   public void removeEvent(IEvent event) {
     if (event != null) {
-      Set<IEvent> events = calendar.get(event.getStartTime().toLocalDate());
-      events.remove(event);
+      if (store.remove(event)) {
+        fingerprints.remove(eventUtils.fingerprint(event));
+        stamp(event, true);
+        flush();
+      }
     }
   }
 
+  /**
+   * Put already validated events back into the calendar without running conflict checks, used
+   * when rebuilding a calendar from a snapshot.
+   *
+   * @param events the events to restore.
+   */
+  public void restoreEvents(List<IEvent> events) {
+    for (IEvent event : events) {
+      insert(event);
+    }
+    flush();
+  }
+
+  /**
+   * Check that events already split per day could be added together, without adding them.
+   * Together with {@link #restoreEvents} this lets a caller validate the events of several
+   * calendars before changing any of them.
+   *
+   * @param events               the given events, each within one day.
+   * @param autoDeclineConflicts whether conflicting events are rejected.
+   * @throws IllegalArgumentException throws error if an event conflicts.
+   */
+  public void checkEvents(List<IEvent> events, boolean autoDeclineConflicts)
+          throws IllegalArgumentException {
+    if (autoDeclineConflicts) {
+      Map<LocalDate, List<IEvent>> byDate = new TreeMap<>();
+      for (IEvent event : events) {
+        byDate.computeIfAbsent(
+                event.getStartTime().toLocalDate(), k -> new ArrayList<>()).add(event);
+      }
+      checkBatch(byDate);
+    }
+  }
+
+  /**
+   * Get the sequence of the latest change. Sequences of a new manager start above the current
+   * time in milliseconds shifted by 20 bits, so they keep growing across restarts.
+   *
+   * @return the latest change sequence.
+   */
+  public long getChangeSequence() {
+    return changeSequence;
+  }
+
+  /**
+   * Get the oldest watermark for which the change history is complete.
+   *
+   * @return the oldest usable watermark.
+   */
+  public long getHistoryStart() {
+    return historyStart;
+  }
+
+  /**
+   * Get the events added and removed after the given watermark, in sequence order. An event
+   * changed several times only appears with its latest change.
+   *
+   * @param watermark the sequence of the last change already seen.
+   * @return the changes after the watermark.
+   * @throws IllegalArgumentException if the watermark predates the retained history.
+   */
+  public List<EventChange> getChangesSince(long watermark) {
+    if (watermark < historyStart) {
+      throw new IllegalArgumentException("Watermark " + watermark
+              + " predates the retained change history starting at " + historyStart);
+    }
+    return new ArrayList<>(changeLog.tailMap(watermark, false).values());
+  }
+
+  /**
+   * Forget the tombstones up to a watermark every consumer has seen, so removed events do not
+   * hold on to memory forever, together with any sequence still recorded for them. Older
+   * watermarks are no longer usable afterwards.
+   *
+   * @param watermark the sequence up to which tombstones can be dropped.
+   */
+  public void discardTombstones(long watermark) {
+    long limit = Math.min(watermark, changeSequence);
+    Iterator<EventChange> changes = changeLog.headMap(limit, true).values().iterator();
+    while (changes.hasNext()) {
+      EventChange change = changes.next();
+      if (change.isRemoved()) {
+        changes.remove();
+        changeSequences.remove(change.getEvent(), change.getSequence());
+      }
+    }
+    historyStart = Math.max(historyStart, limit);
+  }
+
+  /**
+   * Also append every following change to a list until tracking is stopped.
+   *
+   * @param changes the list receiving the changes, or null to stop tracking.
+   */
+  @Override
+  public void trackChanges(List<EventChange> changes) {
+    this.trackedChanges = changes;
+  }
+
+  /**
+   * Make the events durable in the store of the calendar.
+   *
+   * @return the checkpoint of the store, or null if it is kept in memory only.
+   * @throws IOException if the store cannot be written.
+   */
+  @Override
+  public StoreCheckpoint checkpoint() throws IOException {
+    return store.checkpoint();
+  }
+
+  /**
+   * Close the store of the calendar.
+   *
+   * @throws IOException if the store cannot be closed cleanly.
+   */
+  @Override
+  public void close() throws IOException {
+    store.close();
+  }
+
   // Helper functions
 
+  /**
+   * Insert events grouped by day, after checking every day for conflicts when they are declined.
+   *
+   * @param byDate               the events of each day.
+   * @param autoDeclineConflicts whether conflicting events are rejected.
+   */
+  private void insertBatch(Map<LocalDate, List<IEvent>> byDate, boolean autoDeclineConflicts) {
+    if (autoDeclineConflicts) {
+      checkBatch(byDate);
+    }
+
+    for (List<IEvent> dayEvents : byDate.values()) {
+      for (IEvent event : dayEvents) {
+        insert(event);
+      }
+    }
+    flush();
+  }
+
+  /**
+   * Check every day of a batch for conflicts with one sorted sweep.
+   *
+   * @param byDate the events of each day.
+   * @throws IllegalArgumentException if an event conflicts.
+   */
+  private void checkBatch(Map<LocalDate, List<IEvent>> byDate) {
+    ConflictCheckEvent check = FlightEvents.isEnabled() ? new ConflictCheckEvent() : null;
+    int checked = 0;
+    IEvent conflict = null;
+    for (Map.Entry<LocalDate, List<IEvent>> entry : byDate.entrySet()) {
+      Collection<IEvent> existing = store.getEvents(entry.getKey());
+      conflict = eventUtils.findBatchConflict(existing, entry.getValue());
+      checked += entry.getValue().size();
+      if (conflict != null) {
+        break;
+      }
+    }
+    if (check != null) {
+      check.commit(checked, byDate.size(), conflict != null);
+    }
+    if (conflict != null) {
+      throw new IllegalArgumentException("Conflicted event '" + conflict.getSubject()
+              + "' at " + conflict.getStartTime() + " and auto-decline is enabled.");
+    }
+  }
+
+  /**
+   * Check events, each within one day, against the events of their days.
+   *
+   * @param events the given events.
+   * @return true if any of them conflicts.
+   */
+  private boolean hasConflict(List<IEvent> events) {
+    ConflictCheckEvent check = FlightEvents.isEnabled() ? new ConflictCheckEvent() : null;
+    boolean conflict = false;
+    for (IEvent event : events) {
+      if (eventUtils.hasConflict(store.getEvents(event.getStartTime().toLocalDate()), event)) {
+        conflict = true;
+        break;
+      }
+    }
+    if (check != null) {
+      check.commit(events.size(), events.size(), conflict);
+    }
+    return conflict;
+  }
+
   /**
    * Search an event from the current calendar based on the given info.
    *
@@ -433,83 +730,54 @@ public class EventManager implements IEventManager {
    */
   private IEvent searchEvent(
           String subject, LocalDateTime startTime, LocalDateTime endTime) {
-    for (Map.Entry<LocalDate, Set<IEvent>> entry : calendar.entrySet()) {
-      Set<IEvent> events = entry.getValue();
-      for (IEvent event : events) {
-        if (event.getSubject().equals(subject) && event.getStartTime().equals(startTime)
-                && event.getEndTime().equals(endTime)) {
-          return event;
-        }
+    for (IEvent event : store.getEvents(startTime.toLocalDate())) {
+      if (event.getSubject().equals(subject) && event.getStartTime().equals(startTime)
+              && event.getEndTime().equals(endTime)) {
+        return event;
       }
     }
     return null;
   }
 
   /**
-   * Generate single events from the recurring event input in order to put in the calendar.
+   * Store an event, remember its fingerprint and stamp it with a new change sequence.
    *
-   * @param subject       the given subject.
-   * @param description   the given description.
-   * @param startTime     the given start time.
-   * @param endTime       the given end time.
-   * @param endRecurring  the given end recurring date time.
-   * @param recurringDays the given recurring days.
-   * @param occurrences   the given occurrences.
-   * @return List of generated events.
-   * @throws IllegalArgumentException throws error if the input is invalid.
+   * @param event the event to store.
    */
-  private List<IEvent> generateRecurringEvents(
-          String subject, String description, LocalDateTime startTime, LocalDateTime endTime,
-          LocalDateTime endRecurring, String recurringDays, int occurrences)
-          throws IllegalArgumentException {
-    List<IEvent> result = new ArrayList<>();
-    LocalDateTime currentStartTime = startTime;
-    LocalDateTime currentEndTime = endTime;
-    int count = 0;
-    Set<DayOfWeek> recurringDaySet = new HashSet<>();
-    for (char c : recurringDays.toCharArray()) {
-      switch (c) {
-        case 'M':
-          recurringDaySet.add(DayOfWeek.MONDAY);
-          break;
-        case 'T':
-          recurringDaySet.add(DayOfWeek.TUESDAY);
-          break;
-        case 'W':
-          recurringDaySet.add(DayOfWeek.WEDNESDAY);
-          break;
-        case 'R':
-          recurringDaySet.add(DayOfWeek.THURSDAY);
-          break;
-        case 'F':
-          recurringDaySet.add(DayOfWeek.FRIDAY);
-          break;
-        case 'S':
-          recurringDaySet.add(DayOfWeek.SATURDAY);
-          break;
-        case 'U':
-          recurringDaySet.add(DayOfWeek.SUNDAY);
-          break;
-        default:
-          throw new IllegalArgumentException("Invalid day character: " + c);
-      }
-    }
-
-    while (currentStartTime != null && (occurrences == 0 || count < occurrences)) {
-      if (endRecurring != null && currentStartTime.isAfter(endRecurring)) {
-        break;
-      }
-
-      if (recurringDaySet.contains(currentStartTime.getDayOfWeek())) {
-        result.add(new RecurringEvent(subject, description, currentStartTime,
-                currentEndTime, endRecurring, recurringDays, occurrences));
-        count++;
-      }
+  private void insert(IEvent event) {
+    store.add(event);
+    fingerprints.add(eventUtils.fingerprint(event));
+    stamp(event, false);
+  }
 
-      currentStartTime = currentStartTime.plusDays(1);
-      currentEndTime = currentEndTime.plusDays(1);
+  /**
+   * Record a change, replacing the previous change of the same event.
+   *
+   * @param event   the changed event.
+   * @param removed whether the event was removed.
+   */
+  private void stamp(IEvent event, boolean removed) {
+    long sequence = ++changeSequence;
+    Long previous = removed ? changeSequences.remove(event)
+            : changeSequences.put(event, sequence);
+    if (previous != null) {
+      changeLog.remove(previous);
     }
+    EventChange change = new EventChange(sequence, event, removed);
+    changeLog.put(sequence, change);
+    if (trackedChanges != null) {
+      trackedChanges.add(change);
+    }
+  }
 
-    return result;
+  /**
+   * Make the changes of the current operation durable in stores that write to disk.
+   */
+  private void flush() {
+    try {
+      store.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write calendar storage", e);
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package calendar.manager;
+
+import calendar.model.IEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Storage backend of an {@link EventManager}. A store only keeps events indexed by the day they
+ * start on; conflict rules, splitting, editing and change tracking stay in the manager, so every
+ * backend behaves the same. Events are identified by reference: {@link #remove} removes the
+ * stored instance that was added, and reads return the added instances.
+ *
+ * <p>Backends are created by an {@link EventStoreFactory} registered in {@link EventStores}.</p>
+ */
+public interface EventStore extends Closeable {
+  /**
+   * Store an event under the day it starts on.
+   *
+   * @param event the given event.
+   */
+  void add(IEvent event);
+
+  /**
+   * Remove a stored event.
+   *
+   * @param event the event instance to remove.
+   * @return true if the event was stored.
+   */
+  boolean remove(IEvent event);
+
+  /**
+   * Get the events starting on a day.
+   *
+   * @param date the given day.
+   * @return the events of the day, empty if there are none. The collection must not be modified.
+   */
+  Collection<IEvent> getEvents(LocalDate date);
+
+  /**
+   * Iterate over the events starting on the days of a range, day by day in date order.
+   *
+   * @param from the first day, or null for no lower bound.
+   * @param to   the last day, or null for no upper bound.
+   * @return an iterator over the events of the range.
+   */
+  Iterator<IEvent> iterator(LocalDate from, LocalDate to);
+
+  /**
+   * Get the number of stored events.
+   *
+   * @return the event count.
+   */
+  int size();
+
+  /**
+   * Make the changes made so far durable. Called by the manager once per operation, so backends
+   * writing to disk can group the writes of a batch.
+   *
+   * @throws IOException if the changes cannot be written.
+   */
+  default void flush() throws IOException {
+  }
+
+  /**
+   * Make the stored events durable and describe where they are kept, so that a calendar
+   * snapshot can refer to the store instead of copying its events.
+   *
+   * @return the checkpoint, or null if the events do not outlive the process.
+   * @throws IOException if the changes cannot be written.
+   */
+  default StoreCheckpoint checkpoint() throws IOException {
+    return null;
+  }
+
+  /**
+   * Release the resources of the store.
+   *
+   * @throws IOException if the store cannot be closed cleanly.
+   */
+  @Override
+  default void close() throws IOException {
+  }
+}
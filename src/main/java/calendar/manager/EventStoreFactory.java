@@ -0,0 +1,41 @@
+package calendar.manager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Creates the event store of a calendar. Factories are registered in {@link EventStores} under
+ * their name, either by the application or through {@link java.util.ServiceLoader} with a
+ * {@code META-INF/services/calendar.manager.EventStoreFactory} entry.
+ */
+public interface EventStoreFactory {
+  /**
+   * Get the name the backend is selected by.
+   *
+   * @return the backend name.
+   */
+  String getName();
+
+  /**
+   * Create an empty store for one calendar.
+   *
+   * @param directory the directory where file backed stores keep their files, or null for the
+   *                  system temporary directory. In-memory stores ignore it.
+   * @return the new store.
+   * @throws IOException if the files of the store cannot be created.
+   */
+  EventStore create(Path directory) throws IOException;
+
+  /**
+   * Reopen a store in the state of a checkpoint it returned in an earlier run. Backends whose
+   * events do not outlive the process cannot be reopened.
+   *
+   * @param location the file of the store.
+   * @param position the position of the checkpoint.
+   * @return the reopened store.
+   * @throws IOException if the store cannot be reopened.
+   */
+  default EventStore open(Path location, long position) throws IOException {
+    throw new IOException(getName() + " storage cannot be reopened");
+  }
+}
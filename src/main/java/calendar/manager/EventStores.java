@@ -0,0 +1,143 @@
+package calendar.manager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the event storage backends a calendar can be created with. The built-in backends
+ * are {@code tree} (the default), {@code columnar}, {@code mapped} and {@code journaled};
+ * further backends are picked up from {@link ServiceLoader} or added with {@link #register}.
+ */
+public final class EventStores {
+  /**
+   * The name of the backend used when none is chosen.
+   */
+  public static final String DEFAULT = TreeEventStore.NAME;
+
+  private static final Map<String, EventStoreFactory> FACTORIES = new LinkedHashMap<>();
+
+  static {
+    register(factory(TreeEventStore.NAME, directory -> new TreeEventStore()));
+    register(factory(ColumnarEventStore.NAME, directory -> new ColumnarEventStore()));
+    register(factory(MappedEventStore.NAME, MappedEventStore::create));
+    register(factory(JournaledEventStore.NAME, JournaledEventStore::create,
+            JournaledEventStore::reopen));
+    for (EventStoreFactory factory : ServiceLoader.load(EventStoreFactory.class)) {
+      register(factory);
+    }
+  }
+
+  private EventStores() {
+  }
+
+  /**
+   * Register a backend, replacing a backend of the same name.
+   *
+   * @param factory the factory creating the stores of the backend.
+   */
+  public static synchronized void register(EventStoreFactory factory) {
+    FACTORIES.put(factory.getName(), factory);
+  }
+
+  /**
+   * Get the factory of a backend.
+   *
+   * @param name the backend name.
+   * @return the factory.
+   * @throws IllegalArgumentException if no backend has the name.
+   */
+  public static synchronized EventStoreFactory getFactory(String name) {
+    EventStoreFactory factory = FACTORIES.get(name);
+    if (factory == null) {
+      throw new IllegalArgumentException("Unknown storage backend: " + name
+              + ", expected one of " + FACTORIES.keySet());
+    }
+    return factory;
+  }
+
+  /**
+   * Get the names of all registered backends in registration order.
+   *
+   * @return the backend names.
+   */
+  public static synchronized List<String> getNames() {
+    return new ArrayList<>(FACTORIES.keySet());
+  }
+
+  /**
+   * Create an empty store of a backend.
+   *
+   * @param name      the backend name.
+   * @param directory the directory for file backed stores, or null for the temporary directory.
+   * @return the new store.
+   * @throws IllegalArgumentException if no backend has the name or the store cannot be created.
+   */
+  public static EventStore create(String name, Path directory) {
+    try {
+      return getFactory(name).create(directory);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(
+              "Could not create " + name + " storage: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reopen the store of a calendar in the state of a checkpoint.
+   *
+   * @param checkpoint the checkpoint returned by the store.
+   * @return the reopened store.
+   * @throws IllegalArgumentException if the backend is unknown or the store cannot be reopened.
+   */
+  public static EventStore open(StoreCheckpoint checkpoint) {
+    try {
+      return getFactory(checkpoint.getStorage()).open(checkpoint.getLocation(),
+              checkpoint.getPosition());
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not reopen " + checkpoint.getStorage()
+              + " storage: " + e.getMessage(), e);
+    }
+  }
+
+  private static EventStoreFactory factory(String name, Creator creator) {
+    return factory(name, creator, null);
+  }
+
+  private static EventStoreFactory factory(String name, Creator creator, Opener opener) {
+    return new EventStoreFactory() {
+      @Override
+      public String getName() {
+        return name;
+      }
+
+      @Override
+      public EventStore create(Path directory) throws IOException {
+        return creator.create(directory);
+      }
+
+      @Override
+      public EventStore open(Path location, long position) throws IOException {
+        return opener == null ? EventStoreFactory.super.open(location, position)
+                : opener.open(location, position);
+      }
+    };
+  }
+
+  /**
+   * Creation function of a built-in backend.
+   */
+  private interface Creator {
+    EventStore create(Path directory) throws IOException;
+  }
+
+  /**
+   * Reopening function of a built-in backend whose events outlive the process.
+   */
+  private interface Opener {
+    EventStore open(Path location, long position) throws IOException;
+  }
+}
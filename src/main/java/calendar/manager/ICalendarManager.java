@@ -1,6 +1,7 @@
 package calendar.manager;
 
 import calendar.model.Calendar;
+import calendar.model.ICalendar;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -21,6 +22,32 @@ public interface ICalendarManager  {
    */
   void createCalendar(String name, ZoneId timezone) throws IllegalArgumentException;
 
+  /**
+   * Create a new calendar with the specified name and timezone, storing its events in the given
+   * storage backend.
+   *
+   * @param name     The calendar name
+   * @param timezone The calendar timezone
+   * @param storage  The name of a backend registered in {@link EventStores}
+   * @throws IllegalArgumentException if a calendar with the name already exists, the timezone is
+   *                                  invalid or the backend is unknown
+   */
+  void createCalendar(String name, ZoneId timezone, String storage)
+          throws IllegalArgumentException;
+
+  /**
+   * Add a calendar whose events are kept in a store reopened in the state of a checkpoint, when
+   * recovering calendars from a snapshot.
+   *
+   * @param name       The calendar name
+   * @param timezone   The calendar timezone
+   * @param checkpoint The checkpoint of the store of the calendar
+   * @throws IllegalArgumentException if a calendar with the name already exists or the store
+   *                                  cannot be reopened
+   */
+  void openCalendar(String name, ZoneId timezone, StoreCheckpoint checkpoint)
+          throws IllegalArgumentException;
+
   /**
    * Set a calendar as the active calendar.
    *
@@ -76,4 +103,20 @@ public interface ICalendarManager  {
   Calendar getActiveCalendar() throws IllegalStateException;
 
   List<String> getAllCalendarNames();
+
+  /**
+   * Get a calendar by its name.
+   *
+   * @param name The calendar name
+   * @return The calendar with the given name
+   * @throws IllegalArgumentException if no calendar with the given name exists
+   */
+  ICalendar getCalendar(String name) throws IllegalArgumentException;
+
+  /**
+   * Get the name of the active calendar.
+   *
+   * @return The active calendar name, or null if no calendar is active
+   */
+  String getActiveCalendarName();
 }
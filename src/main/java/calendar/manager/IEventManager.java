@@ -1,8 +1,12 @@
 package calendar.manager;
 
+import calendar.model.EventChange;
+import calendar.model.EventPrinter;
 import calendar.model.IEvent;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -25,6 +29,37 @@ public interface IEventManager {
                 LocalDateTime endTime, boolean autoDeclineConflicts)
           throws IllegalArgumentException;
 
+  /**
+   * Add a batch of events at once. Multiple day events are split per day, and when conflicts are
+   * declined either every event of the batch is added or none is.
+   *
+   * @param events               the given events.
+   * @param autoDeclineConflicts whether conflicting events are rejected.
+   * @throws IllegalArgumentException throws error if an event is invalid or conflicts.
+   */
+  void addEvents(List<IEvent> events, boolean autoDeclineConflicts)
+          throws IllegalArgumentException;
+
+  /**
+   * Add the events of a batch that are not in the calendar yet, skipping events with the same
+   * subject, times and description as a stored event or an earlier event of the batch.
+   *
+   * @param events               the given events.
+   * @param autoDeclineConflicts whether conflicting events are rejected.
+   * @return the number of events that have been added.
+   * @throws IllegalArgumentException throws error if an event is invalid or conflicts.
+   */
+  int addNewEvents(List<IEvent> events, boolean autoDeclineConflicts)
+          throws IllegalArgumentException;
+
+  /**
+   * Check if an event with the same subject, times and description is stored.
+   *
+   * @param event the given event.
+   * @return true if an equal event is in the calendar.
+   */
+  boolean containsEvent(IEvent event);
+
   /**
    * Add a recurring events by splitting it into multiple single events, based on the provided
    * input.
@@ -80,6 +115,15 @@ public interface IEventManager {
    */
   void printEvents(LocalDateTime startTime, LocalDateTime endTime);
 
+  /**
+   * Hand all events in the calendar from start time to end time to a printer, one day at a time.
+   *
+   * @param startTime the given start time.
+   * @param endTime   the given end time, or null for the rest of the start day.
+   * @param printer   the printer receiving the days and events.
+   */
+  void printEvents(LocalDateTime startTime, LocalDateTime endTime, EventPrinter printer);
+
   /**
    * Export all the events in the current calendar into a csv file for Google calendar import.
    *
@@ -94,6 +138,14 @@ public interface IEventManager {
    */
   void isBusy(LocalDateTime dateTime);
 
+  /**
+   * Hand the status at a given date time, whether it's busy or available, to a printer.
+   *
+   * @param dateTime the given date time.
+   * @param printer  the printer receiving the status.
+   */
+  void isBusy(LocalDateTime dateTime, EventPrinter printer);
+
   /**
    * Search events that belong to a recurring event based on the given info.
    *
@@ -111,10 +163,95 @@ public interface IEventManager {
    */
   List<IEvent> getAllEvents();
 
+  /**
+   * Iterate over all events in date order without copying them into a list first.
+   *
+   * @return an iterator over all events in the calendar.
+   */
+  Iterator<IEvent> eventIterator();
+
+  /**
+   * Iterate over the events starting within a range, in date order, without visiting events
+   * outside of it.
+   *
+   * @param from the earliest start time, or null for no lower bound.
+   * @param to   the latest start time, or null for no upper bound.
+   * @return an iterator over the events in the range.
+   */
+  Iterator<IEvent> eventIterator(LocalDateTime from, LocalDateTime to);
+
   /**
    * Remove an event from the current calendar.
    *
    * @param event the given event to remove.
    */
   void removeEvent(IEvent event);
+
+  /**
+   * Put already validated events back into the calendar without running conflict checks, used
+   * when rebuilding a calendar from a snapshot.
+   *
+   * @param events the events to restore.
+   */
+  void restoreEvents(List<IEvent> events);
+
+  /**
+   * Check that events already split per day could be added together, without adding them.
+   * Each day is checked with one sorted sweep over the stored and the new events.
+   *
+   * @param events               the given events, each within one day.
+   * @param autoDeclineConflicts whether conflicting events are rejected.
+   * @throws IllegalArgumentException throws error if an event conflicts.
+   */
+  void checkEvents(List<IEvent> events, boolean autoDeclineConflicts)
+          throws IllegalArgumentException;
+
+  /**
+   * Get the sequence of the latest change. Every added or removed event is stamped with the
+   * next sequence.
+   *
+   * @return the latest change sequence.
+   */
+  long getChangeSequence();
+
+  /**
+   * Get the oldest watermark for which the change history is complete.
+   *
+   * @return the oldest usable watermark.
+   */
+  long getHistoryStart();
+
+  /**
+   * Get the events added and removed after the given watermark, in sequence order.
+   *
+   * @param watermark the sequence of the last change already seen.
+   * @return the changes after the watermark.
+   * @throws IllegalArgumentException if the watermark predates the retained history.
+   */
+  List<EventChange> getChangesSince(long watermark);
+
+  /**
+   * Forget the tombstones up to a watermark every consumer has seen.
+   *
+   * @param watermark the sequence up to which tombstones can be dropped.
+   */
+  void discardTombstones(long watermark);
+
+  /**
+   * Also append every following change to a list, in the order it happens, until tracking is
+   * stopped. Unlike the change history, the list keeps every change of an event, so undoing the
+   * changes in reverse order restores the events as they were.
+   *
+   * @param changes the list receiving the changes, or null to stop tracking.
+   */
+  void trackChanges(List<EventChange> changes);
+
+  /**
+   * Make the events durable in the store they are kept in and describe where, so that a
+   * snapshot can refer to the store instead of copying the events.
+   *
+   * @return the checkpoint, or null if the events do not outlive the process.
+   * @throws IOException if the store cannot be written.
+   */
+  StoreCheckpoint checkpoint() throws IOException;
 }
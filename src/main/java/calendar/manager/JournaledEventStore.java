@@ -0,0 +1,340 @@
+package calendar.manager;
+
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+import calendar.model.OneTimeEvent;
+import calendar.model.RecurringEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Store that appends every add and remove to a journal file before applying it to an in-memory
+ * store. The journal is forced to disk once per manager operation, so a batch import costs one
+ * sync, and reopening the journal replays it into a new store. A record cut short by a crash is
+ * dropped on replay and the journal is truncated to the last complete record.
+ *
+ * <p>A store created in a directory keeps its journal there across runs and can be reopened at
+ * a {@link #checkpoint}; a store created without a directory is scratch space whose journal is
+ * deleted when the store is closed.</p>
+ */
+public class JournaledEventStore implements EventStore {
+  static final String NAME = "journaled";
+  private static final int ADD = 'A';
+  private static final int REMOVE = 'R';
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final long NO_END_RECURRING = Long.MIN_VALUE;
+
+  private final EventStore events;
+  private final Path file;
+  private final FileChannel channel;
+  private final DataOutputStream journal;
+  private boolean dirty;
+
+  private JournaledEventStore(EventStore events, Path file, FileChannel channel) {
+    this.events = events;
+    this.file = file;
+    this.channel = channel;
+    this.journal = new DataOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+  }
+
+  /**
+   * Open a journal, replaying its records into the given store, and append new changes to it.
+   * A missing journal file is created empty.
+   *
+   * @param journalFile the journal file.
+   * @param events      the empty store receiving the events.
+   * @return the journaled store.
+   * @throws IOException if the journal cannot be read or opened for writing.
+   */
+  public static JournaledEventStore open(Path journalFile, EventStore events) throws IOException {
+    return open(journalFile, events, Long.MAX_VALUE, false);
+  }
+
+  /**
+   * Reopen a journal in the state of a checkpoint, dropping the records written after it.
+   *
+   * @param journalFile the journal file.
+   * @param length      the length of the journal when the checkpoint was taken.
+   * @return the journaled store.
+   * @throws IOException if the journal cannot be read or is shorter than the checkpoint.
+   */
+  public static JournaledEventStore reopen(Path journalFile, long length) throws IOException {
+    if (!Files.isRegularFile(journalFile)) {
+      throw new IOException("Missing event journal " + journalFile);
+    }
+    return open(journalFile, new TreeEventStore(), length, false);
+  }
+
+  /**
+   * Create a store with a new journal in a directory. The journal keeps its name for the life of
+   * the calendar, so a snapshot can refer to it.
+   *
+   * @param directory the directory of the journal, or null for a scratch journal in the
+   *                  temporary directory.
+   * @return the new store.
+   * @throws IOException if the journal cannot be created.
+   */
+  public static JournaledEventStore create(Path directory) throws IOException {
+    if (directory == null) {
+      return open(Files.createTempFile("events", ".journal"), new TreeEventStore(),
+              Long.MAX_VALUE, true);
+    }
+    Path file = Files.createTempFile(Files.createDirectories(directory), "events", ".journal");
+    return open(file, new TreeEventStore());
+  }
+
+  private static JournaledEventStore open(Path journalFile, EventStore events, long length,
+                                          boolean scratch) throws IOException {
+    FileChannel channel = scratch
+            ? FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)
+            : FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+    try {
+      long end = replay(channel, events, length);
+      if (length != Long.MAX_VALUE && end != length) {
+        throw new IOException("Event journal " + journalFile + " ends before its checkpoint");
+      }
+      channel.truncate(end);
+      channel.position(end);
+      return new JournaledEventStore(events, scratch ? null : journalFile, channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void add(IEvent event) {
+    write(ADD, event);
+    events.add(event);
+  }
+
+  @Override
+  public boolean remove(IEvent event) {
+    if (!events.remove(event)) {
+      return false;
+    }
+    write(REMOVE, event);
+    return true;
+  }
+
+  @Override
+  public Collection<IEvent> getEvents(LocalDate date) {
+    return events.getEvents(date);
+  }
+
+  @Override
+  public Iterator<IEvent> iterator(LocalDate from, LocalDate to) {
+    return events.iterator(from, to);
+  }
+
+  @Override
+  public int size() {
+    return events.size();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (dirty) {
+      journal.flush();
+      channel.force(false);
+      dirty = false;
+    }
+  }
+
+  /**
+   * Force the journal to disk and point at its end, unless the journal is scratch space.
+   *
+   * @return the checkpoint, or null for a scratch journal.
+   * @throws IOException if the journal cannot be written.
+   */
+  @Override
+  public StoreCheckpoint checkpoint() throws IOException {
+    if (file == null) {
+      return null;
+    }
+    flush();
+    return new StoreCheckpoint(NAME, file, channel.position());
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      journal.close();
+      events.close();
+    }
+  }
+
+  private void write(int operation, IEvent event) {
+    try {
+      journal.writeByte(operation);
+      journal.writeLong(event.getStartTime().toEpochSecond(ZoneOffset.UTC));
+      journal.writeLong(event.getEndTime().toEpochSecond(ZoneOffset.UTC));
+      writeString(event.getSubject());
+      writeString(event.getDescription());
+      if (event instanceof IRecurringEvent) {
+        IRecurringEvent recurring = (IRecurringEvent) event;
+        journal.writeBoolean(true);
+        writeString(recurring.getRecurringDays());
+        journal.writeLong(recurring.getEndRecurring() == null ? NO_END_RECURRING
+                : recurring.getEndRecurring().toEpochSecond(ZoneOffset.UTC));
+        journal.writeInt(recurring.getOccurrences());
+      } else {
+        journal.writeBoolean(false);
+      }
+      dirty = true;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write event journal", e);
+    }
+  }
+
+  private void writeString(String value) throws IOException {
+    if (value == null) {
+      journal.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    journal.writeInt(bytes.length);
+    journal.write(bytes);
+  }
+
+  /**
+   * Apply the records of a journal to a store.
+   *
+   * @param channel the journal, positioned at its start.
+   * @param events  the store receiving the events.
+   * @param length  the length of the records to apply.
+   * @return the length of the complete records applied.
+   * @throws IOException if the journal cannot be read.
+   */
+  private static long replay(FileChannel channel, EventStore events, long length)
+          throws IOException {
+    CountingInputStream counter = new CountingInputStream(
+            new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+    DataInputStream input = new DataInputStream(counter);
+    long complete = 0;
+    while (complete < length) {
+      int operation = input.read();
+      if (operation < 0) {
+        return complete;
+      }
+      IEvent event;
+      try {
+        event = readEvent(input, channel.size());
+      } catch (EOFException e) {
+        return complete;
+      }
+      if (operation == ADD) {
+        events.add(event);
+      } else if (operation == REMOVE) {
+        IEvent stored = findEqual(events, event);
+        if (stored != null) {
+          events.remove(stored);
+        }
+      } else {
+        throw new IOException("Corrupt event journal at offset " + complete);
+      }
+      complete = counter.count;
+    }
+    return complete;
+  }
+
+  private static IEvent readEvent(DataInputStream input, long journalSize) throws IOException {
+    LocalDateTime start = LocalDateTime.ofEpochSecond(input.readLong(), 0, ZoneOffset.UTC);
+    LocalDateTime end = LocalDateTime.ofEpochSecond(input.readLong(), 0, ZoneOffset.UTC);
+    String subject = readString(input, journalSize);
+    String description = readString(input, journalSize);
+    if (!input.readBoolean()) {
+      return new OneTimeEvent(subject, description, start, end);
+    }
+    String recurringDays = readString(input, journalSize);
+    long endRecurring = input.readLong();
+    int occurrences = input.readInt();
+    return new RecurringEvent(subject, description, start, end,
+            endRecurring == NO_END_RECURRING ? null
+                    : LocalDateTime.ofEpochSecond(endRecurring, 0, ZoneOffset.UTC),
+            recurringDays, occurrences);
+  }
+
+  private static String readString(DataInputStream input, long journalSize)
+          throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      return null;
+    } else if (length > journalSize) {
+      throw new EOFException("String longer than the journal");
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Find the stored event a removal record refers to.
+   */
+  private static IEvent findEqual(EventStore events, IEvent removed) {
+    for (IEvent event : events.getEvents(removed.getStartTime().toLocalDate())) {
+      if (event.getEndTime().equals(removed.getEndTime())
+              && event.getStartTime().equals(removed.getStartTime())
+              && Objects.equals(event.getSubject(), removed.getSubject())
+              && Objects.equals(event.getDescription(), removed.getDescription())
+              && (event instanceof IRecurringEvent) == (removed instanceof IRecurringEvent)) {
+        return event;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stream counting the bytes read through it.
+   */
+  private static class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int value = super.read();
+      if (value >= 0) {
+        count++;
+      }
+      return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      if (read > 0) {
+        count += read;
+      }
+      return read;
+    }
+  }
+}
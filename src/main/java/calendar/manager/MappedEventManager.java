@@ -0,0 +1,631 @@
+package calendar.manager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import calendar.model.EventChange;
+import calendar.model.EventPrinter;
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+import calendar.model.OneTimeEvent;
+import calendar.model.RecurringEvent;
+import calendar.model.TextEventPrinter;
+import calendar.utils.EventUtils;
+import calendar.utils.ExportCSV;
+
+/**
+ * Read-only event manager backed by a memory-mapped archive file. Opening an archive only maps
+ * the file, nothing is parsed and no per-event objects are kept on the heap; range queries
+ * binary-search the fixed-width records, which are sorted by start time, directly in the
+ * mapping. Events are only materialized when a query returns them.
+ *
+ * <p>The archive starts with a header (magic {@code CALM}, version, event count, offsets of the
+ * records and of the string heap, and the calendar timezone), followed by one
+ * {@value #RECORD_SIZE}-byte record per event and a heap of length-prefixed UTF-8 strings the
+ * records point to.</p>
+ */
+public class MappedEventManager implements IEventManager, Closeable {
+  private static final int MAGIC = 0x43414c4d;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 40;
+  private static final int RECORD_SIZE = 56;
+  private static final long NO_STRING = -1;
+  private static final long NO_END_RECURRING = Long.MIN_VALUE;
+  private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+  private static final int START_OFFSET = 0;
+  private static final int END_OFFSET = 8;
+  private static final int SUBJECT_OFFSET = 16;
+  private static final int DESCRIPTION_OFFSET = 24;
+  private static final int RECURRING_DAYS_OFFSET = 32;
+  private static final int END_RECURRING_OFFSET = 40;
+  private static final int OCCURRENCES_OFFSET = 48;
+
+  private final FileChannel channel;
+  private final long eventCount;
+  private final ZoneId timeZone;
+  private final MappedRegion records;
+  private final MappedRegion strings;
+
+  /**
+   * Open an archive written by {@link #writeArchive}. Only the header is read; the records and
+   * strings are mapped and read on demand.
+   *
+   * @param archiveFile the archive file.
+   * @throws IOException if the file cannot be opened or is not an archive.
+   */
+  public MappedEventManager(Path archiveFile) throws IOException {
+    this.channel = FileChannel.open(archiveFile, StandardOpenOption.READ);
+    try {
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      if (header.getInt(0) != MAGIC) {
+        throw new IOException("Not a calendar archive: " + archiveFile);
+      }
+      if (header.getInt(4) != VERSION) {
+        throw new IOException("Unsupported calendar archive version: " + header.getInt(4));
+      }
+      this.eventCount = header.getLong(8);
+      long recordsOffset = header.getLong(16);
+      long stringsOffset = header.getLong(24);
+      long zoneOffset = header.getLong(32);
+
+      long recordsPerSegment = MAX_SEGMENT_SIZE / RECORD_SIZE;
+      this.records = new MappedRegion(channel, recordsOffset, eventCount * RECORD_SIZE,
+              recordsPerSegment * RECORD_SIZE);
+      this.strings = new MappedRegion(channel, stringsOffset, channel.size() - stringsOffset,
+              MAX_SEGMENT_SIZE);
+      this.timeZone = ZoneId.of(strings.getString(zoneOffset - stringsOffset));
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Write the events of a calendar into an archive that can be opened with this class.
+   * The archive is written to a temporary file first and moved into place once complete.
+   *
+   * @param calendar    the calendar to archive.
+   * @param archiveFile the archive file.
+   * @throws IOException if the archive cannot be written.
+   */
+  public static void writeArchive(ICalendar calendar, Path archiveFile) throws IOException {
+    List<IEvent> events = new ArrayList<>(calendar.getAllEvents());
+    events.sort(Comparator.comparing(IEvent::getStartTime).thenComparing(IEvent::getEndTime));
+
+    Map<String, Long> stringOffsets = new HashMap<>();
+    List<String> heap = new ArrayList<>();
+    long[] heapSize = {0};
+    long zoneOffset = addString(stringOffsets, heap, heapSize, calendar.getTimeZone().getId());
+    long recordsOffset = HEADER_SIZE;
+    long stringsOffset = recordsOffset + (long) events.size() * RECORD_SIZE;
+
+    Path tempFile = archiveFile.resolveSibling(archiveFile.getFileName() + ".tmp");
+    try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+      out.position(recordsOffset);
+      for (IEvent event : events) {
+        if (buffer.remaining() < RECORD_SIZE) {
+          drain(out, buffer);
+        }
+        buffer.putLong(toEpochSecond(event.getStartTime()));
+        buffer.putLong(toEpochSecond(event.getEndTime()));
+        buffer.putLong(addString(stringOffsets, heap, heapSize, event.getSubject()));
+        buffer.putLong(addString(stringOffsets, heap, heapSize, event.getDescription()));
+        if (event instanceof IRecurringEvent) {
+          IRecurringEvent recurring = (IRecurringEvent) event;
+          buffer.putLong(addString(stringOffsets, heap, heapSize, recurring.getRecurringDays()));
+          buffer.putLong(recurring.getEndRecurring() == null
+                  ? NO_END_RECURRING : toEpochSecond(recurring.getEndRecurring()));
+          buffer.putLong(recurring.getOccurrences());
+        } else {
+          buffer.putLong(NO_STRING);
+          buffer.putLong(NO_END_RECURRING);
+          buffer.putLong(0);
+        }
+      }
+
+      for (String value : heap) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < 4) {
+          drain(out, buffer);
+        }
+        buffer.putInt(bytes.length);
+        int written = 0;
+        while (written < bytes.length) {
+          if (!buffer.hasRemaining()) {
+            drain(out, buffer);
+          }
+          int chunk = Math.min(buffer.remaining(), bytes.length - written);
+          buffer.put(bytes, written, chunk);
+          written += chunk;
+        }
+      }
+      drain(out, buffer);
+
+      buffer.putInt(MAGIC);
+      buffer.putInt(VERSION);
+      buffer.putLong(events.size());
+      buffer.putLong(recordsOffset);
+      buffer.putLong(stringsOffset);
+      buffer.putLong(stringsOffset + zoneOffset);
+      buffer.flip();
+      out.write(buffer, 0);
+      out.force(false);
+    }
+    Files.move(tempFile, archiveFile, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Get the timezone of the archived calendar.
+   *
+   * @return the archived timezone.
+   */
+  public ZoneId getTimeZone() {
+    return timeZone;
+  }
+
+  /**
+   * Get the number of archived events without materializing them.
+   *
+   * @return the number of events.
+   */
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  @Override
+  public void addEvent(String subject, String description, LocalDateTime startTime,
+                       LocalDateTime endTime, boolean autoDeclineConflicts) {
+    throw readOnly();
+  }
+
+  @Override
+  public void addEvents(List<IEvent> events, boolean autoDeclineConflicts) {
+    throw readOnly();
+  }
+
+  @Override
+  public int addNewEvents(List<IEvent> events, boolean autoDeclineConflicts) {
+    throw readOnly();
+  }
+
+  /**
+   * Check if an equal event is archived by scanning the records starting at the same time.
+   *
+   * @param event the given event.
+   * @return true if an equal event is in the archive.
+   */
+  @Override
+  public boolean containsEvent(IEvent event) {
+    EventUtils eventUtils = new EventUtils();
+    long fingerprint = eventUtils.fingerprint(event);
+    Iterator<IEvent> candidates = eventIterator(event.getStartTime(), event.getStartTime());
+    while (candidates.hasNext()) {
+      if (eventUtils.fingerprint(candidates.next()) == fingerprint) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void addRecurringEvents(
+          String subject, String description, LocalDateTime startTime, LocalDateTime endTime,
+          LocalDateTime endRecurring, String recurringDays, int occurrences) {
+    throw readOnly();
+  }
+
+  @Override
+  public void editEventSingle(String subject, LocalDateTime startTime, LocalDateTime endTime,
+                              String property, String newValue, boolean autoDeclineConflicts) {
+    throw readOnly();
+  }
+
+  @Override
+  public void editEventRecurring(String subject, LocalDateTime startTime, String property,
+                                 String newValue) {
+    throw readOnly();
+  }
+
+  @Override
+  public void removeEvent(IEvent event) {
+    throw readOnly();
+  }
+
+  @Override
+  public void restoreEvents(List<IEvent> events) {
+    throw readOnly();
+  }
+
+  @Override
+  public void checkEvents(List<IEvent> events, boolean autoDeclineConflicts) {
+    throw readOnly();
+  }
+
+  /**
+   * Print all events in the archive from start time to end time, in the same layout as
+   * {@link EventManager#printEvents}.
+   *
+   * @param startTime the given start time.
+   * @param endTime   the given end time.
+   */
+  @Override
+  public void printEvents(LocalDateTime startTime, LocalDateTime endTime) {
+    printEvents(startTime, endTime, new TextEventPrinter());
+  }
+
+  @Override
+  public void printEvents(LocalDateTime startTime, LocalDateTime endTime, EventPrinter printer) {
+    LocalDate startDate = startTime.toLocalDate();
+    LocalDate endDate = endTime != null ? endTime.toLocalDate() : startDate;
+    long from = toEpochSecond(startTime);
+    long to = toEpochSecond(endTime != null ? endTime : startDate.atTime(LocalTime.of(23, 59)));
+    long scanEnd = toEpochSecond(endDate.plusDays(1).atStartOfDay());
+
+    LocalDate currentDate = null;
+    for (long i = lowerBound(toEpochSecond(startDate.atStartOfDay())); i < eventCount; i++) {
+      long start = startOf(i);
+      if (start >= scanEnd) {
+        break;
+      }
+      LocalDate date = fromEpochSecond(start).toLocalDate();
+      if (!date.equals(currentDate)) {
+        currentDate = date;
+        printer.printDay(date);
+      }
+      if (start >= from && endOf(i) <= to) {
+        printer.printEvent(eventAt(i));
+      }
+    }
+  }
+
+  /**
+   * Export all the archived events into a csv file for Google calendar import.
+   *
+   * @param fileName the given file name.
+   */
+  @Override
+  public void exportCSV(String fileName) {
+    try (Writer writer = Files.newBufferedWriter(Paths.get(fileName))) {
+      new ExportCSV().export(this, writer);
+      System.out.println("Calendar exported successfully to " + fileName);
+    } catch (IOException e) {
+      System.err.println("Error exporting calendar to CSV: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Print out the status based on a given date time, whether it's busy or available.
+   *
+   * @param dateTime the given date time.
+   */
+  @Override
+  public void isBusy(LocalDateTime dateTime) {
+    isBusy(dateTime, new TextEventPrinter());
+  }
+
+  @Override
+  public void isBusy(LocalDateTime dateTime, EventPrinter printer) {
+    long instant = toEpochSecond(dateTime);
+    long dayEnd = toEpochSecond(dateTime.toLocalDate().plusDays(1).atStartOfDay());
+    boolean busy = false;
+    for (long i = lowerBound(toEpochSecond(dateTime.toLocalDate().atStartOfDay()));
+         i < eventCount; i++) {
+      long start = startOf(i);
+      if (start >= dayEnd) {
+        break;
+      }
+      if (start == instant || start < instant && endOf(i) > instant) {
+        busy = true;
+        break;
+      }
+    }
+    printer.printStatus(dateTime, busy);
+  }
+
+  /**
+   * Search events by subject starting at or after the start time and, when given, ending at or
+   * before the end time. Only the matching records are materialized.
+   *
+   * @param subject   the given subject, or null for any subject.
+   * @param startTime the given start time, or null for the whole archive.
+   * @param endTime   the given end time.
+   * @return the list of found events.
+   */
+  @Override
+  public List<IEvent> searchEvents(String subject, LocalDateTime startTime,
+                                   LocalDateTime endTime) {
+    byte[] subjectBytes = subject == null ? null : subject.getBytes(StandardCharsets.UTF_8);
+    long first = startTime == null ? 0 : lowerBound(toEpochSecond(startTime));
+    long to = startTime != null && endTime != null ? toEpochSecond(endTime) : Long.MAX_VALUE;
+
+    List<IEvent> foundEvents = new ArrayList<>();
+    for (long i = first; i < eventCount; i++) {
+      if (startOf(i) > to) {
+        break;
+      }
+      if (endOf(i) <= to && (subjectBytes == null
+              || strings.matches(records.getLong(i * RECORD_SIZE + SUBJECT_OFFSET),
+              subjectBytes))) {
+        foundEvents.add(eventAt(i));
+      }
+    }
+    return foundEvents;
+  }
+
+  /**
+   * Get all archived events, sorted by start time.
+   *
+   * @return the list of all events.
+   */
+  @Override
+  public List<IEvent> getAllEvents() {
+    return searchEvents(null, null, null);
+  }
+
+  /**
+   * Iterate over all archived events in start time order, materializing one event at a time.
+   *
+   * @return an iterator over all events.
+   */
+  @Override
+  public Iterator<IEvent> eventIterator() {
+    return eventIterator(null, null);
+  }
+
+  /**
+   * Iterate over the archived events starting within a range, binary-searching the first one
+   * and stopping at the first record past the range.
+   *
+   * @param from the earliest start time, or null for no lower bound.
+   * @param to   the latest start time, or null for no upper bound.
+   * @return an iterator over the events in the range.
+   */
+  @Override
+  public Iterator<IEvent> eventIterator(LocalDateTime from, LocalDateTime to) {
+    long first = from == null ? 0 : lowerBound(toEpochSecond(from));
+    long last = to == null ? Long.MAX_VALUE : toEpochSecond(to);
+    return new Iterator<IEvent>() {
+      private long next = first;
+
+      @Override
+      public boolean hasNext() {
+        return next < eventCount && startOf(next) <= last;
+      }
+
+      @Override
+      public IEvent next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return eventAt(next++);
+      }
+    };
+  }
+
+  /**
+   * Archives never change, so record i is treated as stamped with sequence i + 1.
+   *
+   * @return the number of archived events.
+   */
+  @Override
+  public long getChangeSequence() {
+    return eventCount;
+  }
+
+  @Override
+  public long getHistoryStart() {
+    return 0;
+  }
+
+  @Override
+  public List<EventChange> getChangesSince(long watermark) {
+    if (watermark < 0) {
+      throw new IllegalArgumentException("Watermark " + watermark
+              + " predates the retained change history starting at 0");
+    }
+    List<EventChange> changes = new ArrayList<>();
+    for (long index = watermark; index < eventCount; index++) {
+      changes.add(new EventChange(index + 1, eventAt(index), false));
+    }
+    return changes;
+  }
+
+  @Override
+  public void discardTombstones(long watermark) {
+    // archives have no tombstones
+  }
+
+  @Override
+  public void trackChanges(List<EventChange> changes) {
+    // archives never change
+  }
+
+  @Override
+  public StoreCheckpoint checkpoint() {
+    return null;
+  }
+
+  /**
+   * Release the file channel. The mapping itself is released once it is no longer reachable.
+   *
+   * @throws IOException if the channel cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Find the index of the first record starting at or after the given instant.
+   *
+   * @param epochSecond the instant to search for.
+   * @return the index of the first matching record, or the event count if there is none.
+   */
+  private long lowerBound(long epochSecond) {
+    long low = 0;
+    long high = eventCount;
+    while (low < high) {
+      long mid = (low + high) >>> 1;
+      if (startOf(mid) < epochSecond) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private long startOf(long index) {
+    return records.getLong(index * RECORD_SIZE + START_OFFSET);
+  }
+
+  private long endOf(long index) {
+    return records.getLong(index * RECORD_SIZE + END_OFFSET);
+  }
+
+  private IEvent eventAt(long index) {
+    long base = index * RECORD_SIZE;
+    String subject = stringAt(records.getLong(base + SUBJECT_OFFSET));
+    String description = stringAt(records.getLong(base + DESCRIPTION_OFFSET));
+    LocalDateTime startTime = fromEpochSecond(records.getLong(base + START_OFFSET));
+    LocalDateTime endTime = fromEpochSecond(records.getLong(base + END_OFFSET));
+    long recurringDays = records.getLong(base + RECURRING_DAYS_OFFSET);
+    if (recurringDays == NO_STRING) {
+      return new OneTimeEvent(subject, description, startTime, endTime);
+    }
+    long endRecurring = records.getLong(base + END_RECURRING_OFFSET);
+    return new RecurringEvent(subject, description, startTime, endTime,
+            endRecurring == NO_END_RECURRING ? null : fromEpochSecond(endRecurring),
+            stringAt(recurringDays), (int) records.getLong(base + OCCURRENCES_OFFSET));
+  }
+
+  private String stringAt(long offset) {
+    return offset == NO_STRING ? null : strings.getString(offset);
+  }
+
+  private static long addString(Map<String, Long> stringOffsets, List<String> heap,
+                                long[] heapSize, String value) {
+    if (value == null) {
+      return NO_STRING;
+    }
+    Long offset = stringOffsets.get(value);
+    if (offset == null) {
+      offset = heapSize[0];
+      stringOffsets.put(value, offset);
+      heap.add(value);
+      heapSize[0] += 4 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+    return offset;
+  }
+
+  private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private static long toEpochSecond(LocalDateTime dateTime) {
+    return dateTime.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static LocalDateTime fromEpochSecond(long epochSecond) {
+    return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+  }
+
+  private static UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException("Archived calendars are read-only");
+  }
+
+  /**
+   * A region of the archive mapped as a series of segments, so that archives larger than a
+   * single mapping can be addressed with long offsets.
+   */
+  private static class MappedRegion {
+    private final MappedByteBuffer[] segments;
+    private final long segmentSize;
+
+    MappedRegion(FileChannel channel, long offset, long size, long segmentSize) {
+      this.segmentSize = segmentSize;
+      int count = (int) ((size + segmentSize - 1) / segmentSize);
+      this.segments = new MappedByteBuffer[count];
+      try {
+        for (int i = 0; i < count; i++) {
+          long start = i * segmentSize;
+          segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start,
+                  Math.min(segmentSize, size - start));
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    long getLong(long position) {
+      return segments[(int) (position / segmentSize)].getLong((int) (position % segmentSize));
+    }
+
+    byte get(long position) {
+      return segments[(int) (position / segmentSize)].get((int) (position % segmentSize));
+    }
+
+    int getInt(long position) {
+      if (position % segmentSize + 4 <= segmentSize) {
+        return segments[(int) (position / segmentSize)].getInt((int) (position % segmentSize));
+      }
+      int value = 0;
+      for (int i = 0; i < 4; i++) {
+        value = (value << 8) | (get(position + i) & 0xFF);
+      }
+      return value;
+    }
+
+    String getString(long position) {
+      byte[] bytes = new byte[getInt(position)];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = get(position + 4 + i);
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    boolean matches(long position, byte[] expected) {
+      if (getInt(position) != expected.length) {
+        return false;
+      }
+      for (int i = 0; i < expected.length; i++) {
+        if (get(position + 4 + i) != expected[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,460 @@
+package calendar.manager;
+
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+import calendar.model.OneTimeEvent;
+import calendar.model.RecurringEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Store keeping its events as fixed-width records in a memory-mapped file, sorted by start time,
+ * with their strings in a second mapped file. The records follow the layout of the
+ * {@link MappedEventManager} archive with a record id appended: start and end as epoch seconds,
+ * offsets of the subject, description and recurring days in the string file (the latter
+ * {@value #NOT_RECURRING} for one-time events), the end of the recurrence and the occurrences.
+ * Day lookups and range scans binary-search the records in the mapping, and inserting in the
+ * middle shifts the later records, so like the columnar backend it suits calendars that mostly
+ * grow at the end.
+ *
+ * <p>The store only holds weak references to event objects. Reads return the added instance
+ * while anything else still references it, and otherwise materialize a new instance from the
+ * record, so removal by instance works as for the heap backends while events nobody uses take no
+ * heap. The files are scratch space, deleted when the store is closed; strings of removed events
+ * are reclaimed by rewriting the string file once they make up most of it. A single mapping
+ * limits each file to 2 GB.</p>
+ */
+public class MappedEventStore implements EventStore {
+  static final String NAME = "mapped";
+  private static final int RECORD_SIZE = 64;
+  private static final int START_OFFSET = 0;
+  private static final int END_OFFSET = 8;
+  private static final int SUBJECT_OFFSET = 16;
+  private static final int DESCRIPTION_OFFSET = 24;
+  private static final int RECURRING_DAYS_OFFSET = 32;
+  private static final int END_RECURRING_OFFSET = 40;
+  private static final int OCCURRENCES_OFFSET = 48;
+  private static final int ID_OFFSET = 56;
+  private static final long NO_STRING = -1;
+  private static final long NOT_RECURRING = -2;
+  private static final long NO_END_RECURRING = Long.MIN_VALUE;
+  private static final int INITIAL_RECORDS = 1024;
+  private static final int INITIAL_STRING_BYTES = 1 << 16;
+  private static final int COPY_CHUNK = 1 << 16;
+
+  private final Path directory;
+  private final FileChannel recordChannel;
+  private MappedByteBuffer records;
+  private FileChannel stringChannel;
+  private MappedByteBuffer strings;
+  private final ByteBuffer chunk = ByteBuffer.allocateDirect(COPY_CHUNK);
+  private final Map<Long, EventReference> instances = new HashMap<>();
+  private final ReferenceQueue<IEvent> collected = new ReferenceQueue<>();
+  private int size;
+  private int stringEnd;
+  private int garbageBytes;
+  private long nextId;
+  private int modifications;
+
+  private MappedEventStore(Path directory) throws IOException {
+    this.directory = directory;
+    this.recordChannel = openScratch(directory, ".records");
+    try {
+      this.records = recordChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+              (long) INITIAL_RECORDS * RECORD_SIZE);
+      this.stringChannel = openScratch(directory, ".strings");
+      this.strings = stringChannel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_STRING_BYTES);
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Create an empty store with its files in a directory.
+   *
+   * @param directory the directory of the files, or null for the temporary directory.
+   * @return the new store.
+   * @throws IOException if the files cannot be created or mapped.
+   */
+  public static MappedEventStore create(Path directory) throws IOException {
+    return new MappedEventStore(directory == null ? null : Files.createDirectories(directory));
+  }
+
+  @Override
+  public void add(IEvent event) {
+    expungeCollected();
+    long start = toEpochSecond(event.getStartTime());
+    ensureRecordCapacity(size + 1);
+    int index = upperBound(start);
+    shiftRecords(index, index + 1);
+    int base = index * RECORD_SIZE;
+    records.putLong(base + START_OFFSET, start);
+    records.putLong(base + END_OFFSET, toEpochSecond(event.getEndTime()));
+    records.putLong(base + SUBJECT_OFFSET, addString(event.getSubject()));
+    records.putLong(base + DESCRIPTION_OFFSET, addString(event.getDescription()));
+    if (event instanceof IRecurringEvent) {
+      IRecurringEvent recurring = (IRecurringEvent) event;
+      records.putLong(base + RECURRING_DAYS_OFFSET, addString(recurring.getRecurringDays()));
+      records.putLong(base + END_RECURRING_OFFSET, recurring.getEndRecurring() == null
+              ? NO_END_RECURRING : toEpochSecond(recurring.getEndRecurring()));
+      records.putLong(base + OCCURRENCES_OFFSET, recurring.getOccurrences());
+    } else {
+      records.putLong(base + RECURRING_DAYS_OFFSET, NOT_RECURRING);
+      records.putLong(base + END_RECURRING_OFFSET, NO_END_RECURRING);
+      records.putLong(base + OCCURRENCES_OFFSET, 0);
+    }
+    long id = nextId++;
+    records.putLong(base + ID_OFFSET, id);
+    instances.put(id, new EventReference(event, id, collected));
+    size++;
+    modifications++;
+  }
+
+  @Override
+  public boolean remove(IEvent event) {
+    expungeCollected();
+    long start = toEpochSecond(event.getStartTime());
+    for (int index = lowerBound(start); index < size && startOf(index) == start; index++) {
+      long id = records.getLong(index * RECORD_SIZE + ID_OFFSET);
+      EventReference reference = instances.get(id);
+      if (reference != null && reference.get() == event) {
+        instances.remove(id);
+        releaseStrings(index);
+        shiftRecords(index + 1, index);
+        size--;
+        modifications++;
+        compactStringsIfWasteful();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Collection<IEvent> getEvents(LocalDate date) {
+    int from = lowerBound(date.toEpochDay() * 86400);
+    int to = lowerBound(date.plusDays(1).toEpochDay() * 86400);
+    if (from == to) {
+      return Collections.emptyList();
+    }
+    expungeCollected();
+    List<IEvent> day = new ArrayList<>(to - from);
+    for (int index = from; index < to; index++) {
+      day.add(eventAt(index));
+    }
+    return Collections.unmodifiableList(day);
+  }
+
+  @Override
+  public Iterator<IEvent> iterator(LocalDate from, LocalDate to) {
+    int first = from == null ? 0 : lowerBound(from.toEpochDay() * 86400);
+    int last = to == null ? size : lowerBound(to.plusDays(1).toEpochDay() * 86400);
+    expungeCollected();
+    return new Iterator<IEvent>() {
+      private final int expectedModifications = modifications;
+      private int index = first;
+
+      @Override
+      public boolean hasNext() {
+        return index < last;
+      }
+
+      @Override
+      public IEvent next() {
+        if (modifications != expectedModifications) {
+          throw new ConcurrentModificationException();
+        }
+        if (index >= last) {
+          throw new NoSuchElementException();
+        }
+        return eventAt(index++);
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Close both files, which deletes them. The mappings are released once they are no longer
+   * reachable.
+   *
+   * @throws IOException if a file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      recordChannel.close();
+    } finally {
+      if (stringChannel != null) {
+        stringChannel.close();
+      }
+    }
+  }
+
+  /**
+   * Get the event of a record, the instance still referenced elsewhere or a new one read from
+   * the record, which is then handed out until it is no longer referenced.
+   *
+   * @param index the record index.
+   * @return the event.
+   */
+  private IEvent eventAt(int index) {
+    int base = index * RECORD_SIZE;
+    long id = records.getLong(base + ID_OFFSET);
+    EventReference reference = instances.get(id);
+    IEvent event = reference == null ? null : reference.get();
+    if (event != null) {
+      return event;
+    }
+    String subject = stringAt(records.getLong(base + SUBJECT_OFFSET));
+    String description = stringAt(records.getLong(base + DESCRIPTION_OFFSET));
+    LocalDateTime startTime = fromEpochSecond(records.getLong(base + START_OFFSET));
+    LocalDateTime endTime = fromEpochSecond(records.getLong(base + END_OFFSET));
+    long recurringDays = records.getLong(base + RECURRING_DAYS_OFFSET);
+    if (recurringDays == NOT_RECURRING) {
+      event = new OneTimeEvent(subject, description, startTime, endTime);
+    } else {
+      long endRecurring = records.getLong(base + END_RECURRING_OFFSET);
+      event = new RecurringEvent(subject, description, startTime, endTime,
+              endRecurring == NO_END_RECURRING ? null : fromEpochSecond(endRecurring),
+              stringAt(recurringDays), (int) records.getLong(base + OCCURRENCES_OFFSET));
+    }
+    instances.put(id, new EventReference(event, id, collected));
+    return event;
+  }
+
+  /**
+   * Drop the references of events that were garbage collected.
+   */
+  private void expungeCollected() {
+    Reference<? extends IEvent> reference;
+    while ((reference = collected.poll()) != null) {
+      EventReference stale = (EventReference) reference;
+      instances.remove(stale.id, stale);
+    }
+  }
+
+  /**
+   * Move the records from an index to the end of the store to another index, copying through a
+   * chunk buffer from the end when moving up so that overlapping records are read before they
+   * are overwritten.
+   *
+   * @param from the index of the first record to move.
+   * @param to   the index it moves to.
+   */
+  private void shiftRecords(int from, int to) {
+    int length = (size - from) * RECORD_SIZE;
+    int distance = (to - from) * RECORD_SIZE;
+    int done = 0;
+    while (done < length) {
+      int step = Math.min(COPY_CHUNK, length - done);
+      int source = from * RECORD_SIZE + (distance > 0 ? length - done - step : done);
+      chunk.clear();
+      chunk.put(records.duplicate().position(source).limit(source + step));
+      chunk.flip();
+      records.duplicate().position(source + distance).put(chunk);
+      done += step;
+    }
+  }
+
+  private void ensureRecordCapacity(int count) {
+    long needed = (long) count * RECORD_SIZE;
+    if (needed > records.capacity()) {
+      records = remap(recordChannel, records.capacity(), needed);
+    }
+  }
+
+  /**
+   * Map a file again with at least the given size, doubling the current size.
+   *
+   * @param channel the file.
+   * @param current the current mapped size.
+   * @param needed  the size the mapping must at least have.
+   * @return the new mapping.
+   * @throws IllegalStateException if the file would exceed the size of a single mapping.
+   */
+  private static MappedByteBuffer remap(FileChannel channel, long current, long needed) {
+    long capacity = Math.max(needed, Math.min(current * 2, Integer.MAX_VALUE));
+    if (capacity > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Mapped event storage is full");
+    }
+    try {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not grow mapped event storage", e);
+    }
+  }
+
+  private long addString(String value) {
+    if (value == null) {
+      return NO_STRING;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    long needed = (long) stringEnd + 4 + bytes.length;
+    if (needed > strings.capacity()) {
+      strings = remap(stringChannel, strings.capacity(), needed);
+    }
+    int offset = stringEnd;
+    strings.putInt(offset, bytes.length);
+    strings.duplicate().position(offset + 4).put(bytes);
+    stringEnd = (int) needed;
+    return offset;
+  }
+
+  private String stringAt(long offset) {
+    if (offset == NO_STRING) {
+      return null;
+    }
+    byte[] bytes = new byte[strings.getInt((int) offset)];
+    strings.duplicate().position((int) offset + 4).get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void releaseStrings(int index) {
+    int base = index * RECORD_SIZE;
+    for (int field : new int[]{SUBJECT_OFFSET, DESCRIPTION_OFFSET, RECURRING_DAYS_OFFSET}) {
+      long offset = records.getLong(base + field);
+      if (offset >= 0) {
+        garbageBytes += 4 + strings.getInt((int) offset);
+      }
+    }
+  }
+
+  /**
+   * Copy the strings of the remaining records into a new string file once the strings of removed
+   * events take up more than half of the current one.
+   */
+  private void compactStringsIfWasteful() {
+    if (stringEnd <= INITIAL_STRING_BYTES || (long) garbageBytes * 2 <= stringEnd) {
+      return;
+    }
+    FileChannel oldChannel = stringChannel;
+    MappedByteBuffer oldStrings = strings;
+    try {
+      stringChannel = openScratch(directory, ".strings");
+      strings = stringChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+              Math.max(INITIAL_STRING_BYTES, stringEnd - garbageBytes));
+    } catch (IOException e) {
+      stringChannel = oldChannel;
+      strings = oldStrings;
+      throw new UncheckedIOException("Could not compact mapped event storage", e);
+    }
+    stringEnd = 0;
+    garbageBytes = 0;
+    for (int index = 0; index < size; index++) {
+      int base = index * RECORD_SIZE;
+      for (int field : new int[]{SUBJECT_OFFSET, DESCRIPTION_OFFSET, RECURRING_DAYS_OFFSET}) {
+        long offset = records.getLong(base + field);
+        if (offset >= 0) {
+          byte[] bytes = new byte[oldStrings.getInt((int) offset)];
+          oldStrings.duplicate().position((int) offset + 4).get(bytes);
+          records.putLong(base + field, addString(new String(bytes, StandardCharsets.UTF_8)));
+        }
+      }
+    }
+    try {
+      oldChannel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not release mapped event storage", e);
+    }
+  }
+
+  private static FileChannel openScratch(Path directory, String suffix) throws IOException {
+    Path file = directory == null ? Files.createTempFile("events", suffix)
+            : Files.createTempFile(directory, "events", suffix);
+    return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.DELETE_ON_CLOSE);
+  }
+
+  private long startOf(int index) {
+    return records.getLong(index * RECORD_SIZE + START_OFFSET);
+  }
+
+  /**
+   * Find the first record starting at or after a time.
+   *
+   * @param epochSecond the given start time as epoch seconds.
+   * @return the index of the record, or the size if there is none.
+   */
+  private int lowerBound(long epochSecond) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (startOf(middle) < epochSecond) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Find the first record starting after a time, so events with equal starts keep their order.
+   *
+   * @param epochSecond the given start time as epoch seconds.
+   * @return the index of the record, or the size if there is none.
+   */
+  private int upperBound(long epochSecond) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (startOf(middle) <= epochSecond) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static long toEpochSecond(LocalDateTime time) {
+    return time.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static LocalDateTime fromEpochSecond(long epochSecond) {
+    return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+  }
+
+  /**
+   * Weak reference to the event object of a record, remembering the record id so that the
+   * entry can be dropped once the event is collected.
+   */
+  private static final class EventReference extends WeakReference<IEvent> {
+    private final long id;
+
+    EventReference(IEvent event, long id, ReferenceQueue<IEvent> queue) {
+      super(event, queue);
+      this.id = id;
+    }
+  }
+}
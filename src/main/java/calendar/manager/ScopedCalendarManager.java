@@ -0,0 +1,94 @@
+package calendar.manager;
+
+import calendar.model.Calendar;
+import calendar.model.ICalendar;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * A view of a calendar manager whose active calendar is fixed to one calendar. Commands that
+ * only work on the active calendar can run against such views on several threads at once, one
+ * thread per calendar, while the shared manager moves on to other calendars. Operations that
+ * change the set of calendars or span two calendars are refused.
+ */
+public class ScopedCalendarManager implements ICalendarManager {
+  private final ICalendarManager calendarManager;
+  private final String name;
+  private final Calendar calendar;
+
+  /**
+   * Construct a view fixed to the calendar that is active in a manager.
+   *
+   * @param calendarManager the shared calendar manager.
+   * @throws IllegalStateException if no calendar is active.
+   */
+  public ScopedCalendarManager(ICalendarManager calendarManager) {
+    this.calendarManager = calendarManager;
+    this.calendar = calendarManager.getActiveCalendar();
+    this.name = calendarManager.getActiveCalendarName();
+  }
+
+  @Override
+  public void createCalendar(String name, ZoneId timezone) {
+    throw outOfScope();
+  }
+
+  @Override
+  public void createCalendar(String name, ZoneId timezone, String storage) {
+    throw outOfScope();
+  }
+
+  @Override
+  public void openCalendar(String name, ZoneId timezone, StoreCheckpoint checkpoint) {
+    throw outOfScope();
+  }
+
+  @Override
+  public void useCalendar(String name) {
+    throw outOfScope();
+  }
+
+  @Override
+  public void editCalendarProperty(String name, String property, String value) {
+    throw outOfScope();
+  }
+
+  @Override
+  public void copyCalendarEvent(String eventName, LocalDateTime startDateTime,
+                                String targetCalendarName, LocalDateTime targetDateTime) {
+    throw outOfScope();
+  }
+
+  @Override
+  public void copyCalendarEvents(LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                 String targetCalendarName, LocalDateTime targetDateTime) {
+    throw outOfScope();
+  }
+
+  @Override
+  public Calendar getActiveCalendar() {
+    return calendar;
+  }
+
+  @Override
+  public List<String> getAllCalendarNames() {
+    return calendarManager.getAllCalendarNames();
+  }
+
+  @Override
+  public ICalendar getCalendar(String name) {
+    return calendarManager.getCalendar(name);
+  }
+
+  @Override
+  public String getActiveCalendarName() {
+    return name;
+  }
+
+  private IllegalStateException outOfScope() {
+    return new IllegalStateException("Operation is not available in the scope of calendar '"
+            + name + "'");
+  }
+}
@@ -0,0 +1,112 @@
+package calendar.manager;
+
+import calendar.model.Calendar;
+import calendar.model.ICalendar;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * A view of a shared calendar manager with an active calendar of its own, so that several
+ * sessions can work on the same calendars while each one uses a different calendar. Calendars
+ * are created, edited and looked up in the shared manager. The view remembers the active
+ * calendar itself rather than its name, so it stays active when another session renames it.
+ *
+ * <p>The view does not synchronize; callers serialize changes to the shared manager.</p>
+ */
+public class SessionCalendarManager implements ICalendarManager {
+  private final ICalendarManager calendarManager;
+  private Calendar activeCalendar;
+
+  /**
+   * Construct a view of a shared manager with no active calendar.
+   *
+   * @param calendarManager the shared calendar manager.
+   */
+  public SessionCalendarManager(ICalendarManager calendarManager) {
+    this.calendarManager = calendarManager;
+  }
+
+  @Override
+  public void createCalendar(String name, ZoneId timezone) {
+    calendarManager.createCalendar(name, timezone);
+  }
+
+  @Override
+  public void createCalendar(String name, ZoneId timezone, String storage) {
+    calendarManager.createCalendar(name, timezone, storage);
+  }
+
+  @Override
+  public void openCalendar(String name, ZoneId timezone, StoreCheckpoint checkpoint) {
+    calendarManager.openCalendar(name, timezone, checkpoint);
+  }
+
+  @Override
+  public void useCalendar(String name) {
+    activeCalendar = (Calendar) calendarManager.getCalendar(name);
+  }
+
+  @Override
+  public void editCalendarProperty(String name, String property, String value) {
+    calendarManager.editCalendarProperty(name, property, value);
+  }
+
+  @Override
+  public void copyCalendarEvent(String eventName, LocalDateTime startDateTime,
+                                String targetCalendarName, LocalDateTime targetDateTime) {
+    calendarManager.useCalendar(getActiveCalendarNameOrThrow());
+    calendarManager.copyCalendarEvent(eventName, startDateTime, targetCalendarName,
+            targetDateTime);
+  }
+
+  @Override
+  public void copyCalendarEvents(LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                 String targetCalendarName, LocalDateTime targetDateTime) {
+    calendarManager.useCalendar(getActiveCalendarNameOrThrow());
+    calendarManager.copyCalendarEvents(startDateTime, endDateTime, targetCalendarName,
+            targetDateTime);
+  }
+
+  @Override
+  public Calendar getActiveCalendar() {
+    if (activeCalendar == null) {
+      throw new IllegalStateException("No active calendar selected");
+    }
+    return activeCalendar;
+  }
+
+  @Override
+  public List<String> getAllCalendarNames() {
+    return calendarManager.getAllCalendarNames();
+  }
+
+  @Override
+  public ICalendar getCalendar(String name) {
+    return calendarManager.getCalendar(name);
+  }
+
+  /**
+   * Get the current name of the active calendar of this session.
+   *
+   * @return the active calendar name, or null if no calendar is active.
+   */
+  @Override
+  public String getActiveCalendarName() {
+    if (activeCalendar == null) {
+      return null;
+    }
+    for (String name : calendarManager.getAllCalendarNames()) {
+      if (calendarManager.getCalendar(name) == activeCalendar) {
+        return name;
+      }
+    }
+    return null;
+  }
+
+  private String getActiveCalendarNameOrThrow() {
+    getActiveCalendar();
+    return getActiveCalendarName();
+  }
+}
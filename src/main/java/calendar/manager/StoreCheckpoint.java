@@ -0,0 +1,54 @@
+package calendar.manager;
+
+import java.nio.file.Path;
+
+/**
+ * Where a store that outlives the process keeps its events and how far its file reached when
+ * the checkpoint was taken. A calendar snapshot keeps the checkpoint instead of the events, and
+ * recovery reopens the store in the state of the checkpoint.
+ */
+public final class StoreCheckpoint {
+  private final String storage;
+  private final Path location;
+  private final long position;
+
+  /**
+   * Construct a checkpoint.
+   *
+   * @param storage  the name of the backend of the store.
+   * @param location the file of the store.
+   * @param position the length of the file holding the events of the checkpoint.
+   */
+  public StoreCheckpoint(String storage, Path location, long position) {
+    this.storage = storage;
+    this.location = location;
+    this.position = position;
+  }
+
+  /**
+   * Get the name of the backend of the store.
+   *
+   * @return the backend name.
+   */
+  public String getStorage() {
+    return storage;
+  }
+
+  /**
+   * Get the file of the store.
+   *
+   * @return the file.
+   */
+  public Path getLocation() {
+    return location;
+  }
+
+  /**
+   * Get the length of the file holding the events of the checkpoint.
+   *
+   * @return the position.
+   */
+  public long getPosition() {
+    return position;
+  }
+}
@@ -0,0 +1,69 @@
+package calendar.manager;
+
+import calendar.model.IEvent;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory store keeping a hash set of events per day in a sorted tree of days. This is the
+ * default backend: adding and removing an event is a tree lookup plus a hash operation. The
+ * events of a day keep the order they were added in, so the order does not depend on identity
+ * hash codes, which differ between the threads creating the events.
+ */
+public class TreeEventStore implements EventStore {
+  static final String NAME = "tree";
+  private final NavigableMap<LocalDate, Set<IEvent>> days = new TreeMap<>();
+  private int size;
+
+  @Override
+  public void add(IEvent event) {
+    if (days.computeIfAbsent(event.getStartTime().toLocalDate(), k -> new LinkedHashSet<>())
+            .add(event)) {
+      size++;
+    }
+  }
+
+  @Override
+  public boolean remove(IEvent event) {
+    LocalDate date = event.getStartTime().toLocalDate();
+    Set<IEvent> events = days.get(date);
+    if (events == null || !events.remove(event)) {
+      return false;
+    }
+    if (events.isEmpty()) {
+      days.remove(date);
+    }
+    size--;
+    return true;
+  }
+
+  @Override
+  public Collection<IEvent> getEvents(LocalDate date) {
+    Set<IEvent> events = days.get(date);
+    return events == null ? Collections.emptySet() : Collections.unmodifiableSet(events);
+  }
+
+  @Override
+  public Iterator<IEvent> iterator(LocalDate from, LocalDate to) {
+    NavigableMap<LocalDate, Set<IEvent>> range = days;
+    if (from != null) {
+      range = range.tailMap(from, true);
+    }
+    if (to != null) {
+      range = range.headMap(to, true);
+    }
+    return range.values().stream().flatMap(Set::stream).iterator();
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
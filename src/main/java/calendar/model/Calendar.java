@@ -1,11 +1,13 @@
 package calendar.model;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
 
 import calendar.manager.EventManager;
 import calendar.manager.IEventManager;
+import calendar.manager.StoreCheckpoint;
 
 /**
  * A model class representing a calendar with events and timezone.
@@ -21,8 +23,18 @@ public class Calendar implements ICalendar {
    * @param timeZone The timezone of the calendar
    */
   public Calendar(ZoneId timeZone) {
+    this(timeZone, new EventManager());
+  }
+
+  /**
+   * Construct a calendar with a timezone on top of the given event storage.
+   *
+   * @param timeZone     The timezone of the calendar
+   * @param eventManager The event manager storing the calendar events
+   */
+  public Calendar(ZoneId timeZone, IEventManager eventManager) {
     this.timeZone = timeZone;
-    this.eventManager = new EventManager();
+    this.eventManager = eventManager;
     this.autoDeclineConflicts = true;
   }
 
@@ -68,6 +80,39 @@ public class Calendar implements ICalendar {
     eventManager.addEvent(subject, description, startTime, endTime, this.autoDeclineConflicts);
   }
 
+  /**
+   * Add a batch of events at once, checking conflicts for the whole batch before inserting any
+   * of them.
+   *
+   * @param events the given events.
+   * @throws IllegalArgumentException throws error if an event is invalid or conflicts.
+   */
+  public void addEvents(List<IEvent> events) throws IllegalArgumentException {
+    eventManager.addEvents(events, this.autoDeclineConflicts);
+  }
+
+  /**
+   * Add the events of a batch that are not in the calendar yet. Known events are found by their
+   * fingerprint and skipped without a conflict check.
+   *
+   * @param events the given events.
+   * @return the number of events that have been added.
+   * @throws IllegalArgumentException throws error if an event is invalid or conflicts.
+   */
+  public int addNewEvents(List<IEvent> events) throws IllegalArgumentException {
+    return eventManager.addNewEvents(events, this.autoDeclineConflicts);
+  }
+
+  /**
+   * Check if an event with the same subject, times and description is in the calendar.
+   *
+   * @param event the given event.
+   * @return true if an equal event is in the calendar.
+   */
+  public boolean containsEvent(IEvent event) {
+    return eventManager.containsEvent(event);
+  }
+
   /**
    * Add a recurring events by splitting it into multiple single events, based on the provided
    * input.
@@ -131,6 +176,11 @@ public class Calendar implements ICalendar {
     eventManager.printEvents(startTime, endTime);
   }
 
+  @Override
+  public void printEvents(LocalDateTime startTime, LocalDateTime endTime, EventPrinter printer) {
+    eventManager.printEvents(startTime, endTime, printer);
+  }
+
   /**
    * Export all the events in the current calendar into a csv file for Google calendar import.
    *
@@ -149,6 +199,11 @@ public class Calendar implements ICalendar {
     eventManager.isBusy(dateTime);
   }
 
+  @Override
+  public void isBusy(LocalDateTime dateTime, EventPrinter printer) {
+    eventManager.isBusy(dateTime, printer);
+  }
+
   /**
    * Search events that belong to a recurring event based on the given info.
    *
@@ -187,4 +242,33 @@ public class Calendar implements ICalendar {
   public void removeEvent(IEvent event) {
     eventManager.removeEvent(event);
   }
+
+  /**
+   * Put already validated events back into the calendar without running conflict checks.
+   *
+   * @param events the events to restore.
+   */
+  public void restoreEvents(List<IEvent> events) {
+    eventManager.restoreEvents(events);
+  }
+
+  /**
+   * Check that events already split per day could be added together, without adding them.
+   *
+   * @param events the given events, each within one day.
+   * @throws IllegalArgumentException throws error if an event conflicts.
+   */
+  public void checkEvents(List<IEvent> events) throws IllegalArgumentException {
+    eventManager.checkEvents(events, this.autoDeclineConflicts);
+  }
+
+  /**
+   * Make the events durable in the store they are kept in and describe where.
+   *
+   * @return the checkpoint of the store, or null if the events do not outlive the process.
+   * @throws IOException if the store cannot be written.
+   */
+  public StoreCheckpoint checkpoint() throws IOException {
+    return eventManager.checkpoint();
+  }
 }
\ No newline at end of file
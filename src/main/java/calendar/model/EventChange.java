@@ -0,0 +1,51 @@
+package calendar.model;
+
+/**
+ * A change recorded by an event manager: the latest stamp of an event that is still in the
+ * calendar, or a tombstone for an event that was removed.
+ */
+public class EventChange {
+  private final long sequence;
+  private final IEvent event;
+  private final boolean removed;
+
+  /**
+   * Construct a change record.
+   *
+   * @param sequence the change sequence the event was stamped with.
+   * @param event    the added or removed event.
+   * @param removed  whether the event was removed.
+   */
+  public EventChange(long sequence, IEvent event, boolean removed) {
+    this.sequence = sequence;
+    this.event = event;
+    this.removed = removed;
+  }
+
+  /**
+   * Get the change sequence.
+   *
+   * @return the sequence.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Get the changed event.
+   *
+   * @return the event.
+   */
+  public IEvent getEvent() {
+    return event;
+  }
+
+  /**
+   * Check if the change is a tombstone.
+   *
+   * @return true if the event was removed.
+   */
+  public boolean isRemoved() {
+    return removed;
+  }
+}
@@ -0,0 +1,33 @@
+package calendar.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Receives the results of calendar queries, so the same query can be printed as human readable
+ * text or written as structured records.
+ */
+public interface EventPrinter {
+
+  /**
+   * Start a day of the printed range that has events.
+   *
+   * @param date the given date.
+   */
+  void printDay(LocalDate date);
+
+  /**
+   * Print an event of the current day.
+   *
+   * @param event the given event.
+   */
+  void printEvent(IEvent event);
+
+  /**
+   * Print whether the calendar is busy at a time.
+   *
+   * @param dateTime the given date time.
+   * @param busy     whether an event covers the time.
+   */
+  void printStatus(LocalDateTime dateTime, boolean busy);
+}
@@ -1,9 +1,12 @@
 package calendar.model;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
 
+import calendar.manager.StoreCheckpoint;
+
 /**
  * Interface representing a calendar with events and timezone functionality.
  * Provides operations for managing events within a specific calendar context.
@@ -43,6 +46,33 @@ public interface ICalendar {
   void addEvent(String subject, String description, LocalDateTime startTime,
                 LocalDateTime endTime) throws IllegalArgumentException;
 
+  /**
+   * Add a batch of events at once, checking conflicts for the whole batch before inserting any
+   * of them.
+   *
+   * @param events the given events.
+   * @throws IllegalArgumentException throws error if an event is invalid or conflicts.
+   */
+  void addEvents(List<IEvent> events) throws IllegalArgumentException;
+
+  /**
+   * Add the events of a batch that are not in the calendar yet, skipping events with the same
+   * subject, times and description as a stored event.
+   *
+   * @param events the given events.
+   * @return the number of events that have been added.
+   * @throws IllegalArgumentException throws error if an event is invalid or conflicts.
+   */
+  int addNewEvents(List<IEvent> events) throws IllegalArgumentException;
+
+  /**
+   * Check if an event with the same subject, times and description is in the calendar.
+   *
+   * @param event the given event.
+   * @return true if an equal event is in the calendar.
+   */
+  boolean containsEvent(IEvent event);
+
   /**
    * Add a recurring events by splitting it into multiple single events, based on the provided
    * input.
@@ -96,6 +126,15 @@ public interface ICalendar {
    */
   void printEvents(LocalDateTime startTime, LocalDateTime endTime);
 
+  /**
+   * Hand all events in the calendar from start time to end time to a printer, one day at a time.
+   *
+   * @param startTime the given start time.
+   * @param endTime   the given end time, or null for the rest of the start day.
+   * @param printer   the printer receiving the days and events.
+   */
+  void printEvents(LocalDateTime startTime, LocalDateTime endTime, EventPrinter printer);
+
   /**
    * Export all the events in the current calendar into a csv file for Google calendar import.
    *
@@ -110,6 +149,14 @@ public interface ICalendar {
    */
   void isBusy(LocalDateTime dateTime);
 
+  /**
+   * Hand the status at a given date time, whether it's busy or available, to a printer.
+   *
+   * @param dateTime the given date time.
+   * @param printer  the printer receiving the status.
+   */
+  void isBusy(LocalDateTime dateTime, EventPrinter printer);
+
   /**
    * Search events that belong to a recurring event based on the given info.
    *
@@ -133,4 +180,27 @@ public interface ICalendar {
    * @param event the given event.
    */
   void removeEvent(IEvent event);
+
+  /**
+   * Put already validated events back into the calendar without running conflict checks.
+   *
+   * @param events the events to restore.
+   */
+  void restoreEvents(List<IEvent> events);
+
+  /**
+   * Check that events already split per day could be added together, without adding them.
+   *
+   * @param events the given events, each within one day.
+   * @throws IllegalArgumentException throws error if an event conflicts.
+   */
+  void checkEvents(List<IEvent> events) throws IllegalArgumentException;
+
+  /**
+   * Make the events durable in the store they are kept in and describe where.
+   *
+   * @return the checkpoint of the store, or null if the events do not outlive the process.
+   * @throws IOException if the store cannot be written.
+   */
+  StoreCheckpoint checkpoint() throws IOException;
 }
@@ -0,0 +1,55 @@
+package calendar.model;
+
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Prints query results in the human readable layout of the command line interface.
+ */
+public class TextEventPrinter implements EventPrinter {
+  private static final DateTimeFormatter DATE_TIME_FORMATTER =
+          DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+  private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+  private final PrintStream out;
+
+  /**
+   * Construct a printer writing to the standard output current at the time of each print.
+   */
+  public TextEventPrinter() {
+    this(null);
+  }
+
+  /**
+   * Construct a printer writing to a stream.
+   *
+   * @param out the given stream, or null for the current standard output.
+   */
+  public TextEventPrinter(PrintStream out) {
+    this.out = out;
+  }
+
+  @Override
+  public void printDay(LocalDate date) {
+    out().println("Date: " + DATE_FORMATTER.format(date));
+  }
+
+  @Override
+  public void printEvent(IEvent event) {
+    PrintStream stream = out();
+    stream.println("  -Subject :  " + event.getSubject());
+    stream.println("  -Description :  " + event.getDescription());
+    stream.println("  -Start Time :  " + event.getStartTime());
+    stream.println("  -End Time :  " + event.getEndTime().format(DATE_TIME_FORMATTER));
+  }
+
+  @Override
+  public void printStatus(LocalDateTime dateTime, boolean busy) {
+    out().println(busy ? "busy" : "available");
+  }
+
+  private PrintStream out() {
+    return out != null ? out : System.out;
+  }
+}
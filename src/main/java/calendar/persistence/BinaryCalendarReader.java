@@ -0,0 +1,194 @@
+package calendar.persistence;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+import calendar.model.RecurringEvent;
+import calendar.utils.EventUtils;
+
+/**
+ * Reads calendars written by {@link BinaryCalendarWriter} from an NIO channel. Recurrence rules
+ * are expanded back into their instances while reading.
+ */
+public class BinaryCalendarReader {
+  private final ReadableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final EventUtils eventUtils;
+
+  /**
+   * Construct a reader on top of the given channel.
+   *
+   * @param channel the channel to read from.
+   */
+  public BinaryCalendarReader(ReadableByteChannel channel) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocateDirect(BinaryCalendarWriter.BUFFER_SIZE);
+    this.buffer.flip();
+    this.eventUtils = new EventUtils();
+  }
+
+  /**
+   * Read the next calendar block into an empty calendar. The calendar takes the timezone
+   * stored in the block.
+   *
+   * @param calendar the calendar to fill.
+   * @throws IOException if the channel cannot be read or does not hold a calendar block.
+   */
+  public void readCalendar(ICalendar calendar) throws IOException {
+    if (readInt() != BinaryCalendarWriter.MAGIC) {
+      throw new IOException("Not a binary calendar");
+    }
+    int version = readByte();
+    if (version != BinaryCalendarWriter.VERSION) {
+      throw new IOException("Unsupported binary calendar version: " + version);
+    }
+    ZoneId timeZone = ZoneId.of(readString());
+
+    String[] stringTable = new String[readCount()];
+    for (int i = 0; i < stringTable.length; i++) {
+      stringTable[i] = readString();
+    }
+
+    int singleCount = readCount();
+    List<IEvent> events = new ArrayList<>(singleCount);
+    long previousStart = 0;
+    for (int i = 0; i < singleCount; i++) {
+      int flags = readByte();
+      String subject = lookup(stringTable, readVarLong());
+      String description = lookup(stringTable, readVarLong());
+      long start = previousStart + readZigZag();
+      LocalDateTime startTime = fromEpochSecond(start);
+      LocalDateTime endTime = fromEpochSecond(start + readVarLong());
+      if ((flags & BinaryCalendarWriter.FLAG_RECURRING_INSTANCE) != 0) {
+        String recurringDays = lookup(stringTable, readVarLong());
+        int occurrences = (int) readVarLong();
+        LocalDateTime endRecurring = readEndRecurring(start);
+        events.add(new RecurringEvent(subject, description, startTime, endTime, endRecurring,
+                recurringDays, occurrences));
+      } else {
+        events.add(new OneTimeEvent(subject, description, startTime, endTime));
+      }
+      previousStart = start;
+    }
+
+    int ruleCount = readCount();
+    previousStart = 0;
+    for (int i = 0; i < ruleCount; i++) {
+      String subject = lookup(stringTable, readVarLong());
+      String description = lookup(stringTable, readVarLong());
+      long start = previousStart + readZigZag();
+      LocalDateTime startTime = fromEpochSecond(start);
+      LocalDateTime endTime = fromEpochSecond(start + readVarLong());
+      String recurringDays = lookup(stringTable, readVarLong());
+      int occurrences = (int) readVarLong();
+      LocalDateTime endRecurring = readEndRecurring(start);
+      events.addAll(eventUtils.generateRecurringEvents(subject, description, startTime, endTime,
+              endRecurring, recurringDays, occurrences));
+      previousStart = start;
+    }
+
+    calendar.setTimeZone(timeZone);
+    calendar.restoreEvents(events);
+  }
+
+  int readByte() throws IOException {
+    ensureAvailable();
+    return buffer.get() & 0xFF;
+  }
+
+  int readInt() throws IOException {
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      value = (value << 8) | readByte();
+    }
+    return value;
+  }
+
+  long readVarLong() throws IOException {
+    long value = 0;
+    int shift = 0;
+    while (true) {
+      int b = readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      shift += 7;
+      if (shift > 63) {
+        throw new IOException("Malformed varint in binary calendar");
+      }
+    }
+  }
+
+  long readZigZag() throws IOException {
+    long value = readVarLong();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  String readString() throws IOException {
+    long length = readVarLong() - 1;
+    if (length < 0) {
+      return null;
+    }
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("String too long in binary calendar: " + length);
+    }
+    byte[] bytes = new byte[(int) length];
+    int offset = 0;
+    while (offset < bytes.length) {
+      ensureAvailable();
+      int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+      buffer.get(bytes, offset, chunk);
+      offset += chunk;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int readCount() throws IOException {
+    long count = readVarLong();
+    if (count > Integer.MAX_VALUE) {
+      throw new IOException("Record count too large in binary calendar: " + count);
+    }
+    return (int) count;
+  }
+
+  private LocalDateTime readEndRecurring(long start) throws IOException {
+    return readByte() != 0 ? fromEpochSecond(start + readZigZag()) : null;
+  }
+
+  private void ensureAvailable() throws IOException {
+    while (!buffer.hasRemaining()) {
+      buffer.clear();
+      int read = channel.read(buffer);
+      buffer.flip();
+      if (read < 0) {
+        throw new EOFException("Unexpected end of binary calendar");
+      }
+    }
+  }
+
+  private static String lookup(String[] stringTable, long index) throws IOException {
+    if (index == 0) {
+      return null;
+    }
+    if (index > stringTable.length) {
+      throw new IOException("String index out of range in binary calendar: " + index);
+    }
+    return stringTable[(int) index - 1];
+  }
+
+  private static LocalDateTime fromEpochSecond(long epochSecond) {
+    return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,222 @@
+package calendar.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+import calendar.utils.EventUtils;
+
+/**
+ * Writes calendars in the compact binary calendar format through an NIO channel.
+ *
+ * <p>A calendar block is laid out as follows, where every number is an unsigned LEB128 varint
+ * and every delta a zigzag encoded varint:</p>
+ * <ul>
+ *   <li>magic {@code CALB} and a format version byte</li>
+ *   <li>the timezone id</li>
+ *   <li>a string table holding every subject, description and recurring days string once;
+ *       records refer to it by index plus one, zero meaning null</li>
+ *   <li>the single events, sorted by start, each as flags, subject, description, start delta
+ *       in seconds from the previous record, duration in seconds and, for instances of a
+ *       recurring series, the series fields</li>
+ *   <li>the recurrence rules, sorted by start, each as subject, description, start delta,
+ *       duration, recurring days, occurrences and the end of the recurrence relative to the
+ *       start</li>
+ * </ul>
+ *
+ * <p>A recurring series is stored as a single rule whenever its instances are exactly the
+ * expansion of that rule; series changed instance by instance are stored as single events.</p>
+ */
+public class BinaryCalendarWriter implements Closeable {
+  static final int MAGIC = 0x43414c42;
+  static final int VERSION = 1;
+  static final int FLAG_RECURRING_INSTANCE = 1;
+  static final int BUFFER_SIZE = 1 << 16;
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final EventUtils eventUtils;
+
+  /**
+   * Construct a writer on top of the given channel.
+   *
+   * @param channel the channel to write to.
+   */
+  public BinaryCalendarWriter(WritableByteChannel channel) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    this.eventUtils = new EventUtils();
+  }
+
+  /**
+   * Write a whole calendar as one self describing block.
+   *
+   * @param calendar the calendar to write.
+   * @throws IOException if the channel cannot be written.
+   */
+  public void writeCalendar(ICalendar calendar) throws IOException {
+    List<IEvent> singleEvents = new ArrayList<>();
+    List<IRecurringEvent> rules = new ArrayList<>();
+    eventUtils.splitIntoRules(calendar.getAllEvents(), singleEvents, rules);
+    singleEvents.sort(Comparator.comparing(IEvent::getStartTime));
+    rules.sort(Comparator.comparing(IEvent::getStartTime));
+
+    Map<String, Integer> stringTable = new LinkedHashMap<>();
+    for (IEvent event : singleEvents) {
+      addString(stringTable, event.getSubject());
+      addString(stringTable, event.getDescription());
+      if (event instanceof IRecurringEvent) {
+        addString(stringTable, ((IRecurringEvent) event).getRecurringDays());
+      }
+    }
+    for (IRecurringEvent rule : rules) {
+      addString(stringTable, rule.getSubject());
+      addString(stringTable, rule.getDescription());
+      addString(stringTable, rule.getRecurringDays());
+    }
+
+    writeInt(MAGIC);
+    writeByte(VERSION);
+    writeString(calendar.getTimeZone().getId());
+    writeVarLong(stringTable.size());
+    for (String value : stringTable.keySet()) {
+      writeString(value);
+    }
+
+    writeVarLong(singleEvents.size());
+    long previousStart = 0;
+    for (IEvent event : singleEvents) {
+      boolean recurring = event instanceof IRecurringEvent;
+      long start = toEpochSecond(event.getStartTime());
+      writeByte(recurring ? FLAG_RECURRING_INSTANCE : 0);
+      writeVarLong(stringIndex(stringTable, event.getSubject()));
+      writeVarLong(stringIndex(stringTable, event.getDescription()));
+      writeZigZag(start - previousStart);
+      writeVarLong(toEpochSecond(event.getEndTime()) - start);
+      if (recurring) {
+        writeSeriesFields(stringTable, (IRecurringEvent) event, start);
+      }
+      previousStart = start;
+    }
+
+    writeVarLong(rules.size());
+    previousStart = 0;
+    for (IRecurringEvent rule : rules) {
+      long start = toEpochSecond(rule.getStartTime());
+      writeVarLong(stringIndex(stringTable, rule.getSubject()));
+      writeVarLong(stringIndex(stringTable, rule.getDescription()));
+      writeZigZag(start - previousStart);
+      writeVarLong(toEpochSecond(rule.getEndTime()) - start);
+      writeSeriesFields(stringTable, rule, start);
+      previousStart = start;
+    }
+  }
+
+  /**
+   * Push everything buffered so far to the channel.
+   *
+   * @throws IOException if the channel cannot be written.
+   */
+  public void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Flush the buffered bytes. The channel itself is left open for its owner to close.
+   *
+   * @throws IOException if the channel cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    flush();
+  }
+
+  void writeByte(int value) throws IOException {
+    ensureRemaining(1);
+    buffer.put((byte) value);
+  }
+
+  void writeInt(int value) throws IOException {
+    ensureRemaining(4);
+    buffer.putInt(value);
+  }
+
+  void writeVarLong(long value) throws IOException {
+    ensureRemaining(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  void writeZigZag(long value) throws IOException {
+    writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  void writeString(String value) throws IOException {
+    if (value == null) {
+      writeVarLong(0);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(bytes.length + 1L);
+    if (bytes.length > buffer.capacity()) {
+      flush();
+      ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+      while (wrapped.hasRemaining()) {
+        channel.write(wrapped);
+      }
+    } else {
+      ensureRemaining(bytes.length);
+      buffer.put(bytes);
+    }
+  }
+
+  private void writeSeriesFields(Map<String, Integer> stringTable, IRecurringEvent event,
+                                 long start) throws IOException {
+    writeVarLong(stringIndex(stringTable, event.getRecurringDays()));
+    writeVarLong(event.getOccurrences());
+    LocalDateTime endRecurring = event.getEndRecurring();
+    writeByte(endRecurring != null ? 1 : 0);
+    if (endRecurring != null) {
+      writeZigZag(toEpochSecond(endRecurring) - start);
+    }
+  }
+
+  private void ensureRemaining(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  private static void addString(Map<String, Integer> stringTable, String value) {
+    if (value != null && !stringTable.containsKey(value)) {
+      stringTable.put(value, stringTable.size());
+    }
+  }
+
+  private static long stringIndex(Map<String, Integer> stringTable, String value) {
+    return value == null ? 0 : stringTable.get(value) + 1L;
+  }
+
+  static long toEpochSecond(LocalDateTime dateTime) {
+    return dateTime.toEpochSecond(ZoneOffset.UTC);
+  }
+}
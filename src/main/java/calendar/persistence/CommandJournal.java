@@ -0,0 +1,122 @@
+package calendar.persistence;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal of the commands that changed calendar state. Every entry is stored on its
+ * own line as a sequence number followed by a tab and the command text.
+ */
+public class CommandJournal implements Closeable {
+  private final Path journalFile;
+  private BufferedWriter writer;
+  private long lastSequence;
+
+  /**
+   * Construct a journal backed by the given file.
+   *
+   * @param journalFile the journal file path.
+   */
+  public CommandJournal(Path journalFile) {
+    this.journalFile = journalFile;
+    this.lastSequence = 0;
+  }
+
+  /**
+   * Hand every journal entry written after the given sequence to the consumer, in order.
+   * A torn entry at the end of the file, left by a crash in the middle of a write, ends the
+   * replay.
+   *
+   * @param afterSequence the sequence already covered by a snapshot.
+   * @param consumer      the consumer receiving the command text.
+   * @return the number of entries handed to the consumer.
+   * @throws IOException if the journal cannot be read.
+   */
+  public int replay(long afterSequence, Consumer<String> consumer) throws IOException {
+    lastSequence = Math.max(lastSequence, afterSequence);
+    if (!Files.isRegularFile(journalFile)) {
+      return 0;
+    }
+
+    int replayed = 0;
+    try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int tabIndex = line.indexOf('\t');
+        if (tabIndex <= 0) {
+          break;
+        }
+        long sequence;
+        try {
+          sequence = Long.parseLong(line.substring(0, tabIndex));
+        } catch (NumberFormatException e) {
+          break;
+        }
+        if (sequence > afterSequence) {
+          consumer.accept(line.substring(tabIndex + 1));
+          replayed++;
+        }
+        lastSequence = Math.max(lastSequence, sequence);
+      }
+    }
+    return replayed;
+  }
+
+  /**
+   * Append a command to the journal and flush it to the file.
+   *
+   * @param command the command text.
+   * @return the sequence number assigned to the command.
+   * @throws IOException if the entry cannot be written.
+   */
+  public long append(String command) throws IOException {
+    if (writer == null) {
+      writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    lastSequence++;
+    writer.write(Long.toString(lastSequence));
+    writer.write('\t');
+    writer.write(command);
+    writer.newLine();
+    writer.flush();
+    return lastSequence;
+  }
+
+  /**
+   * Get the sequence number of the last entry written or replayed.
+   *
+   * @return the last sequence number.
+   */
+  public long getLastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * Drop every entry from the journal once a snapshot covers them. Sequence numbers keep
+   * increasing across truncations.
+   *
+   * @throws IOException if the journal cannot be truncated.
+   */
+  public void truncate() throws IOException {
+    close();
+    writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package calendar.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records every command line reaching a controller, with the time it arrived and the session it
+ * came from, so that real load can be replayed later. Unlike the {@link CommandJournal}, it keeps
+ * queries and failing commands too, and it is only flushed when closed.
+ *
+ * <p>The log starts with a header holding the wall clock time of the recording start in epoch
+ * milliseconds. Every entry then holds the microseconds since the previous entry, the session and
+ * the UTF-8 length of the command as variable length integers, followed by the command bytes.
+ * Several sessions may record at the same time.</p>
+ */
+public class CommandRecorder implements Closeable {
+  private static final int MAGIC = 0x43524543;
+  private static final int VERSION = 1;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final DataOutputStream out;
+  private final long startNanos;
+  private long lastMicros;
+
+  /**
+   * Construct a recorder writing a new log, replacing any existing file.
+   *
+   * @param logFile the log file path.
+   * @throws IOException if the log cannot be created.
+   */
+  public CommandRecorder(Path logFile) throws IOException {
+    this(Files.newOutputStream(logFile));
+  }
+
+  /**
+   * Construct a recorder writing a log to a stream.
+   *
+   * @param stream the given stream, closed with the recorder.
+   * @throws IOException if the header cannot be written.
+   */
+  public CommandRecorder(OutputStream stream) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+    this.startNanos = System.nanoTime();
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeLong(System.currentTimeMillis());
+  }
+
+  /**
+   * Record a command line as it arrives.
+   *
+   * @param session the session the command came from.
+   * @param command the command line.
+   * @throws UncheckedIOException if the entry cannot be written.
+   */
+  public synchronized void record(int session, String command) {
+    long micros = (System.nanoTime() - startNanos) / 1000;
+    byte[] text = command.getBytes(StandardCharsets.UTF_8);
+    try {
+      writeVarLong(micros - lastMicros);
+      writeVarLong(session);
+      writeVarLong(text.length);
+      out.write(text);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error writing command recording: " + e.getMessage(), e);
+    }
+    lastMicros = micros;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    out.close();
+  }
+
+  private void writeVarLong(long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  /**
+   * Read a whole log. A torn entry at the end of the log, left by a process that did not close
+   * its recorder, ends the log.
+   *
+   * @param logFile the log file path.
+   * @return the recorded commands in the order they arrived.
+   * @throws IOException if the log cannot be read or is not a command recording.
+   */
+  public static List<RecordedCommand> read(Path logFile) throws IOException {
+    try (InputStream stream = Files.newInputStream(logFile)) {
+      return read(stream);
+    }
+  }
+
+  /**
+   * Read a whole log from a stream.
+   *
+   * @param stream the given stream.
+   * @return the recorded commands in the order they arrived.
+   * @throws IOException if the log cannot be read or is not a command recording.
+   */
+  public static List<RecordedCommand> read(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+    if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+      throw new IOException("Not a command recording");
+    }
+    in.readLong();
+    List<RecordedCommand> commands = new ArrayList<>();
+    long micros = 0;
+    while (true) {
+      try {
+        long delta = readVarLong(in);
+        if (delta < 0) {
+          break;
+        }
+        int session = (int) readVarLong(in);
+        byte[] text = new byte[(int) readVarLong(in)];
+        in.readFully(text);
+        micros += delta;
+        commands.add(new RecordedCommand(micros * 1000, session,
+                new String(text, StandardCharsets.UTF_8)));
+      } catch (EOFException e) {
+        break;
+      }
+    }
+    return commands;
+  }
+
+  /**
+   * Read a variable length integer.
+   *
+   * @return the value, or -1 at the end of the log.
+   */
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        if (shift == 0) {
+          return -1;
+        }
+        throw new EOFException();
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed command recording");
+  }
+}
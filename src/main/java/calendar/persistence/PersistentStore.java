@@ -0,0 +1,147 @@
+package calendar.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import calendar.manager.ICalendarManager;
+import calendar.view.CommandOutput;
+
+/**
+ * Keeps calendar state durable across restarts using periodic snapshots plus a journal of the
+ * commands executed since the last snapshot. Startup loads the latest snapshot and replays only
+ * the journal tail, so its cost follows recent activity instead of the whole history.
+ */
+public class PersistentStore implements Closeable {
+  public static final int DEFAULT_SNAPSHOT_INTERVAL = 1000;
+  private static final String SNAPSHOT_FILE = "calendars.snapshot";
+  private static final String JOURNAL_FILE = "commands.journal";
+
+  private final ICalendarManager calendarManager;
+  private final SnapshotStore snapshotStore;
+  private final CommandJournal journal;
+  private final int snapshotInterval;
+  private int entriesSinceSnapshot;
+
+  /**
+   * Construct a store keeping its files in the given directory.
+   *
+   * @param dataDirectory    the directory holding the snapshot and the journal.
+   * @param calendarManager  the calendars to keep durable.
+   * @param snapshotInterval the number of journal entries between two snapshots.
+   * @throws IOException if the data directory cannot be created.
+   */
+  public PersistentStore(Path dataDirectory, ICalendarManager calendarManager,
+                         int snapshotInterval) throws IOException {
+    if (snapshotInterval <= 0) {
+      throw new IllegalArgumentException("Snapshot interval must be positive");
+    }
+    Files.createDirectories(dataDirectory);
+    this.calendarManager = calendarManager;
+    this.snapshotStore = new SnapshotStore(dataDirectory.resolve(SNAPSHOT_FILE));
+    this.journal = new CommandJournal(dataDirectory.resolve(JOURNAL_FILE));
+    this.snapshotInterval = snapshotInterval;
+    this.entriesSinceSnapshot = 0;
+  }
+
+  /**
+   * Rebuild the calendars from the latest snapshot and replay the journal tail written after it.
+   * Must be called on an empty calendar manager before any command is recorded.
+   *
+   * @param commandExecutor executes a journaled command against the calendar manager.
+   * @throws IOException if the snapshot or the journal cannot be read.
+   */
+  public void recover(Consumer<String> commandExecutor) throws IOException {
+    recover(commandExecutor, new CommandOutput());
+  }
+
+  /**
+   * Rebuild the calendars from the latest snapshot and replay the journal tail written after it,
+   * reporting entries that cannot be replayed and the recovery summary to an output.
+   * Must be called on an empty calendar manager before any command is recorded.
+   *
+   * @param commandExecutor executes a journaled command against the calendar manager.
+   * @param output          the output receiving the replay errors and the summary.
+   * @throws IOException if the snapshot or the journal cannot be read.
+   */
+  public void recover(Consumer<String> commandExecutor, CommandOutput output)
+          throws IOException {
+    long startNanos = System.nanoTime();
+    long snapshotSequence = snapshotStore.exists() ? snapshotStore.read(calendarManager) : 0;
+
+    int replayed = journal.replay(snapshotSequence, command -> {
+      try {
+        commandExecutor.accept(command);
+      } catch (RuntimeException e) {
+        output.replayError(command, e.getMessage());
+      }
+    });
+    entriesSinceSnapshot = replayed;
+
+    long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    output.note("Recovered " + calendarManager.getAllCalendarNames().size()
+            + " calendar(s) in " + elapsedMillis + " ms (snapshot at sequence "
+            + snapshotSequence + ", " + replayed + " journal entries replayed)");
+  }
+
+  /**
+   * Record a command that changed calendar state. Takes a new snapshot once enough entries have
+   * piled up since the previous one.
+   *
+   * @param command the executed command.
+   * @throws UncheckedIOException if the journal or the snapshot cannot be written.
+   */
+  public void record(String command) {
+    try {
+      journal.append(command);
+      entriesSinceSnapshot++;
+      if (entriesSinceSnapshot >= snapshotInterval) {
+        snapshot();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error writing command journal: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Take a snapshot in place of journaling a command that cannot be replayed from its text, such
+   * as an import reading a file that may have changed or gone by the time the journal is
+   * replayed.
+   *
+   * @throws UncheckedIOException if the snapshot cannot be written.
+   */
+  public void checkpoint() {
+    try {
+      snapshot();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error writing snapshot: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Write a snapshot of all calendars and drop the journal entries it covers.
+   *
+   * @throws IOException if the snapshot cannot be written.
+   */
+  public void snapshot() throws IOException {
+    snapshotStore.write(calendarManager, journal.getLastSequence());
+    journal.truncate();
+    entriesSinceSnapshot = 0;
+  }
+
+  /**
+   * Take a final snapshot if anything changed since the last one and close the journal.
+   *
+   * @throws IOException if the snapshot cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (entriesSinceSnapshot > 0) {
+      snapshot();
+    }
+    journal.close();
+  }
+}
@@ -0,0 +1,50 @@
+package calendar.persistence;
+
+/**
+ * A command line read back from a {@link CommandRecorder} log.
+ */
+public final class RecordedCommand {
+  private final long offsetNanos;
+  private final int session;
+  private final String command;
+
+  /**
+   * Construct a recorded command.
+   *
+   * @param offsetNanos the time the command arrived, in nanoseconds since the recording start.
+   * @param session     the session the command came from.
+   * @param command     the command line.
+   */
+  public RecordedCommand(long offsetNanos, int session, String command) {
+    this.offsetNanos = offsetNanos;
+    this.session = session;
+    this.command = command;
+  }
+
+  /**
+   * Get the time the command arrived.
+   *
+   * @return the nanoseconds since the recording start, at microsecond precision.
+   */
+  public long getOffsetNanos() {
+    return offsetNanos;
+  }
+
+  /**
+   * Get the session the command came from.
+   *
+   * @return the session number.
+   */
+  public int getSession() {
+    return session;
+  }
+
+  /**
+   * Get the command line.
+   *
+   * @return the command as it arrived.
+   */
+  public String getCommand() {
+    return command;
+  }
+}
@@ -0,0 +1,143 @@
+package calendar.persistence;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import calendar.manager.ICalendarManager;
+import calendar.manager.StoreCheckpoint;
+import calendar.model.ICalendar;
+
+/**
+ * Reads and writes compact binary snapshots of every calendar held by a calendar manager.
+ * A snapshot remembers the journal sequence it covers, so recovery only has to replay the
+ * journal entries written after it. Each calendar is stored as a block of the binary calendar
+ * format, see {@link BinaryCalendarWriter}, unless its events are kept in a store that outlives
+ * the process: such a calendar is stored as the checkpoint of its store, and recovery reopens
+ * the store at the checkpoint before the journal entries are replayed on top of it.
+ */
+public class SnapshotStore {
+  private static final int MAGIC = 0x43414c53;
+  private static final int VERSION = 3;
+  private static final int EVENTS = 0;
+  private static final int STORE = 1;
+
+  private final Path snapshotFile;
+
+  /**
+   * Construct a snapshot store writing to the given file.
+   *
+   * @param snapshotFile the snapshot file path.
+   */
+  public SnapshotStore(Path snapshotFile) {
+    this.snapshotFile = snapshotFile;
+  }
+
+  /**
+   * Check if a snapshot has been written before.
+   *
+   * @return true if a snapshot file exists.
+   */
+  public boolean exists() {
+    return Files.isRegularFile(snapshotFile);
+  }
+
+  /**
+   * Write a snapshot of all calendars. The snapshot is written to a temporary file first and
+   * then moved over the previous one, so a crash never leaves a half written snapshot behind.
+   *
+   * @param calendarManager the calendars to snapshot.
+   * @param journalSequence the last journal sequence reflected in the calendars.
+   * @throws IOException if the snapshot cannot be written.
+   */
+  public void write(ICalendarManager calendarManager, long journalSequence) throws IOException {
+    Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+         BinaryCalendarWriter writer = new BinaryCalendarWriter(channel)) {
+      writer.writeInt(MAGIC);
+      writer.writeByte(VERSION);
+      writer.writeVarLong(journalSequence);
+      writer.writeString(calendarManager.getActiveCalendarName());
+
+      List<String> calendarNames = calendarManager.getAllCalendarNames();
+      writer.writeVarLong(calendarNames.size());
+      for (String name : calendarNames) {
+        ICalendar calendar = calendarManager.getCalendar(name);
+        StoreCheckpoint checkpoint = calendar.checkpoint();
+        writer.writeString(name);
+        if (checkpoint == null) {
+          writer.writeByte(EVENTS);
+          writer.writeCalendar(calendar);
+        } else {
+          writer.writeByte(STORE);
+          writer.writeString(checkpoint.getStorage());
+          writer.writeString(directory().relativize(checkpoint.getLocation().toAbsolutePath())
+                  .toString());
+          writer.writeVarLong(checkpoint.getPosition());
+          writer.writeString(calendar.getTimeZone().getId());
+        }
+      }
+      writer.flush();
+      channel.force(false);
+    }
+    Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Load the snapshot into an empty calendar manager.
+   *
+   * @param calendarManager the calendar manager to fill.
+   * @return the last journal sequence reflected in the snapshot.
+   * @throws IOException if the snapshot cannot be read or is not a valid snapshot.
+   */
+  public long read(ICalendarManager calendarManager) throws IOException {
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      BinaryCalendarReader reader = new BinaryCalendarReader(channel);
+      if (reader.readInt() != MAGIC) {
+        throw new IOException("Not a calendar snapshot: " + snapshotFile);
+      }
+      int version = reader.readByte();
+      if (version != VERSION && version != 2) {
+        throw new IOException("Unsupported snapshot version: " + version);
+      }
+      long journalSequence = reader.readVarLong();
+      String activeCalendarName = reader.readString();
+
+      long calendarCount = reader.readVarLong();
+      for (long i = 0; i < calendarCount; i++) {
+        String name = reader.readString();
+        if (version == 2 || reader.readByte() == EVENTS) {
+          calendarManager.createCalendar(name, ZoneOffset.UTC);
+          reader.readCalendar(calendarManager.getCalendar(name));
+        } else {
+          String storage = reader.readString();
+          Path location = directory().resolve(reader.readString());
+          long position = reader.readVarLong();
+          ZoneId timezone = ZoneId.of(reader.readString());
+          calendarManager.openCalendar(name, timezone,
+                  new StoreCheckpoint(storage, location, position));
+        }
+      }
+
+      if (activeCalendarName != null) {
+        calendarManager.useCalendar(activeCalendarName);
+      }
+      return journalSequence;
+    }
+  }
+
+  /**
+   * Get the directory of the snapshot, which store locations are kept relative to.
+   */
+  private Path directory() {
+    return snapshotFile.toAbsolutePath().getParent();
+  }
+}
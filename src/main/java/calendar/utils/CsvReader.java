@@ -0,0 +1,234 @@
+package calendar.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming RFC 4180 CSV reader. Records are scanned with a small state machine over a fixed
+ * size char buffer, so quoted fields may contain commas, doubled quotes and line breaks, and
+ * memory use does not depend on the size of the input.
+ */
+public class CsvReader implements Closeable {
+  private static final int BUFFER_SIZE = 1 << 16;
+  static final int FIELD_START = 0;
+  static final int UNQUOTED = 1;
+  static final int QUOTED = 2;
+  static final int QUOTE_IN_QUOTED = 3;
+
+  private final Reader reader;
+  private final char[] buffer;
+  private int position;
+  private int limit;
+  private boolean skipLineFeed;
+
+  private final StringBuilder recordChars;
+  private int[] fieldEnds;
+  private int fieldCount;
+  private long line;
+  private long recordLine;
+
+  /**
+   * Construct a CSV reader on top of the given reader.
+   *
+   * @param reader the character source.
+   */
+  public CsvReader(Reader reader) {
+    this(reader, 1);
+  }
+
+  /**
+   * Construct a CSV reader for a part of a larger input, numbering lines from the given line.
+   *
+   * @param reader    the character source.
+   * @param firstLine the line number of the first character.
+   */
+  public CsvReader(Reader reader, long firstLine) {
+    this.reader = reader;
+    this.buffer = new char[BUFFER_SIZE];
+    this.recordChars = new StringBuilder(256);
+    this.fieldEnds = new int[16];
+    this.line = firstLine;
+  }
+
+  /**
+   * Advance to the next record.
+   *
+   * @return true if a record was read, false at the end of the input.
+   * @throws IOException if the input cannot be read.
+   * @throws IllegalArgumentException if the input ends inside a quoted field.
+   */
+  public boolean next() throws IOException {
+    recordChars.setLength(0);
+    fieldCount = 0;
+    recordLine = line;
+    int state = FIELD_START;
+    boolean started = false;
+
+    while (true) {
+      if (position == limit && !fill()) {
+        if (state == QUOTED) {
+          throw new IllegalArgumentException(
+                  "Unterminated quoted field in record starting at line " + recordLine);
+        }
+        if (started) {
+          endField();
+          return true;
+        }
+        return false;
+      }
+
+      char c = buffer[position++];
+      if (skipLineFeed) {
+        skipLineFeed = false;
+        if (c == '\n') {
+          continue;
+        }
+      }
+      started = true;
+
+      switch (state) {
+        case QUOTED:
+          if (c == '"') {
+            state = QUOTE_IN_QUOTED;
+          } else {
+            if (c == '\n' || c == '\r') {
+              newLine(c);
+            }
+            recordChars.append(c);
+          }
+          break;
+        case QUOTE_IN_QUOTED:
+          if (c == '"') {
+            recordChars.append('"');
+            state = QUOTED;
+            break;
+          }
+          state = UNQUOTED;
+          if (endOfField(c)) {
+            return true;
+          }
+          if (c != ',') {
+            recordChars.append(c);
+          } else {
+            state = FIELD_START;
+          }
+          break;
+        case FIELD_START:
+          if (c == '"') {
+            state = QUOTED;
+            break;
+          }
+          state = UNQUOTED;
+          if (endOfField(c)) {
+            return true;
+          }
+          if (c != ',') {
+            recordChars.append(c);
+          } else {
+            state = FIELD_START;
+          }
+          break;
+        default:
+          if (endOfField(c)) {
+            return true;
+          }
+          if (c != ',') {
+            recordChars.append(c);
+          } else {
+            state = FIELD_START;
+          }
+          break;
+      }
+    }
+  }
+
+  /**
+   * Get the number of fields in the current record.
+   *
+   * @return the field count.
+   */
+  public int getFieldCount() {
+    return fieldCount;
+  }
+
+  /**
+   * Get a field of the current record, with quotes removed and doubled quotes collapsed.
+   *
+   * @param index the field index.
+   * @return the field value.
+   */
+  public String getField(int index) {
+    if (index < 0 || index >= fieldCount) {
+      throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+    }
+    int start = index == 0 ? 0 : fieldEnds[index - 1];
+    return recordChars.substring(start, fieldEnds[index]);
+  }
+
+  /**
+   * Check if the current record is an empty line.
+   *
+   * @return true if the record holds a single empty field.
+   */
+  public boolean isBlank() {
+    return fieldCount == 1 && fieldEnds[0] == 0;
+  }
+
+  /**
+   * Get the line the current record starts on, counting from one.
+   *
+   * @return the line number.
+   */
+  public long getLineNumber() {
+    return recordLine;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * Close the current field on a comma or line break.
+   *
+   * @param c the character just read outside of quotes.
+   * @return true if the character ended the record.
+   */
+  private boolean endOfField(char c) {
+    if (c == ',') {
+      endField();
+      return false;
+    }
+    if (c == '\n' || c == '\r') {
+      newLine(c);
+      endField();
+      return true;
+    }
+    return false;
+  }
+
+  private void endField() {
+    if (fieldCount == fieldEnds.length) {
+      int[] grown = new int[fieldEnds.length * 2];
+      System.arraycopy(fieldEnds, 0, grown, 0, fieldEnds.length);
+      fieldEnds = grown;
+    }
+    fieldEnds[fieldCount++] = recordChars.length();
+  }
+
+  private void newLine(char c) {
+    line++;
+    skipLineFeed = c == '\r';
+  }
+
+  private boolean fill() throws IOException {
+    int read = reader.read(buffer, 0, buffer.length);
+    while (read == 0) {
+      read = reader.read(buffer, 0, buffer.length);
+    }
+    position = 0;
+    limit = Math.max(read, 0);
+    return read > 0;
+  }
+}
@@ -1,8 +1,10 @@
 package calendar.utils;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.time.YearMonth;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -15,6 +17,13 @@ import java.time.zone.ZoneRulesException;
 public class DateTimeUtils {
   private static final DateTimeFormatter dateTimeFormatter =
           DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+  private static final int DATE_LENGTH = 10;
+  private static final int DATE_TIME_LENGTH = 16;
+  /**
+   * Recently read dates indexed by month and day. Dates are immutable, so threads racing on a
+   * slot at worst miss the cache.
+   */
+  private static final LocalDate[] RECENT_DATES = new LocalDate[13 << 5];
 
   /**
    * Parse ZoneId object from timezone string input.
@@ -39,6 +48,29 @@ public class DateTimeUtils {
    * @throws IllegalArgumentException throws error if the string does not have appropriate format.
    */
   public LocalDateTime parseDateTime(String dateTimeStr) {
+    return parseDateTime(dateTimeStr, 0, dateTimeStr.length());
+  }
+
+  /**
+   * Parse LocalDateTime object from a date time held in a range of a character sequence. The
+   * {@code yyyy-MM-dd'T'HH:mm} shape is read digit by digit; other ISO date times, such as ones
+   * with seconds, go through {@link LocalDateTime#parse}.
+   *
+   * @param text  the given characters.
+   * @param start the offset of the first character of the date time.
+   * @param end   the offset after the last character of the date time.
+   * @return parsed LocalDateTime object.
+   * @throws IllegalArgumentException throws error if the range does not have appropriate format.
+   */
+  public LocalDateTime parseDateTime(CharSequence text, int start, int end) {
+    if (end - start == DATE_TIME_LENGTH) {
+      LocalDate date = readDate(text, start, true);
+      LocalTime time = readTime(text, start + DATE_LENGTH);
+      if (date != null && time != null) {
+        return LocalDateTime.of(date, time);
+      }
+    }
+    String dateTimeStr = text.subSequence(start, end).toString();
     try {
       return LocalDateTime.parse(dateTimeStr);
     } catch (DateTimeParseException e) {
@@ -54,6 +86,27 @@ public class DateTimeUtils {
    * @throws IllegalArgumentException throws error if the string does not have appropriate format.
    */
   public LocalDateTime parseDateToDateTime(String dateStr) {
+    return parseDateToDateTime(dateStr, 0, dateStr.length());
+  }
+
+  /**
+   * Parse LocalDateTime object at the start of a day from a date held in a range of a character
+   * sequence. A day past the end of its month resolves to the last day of the month.
+   *
+   * @param text  the given characters.
+   * @param start the offset of the first character of the date.
+   * @param end   the offset after the last character of the date.
+   * @return parsed LocalDateTime object.
+   * @throws IllegalArgumentException throws error if the range does not have appropriate format.
+   */
+  public LocalDateTime parseDateToDateTime(CharSequence text, int start, int end) {
+    if (end - start == DATE_LENGTH) {
+      LocalDate date = readDate(text, start, false);
+      if (date != null) {
+        return date.atStartOfDay();
+      }
+    }
+    String dateStr = text.subSequence(start, end).toString();
     try {
       return LocalDateTime.parse(dateStr + "T00:00", dateTimeFormatter);
     } catch (DateTimeParseException e) {
@@ -61,6 +114,104 @@ public class DateTimeUtils {
     }
   }
 
+  /**
+   * Parse LocalDateTime object from a date time or a date held in a range of a character
+   * sequence, without trying one shape and catching the failure for the expected shapes. Ranges
+   * the digit by digit readers do not accept, such as year 0000, still go through
+   * {@link LocalDateTime#parse}.
+   *
+   * @param text      the given characters.
+   * @param start     the offset of the first character.
+   * @param end       the offset after the last character.
+   * @param endOfDay  whether a date resolves to the end of the day instead of its start.
+   * @return parsed LocalDateTime object.
+   * @throws IllegalArgumentException throws error if the range is neither a date time nor a date.
+   */
+  public LocalDateTime parseDateOrDateTime(CharSequence text, int start, int end,
+                                           boolean endOfDay) {
+    LocalDateTime dateTime;
+    if (end - start == DATE_LENGTH) {
+      dateTime = parseDateToDateTime(text, start, end);
+    } else {
+      if (end - start == DATE_TIME_LENGTH) {
+        LocalDate date = readDate(text, start, true);
+        LocalTime time = readTime(text, start + DATE_LENGTH);
+        if (date != null && time != null) {
+          return LocalDateTime.of(date, time);
+        }
+      }
+      try {
+        return LocalDateTime.parse(text.subSequence(start, end));
+      } catch (DateTimeParseException e) {
+        dateTime = parseDateToDateTime(text, start, end);
+      }
+    }
+    return endOfDay ? convertToEODDateTime(dateTime) : dateTime;
+  }
+
+  /**
+   * Read a {@code yyyy-MM-dd} date. Dates are looked up in a small cache of recently read dates
+   * first, since the commands of a session mostly refer to a few days.
+   *
+   * @param text   the given characters.
+   * @param start  the offset of the date.
+   * @param strict whether a day past the end of its month is invalid rather than clamped.
+   * @return the date, or null if the characters are not a valid date.
+   */
+  private static LocalDate readDate(CharSequence text, int start, boolean strict) {
+    int year = readDigits(text, start, 4);
+    int month = readDigits(text, start + 5, 2);
+    int day = readDigits(text, start + 8, 2);
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+            || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-') {
+      return null;
+    }
+    int slot = (month << 5) | day;
+    LocalDate cached = RECENT_DATES[slot];
+    if (cached != null && cached.getYear() == year) {
+      return cached;
+    }
+    int monthLength = YearMonth.of(year, month).lengthOfMonth();
+    if (day > monthLength || year == 0) {
+      if (strict || year == 0) {
+        return null;
+      }
+      return LocalDate.of(year, month, monthLength);
+    }
+    LocalDate date = LocalDate.of(year, month, day);
+    RECENT_DATES[slot] = date;
+    return date;
+  }
+
+  /**
+   * Read a {@code 'T'HH:mm} time.
+   *
+   * @param text  the given characters.
+   * @param start the offset of the 'T'.
+   * @return the time, or null if the characters are not a valid time.
+   */
+  private static LocalTime readTime(CharSequence text, int start) {
+    int hour = readDigits(text, start + 1, 2);
+    int minute = readDigits(text, start + 4, 2);
+    if (hour < 0 || hour > 23 || minute < 0 || minute > 59
+            || text.charAt(start) != 'T' || text.charAt(start + 3) != ':') {
+      return null;
+    }
+    return LocalTime.of(hour, minute);
+  }
+
+  private static int readDigits(CharSequence text, int start, int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      int digit = text.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
   /**
    * Converts a LocalDateTime to the start of the day (midnight).
    *
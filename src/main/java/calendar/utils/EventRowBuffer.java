@@ -0,0 +1,94 @@
+package calendar.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+
+/**
+ * Column-wise buffer of parsed import rows. Start and end times are kept as epoch seconds in
+ * primitive arrays, so parsing a large file does not allocate date objects per row until the
+ * rows are turned into events.
+ */
+class EventRowBuffer {
+  private String[] subjects;
+  private String[] descriptions;
+  private long[] startSeconds;
+  private long[] endSeconds;
+  private int size;
+
+  /**
+   * Construct an empty buffer.
+   *
+   * @param capacity the initial number of rows.
+   */
+  EventRowBuffer(int capacity) {
+    int initial = Math.max(capacity, 16);
+    subjects = new String[initial];
+    descriptions = new String[initial];
+    startSeconds = new long[initial];
+    endSeconds = new long[initial];
+  }
+
+  /**
+   * Append a row.
+   *
+   * @param subject      the given subject.
+   * @param description  the given description.
+   * @param startSecond  the start time as epoch seconds.
+   * @param endSecond    the end time as epoch seconds.
+   */
+  void add(String subject, String description, long startSecond, long endSecond) {
+    if (size == subjects.length) {
+      int capacity = size * 2;
+      subjects = Arrays.copyOf(subjects, capacity);
+      descriptions = Arrays.copyOf(descriptions, capacity);
+      startSeconds = Arrays.copyOf(startSeconds, capacity);
+      endSeconds = Arrays.copyOf(endSeconds, capacity);
+    }
+    subjects[size] = subject;
+    descriptions[size] = description;
+    startSeconds[size] = startSecond;
+    endSeconds[size] = endSecond;
+    size++;
+  }
+
+  /**
+   * Get the number of buffered rows.
+   *
+   * @return the row count.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Drop all rows, keeping the allocated arrays.
+   */
+  void clear() {
+    Arrays.fill(subjects, 0, size, null);
+    Arrays.fill(descriptions, 0, size, null);
+    size = 0;
+  }
+
+  /**
+   * Turn the buffered rows into events and append them to a list.
+   *
+   * @param events the list receiving the events.
+   * @throws IllegalArgumentException if a row ends before it starts.
+   */
+  void appendEvents(List<IEvent> events) {
+    if (events instanceof ArrayList) {
+      ((ArrayList<IEvent>) events).ensureCapacity(events.size() + size);
+    }
+    for (int i = 0; i < size; i++) {
+      events.add(new OneTimeEvent(subjects[i], descriptions[i],
+              LocalDateTime.ofEpochSecond(startSeconds[i], 0, ZoneOffset.UTC),
+              LocalDateTime.ofEpochSecond(endSeconds[i], 0, ZoneOffset.UTC)));
+    }
+  }
+}
@@ -1,17 +1,38 @@
 package calendar.utils;
 
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+import calendar.model.OneTimeEvent;
+import calendar.model.RecurringEvent;
+import calendar.utils.jfr.FlightEvents;
+import calendar.utils.jfr.RecurringExpansionEvent;
 
 /**
  * Utility class for event-related operations in the calendar application.
- * Provides methods for checking conflicts between events.
+ * Provides methods for checking conflicts between events and expanding recurring events.
  */
 public class EventUtils {
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final Comparator<IEvent> BY_START_THEN_END =
+          Comparator.comparing(IEvent::getStartTime).thenComparing(IEvent::getEndTime);
+
   /**
    * Check if an event has any conflict with the current calendar.
    *
@@ -30,6 +51,22 @@ public class EventUtils {
     return false;
   }
 
+  /**
+   * Check if an event has any conflict with the events stored on its start day.
+   *
+   * @param dayEvents the events starting on the same day.
+   * @param event     the given event.
+   * @return boolean value whether the event has any conflicts or not.
+   */
+  public boolean hasConflict(Collection<IEvent> dayEvents, IEvent event) {
+    for (IEvent existingEvent : dayEvents) {
+      if (event.isConflicted(existingEvent)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Check if a list of event has any conflict with the current calendar.
    *
@@ -44,4 +81,279 @@ public class EventUtils {
     }
     return false;
   }
+
+  /**
+   * Find the first event of a batch that conflicts with the existing events of a day or with
+   * another event of the batch. Both sides are sorted by start time and swept once, tracking the
+   * latest end time seen on each side, instead of comparing every pair. Conflicts between two
+   * existing events are ignored.
+   *
+   * @param existing the events already stored on the day.
+   * @param batch    the new events starting on the same day.
+   * @return the first conflicting event of the batch, or null if there is none.
+   */
+  public IEvent findBatchConflict(Collection<IEvent> existing, List<IEvent> batch) {
+    List<IEvent> sortedExisting = new ArrayList<>(existing);
+    List<IEvent> sortedBatch = new ArrayList<>(batch);
+    sortedExisting.sort(BY_START_THEN_END);
+    sortedBatch.sort(BY_START_THEN_END);
+
+    LocalDateTime existingEnd = null;
+    LocalDateTime batchEnd = null;
+    IEvent latestBatchEvent = null;
+    int i = 0;
+    for (IEvent event : sortedBatch) {
+      while (i < sortedExisting.size()
+              && BY_START_THEN_END.compare(sortedExisting.get(i), event) <= 0) {
+        IEvent current = sortedExisting.get(i++);
+        if (batchEnd != null && current.getStartTime().isBefore(batchEnd)) {
+          return latestBatchEvent;
+        }
+        existingEnd = later(existingEnd, current.getEndTime());
+      }
+      if ((existingEnd != null && event.getStartTime().isBefore(existingEnd))
+              || (batchEnd != null && event.getStartTime().isBefore(batchEnd))) {
+        return event;
+      }
+      if (batchEnd == null || event.getEndTime().isAfter(batchEnd)) {
+        batchEnd = event.getEndTime();
+        latestBatchEvent = event;
+      }
+    }
+    if (i < sortedExisting.size() && batchEnd != null
+            && sortedExisting.get(i).getStartTime().isBefore(batchEnd)) {
+      return latestBatchEvent;
+    }
+    return null;
+  }
+
+  /**
+   * Split an event into one event per day it touches, the first starting at the given start time
+   * and ending at 23:59, the last starting at midnight and ending at the given end time.
+   *
+   * @param subject     the given subject.
+   * @param description the given description.
+   * @param startTime   the given start time.
+   * @param endTime     the given end time.
+   * @return the events for each day.
+   * @throws IllegalArgumentException throws error if the start date is after the end date.
+   */
+  public List<IEvent> splitIntoDays(String subject, String description, LocalDateTime startTime,
+                                    LocalDateTime endTime) throws IllegalArgumentException {
+    List<IEvent> events = new ArrayList<>();
+    LocalDate startDate = startTime.toLocalDate();
+    LocalDate endDate = endTime.toLocalDate();
+
+    if (startDate.isAfter(endDate)) {
+      throw new IllegalArgumentException("Start date cannot be after end date");
+    } else if (endDate.isEqual(startDate)) {
+      events.add(new OneTimeEvent(subject, description, startTime, endTime));
+    } else {
+      LocalDateTime currentStartTime = startTime;
+      LocalDateTime currentEndTime = startTime.toLocalDate().atTime(LocalTime.of(23, 59));
+      while (currentStartTime.isBefore(endTime) || currentStartTime.isEqual(endTime)) {
+        currentStartTime = currentStartTime.toLocalDate().equals(startDate) ? startTime :
+                currentStartTime;
+        currentEndTime = currentEndTime.toLocalDate().equals(endDate) ? endTime : currentEndTime;
+        events.add(new OneTimeEvent(subject, description, currentStartTime, currentEndTime));
+        currentStartTime = currentStartTime.toLocalDate().atStartOfDay().plusDays(1);
+        currentEndTime = currentEndTime.plusDays(1);
+      }
+    }
+    return events;
+  }
+
+  /**
+   * Generate single events from the recurring event input in order to put in the calendar.
+   *
+   * @param subject       the given subject.
+   * @param description   the given description.
+   * @param startTime     the given start time.
+   * @param endTime       the given end time.
+   * @param endRecurring  the given end recurring date time.
+   * @param recurringDays the given recurring days.
+   * @param occurrences   the given occurrences.
+   * @return List of generated events.
+   * @throws IllegalArgumentException throws error if the input is invalid.
+   */
+  public List<IEvent> generateRecurringEvents(
+          String subject, String description, LocalDateTime startTime, LocalDateTime endTime,
+          LocalDateTime endRecurring, String recurringDays, int occurrences)
+          throws IllegalArgumentException {
+    RecurringExpansionEvent expansion = FlightEvents.isEnabled() ? new RecurringExpansionEvent()
+            : null;
+    List<IEvent> result = new ArrayList<>();
+    LocalDateTime currentStartTime = startTime;
+    LocalDateTime currentEndTime = endTime;
+    int count = 0;
+    Set<DayOfWeek> recurringDaySet = new HashSet<>();
+    for (char c : recurringDays.toCharArray()) {
+      switch (c) {
+        case 'M':
+          recurringDaySet.add(DayOfWeek.MONDAY);
+          break;
+        case 'T':
+          recurringDaySet.add(DayOfWeek.TUESDAY);
+          break;
+        case 'W':
+          recurringDaySet.add(DayOfWeek.WEDNESDAY);
+          break;
+        case 'R':
+          recurringDaySet.add(DayOfWeek.THURSDAY);
+          break;
+        case 'F':
+          recurringDaySet.add(DayOfWeek.FRIDAY);
+          break;
+        case 'S':
+          recurringDaySet.add(DayOfWeek.SATURDAY);
+          break;
+        case 'U':
+          recurringDaySet.add(DayOfWeek.SUNDAY);
+          break;
+        default:
+          throw new IllegalArgumentException("Invalid day character: " + c);
+      }
+    }
+
+    while (currentStartTime != null && (occurrences == 0 || count < occurrences)) {
+      if (endRecurring != null && currentStartTime.isAfter(endRecurring)) {
+        break;
+      }
+
+      if (recurringDaySet.contains(currentStartTime.getDayOfWeek())) {
+        result.add(new RecurringEvent(subject, description, currentStartTime,
+                currentEndTime, endRecurring, recurringDays, occurrences));
+        count++;
+      }
+
+      currentStartTime = currentStartTime.plusDays(1);
+      currentEndTime = currentEndTime.plusDays(1);
+    }
+
+    if (expansion != null) {
+      expansion.commit(recurringDays, result.size(), startTime,
+              result.isEmpty() ? null : result.get(result.size() - 1).getStartTime());
+    }
+    return result;
+  }
+
+  /**
+   * Group recurring instances by series and keep a series as a rule only when expanding the
+   * rule from its first instance gives back exactly the stored instances.
+   *
+   * @param events       all events of the calendar.
+   * @param singleEvents receives the events stored one by one.
+   * @param rules        receives the first instance of every series stored as a rule.
+   */
+  public void splitIntoRules(List<IEvent> events, List<IEvent> singleEvents,
+                              List<IRecurringEvent> rules) {
+    Map<List<Object>, List<IRecurringEvent>> series = new HashMap<>();
+    for (IEvent event : events) {
+      if (event instanceof IRecurringEvent) {
+        IRecurringEvent instance = (IRecurringEvent) event;
+        series.computeIfAbsent(seriesKey(instance), k -> new ArrayList<>()).add(instance);
+      } else {
+        singleEvents.add(event);
+      }
+    }
+
+    for (List<IRecurringEvent> instances : series.values()) {
+      instances.sort(Comparator.comparing(IEvent::getStartTime));
+      IRecurringEvent first = instances.get(0);
+      if (isExpansionOf(first, instances)) {
+        rules.add(first);
+      } else {
+        singleEvents.addAll(instances);
+      }
+    }
+  }
+
+  /**
+   * Get the fields shared by all instances of a series: everything but the date.
+   *
+   * @param instance the given instance.
+   * @return the key of its series.
+   */
+  public List<Object> seriesKey(IRecurringEvent instance) {
+    return Arrays.asList(instance.getSubject(), instance.getDescription(),
+            instance.getEndRecurring(), instance.getRecurringDays(), instance.getOccurrences(),
+            instance.getStartTime().toLocalTime(),
+            Duration.between(instance.getStartTime(), instance.getEndTime()));
+  }
+
+  /**
+   * Check if the given sorted instances are exactly what the series of the first one expands to.
+   *
+   * @param first     the first instance of the series.
+   * @param instances the stored instances, sorted by start.
+   * @return true if the series can be stored as a rule.
+   */
+  public boolean isExpansionOf(IRecurringEvent first, List<IRecurringEvent> instances) {
+    if (first.getOccurrences() == 0 && first.getEndRecurring() == null) {
+      return false;
+    }
+    List<IEvent> expanded;
+    try {
+      expanded = generateRecurringEvents(first.getSubject(), first.getDescription(),
+              first.getStartTime(), first.getEndTime(), first.getEndRecurring(),
+              first.getRecurringDays(), first.getOccurrences());
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    if (expanded.size() != instances.size()) {
+      return false;
+    }
+    for (int i = 0; i < expanded.size(); i++) {
+      if (!expanded.get(i).getStartTime().equals(instances.get(i).getStartTime())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Hash an event into a 64-bit fingerprint over its trimmed subject, start, end and trimmed
+   * description, so the same event read from different files gives the same fingerprint. A
+   * missing description hashes like an empty one. The result is never zero.
+   *
+   * @param event the given event.
+   * @return the fingerprint of the event.
+   */
+  public long fingerprint(IEvent event) {
+    long hash = FNV_OFFSET_BASIS;
+    hash = hashText(hash, event.getSubject());
+    hash = hashLong(hash, event.getStartTime().toEpochSecond(ZoneOffset.UTC));
+    hash = hashLong(hash, event.getEndTime().toEpochSecond(ZoneOffset.UTC));
+    hash = hashText(hash, event.getDescription());
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash == 0 ? 1 : hash;
+  }
+
+  private static long hashText(long hash, String text) {
+    int start = 0;
+    int end = text == null ? 0 : text.length();
+    while (start < end && Character.isWhitespace(text.charAt(start))) {
+      start++;
+    }
+    while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+      end--;
+    }
+    for (int i = start; i < end; i++) {
+      hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+    }
+    return hashLong(hash, end - start);
+  }
+
+  private static long hashLong(long hash, long value) {
+    for (int shift = 0; shift < 64; shift += 16) {
+      hash = (hash ^ ((value >>> shift) & 0xffff)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  private static LocalDateTime later(LocalDateTime current, LocalDateTime candidate) {
+    return current == null || candidate.isAfter(current) ? candidate : current;
+  }
 }
@@ -1,5 +1,7 @@
 package calendar.utils;
 
+import java.time.ZoneId;
+
 /**
  * Keeps track of all the file types that are present.
  */
@@ -8,13 +10,33 @@ public class EventsExporterFactory {
   /**
    * Returns an instance of CalendarExporter based on the provided format.
    *
-   * @param format the desired format (current implementations csv)
+   * @param format the desired format (current implementations csv and ics)
+   * @param zone   the time zone of the exported calendar.
    * @return a CalendarExporter instance
+   * @throws IllegalArgumentException if the format is not supported.
    */
-  public static ExportEvents getExporter(String format) {
+  public static ExportEvents getExporter(String format, ZoneId zone) {
     if ("csv".equalsIgnoreCase(format)) {
       return new ExportCSV();
+    } else if ("ics".equalsIgnoreCase(format)) {
+      return new ExportICS(zone);
+    }
+    throw new IllegalArgumentException("Unsupported export format: " + format);
+  }
+
+  /**
+   * Returns an exporter formatting on all cores when the format supports it, and the regular
+   * exporter otherwise.
+   *
+   * @param format the desired format (current implementations csv and ics)
+   * @param zone   the time zone of the exported calendar.
+   * @return a CalendarExporter instance
+   * @throws IllegalArgumentException if the format is not supported.
+   */
+  public static ExportEvents getParallelExporter(String format, ZoneId zone) {
+    if ("csv".equalsIgnoreCase(format)) {
+      return new ParallelExportCSV();
     }
-    return null;
+    return getExporter(format, zone);
   }
 }
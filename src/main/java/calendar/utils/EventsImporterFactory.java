@@ -0,0 +1,66 @@
+package calendar.utils;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Keeps track of all the file types that can be imported.
+ */
+public class EventsImporterFactory {
+
+  /**
+   * Returns an importer based on the provided format.
+   *
+   * @param format the desired format (current implementations csv and ics)
+   * @return an importer instance
+   * @throws IllegalArgumentException if the format is not supported.
+   */
+  public static ImportEvents getImporter(String format) {
+    return getImporter(format, false);
+  }
+
+  /**
+   * Returns an importer based on the provided format, optionally skipping events that are
+   * already in the calendar so the same file can be imported again safely.
+   *
+   * @param format       the desired format (current implementations csv and ics)
+   * @param skipExisting whether events already in the calendar are skipped
+   * @return an importer instance
+   * @throws IllegalArgumentException if the format is not supported.
+   */
+  public static ImportEvents getImporter(String format, boolean skipExisting) {
+    if ("csv".equalsIgnoreCase(format)) {
+      return new ImportCSV(skipExisting);
+    } else if ("ics".equalsIgnoreCase(format)) {
+      return new ImportICS(skipExisting);
+    }
+    throw new IllegalArgumentException("Unsupported import format: " + format);
+  }
+
+  /**
+   * Returns an importer parsing on all cores when the format supports it, and the regular
+   * importer otherwise.
+   *
+   * @param format the desired format (current implementations csv and ics)
+   * @return an importer instance
+   * @throws IllegalArgumentException if the format is not supported.
+   */
+  public static ImportEvents getParallelImporter(String format) {
+    return getParallelImporter(format, false);
+  }
+
+  /**
+   * Returns an importer parsing on all cores when the format supports it, and the regular
+   * importer otherwise, optionally skipping events that are already in the calendar.
+   *
+   * @param format       the desired format (current implementations csv and ics)
+   * @param skipExisting whether events already in the calendar are skipped
+   * @return an importer instance
+   * @throws IllegalArgumentException if the format is not supported.
+   */
+  public static ImportEvents getParallelImporter(String format, boolean skipExisting) {
+    if ("csv".equalsIgnoreCase(format)) {
+      return new ParallelImportCSV(ForkJoinPool.commonPool(), 0, skipExisting);
+    }
+    return getImporter(format, skipExisting);
+  }
+}
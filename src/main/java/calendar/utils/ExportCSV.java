@@ -1,39 +1,135 @@
 package calendar.utils;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 
 import calendar.manager.IEventManager;
+import calendar.model.EventChange;
 import calendar.model.IEvent;
 
 /**
  * Class exports the calendar into CSV format.
  */
-public class ExportCSV implements ExportEvents{
+public class ExportCSV implements ExportEvents {
+  static final String HEADER = "Subject,Start Date,Start Time,End Date,End Time,Description\n";
+  static final String CHANGES_HEADER = "Change," + HEADER;
+  static final int BUFFER_SIZE = 1 << 16;
+  private static final DateTimeFormatter DATE_FORMATTER =
+          DateTimeFormatter.ofPattern("MM/dd/yyyy");
+  private static final DateTimeFormatter TIME_FORMATTER =
+          DateTimeFormatter.ofPattern("hh:mm a");
+
+  private final ExportUtils exportUtils = new ExportUtils();
 
   @Override
   public String exportEvents(IEventManager eventManager) {
-    StringBuilder sb = new StringBuilder();
-    sb.append("Subject,Start Date,Start Time,End Date,End Time,Description\n");
-
-    // Assuming that IEventManager provides the list of all events:
-    for (IEvent event : eventManager.getAllEvents()) {
-      // Escape commas or use a proper CSV-escape if needed.
-      ExportUtils exportUtils= new ExportUtils();
-
-      String subject = exportUtils.escapeCSV(event.getSubject());;
-      String description = exportUtils.escapeCSV(event.getDescription());
-
-      DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-      DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
-      String startDate = event.getStartTime().toLocalDate().format(dateFormatter);
-      String startTime = event.getStartTime().toLocalTime().format(timeFormatter);
-      String endDate = event.getEndTime().toLocalDate().format(dateFormatter);
-      String endTime = event.getEndTime().toLocalTime().format(timeFormatter);
-
-      sb.append(String.format("%s,%s,%s,%s,%s,%s\n",
-              subject, startDate, startTime, endDate, endTime, description));
+    StringWriter writer = new StringWriter();
+    try {
+      export(eventManager, writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return writer.toString();
+  }
+
+  @Override
+  public void export(IEventManager eventManager, Writer writer) throws IOException {
+    export(eventManager, null, null, writer);
+  }
+
+  @Override
+  public void export(IEventManager eventManager, WritableByteChannel channel) throws IOException {
+    export(eventManager, null, null, channel);
+  }
+
+  @Override
+  public void export(IEventManager eventManager, LocalDateTime from, LocalDateTime to,
+                     Writer writer) throws IOException {
+    writer.write(HEADER);
+    StringBuilder record = new StringBuilder(128);
+    Iterator<IEvent> events = eventManager.eventIterator(from, to);
+    while (events.hasNext()) {
+      record.setLength(0);
+      appendRecord(events.next(), record);
+      writer.append(record);
     }
-    return sb.toString();
+    writer.flush();
+  }
+
+  @Override
+  public void export(IEventManager eventManager, LocalDateTime from, LocalDateTime to,
+                     WritableByteChannel channel) throws IOException {
+    Writer writer = new BufferedWriter(
+            Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE),
+            BUFFER_SIZE);
+    export(eventManager, from, to, writer);
+  }
+
+  /**
+   * Write only the events added or removed after a watermark, each record prefixed with
+   * "added" or "removed". If the watermark is older than the change history of the calendar,
+   * or comes from another calendar, a single "reset" record is written followed by every event,
+   * and the reader should replace its copy.
+   *
+   * @param eventManager the calendar to export.
+   * @param watermark    the watermark returned by the previous export.
+   * @param writer       the writer receiving the changes.
+   * @return the watermark to pass to the next export.
+   * @throws IOException if the writer fails.
+   */
+  public long exportChanges(IEventManager eventManager, long watermark, Writer writer)
+          throws IOException {
+    long newWatermark = eventManager.getChangeSequence();
+    writer.write(CHANGES_HEADER);
+    StringBuilder record = new StringBuilder(128);
+    if (watermark < eventManager.getHistoryStart() || watermark > newWatermark) {
+      writer.write("reset,,,,,,\n");
+      Iterator<IEvent> events = eventManager.eventIterator();
+      while (events.hasNext()) {
+        record.setLength(0);
+        record.append("added,");
+        appendRecord(events.next(), record);
+        writer.append(record);
+      }
+    } else {
+      for (EventChange change : eventManager.getChangesSince(watermark)) {
+        record.setLength(0);
+        record.append(change.isRemoved() ? "removed," : "added,");
+        appendRecord(change.getEvent(), record);
+        writer.append(record);
+      }
+    }
+    writer.flush();
+    return newWatermark;
+  }
 
+  /**
+   * Append one CSV record for the event, reusing the shared formatters.
+   *
+   * @param event  the given event.
+   * @param record the record being built.
+   */
+  void appendRecord(IEvent event, StringBuilder record) {
+    exportUtils.appendEscapedCSV(event.getSubject(), record);
+    record.append(',');
+    DATE_FORMATTER.formatTo(event.getStartTime(), record);
+    record.append(',');
+    TIME_FORMATTER.formatTo(event.getStartTime(), record);
+    record.append(',');
+    DATE_FORMATTER.formatTo(event.getEndTime(), record);
+    record.append(',');
+    TIME_FORMATTER.formatTo(event.getEndTime(), record);
+    record.append(',');
+    exportUtils.appendEscapedCSV(event.getDescription(), record);
+    record.append('\n');
   }
 }
@@ -1,5 +1,10 @@
 package calendar.utils;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+
 import calendar.manager.IEventManager;
 
 /**
@@ -13,4 +18,49 @@ public interface ExportEvents {
    * @return the calendar data as a formatted String.
    */
   String exportEvents(IEventManager eventManger);
+
+  /**
+   * Streams the given events to a writer, one record at a time, so memory use does not grow
+   * with the size of the calendar. The writer is flushed but not closed.
+   *
+   * @param eventManager the calendar to export.
+   * @param writer       the writer receiving the formatted calendar.
+   * @throws IOException if the writer fails.
+   */
+  void export(IEventManager eventManager, Writer writer) throws IOException;
+
+  /**
+   * Streams the given events as UTF-8 to a channel through a fixed size buffer. The channel is
+   * not closed.
+   *
+   * @param eventManager the calendar to export.
+   * @param channel      the channel receiving the formatted calendar.
+   * @throws IOException if the channel fails.
+   */
+  void export(IEventManager eventManager, WritableByteChannel channel) throws IOException;
+
+  /**
+   * Streams the events starting within a range to a writer, walking only that slice of the
+   * calendar. The writer is flushed but not closed.
+   *
+   * @param eventManager the calendar to export.
+   * @param from         the earliest start time, or null for no lower bound.
+   * @param to           the latest start time, or null for no upper bound.
+   * @param writer       the writer receiving the formatted events.
+   * @throws IOException if the writer fails.
+   */
+  void export(IEventManager eventManager, LocalDateTime from, LocalDateTime to, Writer writer)
+          throws IOException;
+
+  /**
+   * Streams the events starting within a range as UTF-8 to a channel. The channel is not closed.
+   *
+   * @param eventManager the calendar to export.
+   * @param from         the earliest start time, or null for no lower bound.
+   * @param to           the latest start time, or null for no upper bound.
+   * @param channel      the channel receiving the formatted events.
+   * @throws IOException if the channel fails.
+   */
+  void export(IEventManager eventManager, LocalDateTime from, LocalDateTime to,
+              WritableByteChannel channel) throws IOException;
 }
@@ -0,0 +1,400 @@
+package calendar.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneOffsetTransitionRule;
+import java.time.zone.ZoneRules;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import calendar.manager.IEventManager;
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+
+/**
+ * Class exports the calendar into iCalendar (RFC 5545) format. Events are streamed in date
+ * order as they are iterated. When the first instance of a recurring series comes up, the
+ * series is checked by looking up every instance its rule expands to; if they are all stored,
+ * the series is written right away as one VEVENT with an RRULE and its later instances are
+ * skipped, otherwise every instance is written as a single event. Only one small entry per
+ * series is kept, never the events themselves.
+ *
+ * <p>Times are written in the time zone of the calendar, with a TZID parameter and a VTIMEZONE
+ * describing the zone, so that clients in other zones show them at the right instant.</p>
+ */
+public class ExportICS implements ExportEvents {
+  static final String PRODUCT_ID = "-//Calendar//Calendar App//EN";
+  static final DateTimeFormatter DATE_TIME_FORMATTER =
+          DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+  private static final int MAX_LINE_OCTETS = 75;
+  private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+  private static final String DAY_CHARS = "MTWRFSU";
+
+  private final EventUtils eventUtils = new EventUtils();
+  private final ZoneId zone;
+
+  /**
+   * Create an exporter writing times in the given time zone.
+   *
+   * @param zone the time zone of the exported calendar.
+   */
+  public ExportICS(ZoneId zone) {
+    this.zone = zone;
+  }
+
+  @Override
+  public String exportEvents(IEventManager eventManager) {
+    StringWriter writer = new StringWriter();
+    try {
+      export(eventManager, writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return writer.toString();
+  }
+
+  @Override
+  public void export(IEventManager eventManager, Writer writer) throws IOException {
+    export(eventManager, null, null, writer);
+  }
+
+  @Override
+  public void export(IEventManager eventManager, WritableByteChannel channel) throws IOException {
+    export(eventManager, null, null, channel);
+  }
+
+  @Override
+  public void export(IEventManager eventManager, LocalDateTime from, LocalDateTime to,
+                     Writer writer) throws IOException {
+    String stamp = LocalDateTime.now(ZoneOffset.UTC).format(DATE_TIME_FORMATTER) + "Z";
+    StringBuilder line = new StringBuilder(128);
+    writeLine(writer, line, "BEGIN:VCALENDAR");
+    writeLine(writer, line, "VERSION:2.0");
+    writeLine(writer, line, "PRODID:" + PRODUCT_ID);
+    writeLine(writer, line, "CALSCALE:GREGORIAN");
+    writeTimeZone(writer, line);
+
+    Map<List<Object>, Series> series = new HashMap<>();
+    Iterator<IEvent> events = eventManager.eventIterator(from, to);
+    while (events.hasNext()) {
+      IEvent event = events.next();
+      if (event instanceof IRecurringEvent) {
+        IRecurringEvent instance = (IRecurringEvent) event;
+        List<Object> key = eventUtils.seriesKey(instance);
+        Series scanned = series.get(key);
+        if (scanned == null) {
+          scanned = scanSeries(eventManager, instance, key, to);
+          series.put(key, scanned);
+          if (scanned.last != null) {
+            writeEvent(writer, line, instance, recurrenceRule(instance, scanned.count), stamp);
+          }
+        }
+        if (scanned.covers(instance.getStartTime())) {
+          continue;
+        }
+      }
+      writeEvent(writer, line, event, null, stamp);
+    }
+
+    writeLine(writer, line, "END:VCALENDAR");
+    writer.flush();
+  }
+
+  @Override
+  public void export(IEventManager eventManager, LocalDateTime from, LocalDateTime to,
+                     WritableByteChannel channel) throws IOException {
+    Writer writer = new BufferedWriter(
+            Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(),
+                    ExportCSV.BUFFER_SIZE), ExportCSV.BUFFER_SIZE);
+    export(eventManager, from, to, writer);
+  }
+
+  private void writeEvent(Writer writer, StringBuilder line, IEvent event, String rule,
+                          String stamp) throws IOException {
+    writeLine(writer, line, "BEGIN:VEVENT");
+    writeLine(writer, line, "UID:" + uid(event, rule));
+    writeLine(writer, line, "DTSTAMP:" + stamp);
+    writeLine(writer, line, "DTSTART;TZID=" + zone.getId() + ":"
+            + event.getStartTime().format(DATE_TIME_FORMATTER));
+    writeLine(writer, line, "DTEND;TZID=" + zone.getId() + ":"
+            + event.getEndTime().format(DATE_TIME_FORMATTER));
+    if (rule != null) {
+      writeLine(writer, line, "RRULE:" + rule);
+    }
+    line.setLength(0);
+    line.append("SUMMARY:");
+    appendEscapedText(event.getSubject(), line);
+    writeFolded(writer, line);
+    if (event.getDescription() != null && !event.getDescription().isEmpty()) {
+      line.setLength(0);
+      line.append("DESCRIPTION:");
+      appendEscapedText(event.getDescription(), line);
+      writeFolded(writer, line);
+    }
+    writeLine(writer, line, "END:VEVENT");
+  }
+
+  /**
+   * Check if the series of an instance can be written as a rule starting at it: its rule has
+   * to be bounded, and every instance it expands to has to be stored and within the range.
+   *
+   * @param eventManager the exported events.
+   * @param first        the first instance of the series in the range.
+   * @param key          the key of the series.
+   * @param to           the latest start time exported, or null for no upper bound.
+   * @return the instances covered by the rule, or none if it cannot be written.
+   */
+  private Series scanSeries(IEventManager eventManager, IRecurringEvent first, List<Object> key,
+                            LocalDateTime to) {
+    if (first.getOccurrences() == 0 && first.getEndRecurring() == null) {
+      return Series.SINGLES;
+    }
+    List<IEvent> expanded;
+    try {
+      expanded = eventUtils.generateRecurringEvents(first.getSubject(), first.getDescription(),
+              first.getStartTime(), first.getEndTime(), first.getEndRecurring(),
+              first.getRecurringDays(), first.getOccurrences());
+    } catch (IllegalArgumentException e) {
+      return Series.SINGLES;
+    }
+    if (expanded.isEmpty()) {
+      return Series.SINGLES;
+    }
+    for (IEvent expectedInstance : expanded) {
+      LocalDateTime start = expectedInstance.getStartTime();
+      if ((to != null && start.isAfter(to)) || !isStored(eventManager, key, start)) {
+        return Series.SINGLES;
+      }
+    }
+    return new Series(expanded.get(expanded.size() - 1).getStartTime(), expanded.size());
+  }
+
+  private boolean isStored(IEventManager eventManager, List<Object> key, LocalDateTime start) {
+    Iterator<IEvent> candidates = eventManager.eventIterator(start, start);
+    while (candidates.hasNext()) {
+      IEvent candidate = candidates.next();
+      if (candidate instanceof IRecurringEvent
+              && key.equals(eventUtils.seriesKey((IRecurringEvent) candidate))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Build the RRULE of a series. The weekly rule with BYDAY matches how series are expanded;
+   * COUNT is used when the series is bounded by occurrences, UNTIL otherwise. UNTIL is written
+   * in UTC, as required when the start has a time zone.
+   *
+   * @param rule  the first instance of the series.
+   * @param count the number of instances of the series.
+   * @return the RRULE value.
+   */
+  private String recurrenceRule(IRecurringEvent rule, int count) {
+    StringBuilder value = new StringBuilder("FREQ=WEEKLY;BYDAY=");
+    String days = rule.getRecurringDays();
+    boolean first = true;
+    for (int i = 0; i < DAY_CHARS.length(); i++) {
+      if (days.indexOf(DAY_CHARS.charAt(i)) >= 0) {
+        if (!first) {
+          value.append(',');
+        }
+        value.append(DAY_CODES[i]);
+        first = false;
+      }
+    }
+    if (rule.getOccurrences() > 0) {
+      value.append(";COUNT=").append(count);
+    } else {
+      value.append(";UNTIL=").append(rule.getEndRecurring().atZone(zone)
+              .withZoneSameInstant(ZoneOffset.UTC).format(DATE_TIME_FORMATTER)).append('Z');
+    }
+    return value.toString();
+  }
+
+  /**
+   * Write the VTIMEZONE of the calendar zone. Zones with daylight saving time get one yearly
+   * observance per transition rule, starting after the last historical transition; other zones
+   * get their current offset.
+   */
+  private void writeTimeZone(Writer writer, StringBuilder line) throws IOException {
+    ZoneRules rules = zone.getRules();
+    List<ZoneOffsetTransition> history = rules.getTransitions();
+    ZoneOffsetTransition last = history.isEmpty() ? null : history.get(history.size() - 1);
+    writeLine(writer, line, "BEGIN:VTIMEZONE");
+    writeLine(writer, line, "TZID:" + zone.getId());
+    if (!rules.getTransitionRules().isEmpty()) {
+      int year = last == null ? 1970 : last.getDateTimeAfter().getYear() + 1;
+      for (ZoneOffsetTransitionRule rule : rules.getTransitionRules()) {
+        ZoneOffsetTransition first = rule.createTransition(year);
+        writeObservance(writer, line, first.getDateTimeBefore(), first.getOffsetBefore(),
+                first.getOffsetAfter(), !rule.getOffsetAfter().equals(rule.getStandardOffset()),
+                yearlyRule(rule));
+      }
+    } else if (last != null) {
+      writeObservance(writer, line, last.getDateTimeBefore(), last.getOffsetBefore(),
+              last.getOffsetAfter(), rules.isDaylightSavings(last.getInstant()), null);
+    } else {
+      ZoneOffset offset = rules.getOffset(Instant.EPOCH);
+      writeObservance(writer, line, LocalDateTime.of(1970, 1, 1, 0, 0), offset, offset, false,
+              null);
+    }
+    writeLine(writer, line, "END:VTIMEZONE");
+  }
+
+  private void writeObservance(Writer writer, StringBuilder line, LocalDateTime start,
+                               ZoneOffset from, ZoneOffset to, boolean daylight, String rule)
+          throws IOException {
+    String component = daylight ? "DAYLIGHT" : "STANDARD";
+    writeLine(writer, line, "BEGIN:" + component);
+    writeLine(writer, line, "DTSTART:" + start.format(DATE_TIME_FORMATTER));
+    writeLine(writer, line, "TZOFFSETFROM:" + utcOffset(from));
+    writeLine(writer, line, "TZOFFSETTO:" + utcOffset(to));
+    if (rule != null) {
+      writeLine(writer, line, "RRULE:" + rule);
+    }
+    writeLine(writer, line, "END:" + component);
+  }
+
+  /**
+   * Build the yearly RRULE of a transition rule, which falls on a fixed day of the month or on
+   * the first given weekday on or after (or, counting from the end, before) that day.
+   */
+  private static String yearlyRule(ZoneOffsetTransitionRule rule) {
+    StringBuilder value = new StringBuilder("FREQ=YEARLY;BYMONTH=")
+            .append(rule.getMonth().getValue());
+    int day = rule.getDayOfMonthIndicator();
+    if (rule.getDayOfWeek() == null) {
+      return value.append(";BYMONTHDAY=").append(day).toString();
+    }
+    String weekday = DAY_CODES[rule.getDayOfWeek().getValue() - 1];
+    if (day == -1) {
+      return value.append(";BYDAY=-1").append(weekday).toString();
+    } else if (day > 0 && (day - 1) % 7 == 0) {
+      return value.append(";BYDAY=").append((day - 1) / 7 + 1).append(weekday).toString();
+    }
+    value.append(";BYDAY=").append(weekday).append(";BYMONTHDAY=");
+    int firstDay = day > 0 ? day : day - 6;
+    for (int i = 0; i < 7; i++) {
+      value.append(i == 0 ? "" : ",").append(firstDay + i);
+    }
+    return value.toString();
+  }
+
+  private static String utcOffset(ZoneOffset offset) {
+    int seconds = offset.getTotalSeconds();
+    int magnitude = Math.abs(seconds);
+    String value = String.format(Locale.ROOT, "%s%02d%02d", seconds < 0 ? "-" : "+", magnitude / 3600,
+            magnitude / 60 % 60);
+    return magnitude % 60 == 0 ? value : value + String.format(Locale.ROOT, "%02d", magnitude % 60);
+  }
+
+  /**
+   * The instances of a series covered by its rule: those starting up to the last one. Later
+   * instances with the same fields belong to another series and are written one by one.
+   */
+  private static final class Series {
+    static final Series SINGLES = new Series(null, 0);
+
+    final LocalDateTime last;
+    final int count;
+
+    Series(LocalDateTime last, int count) {
+      this.last = last;
+      this.count = count;
+    }
+
+    boolean covers(LocalDateTime start) {
+      return last != null && !start.isAfter(last);
+    }
+  }
+
+  /**
+   * Derive a stable UID from the event, so exporting the same calendar twice gives the same
+   * identifiers and clients update events instead of duplicating them.
+   */
+  private static String uid(IEvent event, String rule) {
+    String key = event.getSubject() + '\u0000' + event.getStartTime() + '\u0000'
+            + event.getEndTime() + '\u0000' + rule;
+    return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + "@calendar";
+  }
+
+  /**
+   * Append a TEXT value, escaping backslashes, semicolons, commas and line breaks.
+   *
+   * @param text   the given text.
+   * @param line   the line being built.
+   */
+  static void appendEscapedText(String text, StringBuilder line) {
+    if (text == null) {
+      return;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '\\':
+        case ';':
+        case ',':
+          line.append('\\').append(c);
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          break;
+        default:
+          line.append(c);
+      }
+    }
+  }
+
+  private static void writeLine(Writer writer, StringBuilder line, String content)
+          throws IOException {
+    line.setLength(0);
+    line.append(content);
+    writeFolded(writer, line);
+  }
+
+  /**
+   * Write a content line, folding it so no physical line exceeds 75 octets of UTF-8 and never
+   * splitting a character.
+   */
+  private static void writeFolded(Writer writer, StringBuilder line) throws IOException {
+    int octets = 0;
+    int start = 0;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      int width;
+      if (Character.isHighSurrogate(c)) {
+        width = 4;
+      } else if (Character.isLowSurrogate(c)) {
+        continue;
+      } else {
+        width = c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+      }
+      if (octets + width > MAX_LINE_OCTETS) {
+        writer.append(line, start, i).append("\r\n ");
+        start = i;
+        octets = 1;
+      }
+      octets += width;
+    }
+    writer.append(line, start, line.length()).append("\r\n");
+  }
+}
@@ -23,4 +23,37 @@ public class ExportUtils {
     }
     return field;
   }
+
+  /**
+   * Append a subject or description to a CSV record, quoting it the same way as
+   * {@link #escapeCSV} but without building intermediate strings.
+   *
+   * @param field  the given field value.
+   * @param record the record being built.
+   */
+  public void appendEscapedCSV(String field, StringBuilder record) {
+    if (field == null) {
+      return;
+    }
+
+    boolean needsQuotes = false;
+    for (int i = 0; i < field.length() && !needsQuotes; i++) {
+      char c = field.charAt(i);
+      needsQuotes = c == ',' || c == '"' || c == '\n';
+    }
+    if (!needsQuotes) {
+      record.append(field);
+      return;
+    }
+
+    record.append('"');
+    for (int i = 0; i < field.length(); i++) {
+      char c = field.charAt(i);
+      if (c == '"') {
+        record.append('"');
+      }
+      record.append(c);
+    }
+    record.append('"');
+  }
 }
@@ -0,0 +1,136 @@
+package calendar.utils;
+
+import java.util.Arrays;
+
+/**
+ * Counting set of 64-bit event fingerprints, stored in open addressed primitive arrays so a
+ * calendar with millions of events does not box a Long per event. The same fingerprint may be
+ * added several times, for example when identical events are allowed because conflicts are not
+ * declined, and stays in the set until it has been removed as often as it was added. Zero is
+ * used to mark free slots and is never a valid fingerprint.
+ */
+public class FingerprintSet {
+  private static final int INITIAL_CAPACITY = 16;
+  private long[] keys;
+  private int[] counts;
+  private int size;
+
+  /**
+   * Construct an empty set.
+   */
+  public FingerprintSet() {
+    keys = new long[INITIAL_CAPACITY];
+    counts = new int[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Add one occurrence of a fingerprint.
+   *
+   * @param fingerprint the given non-zero fingerprint.
+   */
+  public void add(long fingerprint) {
+    int slot = find(fingerprint);
+    if (keys[slot] == fingerprint) {
+      counts[slot]++;
+      return;
+    }
+    keys[slot] = fingerprint;
+    counts[slot] = 1;
+    if (++size * 2 > keys.length) {
+      grow();
+    }
+  }
+
+  /**
+   * Remove one occurrence of a fingerprint.
+   *
+   * @param fingerprint the given fingerprint.
+   * @return true if the fingerprint was present.
+   */
+  public boolean remove(long fingerprint) {
+    int slot = find(fingerprint);
+    if (keys[slot] != fingerprint || fingerprint == 0) {
+      return false;
+    }
+    if (--counts[slot] == 0) {
+      delete(slot);
+      size--;
+    }
+    return true;
+  }
+
+  /**
+   * Check if a fingerprint is present.
+   *
+   * @param fingerprint the given fingerprint.
+   * @return true if the fingerprint was added more often than removed.
+   */
+  public boolean contains(long fingerprint) {
+    return fingerprint != 0 && keys[find(fingerprint)] == fingerprint;
+  }
+
+  /**
+   * Get the number of distinct fingerprints.
+   *
+   * @return the number of fingerprints.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Remove every fingerprint.
+   */
+  public void clear() {
+    Arrays.fill(keys, 0);
+    Arrays.fill(counts, 0);
+    size = 0;
+  }
+
+  /**
+   * Find the slot holding a fingerprint, or the free slot where it would be inserted.
+   */
+  private int find(long fingerprint) {
+    int mask = keys.length - 1;
+    int slot = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    while (keys[slot] != 0 && keys[slot] != fingerprint) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Free a slot by shifting back later entries of the same probe run, so lookups never need
+   * tombstones.
+   */
+  private void delete(int slot) {
+    int mask = keys.length - 1;
+    int hole = slot;
+    int next = (hole + 1) & mask;
+    while (keys[next] != 0) {
+      int home = (int) (keys[next] ^ (keys[next] >>> 32)) & mask;
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        counts[hole] = counts[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[hole] = 0;
+    counts[hole] = 0;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldCounts = counts;
+    keys = new long[oldKeys.length * 2];
+    counts = new int[oldKeys.length * 2];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = find(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+  }
+}
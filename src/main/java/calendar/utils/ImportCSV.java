@@ -0,0 +1,237 @@
+package calendar.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+
+/**
+ * Class imports events from a CSV file in the Google Calendar layout, the same layout written by
+ * {@link ExportCSV}. Columns are matched by their header names, so exports with extra columns
+ * such as "All Day Event" or "Location" work too. Rows are parsed by a streaming
+ * {@link CsvReader} and added to the calendar in batches, each checked for conflicts as a whole.
+ * When existing events are skipped, rows already in the calendar are dropped by their fingerprint,
+ * so importing the same file again adds nothing.
+ */
+public class ImportCSV implements ImportEvents {
+  static final int BATCH_SIZE = 10_000;
+  private static final DateTimeFormatter DATE_FORMATTER =
+          DateTimeFormatter.ofPattern("MM/dd/yyyy");
+  private static final DateTimeFormatter TIME_FORMATTER =
+          DateTimeFormatter.ofPattern("hh:mm a", Locale.US);
+  private static final int END_OF_DAY_SECOND = 23 * 3600 + 59 * 60;
+  private static final String[] COLUMNS =
+      {"subject", "start date", "start time", "end date", "end time", "description"};
+  private static final int SUBJECT = 0;
+  private static final int START_DATE = 1;
+  private static final int START_TIME = 2;
+  private static final int END_DATE = 3;
+  private static final int END_TIME = 4;
+  private static final int DESCRIPTION = 5;
+
+  private final boolean skipExisting;
+
+  /**
+   * Construct an importer adding every row.
+   */
+  public ImportCSV() {
+    this(false);
+  }
+
+  /**
+   * Construct an importer.
+   *
+   * @param skipExisting whether rows equal to an event already in the calendar are skipped.
+   */
+  public ImportCSV(boolean skipExisting) {
+    this.skipExisting = skipExisting;
+  }
+
+  @Override
+  public int importEvents(Reader reader, ICalendar calendar) throws IOException {
+    CsvReader csv = new CsvReader(reader);
+    if (!csv.next()) {
+      return 0;
+    }
+    int[] columns = mapColumns(csv);
+
+    EventRowBuffer rows = new EventRowBuffer(BATCH_SIZE);
+    List<IEvent> batch = new ArrayList<>(BATCH_SIZE);
+    int imported = 0;
+    while (csv.next()) {
+      if (csv.isBlank()) {
+        continue;
+      }
+      parseRecord(csv, columns, rows);
+      if (rows.size() == BATCH_SIZE) {
+        imported += flush(rows, batch, calendar);
+      }
+    }
+    return imported + flush(rows, batch, calendar);
+  }
+
+  @Override
+  public int importEvents(Path file, ICalendar calendar) throws IOException {
+    try (Reader reader = Files.newBufferedReader(file)) {
+      return importEvents(reader, calendar);
+    }
+  }
+
+  private int flush(EventRowBuffer rows, List<IEvent> batch, ICalendar calendar) {
+    int count = 0;
+    if (rows.size() > 0) {
+      rows.appendEvents(batch);
+      count = addBatch(batch, calendar);
+      batch.clear();
+      rows.clear();
+    }
+    return count;
+  }
+
+  /**
+   * Add a batch of parsed events, skipping known events if the importer is set up to.
+   *
+   * @param batch    the given events.
+   * @param calendar the calendar receiving the events.
+   * @return the number of added events.
+   */
+  int addBatch(List<IEvent> batch, ICalendar calendar) {
+    if (skipExisting) {
+      return calendar.addNewEvents(batch);
+    }
+    calendar.addEvents(batch);
+    return batch.size();
+  }
+
+  /**
+   * Find the position of each known column in the header. Files without a recognizable header
+   * are read in the exported column order.
+   *
+   * @param csv the reader positioned on the header record.
+   * @return the field index of each column, or -1 if the column is missing.
+   */
+  static int[] mapColumns(CsvReader csv) {
+    int[] columns = new int[COLUMNS.length];
+    Arrays.fill(columns, -1);
+    for (int field = 0; field < csv.getFieldCount(); field++) {
+      String name = csv.getField(field).trim().toLowerCase(Locale.ROOT);
+      for (int column = 0; column < COLUMNS.length; column++) {
+        if (COLUMNS[column].equals(name) && columns[column] < 0) {
+          columns[column] = field;
+        }
+      }
+    }
+    if (columns[SUBJECT] < 0 || columns[START_DATE] < 0) {
+      for (int column = 0; column < COLUMNS.length; column++) {
+        columns[column] = column;
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * Parse the current record into the row buffer. A missing end date means the event ends on its
+   * start date, and missing times make it span the whole day.
+   *
+   * @param csv     the reader positioned on the record.
+   * @param columns the field index of each column.
+   * @param rows    the buffer receiving the row.
+   * @throws IllegalArgumentException if the record is malformed.
+   */
+  static void parseRecord(CsvReader csv, int[] columns, EventRowBuffer rows) {
+    try {
+      String subject = field(csv, columns[SUBJECT]);
+      String startDateStr = field(csv, columns[START_DATE]);
+      if (subject.isEmpty() || startDateStr.isEmpty()) {
+        throw new IllegalArgumentException("subject and start date are required");
+      }
+      String endDateStr = field(csv, columns[END_DATE]);
+      String startTimeStr = field(csv, columns[START_TIME]);
+      String endTimeStr = field(csv, columns[END_TIME]);
+
+      long startDay = parseEpochDay(startDateStr);
+      long endDay = endDateStr.isEmpty() ? startDay : parseEpochDay(endDateStr);
+      long startSecond = startDay * 86400
+              + (startTimeStr.isEmpty() ? 0 : parseSecondOfDay(startTimeStr));
+      long endSecond = endDay * 86400
+              + (endTimeStr.isEmpty() ? END_OF_DAY_SECOND : parseSecondOfDay(endTimeStr));
+      if (endSecond < startSecond) {
+        throw new IllegalArgumentException("End time cannot be before start time.");
+      }
+      rows.add(subject, field(csv, columns[DESCRIPTION]), startSecond, endSecond);
+    } catch (DateTimeParseException | IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+              "Invalid CSV record at line " + csv.getLineNumber() + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Parse a MM/dd/yyyy date without going through a formatter for well formed input.
+   *
+   * @param value the given date string.
+   * @return the epoch day.
+   */
+  static long parseEpochDay(String value) {
+    if (value.length() == 10 && value.charAt(2) == '/' && value.charAt(5) == '/') {
+      int month = digits(value, 0, 2);
+      int day = digits(value, 3, 5);
+      int year = digits(value, 6, 10);
+      if (month > 0 && day > 0 && year >= 0) {
+        try {
+          return LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+          // fall through to the formatter for its error message
+        }
+      }
+    }
+    return LocalDate.parse(value, DATE_FORMATTER).toEpochDay();
+  }
+
+  /**
+   * Parse an hh:mm AM/PM time without going through a formatter for well formed input.
+   *
+   * @param value the given time string.
+   * @return the second of the day.
+   */
+  static int parseSecondOfDay(String value) {
+    if (value.length() == 8 && value.charAt(2) == ':' && value.charAt(5) == ' '
+            && value.charAt(7) == 'M') {
+      int hour = digits(value, 0, 2);
+      int minute = digits(value, 3, 5);
+      char half = value.charAt(6);
+      if (hour >= 1 && hour <= 12 && minute >= 0 && minute < 60
+              && (half == 'A' || half == 'P')) {
+        return ((hour % 12) + (half == 'P' ? 12 : 0)) * 3600 + minute * 60;
+      }
+    }
+    return LocalTime.parse(value, TIME_FORMATTER).toSecondOfDay();
+  }
+
+  private static int digits(String value, int from, int to) {
+    int result = 0;
+    for (int i = from; i < to; i++) {
+      int digit = value.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      result = result * 10 + digit;
+    }
+    return result;
+  }
+
+  private static String field(CsvReader csv, int index) {
+    return index >= 0 && index < csv.getFieldCount() ? csv.getField(index).trim() : "";
+  }
+}
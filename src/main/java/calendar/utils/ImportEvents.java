@@ -0,0 +1,34 @@
+package calendar.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+
+import calendar.model.ICalendar;
+
+/**
+ * Interface to which supports multiple forms of imports.
+ */
+public interface ImportEvents {
+  /**
+   * Streams events from a reader into the given calendar. The reader is not closed.
+   *
+   * @param reader   the reader holding the formatted events.
+   * @param calendar the calendar receiving the events.
+   * @return the number of imported events.
+   * @throws IOException              if the reader fails.
+   * @throws IllegalArgumentException if the input is malformed or an event conflicts.
+   */
+  int importEvents(Reader reader, ICalendar calendar) throws IOException;
+
+  /**
+   * Imports events from a file into the given calendar.
+   *
+   * @param file     the file holding the formatted events.
+   * @param calendar the calendar receiving the events.
+   * @return the number of imported events.
+   * @throws IOException              if the file cannot be read.
+   * @throws IllegalArgumentException if the input is malformed or an event conflicts.
+   */
+  int importEvents(Path file, ICalendar calendar) throws IOException;
+}
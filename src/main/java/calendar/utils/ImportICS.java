@@ -0,0 +1,404 @@
+package calendar.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+
+/**
+ * Class imports events from an iCalendar (RFC 5545) file. The file is read one unfolded content
+ * line at a time. Events with a weekly or daily RRULE become recurring series, all other events
+ * are added in conflict-checked batches like the CSV import. UTC times and times with a TZID are
+ * converted into the time zone of the target calendar; floating times are taken as they are.
+ * When existing events are skipped, events and series already in the calendar are left out, so
+ * importing the same file again adds nothing.
+ */
+public class ImportICS implements ImportEvents {
+  private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+  private static final String DAY_CHARS = "MTWRFSU";
+  private static final List<String> DAY_CODES =
+          List.of("MO", "TU", "WE", "TH", "FR", "SA", "SU");
+
+  private final boolean skipExisting;
+
+  /**
+   * Construct an importer adding every event.
+   */
+  public ImportICS() {
+    this(false);
+  }
+
+  /**
+   * Construct an importer.
+   *
+   * @param skipExisting whether events equal to an event already in the calendar are skipped.
+   */
+  public ImportICS(boolean skipExisting) {
+    this.skipExisting = skipExisting;
+  }
+
+  @Override
+  public int importEvents(Reader reader, ICalendar calendar) throws IOException {
+    BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader
+            : new BufferedReader(reader, ExportCSV.BUFFER_SIZE);
+    List<IEvent> batch = new ArrayList<>(ImportCSV.BATCH_SIZE);
+    VEvent event = null;
+    int nested = 0;
+    int imported = 0;
+
+    StringBuilder logical = new StringBuilder();
+    long lineNumber = 0;
+    long logicalLine = 0;
+    String physical = lines.readLine();
+    while (physical != null) {
+      lineNumber++;
+      logical.setLength(0);
+      logical.append(physical);
+      logicalLine = lineNumber;
+      physical = lines.readLine();
+      while (physical != null && !physical.isEmpty()
+              && (physical.charAt(0) == ' ' || physical.charAt(0) == '\t')) {
+        lineNumber++;
+        logical.append(physical, 1, physical.length());
+        physical = lines.readLine();
+      }
+      if (logical.length() == 0) {
+        continue;
+      }
+
+      try {
+        Property property = Property.parse(logical);
+        if (property.name.equals("BEGIN")) {
+          if (event != null) {
+            nested++;
+          } else if (property.value.equalsIgnoreCase("VEVENT")) {
+            event = new VEvent(calendar.getTimeZone());
+          }
+        } else if (property.name.equals("END")) {
+          if (nested > 0) {
+            nested--;
+          } else if (event != null && property.value.equalsIgnoreCase("VEVENT")) {
+            if (event.add(calendar, batch, skipExisting)) {
+              imported++;
+            }
+            event = null;
+            if (batch.size() == ImportCSV.BATCH_SIZE) {
+              imported += addBatch(batch, calendar);
+              batch.clear();
+            }
+          }
+        } else if (event != null && nested == 0) {
+          event.set(property);
+        }
+      } catch (DateTimeException | IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+                "Invalid iCalendar content at line " + logicalLine + ": " + e.getMessage(), e);
+      }
+    }
+
+    if (event != null) {
+      throw new IllegalArgumentException("Missing END:VEVENT at end of file");
+    }
+    if (!batch.isEmpty()) {
+      imported += addBatch(batch, calendar);
+    }
+    return imported;
+  }
+
+  @Override
+  public int importEvents(Path file, ICalendar calendar) throws IOException {
+    try (Reader reader = Files.newBufferedReader(file)) {
+      return importEvents(reader, calendar);
+    }
+  }
+
+  private int addBatch(List<IEvent> batch, ICalendar calendar) {
+    if (skipExisting) {
+      return calendar.addNewEvents(batch);
+    }
+    calendar.addEvents(batch);
+    return batch.size();
+  }
+
+  /**
+   * Parse a DATE or DATE-TIME value into the local time of the calendar.
+   *
+   * @param property the DTSTART, DTEND or UNTIL property.
+   * @param value    the value to parse.
+   * @param zone     the time zone of the target calendar.
+   * @return the local date time.
+   */
+  private static LocalDateTime parseDateTime(Property property, String value, ZoneId zone) {
+    if (value.length() == 8) {
+      return LocalDate.parse(value, DATE_FORMATTER).atStartOfDay();
+    }
+    boolean utc = value.endsWith("Z");
+    LocalDateTime local = LocalDateTime.parse(utc ? value.substring(0, value.length() - 1)
+            : value, ExportICS.DATE_TIME_FORMATTER);
+    String tzid = property == null ? null : property.parameter("TZID");
+    if (utc) {
+      return local.atOffset(ZoneOffset.UTC).atZoneSameInstant(zone).toLocalDateTime();
+    } else if (tzid != null) {
+      return local.atZone(ZoneId.of(tzid)).withZoneSameInstant(zone).toLocalDateTime();
+    }
+    return local;
+  }
+
+  /**
+   * Restore a TEXT value, undoing the escaping of backslashes, semicolons, commas and line
+   * breaks.
+   *
+   * @param value the escaped text.
+   * @return the text.
+   */
+  private static String unescapeText(String value) {
+    if (value.indexOf('\\') < 0) {
+      return value;
+    }
+    StringBuilder text = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' && i + 1 < value.length()) {
+        char next = value.charAt(++i);
+        text.append(next == 'n' || next == 'N' ? '\n' : next);
+      } else {
+        text.append(c);
+      }
+    }
+    return text.toString();
+  }
+
+  /**
+   * One content line split into its name, parameters and value.
+   */
+  private static class Property {
+    private final String name;
+    private final String parameters;
+    private final String value;
+
+    private Property(String name, String parameters, String value) {
+      this.name = name;
+      this.parameters = parameters;
+      this.value = value;
+    }
+
+    /**
+     * Split a content line at the first colon outside of quoted parameter values.
+     *
+     * @param line the unfolded content line.
+     * @return the property.
+     */
+    static Property parse(CharSequence line) {
+      int nameEnd = -1;
+      boolean quoted = false;
+      for (int i = 0; i < line.length(); i++) {
+        char c = line.charAt(i);
+        if (c == '"') {
+          quoted = !quoted;
+        } else if (!quoted && (c == ';' || c == ':') && nameEnd < 0) {
+          nameEnd = i;
+          if (c == ':') {
+            return new Property(line.subSequence(0, i).toString().toUpperCase(Locale.ROOT), "",
+                    line.subSequence(i + 1, line.length()).toString());
+          }
+        } else if (!quoted && c == ':') {
+          return new Property(line.subSequence(0, nameEnd).toString().toUpperCase(Locale.ROOT),
+                  line.subSequence(nameEnd + 1, i).toString(),
+                  line.subSequence(i + 1, line.length()).toString());
+        }
+      }
+      throw new IllegalArgumentException("Content line without a value: " + line);
+    }
+
+    /**
+     * Get a parameter value, without surrounding quotes.
+     *
+     * @param parameterName the parameter name.
+     * @return the value, or null if the parameter is not present.
+     */
+    String parameter(String parameterName) {
+      for (String parameter : parameters.split(";")) {
+        int equals = parameter.indexOf('=');
+        if (equals > 0 && parameter.substring(0, equals).equalsIgnoreCase(parameterName)) {
+          String result = parameter.substring(equals + 1);
+          return result.startsWith("\"") && result.endsWith("\"") && result.length() > 1
+                  ? result.substring(1, result.length() - 1) : result;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * The properties of one VEVENT collected until its END line.
+   */
+  private static class VEvent {
+    private String subject;
+    private String description;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private boolean allDay;
+    private Duration duration;
+    private String rule;
+    private final ZoneId zone;
+
+    VEvent(ZoneId zone) {
+      this.zone = zone;
+    }
+
+    void set(Property property) {
+      switch (property.name) {
+        case "SUMMARY":
+          subject = unescapeText(property.value);
+          break;
+        case "DESCRIPTION":
+          description = unescapeText(property.value);
+          break;
+        case "DTSTART":
+          start = parseDateTime(property, property.value, zone);
+          allDay = property.value.length() == 8;
+          break;
+        case "DTEND":
+          end = parseDateTime(property, property.value, zone);
+          if (property.value.length() == 8) {
+            end = end.minusDays(1).with(LocalTime.of(23, 59));
+          }
+          break;
+        case "DURATION":
+          duration = Duration.parse(property.value);
+          break;
+        case "RRULE":
+          rule = property.value;
+          break;
+        default:
+          break;
+      }
+    }
+
+    /**
+     * Add the event to the calendar, directly for series or through the batch otherwise.
+     *
+     * @return true if a series was added directly.
+     */
+    boolean add(ICalendar calendar, List<IEvent> batch, boolean skipExisting) {
+      if (start == null) {
+        throw new IllegalArgumentException("VEVENT without DTSTART");
+      }
+      String title = subject == null || subject.isEmpty() ? "(No title)" : subject;
+      LocalDateTime eventEnd = end;
+      if (eventEnd == null) {
+        eventEnd = duration != null ? start.plus(duration)
+                : allDay ? start.with(LocalTime.of(23, 59)) : start;
+      }
+
+      if (rule == null) {
+        batch.add(new OneTimeEvent(title, description, start, eventEnd));
+        return false;
+      }
+      return addSeries(calendar, title, eventEnd, skipExisting);
+    }
+
+    /**
+     * Add a series for a DAILY or WEEKLY rule with an interval of one, bounded by COUNT or UNTIL.
+     * A skipped series is one whose instances are all in the calendar already.
+     *
+     * @return true if the series was added.
+     */
+    private boolean addSeries(ICalendar calendar, String title, LocalDateTime eventEnd,
+                              boolean skipExisting) {
+      String frequency = null;
+      String byDay = null;
+      int count = 0;
+      LocalDateTime until = null;
+      for (String part : rule.split(";")) {
+        int equals = part.indexOf('=');
+        String key = equals < 0 ? part : part.substring(0, equals).toUpperCase(Locale.ROOT);
+        String value = equals < 0 ? "" : part.substring(equals + 1).toUpperCase(Locale.ROOT);
+        switch (key) {
+          case "FREQ":
+            frequency = value;
+            break;
+          case "BYDAY":
+            byDay = value;
+            break;
+          case "COUNT":
+            count = Integer.parseInt(value);
+            break;
+          case "UNTIL":
+            until = parseDateTime(null, value, zone);
+            if (value.length() == 8) {
+              until = until.with(LocalTime.of(23, 59, 59));
+            }
+            break;
+          case "INTERVAL":
+            if (!value.equals("1")) {
+              throw new IllegalArgumentException("Unsupported recurrence interval: " + rule);
+            }
+            break;
+          case "WKST":
+            break;
+          default:
+            throw new IllegalArgumentException("Unsupported recurrence rule: " + rule);
+        }
+      }
+      if (count == 0 && until == null) {
+        throw new IllegalArgumentException("Unbounded recurrence rule: " + rule);
+      }
+
+      String days;
+      if ("DAILY".equals(frequency) && byDay == null) {
+        days = DAY_CHARS;
+      } else if ("WEEKLY".equals(frequency) || "DAILY".equals(frequency)) {
+        days = toDayChars(byDay != null ? byDay
+                : DAY_CODES.get(start.getDayOfWeek().getValue() - 1));
+      } else {
+        throw new IllegalArgumentException("Unsupported recurrence frequency: " + rule);
+      }
+      if (skipExisting && isStored(calendar, title, eventEnd, until, days, count)) {
+        return false;
+      }
+      calendar.addRecurringEvents(title, description, start, eventEnd, until, days, count);
+      return true;
+    }
+
+    private boolean isStored(ICalendar calendar, String title, LocalDateTime eventEnd,
+                             LocalDateTime until, String days, int count) {
+      List<IEvent> instances = new EventUtils().generateRecurringEvents(title, description, start,
+              eventEnd, until, days, count);
+      for (IEvent instance : instances) {
+        if (!calendar.containsEvent(instance)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static String toDayChars(String byDay) {
+      StringBuilder days = new StringBuilder();
+      for (String code : byDay.split(",")) {
+        int index = DAY_CODES.indexOf(code.trim());
+        if (index < 0) {
+          throw new IllegalArgumentException("Unsupported BYDAY value: " + code);
+        }
+        days.append(DAY_CHARS.charAt(index));
+      }
+      return days.toString();
+    }
+  }
+}
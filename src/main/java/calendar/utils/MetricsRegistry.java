@@ -0,0 +1,316 @@
+package calendar.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts operations and their latencies by name, such as command types. Recording takes no lock:
+ * every timer keeps {@link LongAdder} counters and a histogram with four buckets per power of
+ * two nanoseconds, so percentiles are exact to within a quarter of their value.
+ *
+ * <p>Reading the clock twice costs about as much as one percent of a fast command, so timers
+ * count every operation but only time one in {@value Timer#SAMPLE_PERIOD}. The mean, the
+ * percentiles and the maximum are those of the timed operations.</p>
+ */
+public class MetricsRegistry {
+  private static final MetricsRegistry SHARED = new MetricsRegistry();
+
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+  /**
+   * Get the registry the controllers of the process record to.
+   *
+   * @return the shared registry.
+   */
+  public static MetricsRegistry shared() {
+    return SHARED;
+  }
+
+  /**
+   * Get the timer of a name, creating it on first use. Callers on hot paths should keep the
+   * timer rather than look it up every time.
+   *
+   * @param name the given name.
+   * @return the timer.
+   */
+  public Timer timer(String name) {
+    return timers.computeIfAbsent(name, Timer::new);
+  }
+
+  /**
+   * Get every timer that has been used, by name.
+   *
+   * @return the timers sorted by name.
+   */
+  public List<Timer> getTimers() {
+    return new ArrayList<>(new ConcurrentSkipListMap<>(timers).values());
+  }
+
+  /**
+   * Format every timer as a table with one row per name: the count, the failures, the number of
+   * timed operations, and their mean, p50, p99 and maximum latency in microseconds.
+   *
+   * @return the table, or a note that nothing has been recorded.
+   */
+  public String report() {
+    List<Timer> used = getTimers();
+    if (used.isEmpty()) {
+      return "No metrics recorded.";
+    }
+    StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+            "%-16s %10s %8s %10s %10s %10s %10s %10s", "command", "count", "errors", "timed",
+            "mean us", "p50 us", "p99 us", "max us"));
+    for (Timer timer : used) {
+      report.append(String.format(Locale.ROOT,
+              "%n%-16s %10d %8d %10d %10.1f %10.1f %10.1f %10.1f", timer.getName(),
+              timer.getCount(), timer.getErrors(), timer.getTimedCount(),
+              timer.getMeanNanos() / 1e3, timer.getPercentileNanos(0.50) / 1e3,
+              timer.getPercentileNanos(0.99) / 1e3, timer.getMaxNanos() / 1e3));
+    }
+    return report.toString();
+  }
+
+  /**
+   * Write the report to a file, replacing the previous report in one step so that readers never
+   * see a partial one.
+   *
+   * @param file the given file.
+   * @throws IOException if the report cannot be written.
+   */
+  public void writeReport(Path file) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+    try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+      writer.write(report());
+      writer.write(System.lineSeparator());
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Write the report to a file periodically on a background thread, and once more when the
+   * returned handle is closed.
+   *
+   * @param file         the given file.
+   * @param periodMillis the milliseconds between two reports.
+   * @return the handle stopping the dumps.
+   */
+  public Closeable startDump(Path file, long periodMillis) {
+    ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "metrics-dump");
+      thread.setDaemon(true);
+      return thread;
+    });
+    dumper.scheduleAtFixedRate(() -> {
+      try {
+        writeReport(file);
+      } catch (IOException e) {
+        System.err.println("Error writing metrics to " + file + ": " + e.getMessage());
+      }
+    }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    return () -> {
+      dumper.shutdownNow();
+      writeReport(file);
+    };
+  }
+
+  /**
+   * The count, failures and latency histogram of one kind of operation.
+   */
+  public static final class Timer {
+    /**
+     * One in how many operations started with {@link #start} is timed, a power of two.
+     */
+    public static final int SAMPLE_PERIOD = 8;
+    private static final long UNTIMED = Long.MIN_VALUE;
+    private static final int BUCKETS = 248;
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timed = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    // racy on purpose: a lost tick only shifts which operation is timed
+    private int ticks;
+
+    private Timer(String name) {
+      this.name = name;
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    /**
+     * Start an operation, to be passed to {@link #stop} when it is done. The first operation of
+     * every period is timed.
+     *
+     * @return the start time if the operation is timed, or a marker that it is not.
+     */
+    public long start() {
+      return (ticks++ & (SAMPLE_PERIOD - 1)) == 0 ? System.nanoTime() : UNTIMED;
+    }
+
+    /**
+     * Count an operation started with {@link #start}, and record its latency if it is timed.
+     *
+     * @param start  the value returned by {@link #start}.
+     * @param failed whether the operation failed.
+     */
+    public void stop(long start, boolean failed) {
+      if (start == UNTIMED) {
+        count(failed);
+      } else {
+        record(System.nanoTime() - start, failed);
+      }
+    }
+
+    /**
+     * Count one operation without timing it.
+     *
+     * @param failed whether the operation failed.
+     */
+    public void count(boolean failed) {
+      count.increment();
+      if (failed) {
+        errors.increment();
+      }
+    }
+
+    /**
+     * Count one operation and record its latency, measured by the caller.
+     *
+     * @param nanos  the latency in nanoseconds.
+     * @param failed whether the operation failed.
+     */
+    public void record(long nanos, boolean failed) {
+      long latency = Math.max(0, nanos);
+      count(failed);
+      timed.increment();
+      totalNanos.add(latency);
+      maxNanos.accumulate(latency);
+      buckets[bucket(latency)].increment();
+    }
+
+    /**
+     * Get the name of the operations.
+     *
+     * @return the name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Get the number of operations.
+     *
+     * @return the count.
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * Get the number of failed operations.
+     *
+     * @return the failures.
+     */
+    public long getErrors() {
+      return errors.sum();
+    }
+
+    /**
+     * Get the number of operations whose latency was recorded.
+     *
+     * @return the timed count.
+     */
+    public long getTimedCount() {
+      return timed.sum();
+    }
+
+    /**
+     * Get the mean latency of the timed operations.
+     *
+     * @return the mean in nanoseconds, 0 without timed operations.
+     */
+    public double getMeanNanos() {
+      long operations = timed.sum();
+      return operations == 0 ? 0 : (double) totalNanos.sum() / operations;
+    }
+
+    /**
+     * Get the highest latency.
+     *
+     * @return the maximum in nanoseconds.
+     */
+    public long getMaxNanos() {
+      return maxNanos.get();
+    }
+
+    /**
+     * Get a latency percentile, as the upper bound of the histogram bucket it falls in.
+     *
+     * @param fraction the percentile as a fraction, such as 0.99.
+     * @return the latency in nanoseconds, 0 without timed operations.
+     */
+    public long getPercentileNanos(double fraction) {
+      long[] counts = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] = buckets[i].sum();
+        total += counts[i];
+      }
+      if (total == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(fraction * total));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(upperBound(i), getMaxNanos());
+        }
+      }
+      return getMaxNanos();
+    }
+
+    /**
+     * Find the bucket of a latency: exact below 4 ns, then four buckets per power of two.
+     */
+    private static int bucket(long nanos) {
+      if (nanos < 4) {
+        return (int) nanos;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+      int quarter = (int) (nanos >>> (exponent - 2)) & 3;
+      return ((exponent - 1) << 2) | quarter;
+    }
+
+    private static long upperBound(int bucket) {
+      if (bucket < 4) {
+        return bucket;
+      }
+      int exponent = (bucket >> 2) + 1;
+      long lower = (long) (4 + (bucket & 3)) << (exponent - 2);
+      return lower + (1L << (exponent - 2)) - 1;
+    }
+  }
+}
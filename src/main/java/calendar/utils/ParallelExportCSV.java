@@ -0,0 +1,134 @@
+package calendar.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import calendar.manager.IEventManager;
+import calendar.model.IEvent;
+import calendar.utils.jfr.CsvChunkEvent;
+import calendar.utils.jfr.FlightEvents;
+
+/**
+ * Exports the calendar into CSV format, formatting chunks of the date-ordered events on a
+ * fork-join pool while earlier chunks are being written. Finished chunks are written in order
+ * with gathering writes, so the output is byte for byte the same as the sequential
+ * {@link ExportCSV}.
+ */
+public class ParallelExportCSV extends ExportCSV {
+  static final int CHUNK_SIZE = 4096;
+  private final ForkJoinPool pool;
+
+  /**
+   * Construct a parallel exporter using the common fork-join pool.
+   */
+  public ParallelExportCSV() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Construct a parallel exporter formatting on the given pool.
+   *
+   * @param pool the pool formatting the chunks.
+   */
+  public ParallelExportCSV(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Export through gathering writes when the channel supports them, for example a file channel,
+   * and fall back to the sequential export otherwise.
+   *
+   * @param eventManager the calendar to export.
+   * @param from         the earliest start time, or null for no lower bound.
+   * @param to           the latest start time, or null for no upper bound.
+   * @param channel      the channel receiving the formatted calendar.
+   * @throws IOException if the channel fails.
+   */
+  @Override
+  public void export(IEventManager eventManager, LocalDateTime from, LocalDateTime to,
+                     WritableByteChannel channel) throws IOException {
+    if (!(channel instanceof GatheringByteChannel)) {
+      super.export(eventManager, from, to, channel);
+      return;
+    }
+    GatheringByteChannel out = (GatheringByteChannel) channel;
+    List<IEvent> events = new ArrayList<>();
+    eventManager.eventIterator(from, to).forEachRemaining(events::add);
+    writeFully(out, new ByteBuffer[]{ByteBuffer.wrap(HEADER.getBytes(StandardCharsets.UTF_8))});
+
+    int window = Math.max(1, pool.getParallelism() * 2);
+    Deque<ForkJoinTask<ByteBuffer>> inFlight = new ArrayDeque<>(window);
+    List<ByteBuffer> ready = new ArrayList<>(window);
+    int next = 0;
+    while (next < events.size() || !inFlight.isEmpty()) {
+      while (inFlight.size() < window && next < events.size()) {
+        int chunkTo = Math.min(events.size(), next + CHUNK_SIZE);
+        inFlight.add(pool.submit(new FormatChunk(events.subList(next, chunkTo))));
+        next = chunkTo;
+      }
+
+      ready.clear();
+      ready.add(inFlight.poll().join());
+      while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+        ready.add(inFlight.poll().join());
+      }
+      writeFully(out, ready.toArray(new ByteBuffer[0]));
+    }
+  }
+
+  private static void writeFully(GatheringByteChannel channel, ByteBuffer[] buffers)
+          throws IOException {
+    long remaining = 0;
+    for (ByteBuffer buffer : buffers) {
+      remaining += buffer.remaining();
+    }
+    while (remaining > 0) {
+      remaining -= channel.write(buffers);
+    }
+  }
+
+  /**
+   * Formats one chunk of events and encodes it as UTF-8.
+   */
+  private class FormatChunk extends RecursiveTask<ByteBuffer> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<IEvent> chunk;
+
+    FormatChunk(List<IEvent> chunk) {
+      this.chunk = chunk;
+    }
+
+    @Override
+    protected ByteBuffer compute() {
+      CsvChunkEvent chunkEvent = FlightEvents.isEnabled() ? new CsvChunkEvent() : null;
+      StringBuilder records = new StringBuilder(chunk.size() * 64);
+      for (IEvent event : chunk) {
+        appendRecord(event, records);
+      }
+      ByteBuffer encoded;
+      try {
+        encoded = StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(records));
+      } catch (CharacterCodingException e) {
+        throw new IllegalArgumentException("Cannot encode calendar as UTF-8", e);
+      }
+      if (chunkEvent != null) {
+        chunkEvent.commit("export", chunk.size(), encoded.remaining());
+      }
+      return encoded;
+    }
+  }
+}
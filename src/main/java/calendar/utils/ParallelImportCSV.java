@@ -0,0 +1,257 @@
+package calendar.utils;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+import calendar.utils.jfr.CsvChunkEvent;
+import calendar.utils.jfr.FlightEvents;
+
+/**
+ * Imports a CSV file by splitting it into byte ranges that end on record boundaries, parsing the
+ * ranges on a fork-join pool into primitive row buffers and adding all rows to the calendar with
+ * one bulk insert. Boundaries are found with a single quote-aware scan, which also counts the
+ * lines before every range, so errors report the same line numbers as {@link ImportCSV}.
+ */
+public class ParallelImportCSV extends ImportCSV {
+  static final int MIN_CHUNK_BYTES = 1 << 20;
+  private final ForkJoinPool pool;
+  private final int chunkBytes;
+
+  /**
+   * Construct a parallel importer using the common fork-join pool.
+   */
+  public ParallelImportCSV() {
+    this(ForkJoinPool.commonPool(), 0);
+  }
+
+  /**
+   * Construct a parallel importer parsing on the given pool.
+   *
+   * @param pool       the pool parsing the chunks.
+   * @param chunkBytes the target chunk size in bytes, or 0 to derive it from the file size.
+   */
+  public ParallelImportCSV(ForkJoinPool pool, int chunkBytes) {
+    this(pool, chunkBytes, false);
+  }
+
+  /**
+   * Construct a parallel importer parsing on the given pool.
+   *
+   * @param pool         the pool parsing the chunks.
+   * @param chunkBytes   the target chunk size in bytes, or 0 to derive it from the file size.
+   * @param skipExisting whether rows equal to an event already in the calendar are skipped.
+   */
+  public ParallelImportCSV(ForkJoinPool pool, int chunkBytes, boolean skipExisting) {
+    super(skipExisting);
+    this.pool = pool;
+    this.chunkBytes = chunkBytes;
+  }
+
+  /**
+   * Import the file in parallel. Files too large to map at once fall back to the sequential
+   * import.
+   *
+   * @param file     the CSV file.
+   * @param calendar the calendar receiving the events.
+   * @return the number of imported events.
+   * @throws IOException if the file cannot be read.
+   */
+  @Override
+  public int importEvents(Path file, ICalendar calendar) throws IOException {
+    MappedByteBuffer bytes;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        return super.importEvents(file, calendar);
+      }
+      bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    List<Chunk> chunks = split(bytes);
+    if (chunks.isEmpty()) {
+      return 0;
+    }
+    Chunk header = chunks.remove(0);
+    CsvReader headerReader = header.open(bytes);
+    headerReader.next();
+    int[] columns = mapColumns(headerReader);
+
+    List<ForkJoinTask<ParsedChunk>> tasks = new ArrayList<>(chunks.size());
+    for (Chunk chunk : chunks) {
+      tasks.add(pool.submit(new ParseChunk(bytes, chunk, columns)));
+    }
+
+    List<ParsedChunk> parsed = new ArrayList<>(tasks.size());
+    int rowCount = 0;
+    for (int i = 0; i < tasks.size(); i++) {
+      ParsedChunk result = tasks.get(i).join();
+      if (result.error != null) {
+        for (int j = i + 1; j < tasks.size(); j++) {
+          tasks.get(j).cancel(false);
+        }
+        throw result.error;
+      }
+      parsed.add(result);
+      rowCount += result.rows.size();
+    }
+
+    List<IEvent> events = new ArrayList<>(rowCount);
+    for (ParsedChunk result : parsed) {
+      result.rows.appendEvents(events);
+    }
+    return addBatch(events, calendar);
+  }
+
+  /**
+   * Split the file into the header record followed by chunks of whole records, scanning every
+   * byte once to track quoted fields the way {@link CsvReader} does and count line breaks.
+   *
+   * @param bytes the mapped file.
+   * @return the header chunk followed by the data chunks, empty for an empty file.
+   */
+  private List<Chunk> split(ByteBuffer bytes) {
+    int size = bytes.limit();
+    List<Chunk> chunks = new ArrayList<>();
+    if (size == 0) {
+      return chunks;
+    }
+    int target = chunkBytes > 0 ? chunkBytes
+            : Math.max(MIN_CHUNK_BYTES, size / Math.max(1, pool.getParallelism() * 4));
+
+    // the states of CsvReader: a quote only opens a field at its start
+    int state = CsvReader.FIELD_START;
+    long line = 1;
+    int chunkStart = 0;
+    long chunkLine = 1;
+    int nextCut = 0;
+    for (int i = 0; i < size; i++) {
+      byte b = bytes.get(i);
+      boolean lineBreak = b == '\n' || (b == '\r' && (i + 1 == size || bytes.get(i + 1) != '\n'));
+      if (state == CsvReader.QUOTED) {
+        if (b == '"') {
+          state = CsvReader.QUOTE_IN_QUOTED;
+        } else if (lineBreak) {
+          line++;
+        }
+        continue;
+      }
+      if (b == '"' && state != CsvReader.UNQUOTED) {
+        state = CsvReader.QUOTED;
+        continue;
+      }
+      state = b == ',' ? CsvReader.FIELD_START : CsvReader.UNQUOTED;
+      if (!lineBreak) {
+        continue;
+      }
+      state = CsvReader.FIELD_START;
+      line++;
+      if (i + 1 >= nextCut) {
+        chunks.add(new Chunk(chunkStart, i + 1, chunkLine));
+        chunkStart = i + 1;
+        chunkLine = line;
+        nextCut = chunkStart + target;
+      }
+    }
+    if (chunkStart < size) {
+      chunks.add(new Chunk(chunkStart, size, chunkLine));
+    }
+    return chunks;
+  }
+
+  /**
+   * A byte range of the file holding whole records.
+   */
+  private static class Chunk {
+    private final int from;
+    private final int to;
+    private final long firstLine;
+
+    Chunk(int from, int to, long firstLine) {
+      this.from = from;
+      this.to = to;
+      this.firstLine = firstLine;
+    }
+
+    CsvReader open(ByteBuffer bytes) {
+      ByteBuffer slice = bytes.duplicate();
+      slice.position(from).limit(to);
+      CharBuffer chars;
+      try {
+        chars = StandardCharsets.UTF_8.newDecoder().decode(slice);
+      } catch (CharacterCodingException e) {
+        throw new IllegalArgumentException(
+                "Invalid UTF-8 in CSV record starting at line " + firstLine, e);
+      }
+      return new CsvReader(new CharArrayReader(chars.array(),
+              chars.arrayOffset() + chars.position(), chars.remaining()), firstLine);
+    }
+  }
+
+  /**
+   * The rows parsed from one chunk, or the first error found in it.
+   */
+  private static class ParsedChunk {
+    private final EventRowBuffer rows;
+    private final IllegalArgumentException error;
+
+    ParsedChunk(EventRowBuffer rows, IllegalArgumentException error) {
+      this.rows = rows;
+      this.error = error;
+    }
+  }
+
+  /**
+   * Parses the records of one chunk. Errors are returned instead of thrown, so the first one in
+   * file order can be reported unchanged.
+   */
+  private static class ParseChunk extends RecursiveTask<ParsedChunk> {
+    private static final long serialVersionUID = 1L;
+
+    private final ByteBuffer bytes;
+    private final Chunk chunk;
+    private final int[] columns;
+
+    ParseChunk(ByteBuffer bytes, Chunk chunk, int[] columns) {
+      this.bytes = bytes;
+      this.chunk = chunk;
+      this.columns = columns;
+    }
+
+    @Override
+    protected ParsedChunk compute() {
+      CsvChunkEvent event = FlightEvents.isEnabled() ? new CsvChunkEvent() : null;
+      EventRowBuffer rows = new EventRowBuffer((chunk.to - chunk.from) / 64);
+      try {
+        CsvReader csv = chunk.open(bytes);
+        while (csv.next()) {
+          if (!csv.isBlank()) {
+            parseRecord(csv, columns, rows);
+          }
+        }
+        return new ParsedChunk(rows, null);
+      } catch (IllegalArgumentException e) {
+        return new ParsedChunk(rows, e);
+      } catch (IOException e) {
+        return new ParsedChunk(rows, new IllegalArgumentException(e.getMessage(), e));
+      } finally {
+        if (event != null) {
+          event.commit("import", rows.size(), chunk.to - chunk.from);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package calendar.utils.jfr;
+
+import calendar.manager.ICalendarManager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning the execution of one compiled command, so that the samples and
+ * the other calendar events of its thread can be tied to the command.
+ */
+@Name("calendar.CommandExecution")
+@Label("Command Execution")
+@Category("Calendar")
+@Description("Execution of one calendar command")
+public class CommandExecutionEvent extends Event {
+  @Label("Command")
+  private String command;
+
+  @Label("Calendar")
+  @Description("The active calendar when the command finished")
+  private String calendar;
+
+  @Label("Failed")
+  private boolean failed;
+
+  /**
+   * Construct the event and begin its duration. Create events only if
+   * {@link FlightEvents#isEnabled}.
+   */
+  public CommandExecutionEvent() {
+    begin();
+  }
+
+  /**
+   * End the execution and commit it if it is recorded. The fields are only filled in then, so
+   * nothing is looked up or formatted while recording is off.
+   *
+   * @param command         the given command type, recorded by its string form.
+   * @param calendarManager the calendars the command ran against.
+   * @param failed          whether the command failed.
+   */
+  public void commit(Object command, ICalendarManager calendarManager, boolean failed) {
+    end();
+    if (shouldCommit()) {
+      this.command = command.toString();
+      this.calendar = calendarManager.getActiveCalendarName();
+      this.failed = failed;
+      commit();
+    }
+  }
+}
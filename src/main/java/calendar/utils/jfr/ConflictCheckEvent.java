@@ -0,0 +1,52 @@
+package calendar.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning the conflict check of events about to be added to a calendar.
+ */
+@Name("calendar.ConflictCheck")
+@Label("Conflict Check")
+@Category("Calendar")
+@Description("Check of new events against the events of their days")
+public class ConflictCheckEvent extends Event {
+  @Label("Events")
+  @Description("The number of new events, counting every day of an event")
+  private int events;
+
+  @Label("Days")
+  @Description("The number of days looked up")
+  private int days;
+
+  @Label("Conflict")
+  private boolean conflict;
+
+  /**
+   * Construct the event and begin its duration. Create events only if
+   * {@link FlightEvents#isEnabled}.
+   */
+  public ConflictCheckEvent() {
+    begin();
+  }
+
+  /**
+   * End the check and commit it if it is recorded.
+   *
+   * @param events   the number of checked events.
+   * @param days     the number of checked days.
+   * @param conflict whether a conflict was found.
+   */
+  public void commit(int events, int days, boolean conflict) {
+    end();
+    if (shouldCommit()) {
+      this.events = events;
+      this.days = days;
+      this.conflict = conflict;
+      commit();
+    }
+  }
+}
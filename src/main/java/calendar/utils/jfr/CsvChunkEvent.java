@@ -0,0 +1,53 @@
+package calendar.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning the parsing or formatting of one chunk of a parallel CSV
+ * import or export.
+ */
+@Name("calendar.CsvChunk")
+@Label("CSV Chunk")
+@Category("Calendar")
+@Description("Parsing or formatting of one chunk of a parallel CSV import or export")
+public class CsvChunkEvent extends Event {
+  @Label("Operation")
+  private String operation;
+
+  @Label("Events")
+  private int events;
+
+  @Label("Size")
+  @DataAmount
+  private long bytes;
+
+  /**
+   * Construct the event and begin its duration. Create events only if
+   * {@link FlightEvents#isEnabled}.
+   */
+  public CsvChunkEvent() {
+    begin();
+  }
+
+  /**
+   * End the chunk and commit it if it is recorded.
+   *
+   * @param operation "import" or "export".
+   * @param events    the number of parsed or formatted events.
+   * @param bytes     the size of the chunk in bytes.
+   */
+  public void commit(String operation, int events, long bytes) {
+    end();
+    if (shouldCommit()) {
+      this.operation = operation;
+      this.events = events;
+      this.bytes = bytes;
+      commit();
+    }
+  }
+}
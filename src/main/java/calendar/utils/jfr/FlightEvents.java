@@ -0,0 +1,24 @@
+package calendar.utils.jfr;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Guards the creation of the calendar flight recorder events. The first event class loaded
+ * registers itself with the flight recorder, which sets up the recorder metadata and takes a few
+ * hundred milliseconds even when nothing is ever recorded. Events are therefore only created
+ * once the recorder has been initialized, by a recording started on the command line or later
+ * with jcmd; until then the guard is a single field read.
+ */
+public final class FlightEvents {
+  private FlightEvents() {
+  }
+
+  /**
+   * Check if the flight recorder is initialized, so that events can be created and recorded.
+   *
+   * @return true if events should be created.
+   */
+  public static boolean isEnabled() {
+    return FlightRecorder.isInitialized();
+  }
+}
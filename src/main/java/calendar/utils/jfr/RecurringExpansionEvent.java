@@ -0,0 +1,56 @@
+package calendar.utils.jfr;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning the expansion of a recurring series into its occurrences.
+ */
+@Name("calendar.RecurringExpansion")
+@Label("Recurring Expansion")
+@Category("Calendar")
+@Description("Expansion of a recurring series into its occurrences")
+public class RecurringExpansionEvent extends Event {
+  @Label("Recurring Days")
+  private String recurringDays;
+
+  @Label("Occurrences")
+  private int occurrences;
+
+  @Label("Window Days")
+  @Description("The days from the start of the series to its last occurrence")
+  private long windowDays;
+
+  /**
+   * Construct the event and begin its duration. Create events only if
+   * {@link FlightEvents#isEnabled}.
+   */
+  public RecurringExpansionEvent() {
+    begin();
+  }
+
+  /**
+   * End the expansion and commit it if it is recorded.
+   *
+   * @param recurringDays the weekdays of the series.
+   * @param occurrences   the number of generated occurrences.
+   * @param first         the start of the series.
+   * @param last          the start of the last occurrence, or null without occurrences.
+   */
+  public void commit(String recurringDays, int occurrences, LocalDateTime first,
+                     LocalDateTime last) {
+    end();
+    if (shouldCommit()) {
+      this.recurringDays = recurringDays;
+      this.occurrences = occurrences;
+      this.windowDays = last == null ? 0 : Duration.between(first, last).toDays();
+      commit();
+    }
+  }
+}
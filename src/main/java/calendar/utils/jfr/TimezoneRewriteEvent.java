@@ -0,0 +1,57 @@
+package calendar.utils.jfr;
+
+import java.time.ZoneId;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning the conversion of every event of a calendar to a new time zone.
+ */
+@Name("calendar.TimezoneRewrite")
+@Label("Timezone Rewrite")
+@Category("Calendar")
+@Description("Conversion of every event of a calendar to a new time zone")
+public class TimezoneRewriteEvent extends Event {
+  @Label("Calendar")
+  private String calendar;
+
+  @Label("From Zone")
+  private String fromZone;
+
+  @Label("To Zone")
+  private String toZone;
+
+  @Label("Events")
+  private int events;
+
+  /**
+   * Construct the event and begin its duration. Create events only if
+   * {@link FlightEvents#isEnabled}.
+   */
+  public TimezoneRewriteEvent() {
+    begin();
+  }
+
+  /**
+   * End the rewrite and commit it if it is recorded.
+   *
+   * @param calendar the name of the calendar.
+   * @param fromZone the previous time zone.
+   * @param toZone   the new time zone.
+   * @param events   the number of converted events.
+   */
+  public void commit(String calendar, ZoneId fromZone, ZoneId toZone, int events) {
+    end();
+    if (shouldCommit()) {
+      this.calendar = calendar;
+      this.fromZone = fromZone.toString();
+      this.toZone = toZone.toString();
+      this.events = events;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,256 @@
+package calendar.view;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import calendar.model.EventPrinter;
+import calendar.model.IEvent;
+import calendar.model.TextEventPrinter;
+import calendar.utils.MetricsRegistry;
+
+/**
+ * Where command output goes: the echo of executed commands, status messages, errors and query
+ * results. Output is either the human readable text of the interactive interface or JSON lines,
+ * one record per echoed command, message, error, event or status. A quiet output leaves out the
+ * echo of executed commands and the notes about the run itself.
+ *
+ * <p>The default output prints text to the standard output current at the time of each print.
+ * Outputs opened with {@link #open} buffer everything until they are flushed.</p>
+ */
+public class CommandOutput implements EventPrinter, Flushable {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The layouts of command output.
+   */
+  public enum Format {
+    TEXT, JSON
+  }
+
+  private final PrintStream out;
+  private final Format format;
+  private final boolean quiet;
+  private final TextEventPrinter text;
+
+  /**
+   * Construct the default output, text on the current standard output.
+   */
+  public CommandOutput() {
+    this(null, Format.TEXT, false);
+  }
+
+  /**
+   * Construct an output writing to a stream.
+   *
+   * @param out    the given stream, or null for the current standard output.
+   * @param format the layout of the output.
+   * @param quiet  whether the echo of executed commands is left out.
+   */
+  public CommandOutput(PrintStream out, Format format, boolean quiet) {
+    this.out = out;
+    this.format = format;
+    this.quiet = quiet;
+    this.text = new TextEventPrinter(out);
+  }
+
+  /**
+   * Open a buffered output on a file or on the process standard output.
+   *
+   * @param fileName the file to write, or null for the standard output.
+   * @param format   the layout of the output.
+   * @param quiet    whether the echo of executed commands is left out.
+   * @return the output, to be flushed when the commands are done.
+   * @throws IOException if the file cannot be opened.
+   */
+  public static CommandOutput open(String fileName, Format format, boolean quiet)
+          throws IOException {
+    OutputStream target = fileName != null ? new FileOutputStream(fileName)
+            : new FileOutputStream(FileDescriptor.out);
+    try {
+      return new CommandOutput(new PrintStream(new BufferedOutputStream(target, BUFFER_SIZE),
+              false, StandardCharsets.UTF_8.name()), format, quiet);
+    } catch (UnsupportedEncodingException e) {
+      target.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get an output with the same layout writing to another stream, for example to collect the
+   * output of a command executed on another thread.
+   *
+   * @param out the given stream.
+   * @return the redirected output.
+   */
+  public CommandOutput redirect(PrintStream out) {
+    return new CommandOutput(out, format, quiet);
+  }
+
+  /**
+   * Print output collected from a redirected output as it is.
+   *
+   * @param collected the collected output.
+   */
+  public void print(String collected) {
+    out().print(collected);
+  }
+
+  /**
+   * Echo a command about to be executed.
+   *
+   * @param command the given command.
+   */
+  public void echo(String command) {
+    if (quiet) {
+      return;
+    }
+    if (format == Format.JSON) {
+      out().println(record("command").field("text", command).end());
+    } else {
+      out().println("Command: " + command);
+    }
+  }
+
+  /**
+   * Print a status message.
+   *
+   * @param message the given message.
+   */
+  public void message(String message) {
+    if (format == Format.JSON) {
+      out().println(record("message").field("text", message).end());
+    } else {
+      out().println(message);
+    }
+  }
+
+  /**
+   * Print a message about the run itself rather than about a command, such as the summary of a
+   * recovery. A quiet output leaves it out.
+   *
+   * @param message the given message.
+   */
+  public void note(String message) {
+    if (!quiet) {
+      message(message);
+    }
+  }
+
+  /**
+   * Report a journaled command that could not be replayed.
+   *
+   * @param command the command of the journal entry.
+   * @param reason  why it failed.
+   */
+  public void replayError(String command, String reason) {
+    if (format == Format.JSON) {
+      out().println(record("error").field("command", command).field("reason", reason).end());
+    } else {
+      out().println("Warning: journal entry could not be replayed: " + command);
+      out().println("Reason: " + reason);
+    }
+  }
+
+  /**
+   * Report a script line that could not be executed.
+   *
+   * @param lineNumber the number of the line in the script.
+   * @param command    the command on the line.
+   * @param reason     why it failed.
+   */
+  public void error(int lineNumber, String command, String reason) {
+    if (format == Format.JSON) {
+      out().println(record("error").field("line", lineNumber).field("command", command)
+              .field("reason", reason).end());
+    } else {
+      out().println("Error at line " + lineNumber + ": " + command);
+      out().println("Reason: " + reason);
+    }
+  }
+
+  /**
+   * Print the watermark of an export of changes, to be passed to the next export.
+   *
+   * @param watermark the given watermark.
+   */
+  public void watermark(long watermark) {
+    if (format == Format.JSON) {
+      out().println(record("watermark").field("value", watermark).end());
+    } else {
+      out().println("Watermark: " + watermark);
+    }
+  }
+
+  /**
+   * Print the command counts and sampled latencies of a metrics registry, as a table or as one
+   * record per command with latencies in nanoseconds.
+   *
+   * @param metrics the given registry.
+   */
+  public void metrics(MetricsRegistry metrics) {
+    if (format == Format.JSON) {
+      for (MetricsRegistry.Timer timer : metrics.getTimers()) {
+        out().println(record("metric").field("name", timer.getName())
+                .field("count", timer.getCount()).field("errors", timer.getErrors())
+                .field("timed", timer.getTimedCount())
+                .field("meanNanos", Math.round(timer.getMeanNanos()))
+                .field("p50Nanos", timer.getPercentileNanos(0.50))
+                .field("p99Nanos", timer.getPercentileNanos(0.99))
+                .field("maxNanos", timer.getMaxNanos()).end());
+      }
+    } else {
+      out().println(metrics.report());
+    }
+  }
+
+  @Override
+  public void printDay(LocalDate date) {
+    if (format == Format.TEXT) {
+      text.printDay(date);
+    }
+  }
+
+  @Override
+  public void printEvent(IEvent event) {
+    if (format == Format.JSON) {
+      out().println(record("event").field("subject", event.getSubject())
+              .field("description", event.getDescription())
+              .field("start", event.getStartTime().toString())
+              .field("end", event.getEndTime().toString()).end());
+    } else {
+      text.printEvent(event);
+    }
+  }
+
+  @Override
+  public void printStatus(LocalDateTime dateTime, boolean busy) {
+    if (format == Format.JSON) {
+      out().println(record("status").field("time", dateTime.toString())
+              .field("busy", busy).end());
+    } else {
+      text.printStatus(dateTime, busy);
+    }
+  }
+
+  @Override
+  public void flush() {
+    out().flush();
+  }
+
+  private PrintStream out() {
+    return out != null ? out : System.out;
+  }
+
+  private static JsonRecord record(String type) {
+    return new JsonRecord().field("type", type);
+  }
+}
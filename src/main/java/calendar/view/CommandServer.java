@@ -0,0 +1,228 @@
+package calendar.view;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import calendar.controller.Command;
+import calendar.controller.CommandController;
+import calendar.controller.CommandType;
+import calendar.manager.ICalendarManager;
+import calendar.manager.SessionCalendarManager;
+import calendar.persistence.CommandRecorder;
+
+/**
+ * Serves the command language over TCP on the loopback interface, so that several clients share
+ * one set of calendars. Every connection is a session with its own thread, its own controller
+ * and its own active calendar, on top of one shared calendar manager.
+ *
+ * <p>Clients send one command per line. The server answers with the output of the command,
+ * without the command echo, followed by a status line: {@code OK}, or {@code ERROR: } and the
+ * reason. {@code exit} is answered with {@code BYE} and closes the session.</p>
+ *
+ * <p>Commands are compiled outside of any lock. Commands that create or edit calendars, copy
+ * events between calendars or commit a batch run alone. Every other command only touches the
+ * active calendar of its session and locks just that calendar, so sessions working on different
+ * calendars run at the same time.</p>
+ */
+public class CommandServer implements Closeable {
+  private static final int BACKLOG = 1024;
+
+  private final ICalendarManager calendarManager;
+  private final ServerSocket serverSocket;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Set<Socket> sessions = ConcurrentHashMap.newKeySet();
+  private final ExecutorService sessionThreads;
+  private final AtomicInteger sessionIds = new AtomicInteger();
+  private volatile CommandRecorder recorder;
+
+  /**
+   * Construct a server bound to a loopback port.
+   *
+   * @param calendarManager the calendars shared by all sessions.
+   * @param port            the port to listen on, or 0 for any free port.
+   * @throws IOException if the port cannot be bound.
+   */
+  public CommandServer(ICalendarManager calendarManager, int port) throws IOException {
+    this.calendarManager = calendarManager;
+    this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+    AtomicInteger sessionCount = new AtomicInteger();
+    this.sessionThreads = Executors.newCachedThreadPool(task -> {
+      Thread thread = new Thread(task, "calendar-session-" + sessionCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Get the port the server listens on.
+   *
+   * @return the bound port.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Record the commands of the sessions opened from now on, each session under its own number.
+   *
+   * @param recorder the recorder to log to, or null to stop recording new sessions.
+   */
+  public void setRecorder(CommandRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  /**
+   * Accept sessions until the server is closed.
+   *
+   * @throws IOException if accepting fails for another reason than the server being closed.
+   */
+  public void serve() throws IOException {
+    while (!serverSocket.isClosed()) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (SocketException e) {
+        if (serverSocket.isClosed()) {
+          return;
+        }
+        throw e;
+      }
+      socket.setTcpNoDelay(true);
+      sessions.add(socket);
+      sessionThreads.execute(() -> serveSession(socket));
+    }
+  }
+
+  /**
+   * Stop accepting sessions and close the open ones.
+   *
+   * @throws IOException if the server socket cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket socket : sessions) {
+      socket.close();
+    }
+    sessionThreads.shutdownNow();
+  }
+
+  /**
+   * Run the commands of one session until the client sends exit or disconnects.
+   *
+   * @param socket the connection of the session.
+   */
+  private void serveSession(Socket socket) {
+    try (Socket connection = socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(
+                 connection.getInputStream(), StandardCharsets.UTF_8));
+         PrintStream out = new PrintStream(new BufferedOutputStream(
+                 connection.getOutputStream()), false, StandardCharsets.UTF_8.name())) {
+      SessionCalendarManager session = new SessionCalendarManager(calendarManager);
+      CommandController controller = new CommandController(session, null);
+      controller.setOutput(new CommandOutput(out, CommandOutput.Format.TEXT, true));
+      controller.setRecorder(recorder, sessionIds.incrementAndGet());
+      String line;
+      while ((line = in.readLine()) != null) {
+        String input = line.trim();
+        if (input.equalsIgnoreCase("exit")) {
+          out.println("BYE");
+          out.flush();
+          return;
+        }
+        try {
+          if (!input.isEmpty()) {
+            execute(controller, session, input);
+          }
+          out.println("OK");
+        } catch (RuntimeException e) {
+          out.println("ERROR: " + e.getMessage());
+        }
+        out.flush();
+      }
+    } catch (IOException e) {
+      // the client disconnected or the server was closed
+    } finally {
+      sessions.remove(socket);
+    }
+  }
+
+  /**
+   * Execute a command of a session under the locks its kind of command needs.
+   *
+   * @param controller the controller of the session.
+   * @param session    the calendars as seen by the session.
+   * @param input      the command line.
+   */
+  private void execute(CommandController controller, SessionCalendarManager session,
+                       String input) {
+    Command command;
+    try {
+      command = controller.compile(input);
+    } catch (IllegalArgumentException e) {
+      controller.record(input);
+      throw e;
+    }
+    CommandType type = command.getType();
+    if (spansCalendars(type)) {
+      Lock commandLock = lock.writeLock();
+      commandLock.lock();
+      try {
+        controller.execute(command, input);
+      } finally {
+        commandLock.unlock();
+      }
+      return;
+    }
+    Lock commandLock = lock.readLock();
+    commandLock.lock();
+    try {
+      if (type == CommandType.USE_CALENDAR || type == CommandType.BEGIN_BATCH
+              || type == CommandType.ROLLBACK || type == CommandType.SHOW_METRICS) {
+        controller.execute(command, input);
+      } else {
+        synchronized (session.getActiveCalendar()) {
+          controller.execute(command, input);
+        }
+      }
+    } finally {
+      commandLock.unlock();
+    }
+  }
+
+  /**
+   * Check if a command changes the set of calendars or more than the active calendar.
+   *
+   * @param type the command type.
+   * @return true if the command has to run alone.
+   */
+  private static boolean spansCalendars(CommandType type) {
+    switch (type) {
+      case CREATE_CALENDAR:
+      case EDIT_CALENDAR:
+      case COPY_EVENT:
+      case COPY_EVENTS:
+      case COMMIT:
+        return true;
+      default:
+        return false;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package calendar.view;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import calendar.controller.Command;
+import calendar.controller.CommandController;
+
+/**
+ * Runs a command script in two stages: a parser thread reads and compiles the lines into command
+ * objects, and the calling thread executes them in order. A bounded queue between the stages
+ * lets parsing run ahead of execution without holding the whole script in memory.
+ *
+ * <p>Output and error handling are those of a serial run: every line is echoed when it is
+ * executed, and the first line that fails to compile or to execute is reported with its line
+ * number and stops the script, so nothing after it takes effect. All output goes to the
+ * controller's {@link CommandOutput} from the executing thread, and is flushed when the script
+ * ends.</p>
+ */
+public class HeadlessPipeline {
+  /**
+   * The default number of compiled lines the parser may run ahead of execution.
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private final CommandController commandController;
+  private final int capacity;
+
+  /**
+   * Construct a pipeline executing through a controller.
+   *
+   * @param commandController the controller compiling and executing the commands.
+   * @param capacity          the number of compiled lines the parser may run ahead.
+   */
+  public HeadlessPipeline(CommandController commandController, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.commandController = commandController;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Run a script until its exit command, its first error or its end, and close the reader.
+   *
+   * @param script the script to run.
+   */
+  public void run(BufferedReader script) {
+    BlockingQueue<Line> queue = new ArrayBlockingQueue<>(capacity);
+    Thread parser = new Thread(() -> parse(script, queue), "headless-parser");
+    parser.setDaemon(true);
+    parser.start();
+    try {
+      execute(queue);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      commandController.getOutput().flush();
+      parser.interrupt();
+      try {
+        parser.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * The parser stage. Stops after the exit command, the first line that does not compile, the
+   * end of the script, or when the executor interrupts it.
+   *
+   * @param script the script to read.
+   * @param queue  the queue to hand the lines to the executor.
+   */
+  private void parse(BufferedReader script, BlockingQueue<Line> queue) {
+    try (BufferedReader reader = script) {
+      int lineNumber = 0;
+      String text;
+      while ((text = reader.readLine()) != null) {
+        lineNumber++;
+        String command = text.trim();
+        Line line;
+        if (command.isEmpty()) {
+          line = new Line(lineNumber, command, Kind.EMPTY, null, null);
+        } else if (command.equalsIgnoreCase("exit")) {
+          queue.put(new Line(lineNumber, command, Kind.EXIT, null, null));
+          return;
+        } else {
+          try {
+            line = new Line(lineNumber, command, Kind.COMMAND,
+                    commandController.compile(command), null);
+          } catch (RuntimeException e) {
+            queue.put(new Line(lineNumber, command, Kind.ERROR, null, e));
+            return;
+          }
+        }
+        queue.put(line);
+      }
+      queue.put(new Line(lineNumber, null, Kind.END, null, null));
+    } catch (IOException e) {
+      putQuietly(queue, new Line(0, null, Kind.END, null, null));
+    } catch (InterruptedException e) {
+      // the executor stopped early and no longer takes lines
+    }
+  }
+
+  /**
+   * The executor stage.
+   *
+   * @param queue the queue the parser hands the lines over.
+   * @throws InterruptedException if the calling thread is interrupted while waiting.
+   */
+  private void execute(BlockingQueue<Line> queue) throws InterruptedException {
+    CommandOutput output = commandController.getOutput();
+    while (true) {
+      Line line = queue.take();
+      if (line.kind == Kind.END) {
+        output.message("Error: Missing exit command at end of file.");
+        return;
+      }
+      output.echo(line.text);
+      switch (line.kind) {
+        case EMPTY:
+          break;
+        case EXIT:
+          output.message("Exit command found. Terminating headless mode.");
+          return;
+        case ERROR:
+          commandController.record(line.text);
+          output.error(line.number, line.text, line.error.getMessage());
+          return;
+        default:
+          try {
+            commandController.execute(line.command, line.text);
+          } catch (Exception e) {
+            output.error(line.number, line.text, e.getMessage());
+            return;
+          }
+      }
+    }
+  }
+
+  private static void putQuietly(BlockingQueue<Line> queue, Line line) {
+    try {
+      queue.put(line);
+    } catch (InterruptedException e) {
+      // the executor stopped early and no longer takes lines
+    }
+  }
+
+  /**
+   * What a script line turned out to be.
+   */
+  private enum Kind {
+    EMPTY, EXIT, COMMAND, ERROR, END
+  }
+
+  /**
+   * A script line handed from the parser to the executor.
+   */
+  private static final class Line {
+    private final int number;
+    private final String text;
+    private final Kind kind;
+    private final Command command;
+    private final RuntimeException error;
+
+    private Line(int number, String text, Kind kind, Command command, RuntimeException error) {
+      this.number = number;
+      this.text = text;
+      this.kind = kind;
+      this.command = command;
+      this.error = error;
+    }
+  }
+}
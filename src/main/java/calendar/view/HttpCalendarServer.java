@@ -0,0 +1,523 @@
+package calendar.view;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import calendar.manager.ICalendarManager;
+import calendar.manager.IEventManager;
+import calendar.model.Calendar;
+import calendar.model.IEvent;
+import calendar.utils.DateTimeUtils;
+
+/**
+ * Serves the calendars as a JSON API over HTTP on the loopback interface, built on the JDK
+ * HTTP server:
+ * <ul>
+ *   <li>{@code GET /calendars} lists the calendars with their time zones.</li>
+ *   <li>{@code POST /calendars?name=&timezone=} creates a calendar.</li>
+ *   <li>{@code GET /calendars/{name}} describes a calendar and its version.</li>
+ *   <li>{@code GET /calendars/{name}/events?from=&to=} lists the events starting in a range,
+ *   either bound optional.</li>
+ *   <li>{@code POST /calendars/{name}/events} adds a JSON array of events, all of them or none
+ *   if one conflicts.</li>
+ *   <li>{@code GET /calendars/{name}/freebusy?from=&to=} lists the merged busy intervals of a
+ *   range.</li>
+ * </ul>
+ *
+ * <p>Responses about a calendar carry its change sequence as an ETag, so clients can repeat a
+ * GET with {@code If-None-Match} and get {@code 304 Not Modified} until the calendar changes.
+ * Connections are kept alive between requests. Reads run at the same time; changes run
+ * alone.</p>
+ *
+ * <p>Streamed responses end with a small chunk that, without TCP_NODELAY, waits for the delayed
+ * acknowledgement of the previous one, adding about 40 ms to every event listing. The JDK server
+ * only enables it through the {@code sun.net.httpserver.nodelay} system property, read when the
+ * first server is created, so processes serving the API should launch with
+ * {@code -Dsun.net.httpserver.nodelay=true} or set it before creating a server.</p>
+ */
+public class HttpCalendarServer implements Closeable {
+  private static final int BACKLOG = 1024;
+  private static final int LIST_CHUNK = 1_000;
+  private static final String PREFIX = "/calendars";
+
+  private final ICalendarManager calendarManager;
+  private final HttpServer server;
+  private final ExecutorService requestThreads;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final DateTimeUtils dateTimeUtils = new DateTimeUtils();
+
+  /**
+   * Construct a server bound to a loopback port. It starts serving when {@link #start} is
+   * called.
+   *
+   * @param calendarManager the calendars to serve.
+   * @param port            the port to listen on, or 0 for any free port.
+   * @throws IOException if the port cannot be bound.
+   */
+  public HttpCalendarServer(ICalendarManager calendarManager, int port) throws IOException {
+    this.calendarManager = calendarManager;
+    this.server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+    AtomicInteger threadCount = new AtomicInteger();
+    this.requestThreads = Executors.newCachedThreadPool(task -> {
+      Thread thread = new Thread(task, "calendar-http-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(requestThreads);
+    server.createContext(PREFIX, this::handle);
+  }
+
+  /**
+   * Get the port the server listens on.
+   *
+   * @return the bound port.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Start serving requests on background threads.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stop serving and close the open connections.
+   */
+  @Override
+  public void close() {
+    server.stop(0);
+    requestThreads.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      route(exchange);
+    } catch (IllegalArgumentException e) {
+      sendError(exchange, 400, e.getMessage());
+    } catch (RuntimeException e) {
+      sendError(exchange, 500, String.valueOf(e.getMessage()));
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Dispatch a request on its method and path.
+   *
+   * @param exchange the given request.
+   */
+  private void route(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    if (path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+    String method = exchange.getRequestMethod();
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    if (path.equals(PREFIX)) {
+      if (method.equals("GET")) {
+        listCalendars(exchange);
+      } else if (method.equals("POST")) {
+        createCalendar(exchange, query);
+      } else {
+        sendError(exchange, 405, "Method not allowed: " + method);
+      }
+      return;
+    }
+    if (!path.startsWith(PREFIX + "/")) {
+      sendError(exchange, 404, "Not found: " + path);
+      return;
+    }
+    String[] segments = path.substring(PREFIX.length() + 1).split("/");
+    String resource = segments.length > 1 ? segments[1] : "";
+    if (segments.length > 2) {
+      sendError(exchange, 404, "Not found: " + path);
+    } else if (resource.isEmpty() && method.equals("GET")) {
+      describeCalendar(exchange, segments[0]);
+    } else if (resource.equals("events") && method.equals("GET")) {
+      listEvents(exchange, segments[0], query);
+    } else if (resource.equals("events") && method.equals("POST")) {
+      addEvents(exchange, segments[0]);
+    } else if (resource.equals("freebusy") && method.equals("GET")) {
+      freeBusy(exchange, segments[0], query);
+    } else if (resource.isEmpty() || resource.equals("events")
+            || resource.equals("freebusy")) {
+      sendError(exchange, 405, "Method not allowed: " + method);
+    } else {
+      sendError(exchange, 404, "Not found: " + path);
+    }
+  }
+
+  private void listCalendars(HttpExchange exchange) throws IOException {
+    StringBuilder json = new StringBuilder("[");
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      for (String name : calendarManager.getAllCalendarNames()) {
+        if (json.length() > 1) {
+          json.append(',');
+        }
+        json.append(new JsonRecord().field("name", name).field("timezone",
+                calendarManager.getCalendar(name).getTimeZone().getId()).end());
+      }
+    } finally {
+      readLock.unlock();
+    }
+    sendJson(exchange, 200, json.append(']').toString());
+  }
+
+  private void createCalendar(HttpExchange exchange, Map<String, String> query)
+          throws IOException {
+    String name = required(query, "name");
+    String timezone = required(query, "timezone");
+    ZoneId zone = dateTimeUtils.parseZoneId(timezone);
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      calendarManager.createCalendar(name, zone);
+    } catch (IllegalArgumentException e) {
+      sendError(exchange, 409, e.getMessage());
+      return;
+    } finally {
+      writeLock.unlock();
+    }
+    sendJson(exchange, 201, new JsonRecord().field("name", name).field("timezone", timezone)
+            .end());
+  }
+
+  private void describeCalendar(HttpExchange exchange, String name) throws IOException {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      Calendar calendar = findCalendar(exchange, name);
+      if (calendar == null || notModified(exchange, calendar)) {
+        return;
+      }
+      sendJson(exchange, 200, new JsonRecord().field("name", name)
+              .field("timezone", calendar.getTimeZone().getId())
+              .field("version", calendar.getEventManager().getChangeSequence()).end());
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Write the events starting in a range, {@value #LIST_CHUNK} at a time. Each chunk of event
+   * references is taken under the read lock and written after it is released, so a slow client
+   * holds up changes for one chunk at most and the server never copies a whole calendar. Stores
+   * only order events by day, so the next chunk resumes at the start of the last day written and
+   * skips the events of that day already written. The server never edits an event in place, so
+   * the references stay valid.
+   *
+   * <p>The trade-off is that a long listing is not a snapshot: a change made between two chunks
+   * shows up in the later chunks only, and the ETag names the version the listing started
+   * at.</p>
+   */
+  private void listEvents(HttpExchange exchange, String name, Map<String, String> query)
+          throws IOException {
+    LocalDateTime from = optionalTime(query, "from", false);
+    LocalDateTime to = optionalTime(query, "to", true);
+    List<IEvent> chunk = new ArrayList<>(LIST_CHUNK);
+    Set<IEvent> writtenOnDay = Collections.newSetFromMap(new IdentityHashMap<>());
+    Calendar calendar;
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      calendar = findCalendar(exchange, name);
+      if (calendar == null || notModified(exchange, calendar)) {
+        return;
+      }
+      readChunk(calendar, from, to, writtenOnDay, chunk);
+    } finally {
+      readLock.unlock();
+    }
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(200, 0);
+    try (Writer out = new BufferedWriter(new OutputStreamWriter(
+            exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 14)) {
+      out.write('[');
+      LocalDate day = null;
+      boolean first = true;
+      while (!chunk.isEmpty()) {
+        for (IEvent event : chunk) {
+          if (!first) {
+            out.write(',');
+          }
+          first = false;
+          out.write(eventRecord(event).end());
+          if (!event.getStartTime().toLocalDate().equals(day)) {
+            day = event.getStartTime().toLocalDate();
+            writtenOnDay.clear();
+          }
+          writtenOnDay.add(event);
+        }
+        if (chunk.size() < LIST_CHUNK) {
+          break;
+        }
+        chunk.clear();
+        LocalDateTime resume = day.atStartOfDay();
+        readLock.lock();
+        try {
+          readChunk(calendar, from == null ? resume : max(from, resume), to, writtenOnDay,
+                  chunk);
+        } finally {
+          readLock.unlock();
+        }
+      }
+      out.write(']');
+    }
+  }
+
+  /**
+   * Take the references of the next events of a listing. Must be called under the read lock.
+   *
+   * @param calendar the listed calendar.
+   * @param from     the start time to resume at, or null for the start of the calendar.
+   * @param to       the latest start time, or null for no upper bound.
+   * @param written  the events already written, to be skipped.
+   * @param chunk    the list receiving at most {@value #LIST_CHUNK} events.
+   */
+  private static void readChunk(Calendar calendar, LocalDateTime from, LocalDateTime to,
+                                Set<IEvent> written, List<IEvent> chunk) {
+    Iterator<IEvent> events = calendar.getEventManager().eventIterator(from, to);
+    while (events.hasNext() && chunk.size() < LIST_CHUNK) {
+      IEvent event = events.next();
+      if (!written.contains(event)) {
+        chunk.add(event);
+      }
+    }
+  }
+
+  private void addEvents(HttpExchange exchange, String name) throws IOException {
+    List<IEvent> events = new JsonEventReader(new BufferedReader(new InputStreamReader(
+            exchange.getRequestBody(), StandardCharsets.UTF_8))).readEvents();
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    long version;
+    try {
+      Calendar calendar = findCalendar(exchange, name);
+      if (calendar == null) {
+        return;
+      }
+      try {
+        calendar.setAutoDeclineConflicts(true);
+        calendar.addEvents(events);
+      } catch (IllegalArgumentException e) {
+        sendError(exchange, 409, e.getMessage());
+        return;
+      }
+      version = calendar.getEventManager().getChangeSequence();
+      exchange.getResponseHeaders().set("ETag", etag(calendar));
+    } finally {
+      writeLock.unlock();
+    }
+    sendJson(exchange, 201, new JsonRecord().field("added", events.size())
+            .field("version", version).end());
+  }
+
+  /**
+   * List the busy intervals of a range, merging overlapping and touching events.
+   */
+  private void freeBusy(HttpExchange exchange, String name, Map<String, String> query)
+          throws IOException {
+    LocalDateTime from = requiredTime(query, "from", false);
+    LocalDateTime to = requiredTime(query, "to", true);
+    List<LocalDateTime[]> intervals = new ArrayList<>();
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      Calendar calendar = findCalendar(exchange, name);
+      if (calendar == null || notModified(exchange, calendar)) {
+        return;
+      }
+      Iterator<IEvent> events = calendar.getEventManager().eventIterator(
+              from.toLocalDate().atStartOfDay(), to);
+      while (events.hasNext()) {
+        IEvent event = events.next();
+        if (event.getEndTime().isAfter(from) && event.getStartTime().isBefore(to)) {
+          intervals.add(new LocalDateTime[] {max(event.getStartTime(), from),
+                  min(event.getEndTime(), to)});
+        }
+      }
+    } finally {
+      readLock.unlock();
+    }
+    intervals.sort((a, b) -> a[0].compareTo(b[0]));
+    StringBuilder busy = new StringBuilder("[");
+    LocalDateTime[] current = null;
+    for (LocalDateTime[] interval : intervals) {
+      if (current != null && !interval[0].isAfter(current[1])) {
+        current[1] = max(current[1], interval[1]);
+        continue;
+      }
+      appendInterval(busy, current);
+      current = interval;
+    }
+    appendInterval(busy, current);
+    sendJson(exchange, 200, new JsonRecord().field("from", from.toString())
+            .field("to", to.toString()).rawField("busy", busy.append(']')).end());
+  }
+
+  private static void appendInterval(StringBuilder busy, LocalDateTime[] interval) {
+    if (interval == null) {
+      return;
+    }
+    if (busy.length() > 1) {
+      busy.append(',');
+    }
+    busy.append(new JsonRecord().field("start", interval[0].toString())
+            .field("end", interval[1].toString()).end());
+  }
+
+  private static JsonRecord eventRecord(IEvent event) {
+    return new JsonRecord().field("subject", event.getSubject())
+            .field("description", event.getDescription())
+            .field("start", event.getStartTime().toString())
+            .field("end", event.getEndTime().toString());
+  }
+
+  /**
+   * Look up a calendar, answering 404 if there is none with the name.
+   *
+   * @return the calendar, or null if the response has been sent.
+   */
+  private Calendar findCalendar(HttpExchange exchange, String name) throws IOException {
+    try {
+      return (Calendar) calendarManager.getCalendar(name);
+    } catch (IllegalArgumentException e) {
+      sendError(exchange, 404, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Tag the response with the version of a calendar, and answer 304 if the client already has
+   * that version.
+   *
+   * @return true if the response has been sent.
+   */
+  private static boolean notModified(HttpExchange exchange, Calendar calendar)
+          throws IOException {
+    String etag = etag(calendar);
+    exchange.getResponseHeaders().set("ETag", etag);
+    String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+    if (ifNoneMatch != null && (ifNoneMatch.equals(etag) || ifNoneMatch.equals("*"))) {
+      // a response without a body ends the exchange at once, and the connection is dropped
+      // instead of kept alive unless the request body has been read to the end
+      exchange.getRequestBody().close();
+      exchange.sendResponseHeaders(304, -1);
+      return true;
+    }
+    return false;
+  }
+
+  private static String etag(Calendar calendar) {
+    IEventManager events = calendar.getEventManager();
+    return "\"" + events.getChangeSequence() + "\"";
+  }
+
+  private static void sendJson(HttpExchange exchange, int status, String json)
+          throws IOException {
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    Headers headers = exchange.getResponseHeaders();
+    headers.set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message)
+          throws IOException {
+    exchange.getResponseHeaders().remove("ETag");
+    sendJson(exchange, status, new JsonRecord().field("error", message).end());
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> query = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return query;
+    }
+    for (String pair : rawQuery.split("&")) {
+      int equals = pair.indexOf('=');
+      String key = equals < 0 ? pair : pair.substring(0, equals);
+      String value = equals < 0 ? "" : pair.substring(equals + 1);
+      query.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+              URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return query;
+  }
+
+  private static String required(Map<String, String> query, String name) {
+    String value = query.get(name);
+    if (value == null || value.isEmpty()) {
+      throw new IllegalArgumentException("Missing query parameter: " + name);
+    }
+    return value;
+  }
+
+  private LocalDateTime requiredTime(Map<String, String> query, String name, boolean end) {
+    required(query, name);
+    return optionalTime(query, name, end);
+  }
+
+  /**
+   * Parse a range bound given as a date or a date time. A date starts the range at the start of
+   * the day, or ends it at the end of the day.
+   *
+   * @return the bound, or null if it is not given.
+   */
+  private LocalDateTime optionalTime(Map<String, String> query, String name, boolean end) {
+    String value = query.get(name);
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    if (value.contains("T")) {
+      return dateTimeUtils.parseDateTime(value);
+    }
+    LocalDateTime date = dateTimeUtils.parseDateToDateTime(value);
+    return end ? dateTimeUtils.convertToEODDateTime(date) : date;
+  }
+
+  private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+    return a.isAfter(b) ? a : b;
+  }
+
+  private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+    return a.isBefore(b) ? a : b;
+  }
+}
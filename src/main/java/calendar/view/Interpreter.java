@@ -1,7 +1,8 @@
 package calendar.view;
 
-import java.io.File;
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
+import java.io.FileReader;
 import java.util.Scanner;
 
 import javax.swing.*;
@@ -52,7 +53,7 @@ public class Interpreter {
         System.out.println("Enter the path to the command file:");
         System.out.print("> ");
         String filePath = scanner.nextLine().trim();
-        runHeadlessMode(filePath, commandController);
+        runHeadlessMode(filePath, commandController, 0);
       } else {
         System.out.println("Invalid mode. Please try again.");
       }
@@ -96,8 +97,21 @@ public class Interpreter {
    * @param commandController the command controller
    */
   public void executeScriptFile(String scriptFilePath, CommandController commandController) {
+    executeScriptFile(scriptFilePath, commandController, 0);
+  }
+
+  /**
+   * Executes a script file directly and then exits, running the commands of different calendars
+   * on parallel worker threads when a thread count is given.
+   *
+   * @param scriptFilePath path to the script file
+   * @param commandController the command controller
+   * @param threads the number of worker threads, or 0 to execute the script serially
+   */
+  public void executeScriptFile(String scriptFilePath, CommandController commandController,
+                                int threads) {
     try {
-      runHeadlessMode(scriptFilePath, commandController);
+      runHeadlessMode(scriptFilePath, commandController, threads);
     } catch (Exception e) {
       System.err.println("Error executing script file: " + e.getMessage());
       System.exit(1);
@@ -131,42 +145,27 @@ public class Interpreter {
   }
 
   /**
-   * Headless mode handling. Will take commands from file input.
+   * Headless mode handling. Will take commands from file input, compiling them on a parser
+   * thread while earlier ones execute, or partitioning them by calendar over worker threads.
    *
    * @param filename Input file name/path.
    * @param commandController the command controller
+   * @param threads the number of worker threads, or 0 to execute the script serially
    */
-  private void runHeadlessMode(String filename, CommandController commandController) {
-    try (Scanner fileScanner = new Scanner(new File(filename))) {
-      System.out.println("Running in headless mode with file: " + filename);
-
-      int lineNumber = 0;
-
-      while (fileScanner.hasNextLine()) {
-        lineNumber++;
-        String command = fileScanner.nextLine().trim();
-        System.out.println("Command: " + command);
-        if (command.isEmpty()) {
-          continue;
-        }
-
-        if (command.equalsIgnoreCase("exit")) {
-          System.out.println("Exit command found. Terminating headless mode.");
-          return;
-        }
-
-        try {
-          commandController.parseCommand(command);
-        } catch (Exception e) {
-          System.out.println("Error at line " + lineNumber + ": " + command);
-          System.out.println("Reason: " + e.getMessage());
-          return;
-        }
-      }
-
-      System.out.println("Error: Missing exit command at end of file.");
+  private void runHeadlessMode(String filename, CommandController commandController,
+                               int threads) {
+    BufferedReader script;
+    try {
+      script = new BufferedReader(new FileReader(filename));
     } catch (FileNotFoundException e) {
       System.out.println("Error: Could not find file '" + filename + "'");
+      return;
+    }
+    commandController.getOutput().message("Running in headless mode with file: " + filename);
+    if (threads > 0) {
+      new ParallelHeadlessExecutor(commandController, threads).run(script);
+    } else {
+      new HeadlessPipeline(commandController, HeadlessPipeline.DEFAULT_CAPACITY).run(script);
     }
   }
-}
\ No newline at end of file
+}
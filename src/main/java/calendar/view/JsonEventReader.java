@@ -0,0 +1,208 @@
+package calendar.view;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+
+/**
+ * Reads events from a JSON array of objects with the fields written for events by
+ * {@link CommandOutput} and the HTTP API: {@code subject}, {@code description}, {@code start}
+ * and {@code end}, times in ISO local date time form. Unknown fields are ignored.
+ */
+final class JsonEventReader {
+  private final Reader in;
+  private int next;
+
+  /**
+   * Construct a reader over JSON text.
+   *
+   * @param in the given characters, buffered by the caller.
+   */
+  JsonEventReader(Reader in) {
+    this.in = in;
+  }
+
+  /**
+   * Read the whole array.
+   *
+   * @return the events in the order of the array.
+   * @throws IOException if the characters cannot be read.
+   * @throws IllegalArgumentException if the text is not an array of events.
+   */
+  List<IEvent> readEvents() throws IOException {
+    List<IEvent> events = new ArrayList<>();
+    advance();
+    skipBlank();
+    expect('[');
+    if (skipBlank() == ']') {
+      advance();
+      return events;
+    }
+    while (true) {
+      events.add(readEvent());
+      char c = skipBlank();
+      advance();
+      if (c == ']') {
+        break;
+      }
+      if (c != ',') {
+        throw new IllegalArgumentException("Expected ',' or ']' after event " + events.size());
+      }
+    }
+    skipBlank();
+    if (next != -1) {
+      throw new IllegalArgumentException("Unexpected text after the event array");
+    }
+    return events;
+  }
+
+  private IEvent readEvent() throws IOException {
+    skipBlank();
+    expect('{');
+    String subject = null;
+    String description = "";
+    String start = null;
+    String end = null;
+    if (skipBlank() == '}') {
+      advance();
+    } else {
+      while (true) {
+        skipBlank();
+        String name = readString();
+        skipBlank();
+        expect(':');
+        skipBlank();
+        String value = readValue();
+        switch (name) {
+          case "subject":
+            subject = value;
+            break;
+          case "description":
+            description = value == null ? "" : value;
+            break;
+          case "start":
+            start = value;
+            break;
+          case "end":
+            end = value;
+            break;
+          default:
+        }
+        char c = skipBlank();
+        advance();
+        if (c == '}') {
+          break;
+        }
+        if (c != ',') {
+          throw new IllegalArgumentException("Expected ',' or '}' in event");
+        }
+      }
+    }
+    if (subject == null || start == null || end == null) {
+      throw new IllegalArgumentException("Events need a subject, a start and an end");
+    }
+    try {
+      return new OneTimeEvent(subject, description, LocalDateTime.parse(start),
+              LocalDateTime.parse(end));
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid date/time in event '" + subject + "'");
+    }
+  }
+
+  /**
+   * Read a string, or a number, boolean or null as text.
+   *
+   * @return the value, or null for a JSON null.
+   */
+  private String readValue() throws IOException {
+    if (next == '"') {
+      return readString();
+    }
+    StringBuilder literal = new StringBuilder();
+    while (next != -1 && next != ',' && next != '}' && next != ']'
+            && !Character.isWhitespace(next)) {
+      literal.append((char) next);
+      advance();
+    }
+    if (literal.length() == 0) {
+      throw new IllegalArgumentException("Expected a value");
+    }
+    String value = literal.toString();
+    return value.equals("null") ? null : value;
+  }
+
+  private String readString() throws IOException {
+    expect('"');
+    StringBuilder value = new StringBuilder();
+    while (next != '"') {
+      if (next == -1) {
+        throw new IllegalArgumentException("Unterminated string");
+      }
+      if (next == '\\') {
+        advance();
+        switch (next) {
+          case 'n':
+            value.append('\n');
+            break;
+          case 'r':
+            value.append('\r');
+            break;
+          case 't':
+            value.append('\t');
+            break;
+          case 'b':
+            value.append('\b');
+            break;
+          case 'f':
+            value.append('\f');
+            break;
+          case 'u':
+            char[] hex = new char[4];
+            for (int i = 0; i < 4; i++) {
+              advance();
+              hex[i] = (char) next;
+            }
+            try {
+              value.append((char) Integer.parseInt(new String(hex), 16));
+            } catch (NumberFormatException e) {
+              throw new IllegalArgumentException("Invalid unicode escape");
+            }
+            break;
+          case -1:
+            throw new IllegalArgumentException("Unterminated string");
+          default:
+            value.append((char) next);
+        }
+      } else {
+        value.append((char) next);
+      }
+      advance();
+    }
+    advance();
+    return value.toString();
+  }
+
+  private char skipBlank() throws IOException {
+    while (next != -1 && Character.isWhitespace(next)) {
+      advance();
+    }
+    return (char) next;
+  }
+
+  private void expect(char c) throws IOException {
+    if (next != c) {
+      throw new IllegalArgumentException("Expected '" + c + "'");
+    }
+    advance();
+  }
+
+  private void advance() throws IOException {
+    next = in.read();
+  }
+}
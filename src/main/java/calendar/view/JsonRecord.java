@@ -0,0 +1,107 @@
+package calendar.view;
+
+/**
+ * Builds one JSON object on a single line.
+ */
+final class JsonRecord {
+  private final StringBuilder json = new StringBuilder(128).append('{');
+
+  /**
+   * Add a string field.
+   *
+   * @param name  the field name.
+   * @param value the given value, or null.
+   * @return this record.
+   */
+  JsonRecord field(String name, String value) {
+    name(name);
+    if (value == null) {
+      json.append("null");
+      return this;
+    }
+    json.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          json.append("\\\"");
+          break;
+        case '\\':
+          json.append("\\\\");
+          break;
+        case '\n':
+          json.append("\\n");
+          break;
+        case '\r':
+          json.append("\\r");
+          break;
+        case '\t':
+          json.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+      }
+    }
+    json.append('"');
+    return this;
+  }
+
+  /**
+   * Add a number field.
+   *
+   * @param name  the field name.
+   * @param value the given value.
+   * @return this record.
+   */
+  JsonRecord field(String name, long value) {
+    name(name);
+    json.append(value);
+    return this;
+  }
+
+  /**
+   * Add a boolean field.
+   *
+   * @param name  the field name.
+   * @param value the given value.
+   * @return this record.
+   */
+  JsonRecord field(String name, boolean value) {
+    name(name);
+    json.append(value);
+    return this;
+  }
+
+  /**
+   * Add a field holding JSON that is already formatted, such as an array of records.
+   *
+   * @param name the field name.
+   * @param json the formatted value.
+   * @return this record.
+   */
+  JsonRecord rawField(String name, CharSequence json) {
+    name(name);
+    this.json.append(json);
+    return this;
+  }
+
+  /**
+   * Close the object.
+   *
+   * @return the JSON text of the object.
+   */
+  String end() {
+    return json.append('}').toString();
+  }
+
+  private void name(String name) {
+    if (json.length() > 1) {
+      json.append(',');
+    }
+    json.append('"').append(name).append("\":");
+  }
+}
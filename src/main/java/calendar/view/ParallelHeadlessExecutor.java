@@ -0,0 +1,367 @@
+package calendar.view;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import calendar.controller.Command;
+import calendar.controller.CommandController;
+import calendar.manager.ICalendarManager;
+import calendar.manager.IEventManager;
+import calendar.manager.ScopedCalendarManager;
+import calendar.model.Calendar;
+import calendar.model.EventChange;
+import calendar.utils.MetricsRegistry;
+import calendar.utils.jfr.CommandExecutionEvent;
+import calendar.utils.jfr.FlightEvents;
+
+/**
+ * Runs a command script with the commands of different calendars executing in parallel. The
+ * script is read in order, tracking the calendar each {@code use calendar} makes active; every
+ * command that only works on the active calendar is queued behind the earlier commands of the
+ * same calendar and runs on a fixed pool of worker threads, so each calendar sees its commands
+ * in script order. Commands that create, rename or re-zone calendars, copy events between
+ * them, export or import files or belong to a batch wait until all queued commands are done and
+ * then run alone, an import because it is followed by a snapshot of all calendars.
+ *
+ * <p>The output of every line is collected and printed in script order, so a script that runs
+ * without errors prints exactly what a serial run prints. The first failing line in script
+ * order is reported with its line number and stops the script. Lines of other calendars that
+ * come after it may already have run when the failure is found; the changes they made are
+ * undone, and they are neither printed, journaled nor recorded, so a failing script leaves the
+ * same calendars as a serial run.</p>
+ */
+public class ParallelHeadlessExecutor {
+  private static final int MAX_PENDING_LINES = 4096;
+  private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+  private final CommandController commandController;
+  private final int threads;
+
+  /**
+   * Construct an executor running the commands of a controller on a number of threads.
+   *
+   * @param commandController the controller compiling the commands and journaling them.
+   * @param threads           the number of worker threads.
+   */
+  public ParallelHeadlessExecutor(CommandController commandController, int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Thread count must be positive");
+    }
+    this.commandController = commandController;
+    this.threads = threads;
+  }
+
+  /**
+   * Run a script until its exit command, its first error or its end, and close the reader.
+   *
+   * @param script the script to run.
+   */
+  public void run(BufferedReader script) {
+    ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+      Thread thread = new Thread(task, "headless-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try (BufferedReader reader = script) {
+      new Run(pool).execute(reader);
+    } catch (IOException e) {
+      commandController.getOutput().message("Error: Could not read script: " + e.getMessage());
+    } finally {
+      pool.shutdown();
+      commandController.getOutput().flush();
+    }
+  }
+
+  /**
+   * The state of one script run, owned by the reading thread.
+   */
+  private final class Run {
+    private final ExecutorService pool;
+    private final ICalendarManager calendarManager = commandController.getCalendarManager();
+    private final CommandOutput output = commandController.getOutput();
+    private final ArrayDeque<Line> pending = new ArrayDeque<>();
+    private final Map<Calendar, CompletableFuture<Void>> tails = new IdentityHashMap<>();
+    private final Map<Calendar, ScopedCalendarManager> scopes = new IdentityHashMap<>();
+    private final AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+
+    private Run(ExecutorService pool) {
+      this.pool = pool;
+    }
+
+    private void execute(BufferedReader reader) throws IOException {
+      int lineNumber = 0;
+      String text;
+      while ((text = reader.readLine()) != null) {
+        lineNumber++;
+        Line line = new Line(lineNumber, text.trim());
+        if (line.text.equalsIgnoreCase("exit")) {
+          if (!drain()) {
+            stop();
+            return;
+          }
+          output.echo(line.text);
+          output.message("Exit command found. Terminating headless mode.");
+          return;
+        }
+        pending.add(line);
+        if (line.text.isEmpty()) {
+          line.finish(null, null);
+        } else if (!schedule(line) || !flushFinished()) {
+          stop();
+          return;
+        }
+        while (pending.size() > MAX_PENDING_LINES) {
+          pending.peek().done.join();
+          if (!flushFinished()) {
+            stop();
+            return;
+          }
+        }
+      }
+      if (!drain()) {
+        stop();
+        return;
+      }
+      output.message("Error: Missing exit command at end of file.");
+    }
+
+    /**
+     * Compile a pending line and run it, or queue it behind the earlier lines of its calendar.
+     *
+     * @param line the given line, last of the pending lines.
+     * @return false if the line or an earlier one failed.
+     */
+    private boolean schedule(Line line) {
+      try {
+        Command command = commandController.compile(line.text);
+        if (commandController.isBatchOpen()) {
+          return runAlone(line, command);
+        }
+        switch (command.getType()) {
+          case CREATE_CALENDAR:
+          case EDIT_CALENDAR:
+          case COPY_EVENT:
+          case COPY_EVENTS:
+          case EXPORT_CAL:
+          case IMPORT_CAL:
+          case BEGIN_BATCH:
+          case COMMIT:
+          case ROLLBACK:
+          case SHOW_METRICS:
+            return runAlone(line, command);
+          case USE_CALENDAR:
+            runLine(line, command, calendarManager);
+            return line.error == null;
+          default:
+            Calendar calendar = calendarManager.getActiveCalendar();
+            line.calendar = calendar;
+            ScopedCalendarManager scope = scopes.computeIfAbsent(calendar,
+                key -> new ScopedCalendarManager(calendarManager));
+            line.done = tails.getOrDefault(calendar, DONE)
+                    .thenRunAsync(() -> runLine(line, command, scope), pool);
+            tails.put(calendar, line.done);
+            return true;
+        }
+      } catch (RuntimeException e) {
+        fail(line, e);
+        return false;
+      }
+    }
+
+    /**
+     * Run a line through the controller once every earlier line is done and printed.
+     *
+     * @param line    the given line, last of the pending lines.
+     * @param command the compiled command of the line.
+     * @return false if the line or an earlier one failed.
+     */
+    private boolean runAlone(Line line, Command command) {
+      if (!drain()) {
+        return false;
+      }
+      pending.poll();
+      output.echo(line.text);
+      try {
+        commandController.execute(command, line.text);
+        return true;
+      } catch (RuntimeException e) {
+        output.error(line.number, line.text, e.getMessage());
+        return false;
+      }
+    }
+
+    /**
+     * Run a line against a calendar manager or a calendar scope, collecting its output and, for a
+     * line of a calendar, the changes it makes to the calendar.
+     *
+     * @param line    the given line.
+     * @param command the compiled command of the line.
+     * @param scope   the calendars to run against.
+     */
+    private void runLine(Line line, Command command, ICalendarManager scope) {
+      if (line.number > firstFailure.get()) {
+        line.finish(null, null);
+        return;
+      }
+      IEventManager events = line.calendar != null ? line.calendar.getEventManager() : null;
+      if (events != null) {
+        line.changes = new ArrayList<>();
+        events.trackChanges(line.changes);
+      }
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      try (PrintStream collected = new PrintStream(buffer, false,
+              StandardCharsets.UTF_8.name())) {
+        MetricsRegistry.Timer timer = commandController.timer(command.getType());
+        CommandExecutionEvent event = FlightEvents.isEnabled() ? new CommandExecutionEvent()
+                : null;
+        long start = timer.start();
+        boolean failed = true;
+        try {
+          command.execute(scope, output.redirect(collected));
+          failed = false;
+        } finally {
+          timer.stop(start, failed);
+          if (event != null) {
+            event.commit(command.getType(), scope, failed);
+          }
+        }
+        collected.flush();
+        line.finish(command, buffer.size() > 0 ? buffer.toString(StandardCharsets.UTF_8.name())
+                : null);
+      } catch (UnsupportedEncodingException e) {
+        throw new IllegalStateException(e);
+      } catch (Exception e) {
+        fail(line, e);
+      } finally {
+        if (events != null) {
+          events.trackChanges(null);
+        }
+      }
+    }
+
+    private void fail(Line line, Exception e) {
+      firstFailure.accumulateAndGet(line.number, Math::min);
+      line.error = e;
+      line.finish(null, null);
+    }
+
+    /**
+     * Print, journal and record the finished lines at the head of the pending lines, up to the
+     * first unfinished or failed one.
+     *
+     * @return false if a failed line was reached.
+     */
+    private boolean flushFinished() {
+      while (!pending.isEmpty() && pending.peek().finished) {
+        if (pending.peek().error != null) {
+          return false;
+        }
+        Line line = pending.poll();
+        output.echo(line.text);
+        if (line.collected != null) {
+          output.print(line.collected);
+        }
+        if (line.command != null) {
+          commandController.record(line.text);
+          commandController.journal(line.command, line.text);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Wait for all queued lines and print the finished ones.
+     *
+     * @return false if a failed line was reached.
+     */
+    private boolean drain() {
+      awaitQueued();
+      scopes.clear();
+      return flushFinished();
+    }
+
+    /**
+     * Report the first failed line after the lines before it, and undo the changes of the lines
+     * after it that ran anyway, latest first.
+     */
+    private void stop() {
+      awaitQueued();
+      flushFinished();
+      Line failed = pending.poll();
+      if (failed != null) {
+        commandController.record(failed.text);
+        output.echo(failed.text);
+        output.error(failed.number, failed.text, failed.error.getMessage());
+      }
+      Iterator<Line> later = pending.descendingIterator();
+      while (later.hasNext()) {
+        later.next().undo();
+      }
+      pending.clear();
+    }
+
+    private void awaitQueued() {
+      CompletableFuture.allOf(tails.values().toArray(new CompletableFuture<?>[0])).join();
+      tails.clear();
+    }
+  }
+
+  /**
+   * A script line and, once it has run, its result.
+   */
+  private static final class Line {
+    private final int number;
+    private final String text;
+    private CompletableFuture<Void> done = DONE;
+    private Calendar calendar;
+    private List<EventChange> changes;
+    private Command command;
+    private String collected;
+    private Exception error;
+    private volatile boolean finished;
+
+    private Line(int number, String text) {
+      this.number = number;
+      this.text = text;
+    }
+
+    private void finish(Command command, String collected) {
+      this.command = command;
+      this.collected = collected;
+      this.finished = true;
+    }
+
+    /**
+     * Take back the changes the line made to its calendar, latest first.
+     */
+    private void undo() {
+      if (changes == null) {
+        return;
+      }
+      IEventManager events = calendar.getEventManager();
+      for (int i = changes.size() - 1; i >= 0; i--) {
+        EventChange change = changes.get(i);
+        if (change.isRemoved()) {
+          events.restoreEvents(Collections.singletonList(change.getEvent()));
+        } else {
+          events.removeEvent(change.getEvent());
+        }
+      }
+    }
+  }
+}
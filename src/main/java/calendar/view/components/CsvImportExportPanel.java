@@ -13,6 +13,7 @@ import java.io.File;
 public class CsvImportExportPanel extends JPanel {
   private final SwingController controller;
   private final JFrame parentFrame;
+  private final JCheckBox skipExistingBox;
 
   /**
    * Constructs a new CsvImportExportPanel.
@@ -33,6 +34,8 @@ public class CsvImportExportPanel extends JPanel {
     importButton.addActionListener(e -> importFromCsv());
     exportButton.addActionListener(e -> exportToCsv());
     add(buttonPanel, BorderLayout.CENTER);
+    skipExistingBox = new JCheckBox("Skip events already in the calendar", true);
+    add(skipExistingBox, BorderLayout.SOUTH);
   }
 
   /**
@@ -50,9 +53,10 @@ public class CsvImportExportPanel extends JPanel {
         if (currentCalendar == null) {
           throw new IllegalStateException("No calendar selected for import");
         }
-        controller.importCalendarFromCSV(selectedFile.getAbsolutePath());
+        int imported = controller.importCalendarFromCSV(selectedFile.getAbsolutePath(),
+                skipExistingBox.isSelected());
         JOptionPane.showMessageDialog(parentFrame,
-                "Successfully imported events from " + selectedFile.getName(),
+                "Successfully imported " + imported + " events from " + selectedFile.getName(),
                 "Import Successful", JOptionPane.INFORMATION_MESSAGE);
       } catch (Exception e) {
         JOptionPane.showMessageDialog(parentFrame,
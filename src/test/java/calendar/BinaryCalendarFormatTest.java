@@ -0,0 +1,107 @@
+package calendar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import calendar.model.Calendar;
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+import calendar.persistence.BinaryCalendarReader;
+import calendar.persistence.BinaryCalendarWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for the binary calendar format.
+ */
+public class BinaryCalendarFormatTest {
+
+  /**
+   * Test that single, multi day and recurring events survive a round trip.
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    Calendar calendar = new Calendar(ZoneId.of("Asia/Kolkata"));
+    calendar.addEvent("Meeting", "Room 4, \"north\" wing", LocalDateTime.of(2025, 3, 3, 9, 0),
+            LocalDateTime.of(2025, 3, 3, 10, 30));
+    calendar.addEvent("Trip", "Café tour", LocalDateTime.of(2025, 3, 22, 18, 0),
+            LocalDateTime.of(2025, 3, 23, 8, 0));
+    calendar.addRecurringEvents("Standup", "", LocalDateTime.of(2025, 3, 4, 8, 0),
+            LocalDateTime.of(2025, 3, 4, 8, 15), null, "TR", 6);
+    calendar.addRecurringEvents("Gym", null, LocalDateTime.of(2025, 4, 1, 18, 0),
+            LocalDateTime.of(2025, 4, 1, 19, 0), LocalDateTime.of(2025, 4, 30, 23, 59), "MWF", 0);
+    calendar.removeEvent(calendar.searchEvents("Gym", LocalDateTime.of(2025, 4, 9, 0, 0),
+            LocalDateTime.of(2025, 4, 9, 23, 59)).get(0));
+
+    Calendar copy = roundTrip(calendar);
+
+    assertEquals(ZoneId.of("Asia/Kolkata"), copy.getTimeZone());
+    assertEquals(describe(calendar.getAllEvents()), describe(copy.getAllEvents()));
+  }
+
+  /**
+   * Test that a long recurring series is stored as a rule instead of its instances.
+   */
+  @Test
+  public void testRecurringSeriesStoredAsRule() throws Exception {
+    Calendar calendar = new Calendar(ZoneOffset.UTC);
+    calendar.addRecurringEvents("Daily", "Every single day", LocalDateTime.of(2020, 1, 1, 7, 0),
+            LocalDateTime.of(2020, 1, 1, 7, 30), null, "MTWRFSU", 2000);
+
+    byte[] bytes = write(calendar);
+    Calendar copy = read(bytes);
+
+    assertTrue("a rule should take a few dozen bytes, got " + bytes.length, bytes.length < 100);
+    assertEquals(2000, copy.getAllEvents().size());
+    assertEquals(describe(calendar.getAllEvents()), describe(copy.getAllEvents()));
+  }
+
+  private static Calendar roundTrip(Calendar calendar) throws Exception {
+    return read(write(calendar));
+  }
+
+  private static byte[] write(Calendar calendar) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BinaryCalendarWriter writer = new BinaryCalendarWriter(Channels.newChannel(out))) {
+      writer.writeCalendar(calendar);
+    }
+    return out.toByteArray();
+  }
+
+  private static Calendar read(byte[] bytes) throws Exception {
+    Calendar copy = new Calendar(ZoneOffset.UTC);
+    new BinaryCalendarReader(Channels.newChannel(new ByteArrayInputStream(bytes)))
+            .readCalendar(copy);
+    return copy;
+  }
+
+  private static Set<String> describe(List<IEvent> events) {
+    Set<String> result = new HashSet<>();
+    for (IEvent event : events) {
+      List<Object> fields = new ArrayList<>();
+      fields.add(event.getSubject());
+      fields.add(event.getDescription());
+      fields.add(event.getStartTime());
+      fields.add(event.getEndTime());
+      if (event instanceof IRecurringEvent) {
+        IRecurringEvent recurring = (IRecurringEvent) event;
+        fields.add(recurring.getEndRecurring());
+        fields.add(recurring.getRecurringDays());
+        fields.add(recurring.getOccurrences());
+      }
+      result.add(fields.toString());
+    }
+    return result;
+  }
+}
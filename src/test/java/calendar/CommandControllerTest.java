@@ -5,12 +5,14 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 
 import calendar.controller.CommandController;
+import calendar.utils.DateTimeUtils;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
 
 /**
  * Test for the CommandController, checking its functions.
@@ -93,6 +95,52 @@ public class CommandControllerTest {
     commandController.parseCommand(input);
   }
 
+  /**
+   * Test that tokens may be separated by any run of whitespace.
+   */
+  @Test
+  public void testParseMixedWhitespace() {
+    commandController.parseCommand("\tuse  calendar\t--name \r TestCalendar \n");
+
+    assertEquals("useCalendar", mockManager.lastMethodCalled);
+    assertEquals("TestCalendar", mockManager.lastMethodArgs[0]);
+  }
+
+  /**
+   * Test that a command cut short is reported as invalid input.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseMissingArgument() {
+    commandController.parseCommand("use calendar --name");
+  }
+
+  /**
+   * Test that the digit by digit date parsing agrees with the java.time parsers it replaces.
+   */
+  @Test
+  public void testParseDateTimeShapes() {
+    DateTimeUtils utils = new DateTimeUtils();
+    assertEquals(LocalDateTime.of(2024, 2, 29, 23, 5), utils.parseDateTime("2024-02-29T23:05"));
+    assertEquals(LocalDateTime.of(2024, 2, 29, 23, 5, 30),
+            utils.parseDateTime("2024-02-29T23:05:30"));
+    assertEquals(LocalDateTime.of(2023, 2, 28, 0, 0), utils.parseDateToDateTime("2023-02-30"));
+    assertEquals(LocalDateTime.of(2023, 2, 28, 0, 0), utils.parseDateToDateTime("2023-02-28"));
+    assertEquals(LocalDateTime.of(2025, 7, 4, 23, 59),
+            utils.parseDateOrDateTime("on 2025-07-04", 3, 13, true));
+    assertEquals(LocalDateTime.of(2025, 7, 4, 9, 0),
+            utils.parseDateOrDateTime("2025-07-04T09:00", 0, 16, true));
+    assertEquals(LocalDateTime.of(0, 1, 1, 10, 0),
+            utils.parseDateOrDateTime("0000-01-01T10:00", 0, 16, false));
+    assertEquals(LocalDateTime.of(0, 1, 1, 10, 0), utils.parseDateTime("0000-01-01T10:00"));
+    for (String invalid : new String[]{"2023-02-30T10:00", "2025-13-01T10:00", "2025-01-01T24:00",
+        "2025-01-01 10:00", "2025-1-01T10:00"}) {
+      assertThrows(IllegalArgumentException.class, () -> utils.parseDateTime(invalid));
+      assertThrows(IllegalArgumentException.class,
+          () -> utils.parseDateOrDateTime(invalid, 0, invalid.length(), false));
+    }
+    assertThrows(IllegalArgumentException.class, () -> utils.parseDateToDateTime("2025-01-32"));
+  }
+
   /**
    * Test to check the start method, which initiates the Interpreter.
    */
@@ -0,0 +1,132 @@
+package calendar;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import calendar.manager.CalendarManager;
+import calendar.view.CommandServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for sessions of the command server sharing one calendar manager.
+ */
+public class CommandServerTest {
+  private CalendarManager manager;
+  private CommandServer server;
+  private Thread acceptor;
+
+  /**
+   * Starting a server on a free loopback port.
+   */
+  @Before
+  public void setUp() throws Exception {
+    manager = new CalendarManager();
+    server = new CommandServer(manager, 0);
+    acceptor = new Thread(() -> {
+      try {
+        server.serve();
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    });
+    acceptor.start();
+  }
+
+  /**
+   * Stopping the server.
+   */
+  @After
+  public void tearDown() throws Exception {
+    server.close();
+    acceptor.join();
+  }
+
+  /**
+   * Tests that every session has its own active calendar on the shared calendars.
+   */
+  @Test
+  public void testSessionsKeepTheirOwnActiveCalendar() throws Exception {
+    try (Session work = new Session(); Session home = new Session()) {
+      assertEquals("OK", work.send("create calendar --name Work --timezone UTC").get(0));
+      assertEquals("OK", home.send("create calendar --name Home --timezone UTC").get(0));
+      work.send("use calendar --name Work");
+      home.send("use calendar --name Home");
+      work.send("create event Standup from 2025-03-03T09:00 to 2025-03-03T09:15");
+      home.send("create event Gym from 2025-03-03T09:00 to 2025-03-03T10:00");
+
+      List<String> response = work.send("print events on 2025-03-03");
+      assertTrue(response.contains("  -Subject :  Standup"));
+      assertEquals("OK", response.get(response.size() - 1));
+      assertEquals(1, manager.getCalendar("Work").getAllEvents().size());
+      assertEquals(1, manager.getCalendar("Home").getAllEvents().size());
+
+      assertEquals("OK", home.send("copy event Gym on 2025-03-03T09:00 --target Work to "
+              + "2025-03-03T18:00").get(0));
+      assertEquals(2, manager.getCalendar("Work").getAllEvents().size());
+      assertEquals("busy", work.send("show status on 2025-03-03T18:30").get(0));
+      assertEquals("BYE", work.send("exit").get(0));
+    }
+  }
+
+  /**
+   * Tests that failing commands are answered with the reason and keep the session open.
+   */
+  @Test
+  public void testErrorsKeepTheSessionOpen() throws Exception {
+    try (Session session = new Session()) {
+      assertEquals("ERROR: No active calendar selected",
+              session.send("print events on 2025-03-03").get(0));
+      assertEquals("ERROR: Unknown command: launch rockets",
+              session.send("launch rockets").get(0));
+      assertEquals("OK", session.send("").get(0));
+      assertEquals("OK", session.send("create calendar --name Work --timezone UTC").get(0));
+    }
+  }
+
+  /**
+   * A client connection reading one response per command.
+   */
+  private class Session implements AutoCloseable {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    private Session() throws IOException {
+      socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+      in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+              StandardCharsets.UTF_8));
+      out = new PrintWriter(socket.getOutputStream(), true);
+    }
+
+    private List<String> send(String command) throws IOException {
+      out.println(command);
+      List<String> lines = new ArrayList<>();
+      String line;
+      while ((line = in.readLine()) != null) {
+        lines.add(line);
+        if (line.equals("OK") || line.equals("BYE") || line.startsWith("ERROR: ")) {
+          break;
+        }
+      }
+      return lines;
+    }
+
+    @Override
+    public void close() throws IOException {
+      socket.close();
+    }
+  }
+}
@@ -0,0 +1,382 @@
+package calendar;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import calendar.manager.CalendarManager;
+import calendar.manager.EventManager;
+import calendar.manager.EventStore;
+import calendar.manager.EventStores;
+import calendar.manager.JournaledEventStore;
+import calendar.manager.StoreCheckpoint;
+import calendar.manager.TreeEventStore;
+import calendar.model.EventChange;
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+import calendar.model.OneTimeEvent;
+import calendar.model.RecurringEvent;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Conformance suite every registered event storage backend has to pass, both through the store
+ * interface and through an event manager on top of the store.
+ */
+@RunWith(Parameterized.class)
+public class EventStoreConformanceTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final String backend;
+  private EventStore store;
+
+  /**
+   * Construct the suite for one backend.
+   *
+   * @param backend the backend name.
+   */
+  public EventStoreConformanceTest(String backend) {
+    this.backend = backend;
+  }
+
+  /**
+   * Get the registered backends.
+   *
+   * @return one parameter set per backend.
+   */
+  @Parameterized.Parameters(name = "{0}")
+  public static Collection<Object[]> backends() {
+    return EventStores.getNames().stream().map(name -> new Object[]{name})
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * Create an empty store of the backend.
+   */
+  @Before
+  public void setUp() throws IOException {
+    store = EventStores.getFactory(backend).create(folder.getRoot().toPath());
+  }
+
+  /**
+   * Close the store.
+   */
+  @After
+  public void tearDown() throws IOException {
+    store.close();
+  }
+
+  /**
+   * Test day lookups, inclusive day ranges in date order and the size.
+   */
+  @Test
+  public void testDayIndexAndRanges() {
+    IEvent late = event("Late", 2025, 3, 10, 22);
+    IEvent early = event("Early", 2025, 3, 10, 0);
+    IEvent before = event("Before", 2025, 3, 9, 23);
+    IEvent after = event("After", 2025, 3, 11, 0);
+    store.add(late);
+    store.add(after);
+    store.add(early);
+    store.add(before);
+
+    assertEquals(4, store.size());
+    assertEquals(2, store.getEvents(LocalDate.of(2025, 3, 10)).size());
+    assertTrue(store.getEvents(LocalDate.of(2025, 3, 10)).contains(late));
+    assertTrue(store.getEvents(LocalDate.of(2025, 3, 12)).isEmpty());
+
+    List<IEvent> range = list(store.iterator(LocalDate.of(2025, 3, 10),
+            LocalDate.of(2025, 3, 11)));
+    assertEquals(3, range.size());
+    assertSame(after, range.get(2));
+    assertFalse(range.contains(before));
+    List<IEvent> all = list(store.iterator(null, null));
+    assertSame(before, all.get(0));
+    assertSame(after, all.get(3));
+    assertEquals(2, list(store.iterator(null, LocalDate.of(2025, 3, 9))).size()
+            + list(store.iterator(LocalDate.of(2025, 3, 11), null)).size());
+  }
+
+  /**
+   * Test that removal goes by instance, not by value.
+   */
+  @Test
+  public void testRemoveByInstance() {
+    IEvent first = event("Twin", 2025, 4, 1, 9);
+    IEvent second = event("Twin", 2025, 4, 1, 9);
+    store.add(first);
+    store.add(second);
+
+    assertTrue(store.remove(second));
+    assertFalse(store.remove(second));
+    assertFalse(store.remove(event("Twin", 2025, 4, 1, 9)));
+    assertEquals(1, store.size());
+    assertSame(first, store.getEvents(LocalDate.of(2025, 4, 1)).iterator().next());
+    assertTrue(store.remove(first));
+    assertTrue(store.getEvents(LocalDate.of(2025, 4, 1)).isEmpty());
+    assertFalse(store.iterator(null, null).hasNext());
+  }
+
+  /**
+   * Test that many events added in random order are all found on their day.
+   */
+  @Test
+  public void testRandomOrder() {
+    Random random = new Random(37);
+    Map<LocalDate, Integer> perDay = new HashMap<>();
+    List<IEvent> added = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      IEvent event = event("E" + i, 2025, 1 + random.nextInt(12), 1 + random.nextInt(28),
+              random.nextInt(24));
+      store.add(event);
+      added.add(event);
+      perDay.merge(event.getStartTime().toLocalDate(), 1, Integer::sum);
+    }
+    for (int i = 0; i < added.size(); i += 3) {
+      assertTrue(store.remove(added.get(i)));
+      perDay.merge(added.get(i).getStartTime().toLocalDate(), -1, Integer::sum);
+    }
+
+    int total = 0;
+    for (Map.Entry<LocalDate, Integer> day : perDay.entrySet()) {
+      assertEquals(day.getValue().intValue(), store.getEvents(day.getKey()).size());
+      total += day.getValue();
+    }
+    assertEquals(total, store.size());
+    LocalDate previous = LocalDate.MIN;
+    for (IEvent event : list(store.iterator(null, null))) {
+      assertFalse(event.getStartTime().toLocalDate().isBefore(previous));
+      previous = event.getStartTime().toLocalDate();
+    }
+  }
+
+  /**
+   * Test the event manager rules on top of the store: splitting, conflicts, batches, duplicate
+   * skipping, edits and the change log.
+   */
+  @Test
+  public void testEventManagerOnStore() {
+    EventManager manager = new EventManager(store);
+    long watermark = manager.getChangeSequence();
+    manager.addEvent("Trip", "", LocalDateTime.of(2025, 5, 1, 18, 0),
+            LocalDateTime.of(2025, 5, 3, 9, 0), true);
+    assertEquals(3, store.size());
+    try {
+      manager.addEvent("Clash", "", LocalDateTime.of(2025, 5, 2, 10, 0),
+              LocalDateTime.of(2025, 5, 2, 11, 0), true);
+      fail("Expected a conflict");
+    } catch (IllegalArgumentException e) {
+      assertEquals(3, store.size());
+    }
+
+    List<IEvent> batch = new ArrayList<>();
+    batch.add(new OneTimeEvent("A", "", LocalDateTime.of(2025, 5, 4, 9, 0),
+            LocalDateTime.of(2025, 5, 4, 10, 0)));
+    batch.add(new OneTimeEvent("B", "", LocalDateTime.of(2025, 5, 4, 9, 30),
+            LocalDateTime.of(2025, 5, 4, 10, 30)));
+    try {
+      manager.addEvents(batch, true);
+      fail("Expected the batch to be rejected");
+    } catch (IllegalArgumentException e) {
+      assertEquals(3, store.size());
+    }
+    batch.remove(1);
+    assertEquals(1, manager.addNewEvents(batch, true));
+    assertEquals(0, manager.addNewEvents(batch, true));
+
+    manager.editEventSingle("A", LocalDateTime.of(2025, 5, 4, 9, 0),
+            LocalDateTime.of(2025, 5, 4, 10, 0), "name", "Renamed", true);
+    assertEquals("Renamed", manager.searchEvents("Renamed", null, null).get(0).getSubject());
+    manager.addRecurringEvents("Gym", "", LocalDateTime.of(2025, 5, 5, 7, 0),
+            LocalDateTime.of(2025, 5, 5, 8, 0), null, "MWF", 6);
+    manager.editEventRecurring("Gym", null, "description", "legs");
+    assertEquals(6, manager.searchEvents("Gym", null, null).size());
+    assertEquals("legs", manager.searchEvents("Gym", null, null).get(0).getDescription());
+    assertEquals(10, manager.getAllEvents().size());
+    assertEquals(7, list(manager.eventIterator(LocalDateTime.of(2025, 5, 4, 0, 0), null)).size());
+
+    int added = 0;
+    int removed = 0;
+    for (EventChange change : manager.getChangesSince(watermark)) {
+      if (change.isRemoved()) {
+        removed++;
+      } else {
+        added++;
+      }
+    }
+    assertEquals(10, added);
+    assertEquals(7, removed);
+  }
+
+  /**
+   * Test that a journal replays into a new store and drops a record cut short by a crash.
+   */
+  @Test
+  public void testJournalReplay() throws IOException {
+    Assume.assumeTrue(backend.equals("journaled"));
+    Path journal = folder.newFile("calendar.journal").toPath();
+    EventManager manager = new EventManager(JournaledEventStore.open(journal,
+            new TreeEventStore()));
+    manager.addEvent("Keep", "note", LocalDateTime.of(2025, 6, 1, 9, 0),
+            LocalDateTime.of(2025, 6, 1, 10, 0), true);
+    manager.addEvent("Drop", null, LocalDateTime.of(2025, 6, 1, 11, 0),
+            LocalDateTime.of(2025, 6, 1, 12, 0), true);
+    manager.addRecurringEvents("Gym", "", LocalDateTime.of(2025, 6, 2, 7, 0),
+            LocalDateTime.of(2025, 6, 2, 8, 0), null, "MW", 4);
+    manager.removeEvent(manager.searchEvents("Drop", null, null).get(0));
+    manager.close();
+    long length = Files.size(journal);
+    try (RandomAccessFile file = new RandomAccessFile(journal.toFile(), "rw")) {
+      file.seek(length);
+      file.write(new byte[]{'A', 0, 0, 0});
+    }
+
+    EventManager reopened = new EventManager(JournaledEventStore.open(journal,
+            new TreeEventStore()));
+    assertEquals(5, reopened.getAllEvents().size());
+    assertEquals("note", reopened.searchEvents("Keep", null, null).get(0).getDescription());
+    assertTrue(reopened.searchEvents("Drop", null, null).isEmpty());
+    assertEquals(length, Files.size(journal));
+    assertTrue(reopened.containsEvent(new OneTimeEvent("Keep", "note",
+            LocalDateTime.of(2025, 6, 1, 9, 0), LocalDateTime.of(2025, 6, 1, 10, 0))));
+    reopened.close();
+  }
+
+  /**
+   * Test that a journaled calendar closed and reopened at a checkpoint keeps the events it had
+   * then, and that a journal without a directory is scratch space that cannot be reopened.
+   */
+  @Test
+  public void testJournaledCalendarReopened() throws IOException {
+    Assume.assumeTrue(backend.equals("journaled"));
+    ZoneId zone = ZoneId.of("Europe/Paris");
+    CalendarManager manager = new CalendarManager();
+    manager.setStorageDirectory(folder.getRoot().toPath().resolve("stores"));
+    manager.createCalendar("Work", zone, backend);
+    ICalendar calendar = manager.getCalendar("Work");
+    calendar.addEvent("Keep", "note", LocalDateTime.of(2025, 6, 1, 9, 0),
+            LocalDateTime.of(2025, 6, 1, 10, 0));
+    calendar.addRecurringEvents("Gym", "", LocalDateTime.of(2025, 6, 2, 7, 0),
+            LocalDateTime.of(2025, 6, 2, 8, 0), null, "MW", 2);
+    StoreCheckpoint first = calendar.checkpoint();
+    calendar.addEvent("Late", null, LocalDateTime.of(2025, 6, 5, 9, 0),
+            LocalDateTime.of(2025, 6, 5, 10, 0));
+    StoreCheckpoint second = calendar.checkpoint();
+    manager.close();
+
+    CalendarManager reopened = new CalendarManager();
+    reopened.openCalendar("Work", zone, second);
+    assertEquals(4, reopened.getCalendar("Work").getAllEvents().size());
+    assertEquals(zone, reopened.getCalendar("Work").getTimeZone());
+    reopened.close();
+    CalendarManager earlier = new CalendarManager();
+    earlier.openCalendar("Work", zone, first);
+    assertEquals(3, earlier.getCalendar("Work").getAllEvents().size());
+    assertTrue(earlier.getCalendar("Work").searchEvents("Late", null, null).isEmpty());
+    assertNotNull(earlier.getCalendar("Work").checkpoint());
+    earlier.close();
+
+    EventStore scratch = EventStores.create(backend, null);
+    assertNull(scratch.checkpoint());
+    scratch.close();
+  }
+
+  /**
+   * Test that the mapped store reads events nobody references any more back from their records,
+   * removes such a read instance, and reclaims the strings of removed events.
+   */
+  @Test
+  public void testMappedRecords() throws IOException {
+    Assume.assumeTrue(backend.equals("mapped"));
+    LocalDateTime start = LocalDateTime.of(2025, 7, 7, 9, 0);
+    store.add(new RecurringEvent("Gym", null, start, start.plusHours(1), null, "MW", 4));
+    store.add(new OneTimeEvent("Ünïcode", "line\nbreak", start.plusHours(2),
+            start.plusHours(3)));
+    System.gc();
+
+    List<IEvent> day = new ArrayList<>(store.getEvents(start.toLocalDate()));
+    assertEquals(2, day.size());
+    IRecurringEvent gym = (IRecurringEvent) day.get(0);
+    assertEquals("Gym", gym.getSubject());
+    assertNull(gym.getDescription());
+    assertEquals("MW", gym.getRecurringDays());
+    assertNull(gym.getEndRecurring());
+    assertEquals(4, gym.getOccurrences());
+    assertEquals(start.plusHours(1), gym.getEndTime());
+    assertFalse(day.get(1) instanceof IRecurringEvent);
+    assertEquals("line\nbreak", day.get(1).getDescription());
+    assertTrue(store.remove(day.get(1)));
+    assertEquals(1, store.size());
+
+    String description = String.join("", Collections.nCopies(1_000, "x"));
+    for (int i = 0; i < 2_000; i++) {
+      IEvent churn = new OneTimeEvent("Churn " + i, description, start.plusDays(1),
+              start.plusDays(1).plusHours(1));
+      store.add(churn);
+      assertTrue(store.remove(churn));
+    }
+    long bytes = 0;
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        bytes += Files.size(file);
+      }
+    }
+    assertTrue("mapped files hold " + bytes + " bytes", bytes < 1_000_000);
+    assertEquals("Gym", store.iterator(null, null).next().getSubject());
+  }
+
+  /**
+   * Test that unknown backends are reported with the known names.
+   */
+  @Test
+  public void testUnknownBackend() {
+    try {
+      EventStores.getFactory("missing-" + backend);
+      fail("Expected an unknown backend");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains(backend));
+    }
+  }
+
+  private static IEvent event(String subject, int year, int month, int day, int hour) {
+    LocalDateTime start = LocalDateTime.of(year, month, day, hour, 0);
+    return new OneTimeEvent(subject, "", start, start.plusMinutes(30));
+  }
+
+  private static List<IEvent> list(Iterator<IEvent> iterator) {
+    List<IEvent> events = new ArrayList<>();
+    iterator.forEachRemaining(events::add);
+    return events;
+  }
+}
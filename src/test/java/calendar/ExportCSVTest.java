@@ -0,0 +1,117 @@
+package calendar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import calendar.model.Calendar;
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+import calendar.utils.ExportCSV;
+import calendar.utils.ParallelExportCSV;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for the CSV exporters.
+ */
+public class ExportCSVTest {
+  private static final String CHANGES_HEADER =
+          "Change,Subject,Start Date,Start Time,End Date,End Time,Description\n";
+  private Calendar calendar;
+
+  /**
+   * Setting up a calendar spanning several export chunks.
+   */
+  @Before
+  public void setUp() {
+    calendar = new Calendar(ZoneOffset.UTC);
+    List<IEvent> events = new ArrayList<>();
+    LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+    for (int i = 0; i < 10_000; i++) {
+      LocalDateTime eventStart = start.plusMinutes(37L * i);
+      String description = i % 7 == 0 ? "Notes, \"quoted\"\nsecond line" : "Übung " + i;
+      events.add(new OneTimeEvent("Event " + i, description, eventStart,
+              eventStart.plusMinutes(30)));
+    }
+    calendar.restoreEvents(events);
+  }
+
+  /**
+   * Test that the parallel export writes exactly the bytes of the sequential export.
+   */
+  @Test
+  public void testParallelExportMatchesSequential() throws Exception {
+    String expected = new ExportCSV().exportEvents(calendar.getEventManager());
+
+    Path file = Files.createTempFile("parallel", ".csv");
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      new ParallelExportCSV(pool).export(calendar.getEventManager(), channel);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(expected, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    Files.delete(file);
+  }
+
+  /**
+   * Test that channels without gathering writes fall back to the sequential export.
+   */
+  @Test
+  public void testParallelExportFallback() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new ParallelExportCSV().export(calendar.getEventManager(), Channels.newChannel(output));
+    assertEquals(new ExportCSV().exportEvents(calendar.getEventManager()),
+            output.toString(StandardCharsets.UTF_8.name()));
+  }
+
+  /**
+   * Test that a change export only holds events changed after the watermark.
+   */
+  @Test
+  public void testExportChangesSinceWatermark() throws Exception {
+    ExportCSV exporter = new ExportCSV();
+    StringWriter full = new StringWriter();
+    long watermark = exporter.exportChanges(calendar.getEventManager(), 0, full);
+    assertTrue(full.toString().startsWith(CHANGES_HEADER + "reset,,,,,,\n"));
+    assertTrue(full.toString().contains("\nadded,Event 0,"));
+
+    calendar.addEvent("Nightly", "", LocalDateTime.of(2030, 1, 1, 1, 0),
+            LocalDateTime.of(2030, 1, 1, 2, 0));
+    calendar.removeEvent(calendar.searchEvents("Event 5", null, null).get(0));
+    StringWriter delta = new StringWriter();
+    long next = exporter.exportChanges(calendar.getEventManager(), watermark, delta);
+
+    assertEquals(CHANGES_HEADER
+            + "added,Nightly,01/01/2030,01:00 AM,01/01/2030,02:00 AM,\n"
+            + "removed,Event 5,01/01/2024,11:05 AM,01/01/2024,11:35 AM,Übung 5\n",
+            delta.toString());
+    assertEquals(watermark + 2, next);
+
+    StringWriter empty = new StringWriter();
+    assertEquals(next, exporter.exportChanges(calendar.getEventManager(), next, empty));
+    assertEquals(CHANGES_HEADER, empty.toString());
+
+    calendar.getEventManager().discardTombstones(next);
+    StringWriter reset = new StringWriter();
+    exporter.exportChanges(calendar.getEventManager(), watermark, reset);
+    assertTrue(reset.toString().contains("\nreset,,,,,,\n"));
+  }
+}
@@ -3,12 +3,36 @@ package calendar;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import calendar.controller.CommandController;
 import calendar.manager.CalendarManager;
+import calendar.manager.IEventManager;
+import calendar.model.ICalendar;
+import calendar.model.IEvent;
+import calendar.persistence.PersistentStore;
+import calendar.utils.ExportCSV;
 import calendar.utils.ExportUtils;
+import calendar.utils.MetricsRegistry;
+import calendar.view.CommandOutput;
+import calendar.view.HeadlessPipeline;
+import calendar.view.ParallelHeadlessExecutor;
 import calendar.view.Interpreter;
 
 import static org.junit.Assert.assertEquals;
@@ -1537,4 +1561,484 @@ public class FeaturesTest {
     String input = "  Meeting, with \"team\"  ";
     assertEquals("\"  Meeting, with \"\"team\"\"  \"", exportUtils.escapeCSV(input));
   }
+
+  /**
+   * Tests that appending an escaped field matches escapeCSV.
+   */
+  @Test
+  public void testAppendEscapedCSVMatchesEscapeCSV() {
+    String[] inputs = {null, "", "Meeting", "Meeting, with \"team\"\nand clients", "\""};
+    for (String input : inputs) {
+      StringBuilder record = new StringBuilder();
+      exportUtils.appendEscapedCSV(input, record);
+      assertEquals(exportUtils.escapeCSV(input), record.toString());
+    }
+  }
+
+  /**
+   * Tests that the streaming export writes the same content as the string export.
+   */
+  @Test
+  public void testStreamingExportMatchesStringExport() throws Exception {
+    commandController.parseCommand(
+            "create event Review from 2025-03-25T14:00 to 2025-03-26T09:00");
+    commandController.parseCommand(
+            "create event Sync from 2025-03-27T10:00 to 2025-03-27T11:00 repeats MTWRF for 3");
+    IEventManager eventManager = ((CalendarManager) commandController.getCalendarManager())
+            .getActiveCalendar().getEventManager();
+    ExportCSV exporter = new ExportCSV();
+
+    ByteArrayOutputStream channelOutput = new ByteArrayOutputStream();
+    exporter.export(eventManager, Channels.newChannel(channelOutput));
+
+    String expected = exporter.exportEvents(eventManager);
+    assertEquals(expected, channelOutput.toString(StandardCharsets.UTF_8.name()));
+    assertEquals(6, expected.split("\n").length);
+  }
+
+  /**
+   * Tests that a range export to a .gz file only holds the range and can be imported back.
+   */
+  @Test
+  public void testCompressedRangeExport() throws Exception {
+    commandController.parseCommand("create event January from 2025-01-15T10:00 to "
+            + "2025-01-15T11:00");
+    commandController.parseCommand("create event March from 2025-03-31T22:00 to "
+            + "2025-03-31T23:00");
+    commandController.parseCommand("create event April from 2025-04-01T09:00 to "
+            + "2025-04-01T10:00");
+    Path file = Files.createTempFile("quarter", ".csv.gz");
+    try {
+      commandController.parseCommand("export cal " + file + " --from 2025-01-01 --to 2025-03-31");
+
+      String csv;
+      try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+        csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      }
+      assertTrue(csv.contains("January,01/15/2025"));
+      assertTrue(csv.contains("March,03/31/2025"));
+      assertFalse(csv.contains("April"));
+
+      commandController.parseCommand("create calendar --name Archive --timezone UTC");
+      commandController.parseCommand("use calendar --name Archive");
+      commandController.parseCommand("import cal " + file);
+      assertEquals(2, ((CalendarManager) commandController.getCalendarManager())
+              .getActiveCalendar().getAllEvents().size());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Tests that the headless pipeline executes the lines before a bad line, reports the bad line
+   * with its number, and executes nothing after it.
+   */
+  @Test
+  public void testHeadlessPipelineStopsAtFirstError() {
+    String script = "create event Before from 2025-02-03T09:00 to 2025-02-03T10:00\n"
+            + "\n"
+            + "create event Broken from 2025-02-03T11:00 until 2025-02-03T12:00\n"
+            + "create event After from 2025-02-03T13:00 to 2025-02-03T14:00\n"
+            + "exit\n";
+    new HeadlessPipeline(commandController, 1).run(new BufferedReader(new StringReader(script)));
+
+    String output = outputStream.toString().replaceAll("\\R", "\n");
+    assertTrue(output.contains("Command: create event Before"));
+    assertTrue(output.contains("Error at line 3: create event Broken"));
+    assertTrue(output.contains("Reason: Expected 'to' after start date/time."));
+    assertFalse(output.contains("Command: create event After"));
+    List<IEvent> events = ((CalendarManager) commandController.getCalendarManager())
+            .getActiveCalendar().getAllEvents();
+    assertEquals(1, events.size());
+    assertEquals("Before", events.get(0).getSubject());
+  }
+
+  /**
+   * Tests that a quiet JSON lines output leaves out the command echo and writes query results
+   * as records.
+   */
+  @Test
+  public void testHeadlessJsonLinesOutput() throws Exception {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    commandController.setOutput(new CommandOutput(new PrintStream(buffer, false, "UTF-8"),
+            CommandOutput.Format.JSON, true));
+    String script = "create event \"Plan\" from 2025-02-03T09:00 to 2025-02-03T10:00\n"
+            + "print events on 2025-02-03\n"
+            + "show status on 2025-02-03T09:30\n"
+            + "exit\n";
+    new HeadlessPipeline(commandController, 4).run(new BufferedReader(new StringReader(script)));
+
+    String[] lines = buffer.toString("UTF-8").split("\\R");
+    assertEquals(3, lines.length);
+    assertEquals("{\"type\":\"event\",\"subject\":\"\\\"Plan\\\"\",\"description\":\"\","
+            + "\"start\":\"2025-02-03T09:00\",\"end\":\"2025-02-03T10:00\"}", lines[0]);
+    assertEquals("{\"type\":\"status\",\"time\":\"2025-02-03T09:30\",\"busy\":true}", lines[1]);
+    assertEquals("{\"type\":\"message\",\"text\":\"Exit command found. Terminating headless "
+            + "mode.\"}", lines[2]);
+    assertEquals("", outputStream.toString());
+  }
+
+  /**
+   * Tests that running a script with the calendars partitioned over worker threads prints the
+   * same output and leaves the same events as a serial run, up to the first error.
+   */
+  @Test
+  public void testParallelHeadlessMatchesSerialRun() throws Exception {
+    StringBuilder script = new StringBuilder()
+            .append("create calendar --name Work --timezone America/New_York\n")
+            .append("create calendar --name Home --timezone Europe/London\n");
+    for (int day = 1; day <= 9; day++) {
+      script.append("use calendar --name Work\n")
+              .append("create event Standup from 2025-03-0").append(day).append("T09:00 to ")
+              .append("2025-03-0").append(day).append("T09:15\n")
+              .append("use calendar --name Home\n")
+              .append("create event Gym from 2025-03-0").append(day).append("T18:00 to ")
+              .append("2025-03-0").append(day).append("T19:00\n")
+              .append("print events on 2025-03-0").append(day).append("\n");
+    }
+    script.append("copy event Gym on 2025-03-02T18:00 --target Work to 2025-03-02T20:00\n")
+            .append("use calendar --name Work\n")
+            .append("print events from 2025-03-01T00:00 to 2025-03-03T00:00\n")
+            .append("show status on 2025-03-02T20:30\n")
+            .append("\n")
+            .append("create event Broken from 2025-03-04T11:00 until 2025-03-04T12:00\n")
+            .append("use calendar --name Home\n")
+            .append("print events on 2025-03-05\n")
+            .append("exit\n");
+
+    CommandController serial = new CommandController(new CalendarManager(), new Interpreter());
+    ByteArrayOutputStream serialOutput = new ByteArrayOutputStream();
+    serial.setOutput(new CommandOutput(new PrintStream(serialOutput, false, "UTF-8"),
+            CommandOutput.Format.TEXT, false));
+    new HeadlessPipeline(serial, 4)
+            .run(new BufferedReader(new StringReader(script.toString())));
+
+    CommandController parallel = new CommandController(new CalendarManager(), new Interpreter());
+    ByteArrayOutputStream parallelOutput = new ByteArrayOutputStream();
+    parallel.setOutput(new CommandOutput(new PrintStream(parallelOutput, false, "UTF-8"),
+            CommandOutput.Format.TEXT, false));
+    new ParallelHeadlessExecutor(parallel, 4)
+            .run(new BufferedReader(new StringReader(script.toString())));
+
+    String expected = serialOutput.toString("UTF-8");
+    assertTrue(expected.contains("Error at line 53: create event Broken"));
+    assertTrue(expected.trim().endsWith("Reason: Expected 'to' after start date/time."));
+    assertEquals(expected, parallelOutput.toString("UTF-8"));
+    for (String name : new String[] {"Work", "Home"}) {
+      assertEquals(serial.getCalendarManager().getCalendar(name).getAllEvents().size(),
+              parallel.getCalendarManager().getCalendar(name).getAllEvents().size());
+    }
+    assertEquals(10, parallel.getCalendarManager().getCalendar("Work").getAllEvents().size());
+  }
+  /**
+   * Tests that lines of other calendars that run ahead of a line failing at execution have their
+   * changes undone and are not journaled, so the calendars end as after a serial run.
+   */
+  @Test
+  public void testParallelHeadlessFailureMatchesSerialRun() throws Exception {
+    StringBuilder script = new StringBuilder()
+            .append("create calendar --name Work --timezone UTC\n")
+            .append("create calendar --name Home --timezone UTC\n")
+            .append("use calendar --name Home\n")
+            .append("create event Laundry from 2025-03-01T08:00 to 2025-03-01T09:00\n")
+            .append("use calendar --name Work\n");
+    for (int day = 1; day <= 28; day++) {
+      script.append(String.format("create event Standup from 2025-02-%02dT09:00 to "
+              + "2025-02-%02dT09:15%n", day, day));
+    }
+    script.append("create event Clash from 2025-02-28T09:00 to 2025-02-28T09:15\n")
+            .append("use calendar --name Home\n");
+    for (int day = 2; day <= 28; day++) {
+      script.append(String.format("create event Gym from 2025-03-%02dT18:00 to "
+              + "2025-03-%02dT19:00%n", day, day));
+      script.append(String.format("edit event description Laundry from 2025-03-01T08:00 to "
+              + "2025-03-01T09:00 with Round%d%n", day));
+    }
+    script.append("exit\n");
+
+    CommandController serial = new CommandController(new CalendarManager(), new Interpreter());
+    ByteArrayOutputStream serialOutput = new ByteArrayOutputStream();
+    serial.setOutput(new CommandOutput(new PrintStream(serialOutput, false, "UTF-8"),
+            CommandOutput.Format.TEXT, false));
+    new HeadlessPipeline(serial, 4)
+            .run(new BufferedReader(new StringReader(script.toString())));
+
+    Path dataDir = Files.createTempDirectory("parallel");
+    CalendarManager parallelManager = new CalendarManager();
+    CommandController parallel = new CommandController(parallelManager, new Interpreter());
+    ByteArrayOutputStream parallelOutput = new ByteArrayOutputStream();
+    parallel.setOutput(new CommandOutput(new PrintStream(parallelOutput, false, "UTF-8"),
+            CommandOutput.Format.TEXT, false));
+    parallel.setPersistentStore(new PersistentStore(dataDir, parallelManager, 1000));
+    new ParallelHeadlessExecutor(parallel, 4)
+            .run(new BufferedReader(new StringReader(script.toString())));
+
+    String expected = serialOutput.toString("UTF-8");
+    assertTrue(expected, expected.contains("Error at line 34: create event Clash"));
+    assertEquals(expected, parallelOutput.toString("UTF-8"));
+    for (String name : new String[] {"Work", "Home"}) {
+      assertEquals(describeEvents(serial.getCalendarManager().getCalendar(name)),
+              describeEvents(parallelManager.getCalendar(name)));
+    }
+
+    CalendarManager recovered = new CalendarManager();
+    CommandController replay = new CommandController(recovered, new Interpreter());
+    new PersistentStore(dataDir, recovered, 1000).recover(replay::parseCommand);
+    for (String name : new String[] {"Work", "Home"}) {
+      assertEquals(describeEvents(parallelManager.getCalendar(name)),
+              describeEvents(recovered.getCalendar(name)));
+    }
+  }
+
+  private static List<String> describeEvents(ICalendar calendar) {
+    List<String> events = new ArrayList<>();
+    for (IEvent event : calendar.getAllEvents()) {
+      events.add(event.getSubject() + " " + event.getDescription() + " " + event.getStartTime()
+              + " " + event.getEndTime());
+    }
+    Collections.sort(events);
+    return events;
+  }
+
+
+  /**
+   * Tests that the parallel executor requires at least one worker thread.
+   */
+  @Test
+  public void testParallelHeadlessRequiresThreads() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new ParallelHeadlessExecutor(commandController, 0));
+  }
+
+  /**
+   * Tests that the events created in a batch are only added when it is committed.
+   */
+  @Test
+  public void testBatchCommitAddsEventsTogether() {
+    commandController.parseCommand("begin batch");
+    commandController.parseCommand("create event Plan from 2025-04-01T09:00 to 2025-04-01T10:00");
+    commandController.parseCommand("create event Build from 2025-04-01T10:00 to 2025-04-02T12:00");
+    commandController.parseCommand("create event Sync from 2025-04-07T09:00 to "
+            + "2025-04-07T09:30 repeats MF for 3");
+    assertTrue(commandController.isBatchOpen());
+    assertEquals(0, commandController.getCalendarManager().getActiveCalendar()
+            .getAllEvents().size());
+
+    commandController.parseCommand("commit");
+    assertFalse(commandController.isBatchOpen());
+    assertEquals(6, commandController.getCalendarManager().getActiveCalendar()
+            .getAllEvents().size());
+  }
+
+  /**
+   * Tests that a batch with a conflicting event adds nothing to any calendar and is closed.
+   */
+  @Test
+  public void testBatchCommitConflictAddsNothing() {
+    commandController.parseCommand("create calendar --name Side --timezone America/New_York");
+    commandController.parseCommand("create event Existing from 2025-04-01T09:00 to "
+            + "2025-04-01T10:00");
+    commandController.parseCommand("begin batch");
+    commandController.parseCommand("create event Free from 2025-04-02T09:00 to 2025-04-02T10:00");
+    commandController.parseCommand("use calendar --name Side");
+    commandController.parseCommand("create event First from 2025-04-03T09:00 to "
+            + "2025-04-03T11:00");
+    commandController.parseCommand("create event Second from 2025-04-03T10:00 to "
+            + "2025-04-03T12:00");
+
+    Exception exception = assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("commit"));
+    assertEquals("Conflicted event 'Second' at 2025-04-03T10:00 and auto-decline is enabled.",
+            exception.getMessage());
+    assertFalse(commandController.isBatchOpen());
+    assertEquals("Side", commandController.getCalendarManager().getActiveCalendarName());
+    assertEquals(1, commandController.getCalendarManager().getCalendar("MainCalendar")
+            .getAllEvents().size());
+    assertEquals(0, commandController.getCalendarManager().getCalendar("Side")
+            .getAllEvents().size());
+  }
+
+  /**
+   * Tests that discarding tombstones up to an exported watermark drops the removed events from
+   * the change history, and that an export from before the watermark then starts over.
+   */
+  @Test
+  public void testDiscardTombstones() throws Exception {
+    commandController.parseCommand("create event Draft from 2025-04-01T09:00 to "
+            + "2025-04-01T10:00");
+    commandController.parseCommand("edit event name Draft from 2025-04-01T09:00 "
+            + "to 2025-04-01T10:00 with Final");
+    IEventManager events = commandController.getCalendarManager().getActiveCalendar()
+            .getEventManager();
+    long watermark = events.getChangeSequence();
+    assertEquals(2, events.getChangesSince(events.getHistoryStart()).size());
+
+    commandController.parseCommand("discard tombstones " + watermark);
+    assertEquals(watermark, events.getHistoryStart());
+    assertTrue(events.getChangesSince(watermark).isEmpty());
+    Path file = Files.createTempFile("changes", ".csv");
+    try {
+      commandController.parseCommand("export cal " + file + " --since 0");
+      String csv = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      assertTrue(csv.contains("\nreset,"));
+      assertTrue(csv.contains("Final"));
+      assertFalse(csv.contains("Draft"));
+    } finally {
+      Files.delete(file);
+    }
+
+    Exception exception = assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("discard tombstones soon"));
+    assertEquals("Invalid watermark: soon", exception.getMessage());
+  }
+
+  /**
+   * Tests rolling back a batch and the commands refused inside a batch.
+   */
+  @Test
+  public void testBatchRollbackAndRefusedCommands() {
+    commandController.parseCommand("begin batch");
+    commandController.parseCommand("create event Draft from 2025-04-01T09:00 to "
+            + "2025-04-01T10:00");
+    Exception exception = assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("edit event subject Draft from 2025-04-01T09:00 "
+                + "to 2025-04-01T10:00 with Final"));
+    assertEquals("Command 'edit event' cannot be used inside a batch; commit or rollback first.",
+            exception.getMessage());
+    exception = assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("begin batch"));
+    assertEquals("A batch is already open.", exception.getMessage());
+    exception = assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("commit now"));
+    assertEquals("Unexpected argument after 'commit': now", exception.getMessage());
+    exception = assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("begin batch twice"));
+    assertEquals("Unexpected argument after 'begin batch': twice", exception.getMessage());
+
+    commandController.parseCommand("rollback");
+    assertEquals(0, commandController.getCalendarManager().getActiveCalendar()
+            .getAllEvents().size());
+    exception = assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("commit"));
+    assertEquals("No batch is open.", exception.getMessage());
+  }
+
+  /**
+   * Tests that the controller counts executed and failed commands by type and shows them as
+   * metric records.
+   */
+  @Test
+  public void testShowMetricsCountsCommands() throws Exception {
+    MetricsRegistry metrics = new MetricsRegistry();
+    commandController.setMetrics(metrics);
+    commandController.parseCommand("create event Standup from 2025-05-05T09:00 to "
+            + "2025-05-05T09:15");
+    commandController.parseCommand("create event Review from 2025-05-05T10:00 to "
+            + "2025-05-05T11:00");
+    assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("create event Clash from 2025-05-05T10:30 to "
+                + "2025-05-05T11:30"));
+    assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("launch rockets"));
+    assertThrows(IllegalArgumentException.class,
+        () -> commandController.parseCommand("show metrics now"));
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    commandController.setOutput(new CommandOutput(new PrintStream(buffer, false, "UTF-8"),
+            CommandOutput.Format.JSON, true));
+    commandController.parseCommand("show metrics");
+
+    String[] lines = buffer.toString("UTF-8").split("\\R");
+    assertEquals(3, lines.length);
+    assertTrue(lines[0], lines[0].startsWith("{\"type\":\"metric\",\"name\":\"create event\","
+            + "\"count\":3,\"errors\":1,"));
+    assertTrue(lines[1], lines[1].startsWith("{\"type\":\"metric\",\"name\":\"invalid\","
+            + "\"count\":2,\"errors\":2,"));
+    assertTrue(lines[2], lines[2].startsWith("{\"type\":\"metric\",\"name\":\"show metrics\","
+            + "\"count\":0,"));
+    assertEquals(1, metrics.timer("show metrics").getCount());
+  }
+
+  /**
+   * Tests that latency percentiles are read from the histogram to within a quarter of their
+   * value, and that the maximum is exact.
+   */
+  @Test
+  public void testMetricsPercentiles() {
+    MetricsRegistry.Timer timer = new MetricsRegistry().timer("test");
+    assertEquals(0, timer.getPercentileNanos(0.99));
+    for (long micros = 1; micros <= 1000; micros++) {
+      timer.record(micros * 1000, false);
+    }
+    assertEquals(1000, timer.getCount());
+    assertEquals(500_500, timer.getMeanNanos(), 0.001);
+    assertEquals(1_000_000, timer.getMaxNanos());
+    long p50 = timer.getPercentileNanos(0.50);
+    assertTrue(String.valueOf(p50), p50 >= 500_000 && p50 <= 625_000);
+    long p99 = timer.getPercentileNanos(0.99);
+    assertTrue(String.valueOf(p99), p99 >= 990_000 && p99 <= 1_000_000);
+    assertTrue(new MetricsRegistry().report().startsWith("No metrics"));
+  }
+
+  /**
+   * Tests that a flight recording holds the calendar events of the executed commands, with their
+   * fields filled in.
+   */
+  @Test
+  public void testFlightRecorderEvents() throws Exception {
+    Path file = Files.createTempFile("calendar", ".jfr");
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable("calendar.CommandExecution");
+      recording.enable("calendar.ConflictCheck");
+      recording.enable("calendar.RecurringExpansion");
+      recording.enable("calendar.TimezoneRewrite");
+      recording.start();
+      commandController.parseCommand("create event Standup from 2025-06-02T09:00 to "
+              + "2025-06-02T09:15 repeats MWF for 6");
+      assertThrows(IllegalArgumentException.class,
+          () -> commandController.parseCommand("create event Clash from 2025-06-04T09:00 to "
+                  + "2025-06-04T09:30"));
+      commandController.parseCommand("edit calendar --name MainCalendar --property timezone "
+              + "Europe/Paris");
+      recording.stop();
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+
+    List<String> commands = new ArrayList<>();
+    int conflicts = 0;
+    for (RecordedEvent event : events) {
+      switch (event.getEventType().getName()) {
+        case "calendar.CommandExecution":
+          commands.add(event.getString("command") + " " + event.getString("calendar") + " "
+                  + event.getBoolean("failed"));
+          break;
+        case "calendar.ConflictCheck":
+          if (event.getBoolean("conflict")) {
+            conflicts++;
+            assertEquals(1, event.getInt("events"));
+          }
+          break;
+        case "calendar.RecurringExpansion":
+          assertEquals("MWF", event.getString("recurringDays"));
+          assertEquals(6, event.getInt("occurrences"));
+          assertEquals(11, event.getLong("windowDays"));
+          break;
+        case "calendar.TimezoneRewrite":
+          assertEquals("MainCalendar", event.getString("calendar"));
+          assertEquals("America/New_York", event.getString("fromZone"));
+          assertEquals("Europe/Paris", event.getString("toZone"));
+          assertEquals(6, event.getInt("events"));
+          break;
+        default:
+          fail("Unexpected event " + event.getEventType().getName());
+      }
+    }
+    assertEquals(1, conflicts);
+    assertEquals(List.of("create event MainCalendar false", "create event MainCalendar true",
+            "edit calendar MainCalendar false"), commands);
+  }
 }
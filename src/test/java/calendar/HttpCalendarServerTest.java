@@ -0,0 +1,164 @@
+package calendar;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import calendar.manager.CalendarManager;
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+import calendar.view.HttpCalendarServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for the JSON API of the HTTP server.
+ */
+public class HttpCalendarServerTest {
+  private CalendarManager manager;
+  private HttpCalendarServer server;
+  private HttpClient client;
+
+  /**
+   * Starting a server on a free loopback port with one calendar.
+   */
+  @Before
+  public void setUp() throws Exception {
+    manager = new CalendarManager();
+    manager.createCalendar("Work", ZoneId.of("UTC"));
+    manager.useCalendar("Work");
+    manager.getActiveCalendar().addEvent("Standup", "Daily",
+            LocalDateTime.of(2025, 3, 3, 9, 0), LocalDateTime.of(2025, 3, 3, 9, 15));
+    server = new HttpCalendarServer(manager, 0);
+    server.start();
+    client = HttpClient.newHttpClient();
+  }
+
+  /**
+   * Stopping the server.
+   */
+  @After
+  public void tearDown() {
+    server.close();
+  }
+
+  /**
+   * Tests listing calendars and events, and answering 304 until the calendar changes.
+   */
+  @Test
+  public void testEventsWithConditionalGet() throws Exception {
+    assertEquals("[{\"name\":\"Work\",\"timezone\":\"UTC\"}]",
+            get("/calendars", null).body());
+
+    HttpResponse<String> events = get("/calendars/Work/events?from=2025-03-03&to=2025-03-03",
+            null);
+    assertEquals(200, events.statusCode());
+    assertEquals("[{\"subject\":\"Standup\",\"description\":\"Daily\","
+            + "\"start\":\"2025-03-03T09:00\",\"end\":\"2025-03-03T09:15\"}]", events.body());
+    String etag = events.headers().firstValue("ETag").get();
+    assertEquals(304, get("/calendars/Work/events", etag).statusCode());
+
+    HttpResponse<String> added = post("/calendars/Work/events", "[{\"subject\":\"Review\","
+            + "\"start\":\"2025-03-03T10:00\",\"end\":\"2025-03-03T11:00\"}]");
+    assertEquals(201, added.statusCode());
+    assertTrue(added.body().startsWith("{\"added\":1,"));
+    HttpResponse<String> changed = get("/calendars/Work/events", etag);
+    assertEquals(200, changed.statusCode());
+    assertNotEquals(etag, changed.headers().firstValue("ETag").get());
+    assertTrue(changed.body().contains("\"subject\":\"Review\""));
+
+    assertEquals("{\"from\":\"2025-03-03T00:00\",\"to\":\"2025-03-03T23:59\",\"busy\":["
+            + "{\"start\":\"2025-03-03T09:00\",\"end\":\"2025-03-03T09:15\"},"
+            + "{\"start\":\"2025-03-03T10:00\",\"end\":\"2025-03-03T11:00\"}]}",
+            get("/calendars/Work/freebusy?from=2025-03-03&to=2025-03-03", null).body());
+  }
+
+  /**
+   * Tests that bad requests are answered with a status and a reason and change nothing.
+   */
+  @Test
+  public void testErrors() throws Exception {
+    assertEquals(404, get("/calendars/Home/events", null).statusCode());
+    assertEquals(404, get("/calendars/Work/tasks", null).statusCode());
+    HttpResponse<String> conflict = post("/calendars/Work/events", "[{\"subject\":\"Lunch\","
+            + "\"start\":\"2025-03-04T12:00\",\"end\":\"2025-03-04T13:00\"},{\"subject\":\"Clash\","
+            + "\"start\":\"2025-03-03T09:05\",\"end\":\"2025-03-03T09:30\"}]");
+    assertEquals(409, conflict.statusCode());
+    assertTrue(conflict.body().startsWith("{\"error\":"));
+    assertEquals(1, manager.getCalendar("Work").getAllEvents().size());
+    assertEquals(400, post("/calendars/Work/events", "[{\"subject\":\"Lunch\"}]").statusCode());
+    assertEquals(400, get("/calendars/Work/freebusy?from=2025-03-03", null).statusCode());
+    assertEquals(409, post("/calendars?name=Work&timezone=UTC", "").statusCode());
+    assertEquals(201, post("/calendars?name=Home&timezone=Asia%2FKolkata", "").statusCode());
+    assertEquals("Asia/Kolkata", manager.getCalendar("Home").getTimeZone().getId());
+  }
+
+  /**
+   * Tests that a listing longer than one chunk writes every event of the range exactly once,
+   * also when a chunk ends in the middle of a day.
+   */
+  @Test
+  public void testListingSpansChunks() throws Exception {
+    List<IEvent> events = new ArrayList<>();
+    LocalDateTime start = LocalDateTime.of(2025, 4, 1, 0, 0);
+    for (int i = 0; i < 3_000; i++) {
+      events.add(new OneTimeEvent("E" + i, null, start.plusMinutes(i),
+              start.plusMinutes(i + 1)));
+    }
+    manager.getCalendar("Work").restoreEvents(events);
+
+    assertEquals(3_000, subjects(get("/calendars/Work/events?from=2025-04-01", null).body())
+            .size());
+    Set<String> later = subjects(get("/calendars/Work/events?from=2025-04-01T01:00", null)
+            .body());
+    assertEquals(3_000 - 60, later.size());
+    assertTrue(later.contains("E2999"));
+    assertFalse(later.contains("E59"));
+  }
+
+  private static Set<String> subjects(String body) {
+    Set<String> subjects = new HashSet<>();
+    Matcher matcher = Pattern.compile("\"subject\":\"([^\"]*)\"").matcher(body);
+    int count = 0;
+    while (matcher.find()) {
+      subjects.add(matcher.group(1));
+      count++;
+    }
+    assertEquals(count, subjects.size());
+    return subjects;
+  }
+
+  private HttpResponse<String> get(String path, String ifNoneMatch) throws Exception {
+    HttpRequest.Builder request = HttpRequest.newBuilder(uri(path));
+    if (ifNoneMatch != null) {
+      request.header("If-None-Match", ifNoneMatch);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private HttpResponse<String> post(String path, String body) throws Exception {
+    return client.send(HttpRequest.newBuilder(uri(path))
+            .POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+            HttpResponse.BodyHandlers.ofString());
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://127.0.0.1:" + server.getPort() + path);
+  }
+}
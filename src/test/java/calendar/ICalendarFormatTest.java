@@ -0,0 +1,204 @@
+package calendar;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import calendar.controller.CommandController;
+import calendar.manager.CalendarManager;
+import calendar.model.Calendar;
+import calendar.model.IEvent;
+import calendar.utils.ExportICS;
+import calendar.utils.ImportICS;
+import calendar.view.Interpreter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the iCalendar exporter and importer.
+ */
+public class ICalendarFormatTest {
+
+  /**
+   * Test that a multi-year daily series is exported as a single event with a rule.
+   */
+  @Test
+  public void testSeriesExportedAsRule() {
+    Calendar calendar = new Calendar(ZoneOffset.UTC);
+    calendar.addRecurringEvents("Daily", "Every day", LocalDateTime.of(2020, 1, 1, 7, 0),
+            LocalDateTime.of(2020, 1, 1, 7, 30), null, "MTWRFSU", 1500);
+
+    String ics = new ExportICS(calendar.getTimeZone()).exportEvents(calendar.getEventManager());
+
+    assertEquals(1, count(ics, "BEGIN:VEVENT"));
+    assertTrue(ics.contains("RRULE:FREQ=WEEKLY;BYDAY=MO,TU,WE,TH,FR,SA,SU;COUNT=1500\r\n"));
+    assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"));
+  }
+
+  /**
+   * Test that single, multi day, edited and recurring events survive a round trip.
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    Calendar calendar = new Calendar(ZoneOffset.UTC);
+    calendar.setAutoDeclineConflicts(true);
+    calendar.addEvent("Review; \"final\", v2", "Line one\nLine two \\ with a long enough "
+                    + "description to be folded across several physical lines of the file",
+            LocalDateTime.of(2025, 3, 3, 9, 0), LocalDateTime.of(2025, 3, 3, 10, 30));
+    calendar.addEvent("Trip", "Café tour", LocalDateTime.of(2025, 3, 22, 18, 0),
+            LocalDateTime.of(2025, 3, 23, 8, 0));
+    calendar.addRecurringEvents("Standup", "", LocalDateTime.of(2025, 3, 4, 8, 0),
+            LocalDateTime.of(2025, 3, 4, 8, 15), null, "TR", 6);
+    calendar.addRecurringEvents("Gym", null, LocalDateTime.of(2025, 4, 1, 18, 0),
+            LocalDateTime.of(2025, 4, 1, 19, 0), LocalDateTime.of(2025, 4, 30, 23, 59), "MWF", 0);
+    calendar.removeEvent(calendar.searchEvents("Gym", LocalDateTime.of(2025, 4, 9, 0, 0),
+            LocalDateTime.of(2025, 4, 9, 23, 59)).get(0));
+    String ics = new ExportICS(calendar.getTimeZone()).exportEvents(calendar.getEventManager());
+    for (String line : ics.split("\r\n")) {
+      assertTrue(line, line.getBytes("UTF-8").length <= 75);
+    }
+
+    Calendar copy = new Calendar(ZoneOffset.UTC);
+    new ImportICS().importEvents(new StringReader(ics), copy);
+
+    assertEquals(describe(calendar.getAllEvents()), describe(copy.getAllEvents()));
+  }
+
+  /**
+   * Test that times carry the calendar zone, described by a VTIMEZONE, so a calendar in another
+   * zone imports them at the same instant.
+   */
+  @Test
+  public void testTimesExportedWithTimeZone() throws Exception {
+    Calendar calendar = new Calendar(ZoneId.of("America/New_York"));
+    calendar.addEvent("Planning", "", LocalDateTime.of(2025, 6, 10, 9, 0),
+            LocalDateTime.of(2025, 6, 10, 10, 0));
+    calendar.addRecurringEvents("Gym", null, LocalDateTime.of(2025, 6, 2, 18, 0),
+            LocalDateTime.of(2025, 6, 2, 19, 0), LocalDateTime.of(2025, 6, 13, 18, 0), "MWF", 0);
+
+    String ics = new ExportICS(calendar.getTimeZone()).exportEvents(calendar.getEventManager());
+
+    assertTrue(ics.contains("BEGIN:VTIMEZONE\r\nTZID:America/New_York\r\n"));
+    assertTrue(ics.contains("TZOFFSETFROM:-0500\r\nTZOFFSETTO:-0400\r\n"
+            + "RRULE:FREQ=YEARLY;BYMONTH=3;BYDAY=2SU\r\n"));
+    assertTrue(ics.contains("DTSTART;TZID=America/New_York:20250610T090000\r\n"));
+    assertTrue(ics.contains("RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;UNTIL=20250613T220000Z\r\n"));
+    Calendar london = new Calendar(ZoneId.of("Europe/London"));
+    new ImportICS().importEvents(new StringReader(ics), london);
+    assertEquals(LocalDateTime.of(2025, 6, 10, 14, 0),
+            london.searchEvents("Planning", null, null).get(0).getStartTime());
+    assertEquals(6, london.searchEvents("Gym", null, null).size());
+    assertEquals(LocalDateTime.of(2025, 6, 13, 23, 0), london.searchEvents("Gym",
+            LocalDateTime.of(2025, 6, 13, 0, 0), LocalDateTime.of(2025, 6, 14, 0, 0))
+            .get(0).getStartTime());
+  }
+
+  /**
+   * Test that a series is written as a rule next to a later series with the same fields, and
+   * that a range cutting a series writes its instances one by one.
+   */
+  @Test
+  public void testSeriesScannedInRange() throws Exception {
+    Calendar calendar = new Calendar(ZoneOffset.UTC);
+    calendar.addRecurringEvents("Standup", "", LocalDateTime.of(2025, 3, 4, 8, 0),
+            LocalDateTime.of(2025, 3, 4, 8, 15), null, "TR", 4);
+    calendar.addRecurringEvents("Standup", "", LocalDateTime.of(2025, 3, 18, 8, 0),
+            LocalDateTime.of(2025, 3, 18, 8, 15), null, "TR", 4);
+    ExportICS exporter = new ExportICS(calendar.getTimeZone());
+
+    StringWriter all = new StringWriter();
+    exporter.export(calendar.getEventManager(), null, null, all);
+    StringWriter range = new StringWriter();
+    exporter.export(calendar.getEventManager(), null, LocalDateTime.of(2025, 3, 12, 0, 0),
+            range);
+
+    assertEquals(5, count(all.toString(), "BEGIN:VEVENT"));
+    assertEquals(1, count(all.toString(), "RRULE:FREQ=WEEKLY;BYDAY=TU,TH;COUNT=4"));
+    assertEquals(0, count(range.toString(), "RRULE:FREQ=WEEKLY"));
+    assertEquals(3, count(range.toString(), "BEGIN:VEVENT"));
+    Calendar copy = new Calendar(ZoneOffset.UTC);
+    new ImportICS().importEvents(new StringReader(all.toString()), copy);
+    assertEquals(describe(calendar.getAllEvents()), describe(copy.getAllEvents()));
+  }
+
+  /**
+   * Test a file from another client with time zones, an all day event and folded lines.
+   */
+  @Test
+  public void testImportFromOtherClient() throws Exception {
+    String ics = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Other//EN\r\n"
+            + "BEGIN:VTIMEZONE\r\nTZID:America/New_York\r\nEND:VTIMEZONE\r\n"
+            + "BEGIN:VEVENT\r\nUID:1\r\nDTSTART;TZID=America/New_York:20250610T090000\r\n"
+            + "DTEND;TZID=America/New_York:20250610T100000\r\nSUMMARY:Planning\r\n"
+            + "DESCRIPTION:Agenda\\, notes and\r\n  follow ups\r\n"
+            + "BEGIN:VALARM\r\nACTION:DISPLAY\r\nDESCRIPTION:Reminder\r\nEND:VALARM\r\n"
+            + "END:VEVENT\r\n"
+            + "BEGIN:VEVENT\r\nUID:2\r\nDTSTART;VALUE=DATE:20250611\r\n"
+            + "DTEND;VALUE=DATE:20250612\r\nSUMMARY:Holiday\r\nEND:VEVENT\r\n"
+            + "BEGIN:VEVENT\r\nUID:3\r\nDTSTART:20250602T120000Z\r\nDURATION:PT30M\r\n"
+            + "RRULE:FREQ=DAILY;UNTIL=20250606T235959Z\r\nSUMMARY:Lunch\r\nEND:VEVENT\r\n"
+            + "END:VCALENDAR\r\n";
+    Calendar calendar = new Calendar(ZoneId.of("Europe/London"));
+
+    new ImportICS().importEvents(new StringReader(ics), calendar);
+
+    IEvent planning = calendar.searchEvents("Planning", null, null).get(0);
+    assertEquals(LocalDateTime.of(2025, 6, 10, 14, 0), planning.getStartTime());
+    assertEquals("Agenda, notes and follow ups", planning.getDescription());
+    IEvent holiday = calendar.searchEvents("Holiday", null, null).get(0);
+    assertEquals(LocalDateTime.of(2025, 6, 11, 23, 59), holiday.getEndTime());
+    List<IEvent> lunches = calendar.searchEvents("Lunch", null, null);
+    assertEquals(5, lunches.size());
+    assertEquals(LocalDateTime.of(2025, 6, 2, 13, 30), calendar.searchEvents("Lunch",
+            LocalDateTime.of(2025, 6, 2, 0, 0), LocalDateTime.of(2025, 6, 2, 23, 59))
+            .get(0).getEndTime());
+  }
+
+  /**
+   * Test that unknown export formats are reported instead of failing with a null exporter.
+   */
+  @Test
+  public void testUnknownFormatRejected() {
+    CommandController controller = new CommandController(new CalendarManager(),
+            new Interpreter());
+    controller.parseCommand("create calendar --name Work --timezone UTC");
+    controller.parseCommand("use calendar --name Work");
+    try {
+      controller.parseCommand("export cal events.foo");
+      fail("Expected an unsupported format");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Unsupported export format: foo", e.getMessage());
+    }
+  }
+
+  private static int count(String text, String needle) {
+    int result = 0;
+    for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+      result++;
+    }
+    return result;
+  }
+
+  private static Set<String> describe(List<IEvent> events) {
+    Set<String> result = new HashSet<>();
+    for (IEvent event : events) {
+      List<Object> fields = new ArrayList<>();
+      fields.add(event.getSubject());
+      fields.add(event.getDescription() == null ? "" : event.getDescription());
+      fields.add(event.getStartTime());
+      fields.add(event.getEndTime());
+      result.add(fields.toString());
+    }
+    return result;
+  }
+}
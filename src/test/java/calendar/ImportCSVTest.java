@@ -0,0 +1,280 @@
+package calendar;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import calendar.model.Calendar;
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+import calendar.utils.CsvReader;
+import calendar.utils.ExportCSV;
+import calendar.utils.FingerprintSet;
+import calendar.utils.ImportCSV;
+import calendar.utils.ParallelImportCSV;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the streaming CSV reader and importer.
+ */
+public class ImportCSVTest {
+  private Calendar calendar;
+
+  /**
+   * Setting up an empty calendar declining conflicts.
+   */
+  @Before
+  public void setUp() {
+    calendar = new Calendar(ZoneOffset.UTC);
+    calendar.setAutoDeclineConflicts(true);
+  }
+
+  /**
+   * Test quoted fields with commas, doubled quotes and line breaks, and mixed line endings.
+   */
+  @Test
+  public void testReaderQuoting() throws Exception {
+    CsvReader csv = new CsvReader(new StringReader(
+            "a,\"b, c\",\"say \"\"hi\"\"\"\r\n\"two\nlines\",,end\rlast"));
+
+    assertTrue(csv.next());
+    assertEquals(3, csv.getFieldCount());
+    assertEquals("b, c", csv.getField(1));
+    assertEquals("say \"hi\"", csv.getField(2));
+    assertTrue(csv.next());
+    assertEquals(2, csv.getLineNumber());
+    assertEquals("two\nlines", csv.getField(0));
+    assertEquals("", csv.getField(1));
+    assertTrue(csv.next());
+    assertEquals(4, csv.getLineNumber());
+    assertEquals("last", csv.getField(0));
+    assertFalse(csv.next());
+  }
+
+  /**
+   * Test that events with quoted subjects and descriptions survive an export and import.
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    Calendar source = new Calendar(ZoneOffset.UTC);
+    source.addEvent("Review, \"final\"", "Line one\nLine two, with comma",
+            LocalDateTime.of(2025, 5, 1, 9, 0), LocalDateTime.of(2025, 5, 1, 10, 0));
+    source.addEvent("Offsite", "", LocalDateTime.of(2025, 5, 2, 18, 0),
+            LocalDateTime.of(2025, 5, 3, 9, 0));
+    String csv = new ExportCSV().exportEvents(source.getEventManager());
+
+    int imported = new ImportCSV().importEvents(new StringReader(csv), calendar);
+
+    assertEquals(3, imported);
+    assertEquals(describe(source.getAllEvents()), describe(calendar.getAllEvents()));
+  }
+
+  /**
+   * Test a Google Calendar layout with extra columns and an all day event without times.
+   */
+  @Test
+  public void testGoogleLayout() throws Exception {
+    String csv = "Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,"
+            + "Location\n"
+            + "Standup,06/02/2025,09:00 AM,06/02/2025,09:15 AM,False,Daily sync,Room 1\n"
+            + "Holiday,06/03/2025,,,,True,,\n";
+
+    new ImportCSV().importEvents(new StringReader(csv), calendar);
+
+    List<IEvent> standup = calendar.searchEvents("Standup", null, null);
+    assertEquals("Daily sync", standup.get(0).getDescription());
+    List<IEvent> holiday = calendar.searchEvents("Holiday", null, null);
+    assertEquals(LocalDateTime.of(2025, 6, 3, 0, 0), holiday.get(0).getStartTime());
+    assertEquals(LocalDateTime.of(2025, 6, 3, 23, 59), holiday.get(0).getEndTime());
+  }
+
+  /**
+   * Test that a conflict inside a batch rejects the whole batch.
+   */
+  @Test
+  public void testConflictingBatchIsRejected() {
+    calendar.addEvent("Existing", "", LocalDateTime.of(2025, 7, 1, 12, 0),
+            LocalDateTime.of(2025, 7, 1, 13, 0));
+    List<IEvent> batch = new ArrayList<>();
+    batch.add(new OneTimeEvent("Early", "", LocalDateTime.of(2025, 7, 1, 8, 0),
+            LocalDateTime.of(2025, 7, 1, 9, 0)));
+    batch.add(new OneTimeEvent("Touching", "", LocalDateTime.of(2025, 7, 1, 13, 0),
+            LocalDateTime.of(2025, 7, 1, 14, 0)));
+    batch.add(new OneTimeEvent("Overlap", "", LocalDateTime.of(2025, 7, 1, 11, 30),
+            LocalDateTime.of(2025, 7, 1, 12, 30)));
+
+    try {
+      calendar.addEvents(batch);
+      fail("Expected the overlapping event to be declined");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("Overlap"));
+    }
+    assertEquals(1, calendar.getAllEvents().size());
+
+    batch.remove(2);
+    calendar.addEvents(batch);
+    assertEquals(3, calendar.getAllEvents().size());
+  }
+
+  /**
+   * Test that malformed rows report the line they start on.
+   */
+  @Test
+  public void testInvalidRecordReportsLine() throws Exception {
+    String csv = "Subject,Start Date,Start Time,End Date,End Time,Description\n"
+            + "\"Multi\nline\",06/02/2025,09:00 AM,06/02/2025,09:15 AM,\n"
+            + "Broken,2025-06-02,09:00 AM,06/02/2025,09:15 AM,\n";
+    try {
+      new ImportCSV().importEvents(new StringReader(csv), calendar);
+      fail("Expected an invalid date");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid CSV record at line 4"));
+    }
+  }
+
+  /**
+   * Test that small chunks split around quoted line breaks import the same events.
+   */
+  @Test
+  public void testParallelMatchesSequential() throws Exception {
+    StringBuilder csv = new StringBuilder(
+            "Subject,Start Date,Start Time,End Date,End Time,Description\r\n");
+    for (int i = 0; i < 500; i++) {
+      String date = String.format("01/%02d/2026", 1 + i / 20);
+      String time = String.format("%02d:%02d AM", 1 + (i % 20) / 2, (i % 2) * 30);
+      csv.append("\"Item ").append(i).append(", part\"").append(',').append(date).append(',')
+              .append(time).append(',').append(date).append(',').append(time).append(',')
+              .append(i % 3 == 0 ? "\"multi\nline \"\"note\"\"\"" : "plain").append("\r\n");
+    }
+    Path file = Files.createTempFile("import", ".csv");
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+      Calendar parallel = new Calendar(ZoneOffset.UTC);
+      parallel.setAutoDeclineConflicts(true);
+
+      assertEquals(500, new ImportCSV().importEvents(file, calendar));
+      assertEquals(500, new ParallelImportCSV(pool, 256).importEvents(file, parallel));
+      assertEquals(describe(calendar.getAllEvents()), describe(parallel.getAllEvents()));
+
+      Files.write(file, (csv + "Late,13/01/2026,09:00 AM,01/01/2026,10:00 AM,x\r\n")
+              .getBytes(StandardCharsets.UTF_8));
+      try {
+        new ParallelImportCSV(pool, 256).importEvents(file, new Calendar(ZoneOffset.UTC));
+        fail("Expected an invalid month");
+      } catch (IllegalArgumentException e) {
+        assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid CSV record at line 669"));
+      }
+    } finally {
+      pool.shutdown();
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test that a quote inside an unquoted field does not hide the record boundaries from the
+   * parallel splitter, so both importers read the same events.
+   */
+  @Test
+  public void testParallelStrayQuoteMatchesSequential() throws Exception {
+    StringBuilder csv = new StringBuilder(
+            "Subject,Start Date,Start Time,End Date,End Time,Description\n");
+    for (int i = 0; i < 300; i++) {
+      String date = String.format("02/%02d/2026", 1 + i / 20);
+      String time = String.format("%02d:%02d PM", 1 + (i % 20) / 2, (i % 2) * 30);
+      csv.append(i % 7 == 0 ? "Cut 5\" board " + i : "Item " + i).append(',').append(date)
+              .append(',').append(time).append(',').append(date).append(',').append(time)
+              .append(',').append(i % 5 == 0 ? "\"two\nlines\"" : "plain").append('\n');
+    }
+    Path file = Files.createTempFile("import", ".csv");
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+      Calendar parallel = new Calendar(ZoneOffset.UTC);
+      parallel.setAutoDeclineConflicts(true);
+
+      assertEquals(300, new ImportCSV().importEvents(file, calendar));
+      assertEquals(300, new ParallelImportCSV(pool, 128).importEvents(file, parallel));
+      assertEquals(describe(calendar.getAllEvents()), describe(parallel.getAllEvents()));
+    } finally {
+      pool.shutdown();
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test that importing the same rows again skips them instead of failing on conflicts, and that
+   * removed events are imported again.
+   */
+  @Test
+  public void testReimportSkipsExisting() throws Exception {
+    String csv = "Subject,Start Date,Start Time,End Date,End Time,Description\n"
+            + "Standup,06/02/2025,09:00 AM,06/02/2025,09:15 AM,daily\n"
+            + "Offsite,06/03/2025,05:00 PM,06/04/2025,10:00 AM,\n"
+            + "Holiday,06/05/2025,,,,\n";
+    assertEquals(3, new ImportCSV(true).importEvents(new StringReader(csv), calendar));
+    assertEquals(4, calendar.getAllEvents().size());
+
+    try {
+      new ImportCSV().importEvents(new StringReader(csv), calendar);
+      fail("Expected the repeated rows to conflict");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("auto-decline"));
+    }
+    String grown = csv + "Review,06/02/2025,10:00 AM,06/02/2025,11:00 AM, daily \n"
+            + "Review,06/02/2025,10:00 AM,06/02/2025,11:00 AM,daily\n";
+    assertEquals(1, new ImportCSV(true).importEvents(new StringReader(grown), calendar));
+    assertEquals(0, new ImportCSV(true).importEvents(new StringReader(grown), calendar));
+    assertEquals(5, calendar.getAllEvents().size());
+
+    calendar.removeEvent(calendar.searchEvents("Standup", null, null).get(0));
+    assertFalse(calendar.containsEvent(new OneTimeEvent("Standup", "daily",
+            LocalDateTime.of(2025, 6, 2, 9, 0), LocalDateTime.of(2025, 6, 2, 9, 15))));
+    assertEquals(1, new ImportCSV(true).importEvents(new StringReader(grown), calendar));
+    assertEquals(5, calendar.getAllEvents().size());
+  }
+
+  /**
+   * Test that the fingerprint set keeps counts and finds every key after removals shift entries.
+   */
+  @Test
+  public void testFingerprintSet() {
+    FingerprintSet set = new FingerprintSet();
+    for (long i = 1; i <= 10_000; i++) {
+      set.add(i * 0x9e3779b97f4a7c15L);
+    }
+    set.add(7 * 0x9e3779b97f4a7c15L);
+    for (long i = 1; i <= 10_000; i += 2) {
+      assertTrue(set.remove(i * 0x9e3779b97f4a7c15L));
+    }
+    assertEquals(5_000 + 1, set.size());
+    assertTrue(set.contains(7 * 0x9e3779b97f4a7c15L));
+    for (long i = 1; i <= 10_000; i++) {
+      assertEquals(i % 2 == 0 || i == 7, set.contains(i * 0x9e3779b97f4a7c15L));
+    }
+  }
+
+  private static Set<String> describe(List<IEvent> events) {
+    Set<String> result = new HashSet<>();
+    for (IEvent event : events) {
+      result.add(event.getSubject() + "|" + event.getDescription() + "|" + event.getStartTime()
+              + "|" + event.getEndTime());
+    }
+    return result;
+  }
+}
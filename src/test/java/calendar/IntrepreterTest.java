@@ -1,5 +1,6 @@
 package calendar;
 
+import calendar.view.CommandOutput;
 import calendar.view.Interpreter;
 
 
@@ -133,6 +134,32 @@ public class IntrepreterTest {
       Files.deleteIfExists(tempFile);
     }
   }
+  /**
+   * Tests that a headless run with JSON lines output writes only records, the start banner
+   * included.
+   *
+   * @throws Exception if temporary file creation fails
+   */
+  @Test
+  public void testRunHeadlessModeJsonOutput() throws Exception {
+    Path tempFile = createTempFile("exit\n");
+    ByteArrayOutputStream records = new ByteArrayOutputStream();
+    mockController.setOutput(new CommandOutput(new PrintStream(records, true, "UTF-8"),
+            CommandOutput.Format.JSON, true));
+    try {
+      provideInput("headless\n" + tempFile.toString() + "\nexit\n");
+      interpreter.run(mockController);
+      String[] lines = records.toString("UTF-8").split("\\R");
+      assertEquals(2, lines.length);
+      assertEquals("{\"type\":\"message\",\"text\":\"Running in headless mode with file: "
+              + tempFile.toString().replace("\\", "\\\\") + "\"}", lines[0]);
+      assertTrue(lines[1], lines[1].startsWith("{\"type\":\"message\","));
+      assertFalse(getOutput().contains("Running in headless mode"));
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
 
   /**
    * Tests handling for headlessmode no file present.
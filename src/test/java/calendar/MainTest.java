@@ -4,11 +4,16 @@ package calendar;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 
@@ -138,6 +143,39 @@ public class MainTest {
     fail("System.exit should have been called for missing script file in headless mode");
   }
 
+  /**
+   * Test that the options after the script file are accepted in any order.
+   */
+  @Test
+  public void testHeadlessOptionsInAnyOrder() throws Exception {
+    Path directory = Files.createTempDirectory("main-options");
+    Path script = directory.resolve("script.txt");
+    Files.write(script, ("create calendar --name Work --timezone UTC\n"
+            + "use calendar --name Work\n"
+            + "create event Plan from 2025-04-01T09:00 to 2025-04-01T10:00\n"
+            + "print events on 2025-04-01\n"
+            + "exit\n").getBytes(StandardCharsets.UTF_8));
+    Path output = directory.resolve("out.jsonl");
+    Main.main(new String[]{"--mode", "headless", script.toString(),
+        "--data-dir", directory.resolve("data").toString(), "--output", output.toString(),
+        "--parallel", "2", "--quiet", "--json"});
+
+    String written = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+    assertTrue(written.contains("{\"type\":\"event\",\"subject\":\"Plan\""));
+    assertFalse(written.contains("\"type\":\"command\""));
+    assertTrue(Files.exists(directory.resolve("data").resolve("commands.journal")));
+  }
+
+  /**
+   * Test that an option given twice is refused.
+   */
+  @Test(expected = ExitException.class)
+  public void testRepeatedOption() {
+    System.setSecurityManager(new NoExitSecurityManager());
+    Main.main(new String[]{"--mode", "interactive", "--data-dir", "a", "--data-dir", "b"});
+    fail("System.exit should have been called for a repeated option");
+  }
+
   /**
    * Test that invalid command-line arguments cause the program to call System.exit(1).
    */
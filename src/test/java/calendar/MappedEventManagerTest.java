@@ -0,0 +1,122 @@
+package calendar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+
+import calendar.manager.MappedEventManager;
+import calendar.model.Calendar;
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for querying archived calendars through the memory-mapped event manager.
+ */
+public class MappedEventManagerTest {
+  private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+  private final PrintStream originalOut = System.out;
+  private MappedEventManager archive;
+
+  /**
+   * Archiving a small calendar and opening it.
+   */
+  @Before
+  public void setUp() throws Exception {
+    Calendar calendar = new Calendar(ZoneId.of("Europe/Berlin"));
+    calendar.addEvent("Meeting", "Room, 4", LocalDateTime.of(2025, 3, 3, 9, 0),
+            LocalDateTime.of(2025, 3, 3, 10, 0));
+    calendar.addEvent("Lunch", null, LocalDateTime.of(2025, 3, 3, 12, 0),
+            LocalDateTime.of(2025, 3, 3, 13, 0));
+    calendar.addRecurringEvents("Standup", "daily", LocalDateTime.of(2025, 3, 4, 8, 0),
+            LocalDateTime.of(2025, 3, 4, 8, 15), null, "MTWRF", 10);
+
+    Path file = Files.createTempFile("calendar", ".archive");
+    MappedEventManager.writeArchive(calendar, file);
+    archive = new MappedEventManager(file);
+    System.setOut(new PrintStream(outputStream));
+  }
+
+  /**
+   * Closing the archive and resetting the output stream.
+   */
+  @After
+  public void tearDown() throws Exception {
+    System.setOut(originalOut);
+    archive.close();
+  }
+
+  /**
+   * Test that range and subject searches read the archive correctly.
+   */
+  @Test
+  public void testSearchEvents() {
+    assertEquals(ZoneId.of("Europe/Berlin"), archive.getTimeZone());
+    assertEquals(12, archive.getEventCount());
+
+    List<IEvent> day = archive.searchEvents(null, LocalDateTime.of(2025, 3, 3, 0, 0),
+            LocalDateTime.of(2025, 3, 3, 23, 59));
+    assertEquals(2, day.size());
+    assertEquals("Meeting", day.get(0).getSubject());
+    assertEquals("Room, 4", day.get(0).getDescription());
+    assertEquals(null, day.get(1).getDescription());
+
+    List<IEvent> standups = archive.searchEvents("Standup", LocalDateTime.of(2025, 3, 10, 0, 0),
+            null);
+    assertEquals(6, standups.size());
+    assertTrue(standups.get(0) instanceof IRecurringEvent);
+    assertEquals(10, ((IRecurringEvent) standups.get(0)).getOccurrences());
+    assertEquals(12, archive.getAllEvents().size());
+  }
+
+  /**
+   * Test that the range iterator only visits events starting inside the range.
+   */
+  @Test
+  public void testRangeIterator() {
+    Iterator<IEvent> events = archive.eventIterator(LocalDateTime.of(2025, 3, 4, 8, 0),
+            LocalDateTime.of(2025, 3, 7, 8, 0));
+    int count = 0;
+    while (events.hasNext()) {
+      assertEquals("Standup", events.next().getSubject());
+      count++;
+    }
+    assertEquals(4, count);
+    assertFalse(archive.eventIterator(LocalDateTime.of(2026, 1, 1, 0, 0), null).hasNext());
+  }
+
+  /**
+   * Test the busy status and printing of archived events.
+   */
+  @Test
+  public void testBusyAndPrint() {
+    archive.isBusy(LocalDateTime.of(2025, 3, 3, 9, 30));
+    archive.isBusy(LocalDateTime.of(2025, 3, 3, 11, 0));
+    archive.printEvents(LocalDateTime.of(2025, 3, 3, 0, 0), null);
+    String output = outputStream.toString();
+    assertTrue(output.startsWith("busy" + System.lineSeparator() + "available"));
+    assertTrue(output.contains("Date: 03/03/2025"));
+    assertTrue(output.contains("  -Subject :  Lunch"));
+  }
+
+  /**
+   * Test that archived calendars refuse changes.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testReadOnly() {
+    new Calendar(archive.getTimeZone(), archive).addEvent("New", "",
+            LocalDateTime.of(2025, 3, 5, 9, 0), LocalDateTime.of(2025, 3, 5, 10, 0));
+  }
+}
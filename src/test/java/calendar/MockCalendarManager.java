@@ -1,6 +1,7 @@
 package calendar;
 
 import calendar.manager.ICalendarManager;
+import calendar.manager.StoreCheckpoint;
 import calendar.model.Calendar;
 import calendar.model.ICalendar;
 
@@ -32,6 +33,19 @@ public class MockCalendarManager implements ICalendarManager {
     }
   }
 
+  @Override
+  public void createCalendar(String name, ZoneId timeZone, String storage) {
+    createCalendar(name, timeZone);
+    lastMethodArgs = new Object[]{name, timeZone, storage};
+  }
+
+  @Override
+  public void openCalendar(String name, ZoneId timeZone, StoreCheckpoint checkpoint) {
+    createCalendar(name, timeZone);
+    lastMethodCalled = "openCalendar";
+    lastMethodArgs = new Object[]{name, timeZone, checkpoint};
+  }
+
   @Override
   public void useCalendar(String name) {
     lastMethodCalled = "useCalendar";
@@ -69,4 +83,21 @@ public class MockCalendarManager implements ICalendarManager {
   public List<String> getAllCalendarNames() {
     return new ArrayList<>(calendars.keySet());
   }
+
+  @Override
+  public ICalendar getCalendar(String name) {
+    lastMethodCalled = "getCalendar";
+    lastMethodArgs = new Object[]{name};
+    return calendars.get(name);
+  }
+
+  @Override
+  public String getActiveCalendarName() {
+    for (Map.Entry<String, ICalendar> entry : calendars.entrySet()) {
+      if (entry.getValue() == activeCalendar) {
+        return entry.getKey();
+      }
+    }
+    return null;
+  }
 }
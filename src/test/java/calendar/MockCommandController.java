@@ -1,5 +1,6 @@
 package calendar;
 
+import calendar.controller.Command;
 import calendar.controller.CommandController;
 
 /**
@@ -28,4 +29,14 @@ public class MockCommandController extends CommandController {
       throw exceptionToThrow;
     }
   }
-}
\ No newline at end of file
+
+  @Override
+  public Command compile(String input) {
+    return null;
+  }
+
+  @Override
+  public void execute(Command command, String input) {
+    parseCommand(input);
+  }
+}
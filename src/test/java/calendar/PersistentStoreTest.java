@@ -0,0 +1,332 @@
+package calendar;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import calendar.controller.CommandController;
+import calendar.manager.CalendarManager;
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+import calendar.persistence.CommandRecorder;
+import calendar.persistence.PersistentStore;
+import calendar.persistence.RecordedCommand;
+import calendar.view.HeadlessPipeline;
+import calendar.view.CommandOutput;
+import calendar.view.Interpreter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for recovering calendars from snapshots and the command journal.
+ */
+public class PersistentStoreTest {
+  private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+  private final PrintStream originalOut = System.out;
+  private Path dataDir;
+
+  /**
+   * Setting up an empty data directory and capturing the recovery output.
+   */
+  @Before
+  public void setUp() throws Exception {
+    dataDir = Files.createTempDirectory("calendar-data");
+    System.setOut(new PrintStream(outputStream));
+  }
+
+  /**
+   * Resetting the output stream.
+   */
+  @After
+  public void tearDown() {
+    System.setOut(originalOut);
+  }
+
+  /**
+   * Test that a restart restores the snapshot and replays the journal tail written after it.
+   */
+  @Test
+  public void testRecoverSnapshotAndJournalTail() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    CommandController controller = new CommandController(manager, new Interpreter());
+    PersistentStore store = new PersistentStore(dataDir, manager, 3);
+    store.recover(controller::parseCommand);
+    controller.setPersistentStore(store);
+
+    controller.parseCommand("create calendar --name Work --timezone America/New_York");
+    controller.parseCommand("use calendar --name Work");
+    controller.parseCommand("create event Standup from 2025-03-03T09:00 to 2025-03-03T09:30 "
+            + "repeats MW for 4");
+    controller.parseCommand("create event Review from 2025-03-04T14:00 to 2025-03-04T15:00");
+    controller.parseCommand("print events on 2025-03-04");
+
+    CalendarManager recovered = new CalendarManager();
+    CommandController recoveredController = new CommandController(recovered, new Interpreter());
+    PersistentStore recoveredStore = new PersistentStore(dataDir, recovered, 3);
+    recoveredStore.recover(recoveredController::parseCommand);
+
+    assertEquals("Work", recovered.getActiveCalendarName());
+    List<IEvent> events = recovered.getActiveCalendar().getAllEvents();
+    assertEquals(5, events.size());
+    int recurring = 0;
+    for (IEvent event : events) {
+      if (event instanceof IRecurringEvent) {
+        recurring++;
+        assertEquals("MW", ((IRecurringEvent) event).getRecurringDays());
+      }
+    }
+    assertEquals(4, recurring);
+    assertTrue(outputStream.toString().contains("snapshot at sequence 3, 1 journal entries"));
+  }
+
+  /**
+   * Test that a journaled calendar is reopened from its own journal at the snapshot, with only
+   * the commands after the snapshot replayed on top, after a run that ended without a final
+   * snapshot.
+   */
+  @Test
+  public void testRecoverJournaledCalendar() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    manager.setStorageDirectory(dataDir.resolve("stores"));
+    CommandController controller = new CommandController(manager, new Interpreter());
+    PersistentStore store = new PersistentStore(dataDir, manager, 3);
+    store.recover(controller::parseCommand);
+    controller.setPersistentStore(store);
+    controller.parseCommand("create calendar --name Work --timezone America/New_York "
+            + "--storage journaled");
+    controller.parseCommand("use calendar --name Work");
+    controller.parseCommand("create event Standup from 2025-03-03T09:00 to 2025-03-03T09:30 "
+            + "repeats MW for 4");
+    controller.parseCommand("create event Review from 2025-03-04T14:00 to 2025-03-04T15:00");
+    manager.close();
+
+    CalendarManager recovered = new CalendarManager();
+    recovered.setStorageDirectory(dataDir.resolve("stores"));
+    CommandController recoveredController = new CommandController(recovered, new Interpreter());
+    PersistentStore recoveredStore = new PersistentStore(dataDir, recovered, 3);
+    recoveredStore.recover(recoveredController::parseCommand);
+
+    assertEquals(5, recovered.getActiveCalendar().getAllEvents().size());
+    assertEquals("America/New_York", recovered.getActiveCalendar().getTimeZone().getId());
+    assertNotNull(recovered.getActiveCalendar().checkpoint());
+    assertTrue(outputStream.toString().contains("snapshot at sequence 3, 1 journal entries"));
+    try (Stream<Path> stores = Files.list(dataDir.resolve("stores"))) {
+      assertEquals(1, stores.count());
+    }
+    recovered.close();
+  }
+
+  /**
+   * Test that closing the store leaves a snapshot that needs no journal replay.
+   */
+  @Test
+  public void testCloseWritesFinalSnapshot() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    CommandController controller = new CommandController(manager, new Interpreter());
+    PersistentStore store = new PersistentStore(dataDir, manager, 100);
+    store.recover(controller::parseCommand);
+    controller.setPersistentStore(store);
+    controller.parseCommand("create calendar --name Home --timezone Europe/Paris");
+    controller.parseCommand("use calendar --name Home");
+    controller.parseCommand("create event Dinner from 2025-05-01T19:00 to 2025-05-01T21:00");
+    store.close();
+
+    CalendarManager recovered = new CalendarManager();
+    PersistentStore recoveredStore = new PersistentStore(dataDir, recovered, 100);
+    recoveredStore.recover(command -> {
+      throw new AssertionError("Nothing should be replayed: " + command);
+    });
+    List<IEvent> events = recovered.getCalendar("Home").getAllEvents();
+    assertEquals(1, events.size());
+    assertEquals(LocalDateTime.of(2025, 5, 1, 21, 0), events.get(0).getEndTime());
+  }
+
+  /**
+   * Tests that an import is recovered from the snapshot taken after it, so the imported events
+   * survive their file being deleted, and the commands after it are replayed from the journal.
+   */
+  @Test
+  public void testRecoverImportWithoutItsFile() throws Exception {
+    Path file = Files.createTempFile("import", ".csv");
+    Files.write(file, ("Subject,Start Date,Start Time,End Date,End Time\n"
+            + "Offsite,06/02/2025,09:00 AM,06/02/2025,05:00 PM\n").getBytes("UTF-8"));
+    CalendarManager manager = new CalendarManager();
+    CommandController controller = new CommandController(manager, new Interpreter());
+    PersistentStore store = new PersistentStore(dataDir, manager, 100);
+    store.recover(controller::parseCommand);
+    controller.setPersistentStore(store);
+    controller.parseCommand("create calendar --name Work --timezone UTC");
+    controller.parseCommand("use calendar --name Work");
+    controller.parseCommand("import cal " + file);
+    controller.parseCommand("create event Retro from 2025-06-03T15:00 to 2025-06-03T16:00");
+    Files.delete(file);
+
+    CalendarManager recovered = new CalendarManager();
+    CommandController recoveredController = new CommandController(recovered, new Interpreter());
+    PersistentStore recoveredStore = new PersistentStore(dataDir, recovered, 100);
+    recoveredStore.recover(recoveredController::parseCommand);
+
+    assertEquals(2, recovered.getCalendar("Work").getAllEvents().size());
+    assertTrue(outputStream.toString().contains("1 journal entries replayed"));
+    assertFalse(outputStream.toString().contains("Warning"));
+  }
+
+  /**
+   * Tests that recovery reports through the given output: replay failures as error records, the
+   * summary as a message, and nothing but the errors when the output is quiet.
+   */
+  @Test
+  public void testRecoverReportsThroughOutput() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    CommandController controller = new CommandController(manager, new Interpreter());
+    PersistentStore store = new PersistentStore(dataDir, manager, 100);
+    store.recover(controller::parseCommand);
+    controller.setPersistentStore(store);
+    controller.parseCommand("create calendar --name Work --timezone UTC");
+    store.record("create event Orphan from 2025-06-03T15:00 to 2025-06-03T16:00");
+    outputStream.reset();
+
+    ByteArrayOutputStream json = new ByteArrayOutputStream();
+    CalendarManager recovered = new CalendarManager();
+    CommandController recoveredController = new CommandController(recovered, new Interpreter());
+    new PersistentStore(dataDir, recovered, 100).recover(recoveredController::parseCommand,
+            new CommandOutput(new PrintStream(json, true), CommandOutput.Format.JSON, false));
+    String reported = json.toString();
+    assertTrue(reported.contains("\"type\":\"error\""));
+    assertTrue(reported.contains("create event Orphan"));
+    assertTrue(reported.contains("Recovered 1 calendar(s)"));
+    assertEquals("", outputStream.toString());
+
+    ByteArrayOutputStream quiet = new ByteArrayOutputStream();
+    CalendarManager quietManager = new CalendarManager();
+    CommandController quietController = new CommandController(quietManager, new Interpreter());
+    new PersistentStore(dataDir, quietManager, 100).recover(quietController::parseCommand,
+            new CommandOutput(new PrintStream(quiet, true), CommandOutput.Format.TEXT, true));
+    assertTrue(quiet.toString().contains("create event Orphan"));
+    assertFalse(quiet.toString().contains("Recovered"));
+  }
+
+  /**
+   * Tests that a committed batch is journaled and recovered, while a rolled back batch only
+   * keeps the calendar switch that took effect.
+   */
+  @Test
+  public void testRecoverCommittedBatch() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    CommandController controller = new CommandController(manager, new Interpreter());
+    PersistentStore store = new PersistentStore(dataDir, manager, 100);
+    store.recover(controller::parseCommand);
+    controller.setPersistentStore(store);
+    controller.parseCommand("create calendar --name Work --timezone America/New_York");
+    controller.parseCommand("create calendar --name Home --timezone America/New_York");
+    controller.parseCommand("begin batch");
+    controller.parseCommand("use calendar --name Work");
+    controller.parseCommand("create event Plan from 2025-04-01T09:00 to 2025-04-01T10:00");
+    controller.parseCommand("commit");
+    controller.parseCommand("begin batch");
+    controller.parseCommand("use calendar --name Home");
+    controller.parseCommand("create event Draft from 2025-04-01T09:00 to 2025-04-01T10:00");
+    controller.parseCommand("rollback");
+
+    CalendarManager recovered = new CalendarManager();
+    CommandController recoveredController = new CommandController(recovered, new Interpreter());
+    PersistentStore recoveredStore = new PersistentStore(dataDir, recovered, 100);
+    recoveredStore.recover(recoveredController::parseCommand);
+    assertEquals("Home", recovered.getActiveCalendarName());
+    assertEquals(1, recovered.getCalendar("Work").getAllEvents().size());
+    assertEquals(0, recovered.getCalendar("Home").getAllEvents().size());
+  }
+
+  /**
+   * Tests that the recording keeps every command of every session, queries and failing commands
+   * included, in arrival order.
+   */
+  @Test
+  public void testRecordCommandsOfSessions() throws Exception {
+    Path logFile = dataDir.resolve("commands.rec");
+    CalendarManager manager = new CalendarManager();
+    CommandController first = new CommandController(manager, new Interpreter());
+    CommandController second = new CommandController(manager, new Interpreter());
+    try (CommandRecorder recorder = new CommandRecorder(logFile)) {
+      first.setRecorder(recorder, 1);
+      second.setRecorder(recorder, 2);
+      first.parseCommand("create calendar --name Work --timezone UTC");
+      second.parseCommand("use calendar --name Work");
+      try {
+        first.parseCommand("launch rockets");
+      } catch (IllegalArgumentException e) {
+        // failing commands are recorded too
+      }
+      second.parseCommand("create event Plan\u00e9t\u00e9 from 2025-04-01T09:00 to "
+              + "2025-04-01T10:00");
+    }
+
+    List<RecordedCommand> recording = CommandRecorder.read(logFile);
+    assertEquals(4, recording.size());
+    assertEquals(1, recording.get(0).getSession());
+    assertEquals(2, recording.get(1).getSession());
+    assertEquals("launch rockets", recording.get(2).getCommand());
+    assertEquals("create event Plan\u00e9t\u00e9 from 2025-04-01T09:00 to 2025-04-01T10:00",
+            recording.get(3).getCommand());
+    for (int i = 1; i < recording.size(); i++) {
+      assertFalse(recording.get(i).getOffsetNanos() < recording.get(i - 1).getOffsetNanos());
+    }
+  }
+
+  /**
+   * Tests that a pipelined script records the lines it executes up to the first failure, and not
+   * the lines the parser compiled ahead of it.
+   */
+  @Test
+  public void testRecordPipelinedScriptUpToFailure() throws Exception {
+    Path logFile = dataDir.resolve("commands.rec");
+    CommandController controller = new CommandController(new CalendarManager(),
+            new Interpreter());
+    String script = "create calendar --name Work --timezone UTC\n"
+            + "use calendar --name Home\n"
+            + "create calendar --name Home --timezone UTC\n"
+            + "use calendar --name Work\n"
+            + "exit\n";
+    try (CommandRecorder recorder = new CommandRecorder(logFile)) {
+      controller.setRecorder(recorder, 0);
+      new HeadlessPipeline(controller, HeadlessPipeline.DEFAULT_CAPACITY)
+              .run(new BufferedReader(new StringReader(script)));
+    }
+
+    List<RecordedCommand> recording = CommandRecorder.read(logFile);
+    assertEquals(2, recording.size());
+    assertEquals("use calendar --name Home", recording.get(1).getCommand());
+  }
+
+  /**
+   * Tests that a recording cut off in the middle of an entry is read up to the torn entry.
+   */
+  @Test
+  public void testReadTornRecording() throws Exception {
+    Path logFile = dataDir.resolve("commands.rec");
+    try (CommandRecorder recorder = new CommandRecorder(logFile)) {
+      recorder.record(0, "create calendar --name Work --timezone UTC");
+      recorder.record(0, "use calendar --name Work");
+    }
+    byte[] bytes = Files.readAllBytes(logFile);
+    Files.write(logFile, Arrays.copyOf(bytes, bytes.length - 5));
+
+    List<RecordedCommand> recording = CommandRecorder.read(logFile);
+    assertEquals(1, recording.size());
+    assertEquals("create calendar --name Work --timezone UTC", recording.get(0).getCommand());
+  }
+}
@@ -0,0 +1,79 @@
+package calendar;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import calendar.benchmark.WorkloadGenerator;
+import calendar.controller.CommandController;
+import calendar.manager.CalendarManager;
+import calendar.model.IEvent;
+import calendar.view.Interpreter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Test for the seeded datasets of the workload generator.
+ */
+public class WorkloadGeneratorTest {
+
+  /**
+   * Tests that a script runs without conflicts and gives the same calendars as a direct load.
+   */
+  @Test
+  public void testScriptMatchesLoad() throws Exception {
+    WorkloadGenerator generator = new WorkloadGenerator(7).calendars(3).events(2_000)
+            .mix(0.3, 0.1, 0.1).conflictDensity(0.9);
+    StringWriter script = new StringWriter();
+    generator.writeScript(script);
+
+    CalendarManager scripted = new CalendarManager();
+    CommandController controller = new CommandController(scripted, new Interpreter());
+    for (String line : script.toString().split("\n")) {
+      if (!line.equals("exit")) {
+        controller.parseCommand(line);
+      }
+    }
+    CalendarManager loaded = new CalendarManager();
+    generator.load(loaded);
+
+    int total = 0;
+    for (int c = 0; c < 3; c++) {
+      String name = generator.calendarName(c);
+      List<String> expected = describe(loaded.getCalendar(name).getAllEvents());
+      assertEquals(expected, describe(scripted.getCalendar(name).getAllEvents()));
+      assertEquals(loaded.getCalendar(name).getTimeZone(),
+              scripted.getCalendar(name).getTimeZone());
+      total += expected.size();
+    }
+    assertEquals(2_000, total);
+  }
+
+  /**
+   * Tests that the same seed gives the same dataset and another seed a different one.
+   */
+  @Test
+  public void testSeedIsReproducible() throws Exception {
+    assertEquals(script(42), script(42));
+    assertNotEquals(script(42), script(43));
+  }
+
+  private static String script(long seed) throws Exception {
+    StringWriter script = new StringWriter();
+    new WorkloadGenerator(seed).calendars(2).events(500).writeScript(script);
+    return script.toString();
+  }
+
+  private static List<String> describe(List<IEvent> events) {
+    List<String> described = new ArrayList<>();
+    for (IEvent event : events) {
+      described.add(event.getStartTime() + " " + event.getEndTime() + " " + event.getSubject());
+    }
+    Collections.sort(described);
+    return described;
+  }
+}
@@ -0,0 +1,77 @@
+package calendar.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import calendar.controller.CommandController;
+import calendar.manager.CalendarManager;
+
+/**
+ * Measures commands per second of creating events one by one, where every command scans the
+ * events of its day for conflicts, against creating the same events in one batch, which is
+ * checked with a single sorted sweep per day on commit. Events are packed into busy days to
+ * show the difference the per-day scan makes.
+ *
+ * <p>Usage: {@code java -cp target/classes:target/test-classes
+ * calendar.benchmark.BatchCommitBenchmark [commands] [events per day]}</p>
+ */
+public class BatchCommitBenchmark {
+  private static final int ROUNDS = 5;
+  private static final DateTimeFormatter FORMAT =
+          DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional number of commands, 50,000 by default, and events per day, 96 by
+   *             default.
+   */
+  public static void main(String[] args) {
+    int commandCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+    int perDay = args.length > 1 ? Integer.parseInt(args[1]) : 96;
+    int slot = 24 * 60 / perDay;
+    List<String> commands = new ArrayList<>(commandCount);
+    LocalDateTime origin = LocalDateTime.of(2020, 1, 1, 0, 0);
+    for (int i = 0; i < commandCount; i++) {
+      LocalDateTime start = origin.plusDays(i / perDay).plusMinutes((long) slot * (i % perDay));
+      commands.add("create event Event" + i + " from " + start.format(FORMAT) + " to "
+              + start.plusMinutes(slot - 1).format(FORMAT));
+    }
+
+    System.out.printf("%d commands, %d events per day%n", commandCount, perDay);
+    System.out.printf("%-12s %10s %14s%n", "mode", "best ms", "commands/s");
+    report("one by one", execute(commands, false), commandCount);
+    report("batch", execute(commands, true), commandCount);
+  }
+
+  private static double execute(List<String> commands, boolean batch) {
+    double best = Double.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      CalendarManager manager = new CalendarManager();
+      CommandController controller = new CommandController(manager, null);
+      controller.parseCommand("create calendar --name Bench --timezone UTC");
+      controller.parseCommand("use calendar --name Bench");
+      long start = System.nanoTime();
+      if (batch) {
+        controller.parseCommand("begin batch");
+      }
+      for (String command : commands) {
+        controller.parseCommand(command);
+      }
+      if (batch) {
+        controller.parseCommand("commit");
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1e6);
+      if (manager.getActiveCalendar().getAllEvents().size() != commands.size()) {
+        throw new IllegalStateException("Not every event was added");
+      }
+    }
+    return best;
+  }
+
+  private static void report(String mode, double millis, int commandCount) {
+    System.out.printf("%-12s %10.1f %14.0f%n", mode, millis, commandCount / millis * 1000);
+  }
+}
@@ -0,0 +1,140 @@
+package calendar.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import calendar.controller.CommandController;
+import calendar.controller.CommandTokenizer;
+import calendar.controller.CommandType;
+import calendar.manager.CalendarManager;
+import calendar.utils.DateTimeUtils;
+
+/**
+ * Measures commands per second of command dispatch, comparing the regex split with the
+ * command tokenizer, of parsing the date argument of an all-day event, comparing the
+ * exception driven fallback with the shape based parser, and of full command execution through
+ * the controller on generated create event commands.
+ *
+ * <p>Usage: {@code java -cp target/classes:target/test-classes
+ * calendar.benchmark.CommandParseBenchmark [commands]}</p>
+ */
+public class CommandParseBenchmark {
+  private static final int ROUNDS = 5;
+  private static final DateTimeFormatter FORMAT =
+          DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional number of commands, 200,000 by default.
+   */
+  public static void main(String[] args) {
+    int commandCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+    List<String> commands = new ArrayList<>(commandCount);
+    List<String> allDayCommands = new ArrayList<>(commandCount);
+    List<String> dates = new ArrayList<>(commandCount);
+    LocalDateTime origin = LocalDateTime.of(2020, 1, 1, 8, 0);
+    for (int i = 0; i < commandCount; i++) {
+      LocalDateTime start = origin.plusMinutes(45L * i);
+      commands.add("create event Event" + i + " from " + start.format(FORMAT) + " to "
+              + start.plusMinutes(30).format(FORMAT));
+      String date = origin.plusDays(i).toLocalDate().toString();
+      allDayCommands.add("create event Day" + i + " on " + date);
+      dates.add(date);
+    }
+
+    System.out.printf("%d commands%n", commandCount);
+    System.out.printf("%-12s %10s %14s%n", "stage", "best ms", "commands/s");
+
+    double best = Double.MAX_VALUE;
+    int matched = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      matched = 0;
+      long start = System.nanoTime();
+      for (String command : commands) {
+        String[] tokens = command.trim().split("\\s+");
+        if ("create event".equals(tokens[0] + " " + tokens[1])) {
+          matched++;
+        }
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1e6);
+    }
+    report("split", best, matched, commandCount);
+
+    best = Double.MAX_VALUE;
+    CommandTokenizer tokenizer = new CommandTokenizer();
+    for (int round = 0; round < ROUNDS; round++) {
+      matched = 0;
+      long start = System.nanoTime();
+      for (String command : commands) {
+        if (CommandType.of(tokenizer.reset(command)) == CommandType.CREATE_EVENT) {
+          matched++;
+        }
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1e6);
+    }
+    report("tokenizer", best, matched, commandCount);
+
+    best = Double.MAX_VALUE;
+    DateTimeUtils dateTimeUtils = new DateTimeUtils();
+    for (int round = 0; round < ROUNDS; round++) {
+      matched = 0;
+      long start = System.nanoTime();
+      for (String date : dates) {
+        LocalDateTime dateTime;
+        try {
+          dateTime = LocalDateTime.parse(date);
+        } catch (DateTimeParseException e) {
+          dateTime = LocalDateTime.parse(date + "T00:00", FORMAT);
+        }
+        if (dateTime.getHour() == 0) {
+          matched++;
+        }
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1e6);
+    }
+    report("date catch", best, matched, commandCount);
+
+    best = Double.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      matched = 0;
+      long start = System.nanoTime();
+      for (String date : dates) {
+        if (dateTimeUtils.parseDateOrDateTime(date, 0, date.length(), false).getHour() == 0) {
+          matched++;
+        }
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1e6);
+    }
+    report("date shape", best, matched, commandCount);
+
+    report("execute", execute(commands), commandCount, commandCount);
+    report("execute on", execute(allDayCommands), commandCount, commandCount);
+  }
+
+  private static double execute(List<String> commands) {
+    double best = Double.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      CalendarManager manager = new CalendarManager();
+      CommandController controller = new CommandController(manager, null);
+      controller.parseCommand("create calendar --name Bench --timezone UTC");
+      controller.parseCommand("use calendar --name Bench");
+      long start = System.nanoTime();
+      for (String command : commands) {
+        controller.parseCommand(command);
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1e6);
+    }
+    return best;
+  }
+
+  private static void report(String stage, double millis, int matched, int commandCount) {
+    if (matched != commandCount) {
+      throw new IllegalStateException(stage + " matched " + matched + " of " + commandCount);
+    }
+    System.out.printf("%-12s %10.1f %14.0f%n", stage, millis, commandCount / millis * 1000);
+  }
+}
@@ -0,0 +1,124 @@
+package calendar.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+
+import calendar.controller.Command;
+import calendar.controller.CommandController;
+import calendar.manager.CalendarManager;
+import calendar.manager.SessionCalendarManager;
+import calendar.persistence.CommandRecorder;
+import calendar.persistence.RecordedCommand;
+import calendar.view.CommandOutput;
+
+/**
+ * Replays a command recording, written with {@code --record <file>}, against a fresh calendar
+ * manager. Commands run one at a time in the order they arrived, each session with its own
+ * controller and active calendar, either as fast as possible or at the recorded pace. Reports
+ * the overall throughput and, for every command type, the number of commands and failures and
+ * the latency percentiles of compiling and executing them.
+ *
+ * <p>Usage: {@code java -cp target/classes:target/test-classes
+ * calendar.benchmark.CommandReplay recording-file [--paced]}</p>
+ */
+public class CommandReplay {
+  private static final String INVALID = "(invalid)";
+
+  /**
+   * Runs the replay.
+   *
+   * @param args the recording file, and {@code --paced} to keep the recorded pace.
+   * @throws Exception if the recording cannot be read.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1 || args.length > 2 || (args.length == 2 && !args[1].equals("--paced"))) {
+      System.err.println("Usage: CommandReplay recording-file [--paced]");
+      System.exit(1);
+    }
+    boolean paced = args.length == 2;
+    List<RecordedCommand> recording = CommandRecorder.read(Paths.get(args[0]));
+
+    CalendarManager manager = new CalendarManager();
+    CommandOutput output = new CommandOutput(new PrintStream(OutputStream.nullOutputStream()),
+            CommandOutput.Format.TEXT, true);
+    Map<Integer, CommandController> sessions = new HashMap<>();
+    Map<String, Latencies> byType = new TreeMap<>();
+    long begin = System.nanoTime();
+    for (RecordedCommand recorded : recording) {
+      if (paced) {
+        long wait = begin + recorded.getOffsetNanos() - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+      }
+      CommandController controller = sessions.computeIfAbsent(recorded.getSession(), session -> {
+        CommandController created = new CommandController(
+                new SessionCalendarManager(manager), null);
+        created.setOutput(output);
+        return created;
+      });
+      String type = INVALID;
+      boolean failed = false;
+      long start = System.nanoTime();
+      try {
+        Command command = controller.compile(recorded.getCommand());
+        type = command.getType().toString();
+        controller.execute(command, recorded.getCommand());
+      } catch (RuntimeException e) {
+        failed = true;
+      }
+      long latency = System.nanoTime() - start;
+      byType.computeIfAbsent(type, key -> new Latencies()).add(latency, failed);
+    }
+    double seconds = (System.nanoTime() - begin) / 1e9;
+
+    System.out.printf("%d commands from %d sessions in %.3f s%s%n", recording.size(),
+            sessions.size(), seconds, paced ? " at the recorded pace" : "");
+    System.out.printf("throughput  %12.0f commands/s%n", recording.size() / seconds);
+    System.out.printf("%-16s %9s %8s %10s %10s %10s%n", "command", "count", "failed",
+            "p50 us", "p99 us", "max us");
+    for (Map.Entry<String, Latencies> entry : byType.entrySet()) {
+      Latencies latencies = entry.getValue();
+      long[] sorted = latencies.sorted();
+      System.out.printf("%-16s %9d %8d %10.1f %10.1f %10.1f%n", entry.getKey(), sorted.length,
+              latencies.failures, percentile(sorted, 0.50) / 1e3,
+              percentile(sorted, 0.99) / 1e3, sorted[sorted.length - 1] / 1e3);
+    }
+  }
+
+  /**
+   * The latencies of one command type.
+   */
+  private static class Latencies {
+    private long[] values = new long[64];
+    private int size;
+    private int failures;
+
+    private void add(long latency, boolean failed) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = latency;
+      if (failed) {
+        failures++;
+      }
+    }
+
+    private long[] sorted() {
+      long[] sorted = Arrays.copyOf(values, size);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+  }
+}
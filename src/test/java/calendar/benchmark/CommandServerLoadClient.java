@@ -0,0 +1,172 @@
+package calendar.benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import calendar.manager.CalendarManager;
+import calendar.view.CommandServer;
+
+/**
+ * Measures the command server under many concurrent sessions. Every session creates its own
+ * calendar and then sends a mix of create event, print events and show status commands, one at
+ * a time, timing each command until its status line arrives. Reports the overall throughput and
+ * the latency percentiles over all commands.
+ *
+ * <p>Without a port an in-process server is started on a free port; with a port a running
+ * {@code --mode server} is measured.</p>
+ *
+ * <p>Usage: {@code java -cp target/classes:target/test-classes
+ * calendar.benchmark.CommandServerLoadClient [sessions] [commands per session] [port]}</p>
+ */
+public class CommandServerLoadClient {
+  private static final DateTimeFormatter FORMAT =
+          DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+  /**
+   * Runs the load test.
+   *
+   * @param args optional number of sessions, 1,000 by default, commands per session, 200 by
+   *             default, and the port of a running server.
+   * @throws Exception if the server cannot be started or reached.
+   */
+  public static void main(String[] args) throws Exception {
+    int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int commandCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    CommandServer server = null;
+    int port;
+    if (args.length > 2) {
+      port = Integer.parseInt(args[2]);
+    } else {
+      server = new CommandServer(new CalendarManager(), 0);
+      port = server.getPort();
+      CommandServer running = server;
+      Thread acceptor = new Thread(() -> {
+        try {
+          running.serve();
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }, "load-acceptor");
+      acceptor.setDaemon(true);
+      acceptor.start();
+    }
+
+    long[][] latencies = new long[sessionCount][];
+    AtomicInteger failures = new AtomicInteger();
+    CountDownLatch connected = new CountDownLatch(sessionCount);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> clients = new ArrayList<>(sessionCount);
+    for (int i = 0; i < sessionCount; i++) {
+      int session = i;
+      Thread client = new Thread(() -> {
+        try {
+          latencies[session] = runSession(port, session, commandCount, connected, start);
+        } catch (IOException | InterruptedException e) {
+          failures.incrementAndGet();
+          connected.countDown();
+        }
+      }, "load-session-" + i);
+      client.start();
+      clients.add(client);
+    }
+    connected.await();
+    long begin = System.nanoTime();
+    start.countDown();
+    for (Thread client : clients) {
+      client.join();
+    }
+    double seconds = (System.nanoTime() - begin) / 1e9;
+
+    long[] all = Arrays.stream(latencies).filter(session -> session != null)
+            .flatMapToLong(Arrays::stream).sorted().toArray();
+    System.out.printf("%d sessions x %d commands, %d failed sessions%n", sessionCount,
+            commandCount, failures.get());
+    System.out.printf("throughput  %12.0f commands/s%n", all.length / seconds);
+    System.out.printf("p50         %12.3f ms%n", percentile(all, 0.50) / 1e6);
+    System.out.printf("p99         %12.3f ms%n", percentile(all, 0.99) / 1e6);
+    System.out.printf("max         %12.3f ms%n",
+            all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  /**
+   * Run the commands of one session.
+   *
+   * @return the latency of every timed command in nanoseconds.
+   */
+  private static long[] runSession(int port, int session, int commandCount,
+                                   CountDownLatch connected, CountDownLatch start)
+          throws IOException, InterruptedException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      socket.setTcpNoDelay(true);
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+              StandardCharsets.UTF_8));
+      Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+              StandardCharsets.UTF_8));
+      String calendar = "Load" + session;
+      send(in, out, "create calendar --name " + calendar + " --timezone UTC");
+      send(in, out, "use calendar --name " + calendar);
+      connected.countDown();
+      start.await();
+
+      long[] latencies = new long[commandCount];
+      LocalDateTime origin = LocalDateTime.of(2025, 1, 1, 8, 0);
+      for (int i = 0; i < commandCount; i++) {
+        LocalDateTime time = origin.plusMinutes(45L * i);
+        String command;
+        if (i % 10 == 8) {
+          command = "print events on " + time.toLocalDate();
+        } else if (i % 10 == 9) {
+          command = "show status on " + time.format(FORMAT);
+        } else {
+          command = "create event Event" + i + " from " + time.format(FORMAT) + " to "
+                  + time.plusMinutes(30).format(FORMAT);
+        }
+        long sent = System.nanoTime();
+        send(in, out, command);
+        latencies[i] = System.nanoTime() - sent;
+      }
+      send(in, out, "exit");
+      return latencies;
+    }
+  }
+
+  private static void send(BufferedReader in, Writer out, String command) throws IOException {
+    out.write(command);
+    out.write('\n');
+    out.flush();
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (line.equals("OK") || line.equals("BYE")) {
+        return;
+      }
+      if (line.startsWith("ERROR: ")) {
+        throw new IOException(command + ": " + line);
+      }
+    }
+    throw new IOException("Server closed the session");
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+  }
+}
@@ -0,0 +1,135 @@
+package calendar.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import calendar.manager.CalendarManager;
+import calendar.model.Calendar;
+import calendar.view.HttpCalendarServer;
+
+/**
+ * Measures the HTTP API against a local client on kept alive connections. A calendar is filled
+ * with events, then client threads repeatedly fetch the events of a week: once with full
+ * responses, and once sending the ETag of the first response so that the server answers
+ * {@code 304 Not Modified}. Reports the throughput and latency percentiles of both runs.
+ *
+ * <p>Usage: {@code java -Dsun.net.httpserver.nodelay=true
+ * -cp target/classes:target/test-classes
+ * calendar.benchmark.HttpApiBenchmark [events] [clients] [requests per client]}. The nodelay
+ * flag matches the server started by {@code --mode http}.</p>
+ */
+public class HttpApiBenchmark {
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional number of events, 20,000 by default, client threads, 8 by default, and
+   *             requests per client, 2,000 by default.
+   * @throws Exception if the server cannot be started or reached.
+   */
+  public static void main(String[] args) throws Exception {
+    int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+    int clientCount = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+    int requestCount = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+    CalendarManager manager = new CalendarManager();
+    manager.createCalendar("Load", ZoneId.of("UTC"));
+    manager.useCalendar("Load");
+    Calendar calendar = manager.getActiveCalendar();
+    LocalDateTime origin = LocalDateTime.of(2025, 1, 1, 8, 0);
+    for (int i = 0; i < eventCount; i++) {
+      LocalDateTime start = origin.plusDays(i / 8 % 365).plusMinutes(60L * (i % 8))
+              .plusYears(i / 2920);
+      calendar.addEvent("Event" + i, "", start, start.plusMinutes(45));
+    }
+
+    try (HttpCalendarServer server = new HttpCalendarServer(manager, 0)) {
+      server.start();
+      HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+      URI week = URI.create("http://127.0.0.1:" + server.getPort()
+              + "/calendars/Load/events?from=2025-03-03&to=2025-03-09");
+      HttpResponse<String> first = client.send(HttpRequest.newBuilder(week).build(),
+              HttpResponse.BodyHandlers.ofString());
+      String etag = first.headers().firstValue("ETag").orElseThrow();
+      System.out.printf("%d events, %d clients x %d requests, %d bytes per week%n", eventCount,
+              clientCount, requestCount, first.body().length());
+
+      // warm up both paths before measuring
+      run(client, week, null, clientCount, requestCount / 4);
+      run(client, week, etag, clientCount, requestCount / 4);
+      report("full GET", run(client, week, null, clientCount, requestCount));
+      report("304 GET", run(client, week, etag, clientCount, requestCount));
+    }
+  }
+
+  /**
+   * Send requests from several client threads.
+   *
+   * @return the latency of every request in nanoseconds, followed by the elapsed time.
+   */
+  private static long[] run(HttpClient client, URI uri, String etag, int clientCount,
+                            int requestCount) throws InterruptedException {
+    long[] latencies = new long[clientCount * requestCount + 1];
+    AtomicLong failures = new AtomicLong();
+    HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+    if (etag != null) {
+      builder.header("If-None-Match", etag);
+    }
+    HttpRequest request = builder.build();
+    int expected = etag == null ? 200 : 304;
+    List<Thread> clients = new ArrayList<>(clientCount);
+    long begin = System.nanoTime();
+    for (int c = 0; c < clientCount; c++) {
+      int offset = c * requestCount;
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < requestCount; i++) {
+          long sent = System.nanoTime();
+          try {
+            HttpResponse<String> response = client.send(request,
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != expected) {
+              failures.incrementAndGet();
+            }
+          } catch (Exception e) {
+            failures.incrementAndGet();
+          }
+          latencies[offset + i] = System.nanoTime() - sent;
+        }
+      }, "http-client-" + c);
+      thread.start();
+      clients.add(thread);
+    }
+    for (Thread thread : clients) {
+      thread.join();
+    }
+    latencies[latencies.length - 1] = System.nanoTime() - begin;
+    if (failures.get() > 0) {
+      System.out.println(failures.get() + " failed requests");
+    }
+    return latencies;
+  }
+
+  private static void report(String label, long[] run) {
+    double seconds = run[run.length - 1] / 1e9;
+    long[] sorted = Arrays.copyOf(run, run.length - 1);
+    Arrays.sort(sorted);
+    System.out.printf("%-9s %10.0f requests/s   p50 %7.3f ms   p99 %7.3f ms%n", label,
+            sorted.length / seconds, percentile(sorted, 0.50) / 1e6,
+            percentile(sorted, 0.99) / 1e6);
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+  }
+}
@@ -0,0 +1,91 @@
+package calendar.benchmark;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import calendar.model.Calendar;
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+import calendar.utils.ExportCSV;
+import calendar.utils.ExportEvents;
+import calendar.utils.ParallelExportCSV;
+
+/**
+ * Measures CSV export throughput of the sequential exporter and of the parallel exporter with
+ * 1 to 8 worker threads, and checks that every run writes the same bytes.
+ *
+ * <p>Usage: {@code java -cp target/classes:target/test-classes
+ * calendar.benchmark.ParallelExportBenchmark [events]}</p>
+ */
+public class ParallelExportBenchmark {
+  private static final int ROUNDS = 5;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional number of events, one million by default.
+   * @throws Exception if the export fails.
+   */
+  public static void main(String[] args) throws Exception {
+    int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    Calendar calendar = new Calendar(ZoneOffset.UTC);
+    List<IEvent> events = new ArrayList<>(eventCount);
+    LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+    for (int i = 0; i < eventCount; i++) {
+      LocalDateTime eventStart = start.plusMinutes(45L * i);
+      events.add(new OneTimeEvent("Event " + i, i % 5 == 0 ? "Notes, with comma" : "Notes",
+              eventStart, eventStart.plusMinutes(30)));
+    }
+    calendar.restoreEvents(events);
+
+    Path file = Files.createTempFile("export-benchmark", ".csv");
+    byte[] expected = null;
+    System.out.printf("%d events%n", eventCount);
+    System.out.printf("%-12s %10s %10s %8s%n", "exporter", "best ms", "MB/s", "speedup");
+
+    double sequentialMillis = run(new ExportCSV(), calendar, file);
+    expected = Files.readAllBytes(file);
+    report("sequential", sequentialMillis, expected.length, sequentialMillis);
+
+    for (int threads : new int[]{1, 2, 4, 8}) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        double millis = run(new ParallelExportCSV(pool), calendar, file);
+        if (!Arrays.equals(expected, Files.readAllBytes(file))) {
+          throw new IllegalStateException("Parallel output differs with " + threads + " threads");
+        }
+        report("parallel-" + threads, millis, expected.length, sequentialMillis);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    Files.delete(file);
+  }
+
+  private static double run(ExportEvents exporter, Calendar calendar, Path file)
+          throws Exception {
+    double best = Double.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      long startNanos = System.nanoTime();
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        exporter.export(calendar.getEventManager(), channel);
+      }
+      best = Math.min(best, (System.nanoTime() - startNanos) / 1e6);
+    }
+    return best;
+  }
+
+  private static void report(String name, double millis, long bytes, double baselineMillis) {
+    System.out.printf("%-12s %10.1f %10.1f %7.2fx%n", name, millis,
+            bytes / 1e6 / (millis / 1e3), baselineMillis / millis);
+  }
+}
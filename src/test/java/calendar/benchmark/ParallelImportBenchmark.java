@@ -0,0 +1,89 @@
+package calendar.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import calendar.model.Calendar;
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+import calendar.utils.ExportCSV;
+import calendar.utils.ImportCSV;
+import calendar.utils.ImportEvents;
+import calendar.utils.ParallelImportCSV;
+
+/**
+ * Measures CSV import throughput of the sequential importer and of the parallel importer with
+ * 1 to 8 worker threads, and checks that every run imports the same number of events.
+ *
+ * <p>Usage: {@code java -cp target/classes:target/test-classes
+ * calendar.benchmark.ParallelImportBenchmark [events]}</p>
+ */
+public class ParallelImportBenchmark {
+  private static final int ROUNDS = 3;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional number of events, one million by default.
+   * @throws Exception if the import fails.
+   */
+  public static void main(String[] args) throws Exception {
+    int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    Calendar source = new Calendar(ZoneOffset.UTC);
+    List<IEvent> events = new ArrayList<>(eventCount);
+    LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+    for (int i = 0; i < eventCount; i++) {
+      LocalDateTime eventStart = start.plusMinutes(45L * i);
+      events.add(new OneTimeEvent("Event " + i, i % 5 == 0 ? "Notes, with comma" : "Notes",
+              eventStart, eventStart.plusMinutes(30)));
+    }
+    source.restoreEvents(events);
+
+    Path file = Files.createTempFile("import-benchmark", ".csv");
+    Files.write(file, new ExportCSV().exportEvents(source.getEventManager()).getBytes(StandardCharsets.UTF_8));
+    long bytes = Files.size(file);
+    System.out.printf("%d events, %d cores%n", eventCount,
+            Runtime.getRuntime().availableProcessors());
+    System.out.printf("%-12s %10s %10s %8s%n", "importer", "best ms", "MB/s", "speedup");
+
+    double sequentialMillis = run(new ImportCSV(), file, eventCount);
+    report("sequential", sequentialMillis, bytes, sequentialMillis);
+
+    for (int threads : new int[]{1, 2, 4, 8}) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        double millis = run(new ParallelImportCSV(pool, 0), file, eventCount);
+        report("parallel-" + threads, millis, bytes, sequentialMillis);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    Files.delete(file);
+  }
+
+  private static double run(ImportEvents importer, Path file, int eventCount) throws Exception {
+    double best = Double.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      Calendar calendar = new Calendar(ZoneOffset.UTC);
+      calendar.setAutoDeclineConflicts(true);
+      long startNanos = System.nanoTime();
+      int imported = importer.importEvents(file, calendar);
+      best = Math.min(best, (System.nanoTime() - startNanos) / 1e6);
+      if (imported != eventCount) {
+        throw new IllegalStateException("Imported " + imported + " of " + eventCount);
+      }
+    }
+    return best;
+  }
+
+  private static void report(String name, double millis, long bytes, double baselineMillis) {
+    System.out.printf("%-12s %10.1f %10.1f %7.2fx%n", name, millis,
+            bytes / 1e6 / (millis / 1e3), baselineMillis / millis);
+  }
+}
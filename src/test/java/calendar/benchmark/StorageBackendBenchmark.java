@@ -0,0 +1,115 @@
+package calendar.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import calendar.manager.EventManager;
+import calendar.manager.EventStores;
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+
+/**
+ * Runs the same workload against every registered storage backend: a bulk insert in batches,
+ * single inserts in random order with conflict checks, range scans of one week, and removal of
+ * every hundredth event. Single inserts and removals are one operation each, so the journaled
+ * backend pays one sync per event there.
+ *
+ * <p>Usage: {@code java -cp target/classes:target/test-classes
+ * calendar.benchmark.StorageBackendBenchmark [events]}</p>
+ */
+public class StorageBackendBenchmark {
+  private static final int ROUNDS = 3;
+  private static final int BATCH_SIZE = 10_000;
+  private static final int SINGLE_INSERTS = 5_000;
+  private static final int RANGE_SCANS = 2_000;
+  private static final int REMOVE_EVERY = 100;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional number of bulk inserted events, 500,000 by default.
+   * @throws Exception if a store cannot be created.
+   */
+  public static void main(String[] args) throws Exception {
+    int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+    LocalDateTime origin = LocalDateTime.of(2020, 1, 1, 8, 0);
+    List<IEvent> bulk = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      LocalDateTime start = origin.plusMinutes(45L * i);
+      bulk.add(new OneTimeEvent("Event " + i, "Notes", start, start.plusMinutes(30)));
+    }
+    Random random = new Random(11);
+    List<IEvent> singles = new ArrayList<>(SINGLE_INSERTS);
+    for (int i = 0; i < SINGLE_INSERTS; i++) {
+      LocalDateTime start = origin.plusMinutes(45L * random.nextInt(eventCount) + 30);
+      singles.add(new OneTimeEvent("Single " + i, "", start, start.plusMinutes(10)));
+    }
+    long days = 45L * eventCount / (60 * 24);
+
+    Path directory = Files.createTempDirectory("storage-benchmark");
+    System.out.printf("%d events, %d single inserts, %d week scans%n", eventCount,
+            SINGLE_INSERTS, RANGE_SCANS);
+    System.out.printf("%-10s %10s %10s %10s %10s%n", "backend", "bulk ms", "single ms",
+            "scan ms", "remove ms");
+    for (String backend : EventStores.getNames()) {
+      double[] best = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+      for (int round = 0; round < ROUNDS; round++) {
+        try (EventManager manager = new EventManager(EventStores.create(backend, directory))) {
+          long start = System.nanoTime();
+          for (int i = 0; i < bulk.size(); i += BATCH_SIZE) {
+            manager.addEvents(bulk.subList(i, Math.min(bulk.size(), i + BATCH_SIZE)), true);
+          }
+          best[0] = Math.min(best[0], (System.nanoTime() - start) / 1e6);
+
+          start = System.nanoTime();
+          for (IEvent single : singles) {
+            try {
+              manager.addEvent(single.getSubject(), single.getDescription(),
+                      single.getStartTime(), single.getEndTime(), true);
+            } catch (IllegalArgumentException e) {
+              // two singles drawn into the same free slot, the second one is declined
+            }
+          }
+          best[1] = Math.min(best[1], (System.nanoTime() - start) / 1e6);
+
+          Random scanRandom = new Random(5);
+          long scanned = 0;
+          start = System.nanoTime();
+          for (int i = 0; i < RANGE_SCANS; i++) {
+            LocalDateTime from = origin.plusDays(scanRandom.nextInt((int) Math.max(1, days)));
+            Iterator<IEvent> events = manager.eventIterator(from, from.plusDays(7));
+            while (events.hasNext()) {
+              events.next();
+              scanned++;
+            }
+          }
+          best[2] = Math.min(best[2], (System.nanoTime() - start) / 1e6);
+          if (scanned == 0) {
+            throw new IllegalStateException("Range scans found no events");
+          }
+
+          List<IEvent> all = manager.getAllEvents();
+          start = System.nanoTime();
+          for (int i = 0; i < all.size(); i += REMOVE_EVERY) {
+            manager.removeEvent(all.get(i));
+          }
+          best[3] = Math.min(best[3], (System.nanoTime() - start) / 1e6);
+        }
+      }
+      System.out.printf("%-10s %10.1f %10.1f %10.1f %10.1f%n", backend, best[0], best[1],
+              best[2], best[3]);
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+}
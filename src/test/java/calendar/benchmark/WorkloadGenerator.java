@@ -0,0 +1,383 @@
+package calendar.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import calendar.manager.ICalendarManager;
+import calendar.model.IEvent;
+import calendar.model.OneTimeEvent;
+import calendar.utils.EventUtils;
+
+/**
+ * Generates large, realistic calendars from a seed, so that benchmarks and load tests start from
+ * the same data on every run. The events of every calendar are a mix of:
+ * <ul>
+ *   <li>recurring series on weekday mornings, in half-hour slots from 08:00 to 10:00,</li>
+ *   <li>timed events on weekdays between 10:00 and 18:00,</li>
+ *   <li>all-day events on weekends,</li>
+ *   <li>multi-day events from Friday evening into the weekend.</li>
+ * </ul>
+ *
+ * <p>No two events of a calendar conflict, so every dataset loads completely with conflicts
+ * declined. The conflict density is the share of timed events that start right when the previous
+ * one ends, the tightest packing allowed; the rest leave a gap of 15 to 90 minutes. Denser days
+ * put more events in front of every conflict check. Calendars get varied time zones.</p>
+ *
+ * <p>A dataset is either written as a headless command script or loaded straight into a calendar
+ * manager; both give the same events. The same seed and settings always give the same dataset,
+ * and each calendar only depends on the seed and its position.</p>
+ *
+ * <p>Usage: {@code java -cp target/classes:target/test-classes
+ * calendar.benchmark.WorkloadGenerator script-file [calendars] [events] [seed]}</p>
+ */
+public class WorkloadGenerator {
+  private static final DateTimeFormatter FORMAT =
+          DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+  private static final String[] ZONES = {"UTC", "America/New_York", "Europe/London",
+    "Asia/Kolkata", "Australia/Sydney", "America/Los_Angeles", "Asia/Tokyo", "Europe/Berlin"};
+  private static final String[] SUBJECTS = {"Standup", "Review", "Planning", "Sync",
+    "Interview", "Lunch", "Workshop", "Demo", "Retro", "OneOnOne", "Training", "Call"};
+  private static final String[] WEEKDAY_PATTERNS = {"MWF", "TR", "MTWRF", "M", "W", "F", "MW",
+    "TRF"};
+  private static final int RECURRING_SLOTS = 4;
+  private static final LocalTime RECURRING_START = LocalTime.of(8, 0);
+  private static final LocalTime DAY_START = LocalTime.of(10, 0);
+  private static final LocalTime DAY_END = LocalTime.of(18, 0);
+  private static final LocalTime END_OF_DAY = LocalTime.of(23, 59);
+
+  private final long seed;
+  private int calendarCount = 1;
+  private long eventCount = 10_000;
+  private double recurringShare = 0.3;
+  private double allDayShare = 0.05;
+  private double multiDayShare = 0.05;
+  private double conflictDensity = 0.5;
+  private LocalDate startDate = LocalDate.of(2025, 1, 6);
+
+  /**
+   * Construct a generator of one calendar with 10,000 events, 30% of them recurring, 5% all-day
+   * and 5% multi-day, half of the timed events packed back to back, starting on 2025-01-06.
+   *
+   * @param seed the seed every dataset is derived from.
+   */
+  public WorkloadGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Set the number of calendars. Events are spread evenly over them.
+   *
+   * @param calendarCount the given number of calendars.
+   * @return this generator.
+   */
+  public WorkloadGenerator calendars(int calendarCount) {
+    if (calendarCount <= 0) {
+      throw new IllegalArgumentException("Calendar count must be positive");
+    }
+    this.calendarCount = calendarCount;
+    return this;
+  }
+
+  /**
+   * Set the number of stored events over all calendars. Every occurrence of a recurring event
+   * and every day of a multi-day event counts as one event.
+   *
+   * @param eventCount the given number of events.
+   * @return this generator.
+   */
+  public WorkloadGenerator events(long eventCount) {
+    if (eventCount < 0) {
+      throw new IllegalArgumentException("Event count cannot be negative");
+    }
+    this.eventCount = eventCount;
+    return this;
+  }
+
+  /**
+   * Set the shares of recurring, all-day and multi-day events; the rest are timed events.
+   *
+   * @param recurringShare the given share of recurring event occurrences.
+   * @param allDayShare    the given share of all-day events.
+   * @param multiDayShare  the given share of multi-day event days.
+   * @return this generator.
+   */
+  public WorkloadGenerator mix(double recurringShare, double allDayShare, double multiDayShare) {
+    if (recurringShare < 0 || allDayShare < 0 || multiDayShare < 0
+            || recurringShare + allDayShare + multiDayShare > 1) {
+      throw new IllegalArgumentException("Shares must be positive and add up to at most 1");
+    }
+    this.recurringShare = recurringShare;
+    this.allDayShare = allDayShare;
+    this.multiDayShare = multiDayShare;
+    return this;
+  }
+
+  /**
+   * Set the share of timed events that start right when the previous one ends.
+   *
+   * @param conflictDensity the given share, from 0 to 1.
+   * @return this generator.
+   */
+  public WorkloadGenerator conflictDensity(double conflictDensity) {
+    if (conflictDensity < 0 || conflictDensity > 1) {
+      throw new IllegalArgumentException("Conflict density must be between 0 and 1");
+    }
+    this.conflictDensity = conflictDensity;
+    return this;
+  }
+
+  /**
+   * Set the first day events are placed on.
+   *
+   * @param startDate the given date.
+   * @return this generator.
+   */
+  public WorkloadGenerator startDate(LocalDate startDate) {
+    this.startDate = startDate;
+    return this;
+  }
+
+  /**
+   * Get the name of a calendar of the dataset.
+   *
+   * @param index the position of the calendar, from 0.
+   * @return the calendar name.
+   */
+  public String calendarName(int index) {
+    return "Cal" + index;
+  }
+
+  /**
+   * Write the dataset as a headless script: every calendar is created and filled with create
+   * event commands in turn, and the script ends with exit.
+   *
+   * @param out the given writer.
+   * @throws IOException if the script cannot be written.
+   */
+  public void writeScript(Writer out) throws IOException {
+    for (int c = 0; c < calendarCount; c++) {
+      out.write("create calendar --name " + calendarName(c) + " --timezone " + zone(c) + "\n");
+      out.write("use calendar --name " + calendarName(c) + "\n");
+      for (Spec spec : generate(c)) {
+        out.write("create event " + spec.subject);
+        if (spec.start.toLocalTime().equals(LocalTime.MIDNIGHT)
+                && spec.end.equals(spec.start.toLocalDate().atTime(END_OF_DAY))) {
+          out.write(" on " + spec.start.toLocalDate());
+        } else {
+          out.write(" from " + spec.start.format(FORMAT) + " to " + spec.end.format(FORMAT));
+        }
+        if (spec.recurringDays != null) {
+          out.write(" repeats " + spec.recurringDays + " for " + spec.occurrences + " times");
+        }
+        out.write('\n');
+      }
+    }
+    out.write("exit\n");
+  }
+
+  /**
+   * Create the calendars of the dataset in a calendar manager and put their events in directly,
+   * without commands or conflict checks.
+   *
+   * @param manager the given calendar manager, without calendars of the same names.
+   */
+  public void load(ICalendarManager manager) {
+    EventUtils eventUtils = new EventUtils();
+    for (int c = 0; c < calendarCount; c++) {
+      List<IEvent> events = new ArrayList<>();
+      for (Spec spec : generate(c)) {
+        if (spec.recurringDays != null) {
+          events.addAll(eventUtils.generateRecurringEvents(spec.subject, "", spec.start,
+                  spec.end, null, spec.recurringDays, spec.occurrences));
+        } else if (spec.start.toLocalDate().equals(spec.end.toLocalDate())) {
+          events.add(new OneTimeEvent(spec.subject, "", spec.start, spec.end));
+        } else {
+          events.addAll(eventUtils.splitIntoDays(spec.subject, "", spec.start, spec.end));
+        }
+      }
+      manager.createCalendar(calendarName(c), ZoneId.of(zone(c)));
+      manager.getCalendar(calendarName(c)).restoreEvents(events);
+    }
+  }
+
+  private String zone(int calendar) {
+    return ZONES[new Random(seed ^ (calendar * 0x9E3779B97F4A7C15L)).nextInt(ZONES.length)];
+  }
+
+  /**
+   * Generate the events of one calendar, picking the kind of every next event at random with
+   * the odds of the events of each kind still to place.
+   */
+  private List<Spec> generate(int calendar) {
+    Random random = new Random(seed * 31 + calendar);
+    long total = eventCount / calendarCount + (calendar < eventCount % calendarCount ? 1 : 0);
+    long[] remaining = new long[4];
+    remaining[0] = Math.round(total * recurringShare);
+    remaining[1] = Math.round(total * allDayShare);
+    remaining[2] = Math.round(total * multiDayShare);
+    remaining[3] = total - remaining[0] - remaining[1] - remaining[2];
+    if (remaining[3] < 0) {
+      remaining[0] += remaining[3];
+      remaining[3] = 0;
+    }
+
+    List<Spec> specs = new ArrayList<>();
+    LocalDate[] slotFree = new LocalDate[RECURRING_SLOTS];
+    for (int slot = 0; slot < RECURRING_SLOTS; slot++) {
+      slotFree[slot] = startDate;
+    }
+    LocalDateTime timedCursor = nextWeekday(startDate.minusDays(1)).atTime(DAY_START);
+    LocalDate weekendCursor = startDate;
+    while (weekendCursor.getDayOfWeek() != DayOfWeek.SATURDAY) {
+      weekendCursor = weekendCursor.plusDays(1);
+    }
+
+    while (remaining[0] + remaining[1] + remaining[2] + remaining[3] > 0) {
+      long pick = (long) (random.nextDouble()
+              * (remaining[0] + remaining[1] + remaining[2] + remaining[3]));
+      int kind = 0;
+      while (pick >= remaining[kind]) {
+        pick -= remaining[kind];
+        kind++;
+      }
+      if (kind == 2 && remaining[2] < 2) {
+        // a single day left is not a multi-day event
+        remaining[2]--;
+        remaining[3]++;
+        continue;
+      }
+      String subject = SUBJECTS[random.nextInt(SUBJECTS.length)] + specs.size();
+      switch (kind) {
+        case 0: {
+          int occurrences = (int) Math.min(remaining[0], 4 + random.nextInt(23));
+          String days = WEEKDAY_PATTERNS[random.nextInt(WEEKDAY_PATTERNS.length)];
+          int slot = 0;
+          for (int i = 1; i < RECURRING_SLOTS; i++) {
+            if (slotFree[i].isBefore(slotFree[slot])) {
+              slot = i;
+            }
+          }
+          LocalDateTime start = slotFree[slot].atTime(RECURRING_START.plusMinutes(30L * slot));
+          specs.add(new Spec(subject, start, start.plusMinutes(30), days, occurrences));
+          slotFree[slot] = lastOccurrence(slotFree[slot], days, occurrences).plusDays(1);
+          remaining[0] -= occurrences;
+          break;
+        }
+        case 1:
+          specs.add(new Spec(subject, weekendCursor.atStartOfDay(),
+                  weekendCursor.atTime(END_OF_DAY), null, 0));
+          weekendCursor = weekendCursor.plusDays(
+                  weekendCursor.getDayOfWeek() == DayOfWeek.SATURDAY ? 1 : 6);
+          remaining[1]--;
+          break;
+        case 2: {
+          if (weekendCursor.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            weekendCursor = weekendCursor.plusDays(6);
+          }
+          int days = (int) Math.min(remaining[2], 3);
+          LocalDateTime start = weekendCursor.minusDays(1).atTime(19, 0);
+          LocalDateTime end = weekendCursor.plusDays(days - 2).atTime(10 + random.nextInt(10),
+                  0);
+          specs.add(new Spec(subject, start, end, null, 0));
+          weekendCursor = weekendCursor.plusDays(7);
+          remaining[2] -= days;
+          break;
+        }
+        default: {
+          long minutes = 15L * (1 + random.nextInt(8));
+          if (timedCursor.toLocalTime().plusMinutes(minutes).isAfter(DAY_END)
+                  || timedCursor.toLocalTime().isBefore(DAY_START)) {
+            timedCursor = nextWeekday(timedCursor.toLocalDate()).atTime(DAY_START);
+          }
+          LocalDateTime end = timedCursor.plusMinutes(minutes);
+          specs.add(new Spec(subject, timedCursor, end, null, 0));
+          timedCursor = random.nextDouble() < conflictDensity ? end
+                  : end.plusMinutes(15L * (1 + random.nextInt(6)));
+          remaining[3]--;
+        }
+      }
+    }
+    return specs;
+  }
+
+  private static LocalDate nextWeekday(LocalDate date) {
+    LocalDate next = date.plusDays(1);
+    while (next.getDayOfWeek() == DayOfWeek.SATURDAY
+            || next.getDayOfWeek() == DayOfWeek.SUNDAY) {
+      next = next.plusDays(1);
+    }
+    return next;
+  }
+
+  /**
+   * Find the date of the last occurrence of a series starting on a date.
+   */
+  private static LocalDate lastOccurrence(LocalDate start, String days, int occurrences) {
+    LocalDate date = start.minusDays(1);
+    int count = 0;
+    while (count < occurrences) {
+      date = date.plusDays(1);
+      if (days.indexOf("MTWRFSU".charAt(date.getDayOfWeek().getValue() - 1)) >= 0) {
+        count++;
+      }
+    }
+    return date;
+  }
+
+  /**
+   * One create event command of a dataset.
+   */
+  private static final class Spec {
+    private final String subject;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final String recurringDays;
+    private final int occurrences;
+
+    private Spec(String subject, LocalDateTime start, LocalDateTime end, String recurringDays,
+                 int occurrences) {
+      this.subject = subject;
+      this.start = start;
+      this.end = end;
+      this.recurringDays = recurringDays;
+      this.occurrences = occurrences;
+    }
+  }
+
+  /**
+   * Writes a dataset as a headless script.
+   *
+   * @param args the script file, and optionally the number of calendars, 10 by default, the
+   *             number of events, 1,000,000 by default, and the seed, 1 by default.
+   * @throws IOException if the script cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: WorkloadGenerator script-file [calendars] [events] [seed]");
+      System.exit(1);
+    }
+    int calendars = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    long events = args.length > 2 ? Long.parseLong(args[2]) : 1_000_000;
+    long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+    long start = System.nanoTime();
+    try (Writer out = new BufferedWriter(Files.newBufferedWriter(Paths.get(args[0]),
+            StandardCharsets.UTF_8), 1 << 16)) {
+      new WorkloadGenerator(seed).calendars(calendars).events(events).writeScript(out);
+    }
+    System.out.printf("%d events in %d calendars written to %s in %.0f ms%n", events, calendars,
+            args[0], (System.nanoTime() - start) / 1e6);
+  }
+}
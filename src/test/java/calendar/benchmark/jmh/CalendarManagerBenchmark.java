@@ -0,0 +1,92 @@
+package calendar.benchmark.jmh;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import calendar.manager.CalendarManager;
+import calendar.manager.IEventManager;
+import calendar.model.IEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the calendar manager operations spanning whole calendars, by calendar size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CalendarManagerBenchmark {
+  private static final String TARGET = "Target";
+  private static final LocalDateTime TARGET_DAY = LocalDateTime.of(2030, 1, 7, 0, 0);
+
+  @Param({"1000", "10000", "100000"})
+  public int size;
+
+  private CalendarManager manager;
+  private String calendarName;
+  private IEventManager target;
+  private LocalDate[] weekdays;
+  private int next;
+  private boolean moved;
+
+  /**
+   * Load the calendar and create an empty target calendar.
+   */
+  @Setup
+  public void setUp() {
+    manager = Datasets.load(size);
+    calendarName = manager.getActiveCalendarName();
+    manager.createCalendar(TARGET, ZoneId.of("Asia/Kolkata"));
+    manager.useCalendar(TARGET);
+    target = manager.getActiveCalendar().getEventManager();
+    manager.useCalendar(calendarName);
+    weekdays = Datasets.sampleWeekdays(manager);
+  }
+
+  /**
+   * Copy the events of a busy weekday to the target calendar, and remove the copies again.
+   */
+  @Benchmark
+  public void copyCalendarEvents() {
+    next = (next + 1) & (Datasets.SAMPLES - 1);
+    LocalDateTime day = weekdays[next].atStartOfDay();
+    manager.copyCalendarEvents(day, day.plusHours(23).plusMinutes(59), TARGET, TARGET_DAY);
+    Iterator<IEvent> copies = target.eventIterator();
+    List<IEvent> removed = new ArrayList<>();
+    while (copies.hasNext()) {
+      removed.add(copies.next());
+    }
+    for (IEvent copy : removed) {
+      target.removeEvent(copy);
+    }
+  }
+
+  /**
+   * Move the calendar to another time zone, converting every event, alternating between two
+   * zones.
+   */
+  @Benchmark
+  public void editTimezone() {
+    moved = !moved;
+    manager.editCalendarProperty(calendarName, "timezone",
+            moved ? "Europe/Paris" : "America/New_York");
+  }
+}
@@ -0,0 +1,98 @@
+package calendar.benchmark.jmh;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+import calendar.manager.CalendarManager;
+import calendar.manager.IEventManager;
+import calendar.utils.EventsImporterFactory;
+import calendar.utils.ExportCSV;
+import calendar.utils.ImportEvents;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of exporting a whole calendar to a CSV file and importing it into an empty
+ * calendar, by calendar size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CsvBenchmark {
+  @Param({"1000", "10000", "100000"})
+  public int size;
+
+  private IEventManager events;
+  private Path exportFile;
+  private Path importFile;
+
+  /**
+   * Load the calendar and export it once as the file to import.
+   *
+   * @throws IOException if the files cannot be written.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    events = Datasets.load(size).getActiveCalendar().getEventManager();
+    exportFile = Files.createTempFile("benchmark-export", ".csv");
+    importFile = Files.createTempFile("benchmark-import", ".csv");
+    try (Writer writer = Files.newBufferedWriter(importFile)) {
+      new ExportCSV().export(events, writer);
+    }
+  }
+
+  /**
+   * Remove the files.
+   *
+   * @throws IOException if the files cannot be removed.
+   */
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(exportFile);
+    Files.deleteIfExists(importFile);
+  }
+
+  /**
+   * Export every event of the calendar.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  @Benchmark
+  public void exportCsv() throws IOException {
+    try (Writer writer = Files.newBufferedWriter(exportFile)) {
+      new ExportCSV().export(events, writer);
+    }
+  }
+
+  /**
+   * Import the exported events into a new calendar, with conflicts declined.
+   *
+   * @return the number of imported events.
+   * @throws IOException if the file cannot be read.
+   */
+  @Benchmark
+  public int importCsv() throws IOException {
+    CalendarManager manager = new CalendarManager();
+    manager.createCalendar("Imported", ZoneId.of("UTC"));
+    ImportEvents importer = EventsImporterFactory.getImporter("csv");
+    return importer.importEvents(importFile, manager.getCalendar("Imported"));
+  }
+}
@@ -0,0 +1,113 @@
+package calendar.benchmark.jmh;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import calendar.benchmark.WorkloadGenerator;
+import calendar.manager.CalendarManager;
+import calendar.model.IEvent;
+import calendar.model.IRecurringEvent;
+
+/**
+ * Loads the calendars the JMH benchmarks run against, from the workload generator with a fixed
+ * seed, and draws the sample events and times the benchmark operations cycle through.
+ */
+final class Datasets {
+  static final long SEED = 1;
+  static final int SAMPLES = 1024;
+
+  private Datasets() {
+  }
+
+  /**
+   * Load one calendar of the given size as the active calendar of a new manager.
+   *
+   * @param size the number of events.
+   * @return the manager holding the calendar.
+   */
+  static CalendarManager load(int size) {
+    CalendarManager manager = new CalendarManager();
+    WorkloadGenerator generator = new WorkloadGenerator(SEED).events(size);
+    generator.load(manager);
+    manager.useCalendar(generator.calendarName(0));
+    return manager;
+  }
+
+  /**
+   * Draw sample events of a calendar, with repeats when it has fewer events than samples.
+   *
+   * @param manager   the manager whose active calendar is sampled.
+   * @param recurring whether to draw the first occurrence of recurring series only.
+   * @return the sample events.
+   */
+  static IEvent[] sampleEvents(CalendarManager manager, boolean recurring) {
+    List<IEvent> events = new ArrayList<>();
+    for (IEvent event : manager.getActiveCalendar().getAllEvents()) {
+      if (!recurring || event instanceof IRecurringEvent) {
+        events.add(event);
+      }
+    }
+    if (recurring) {
+      // keep the earliest occurrence of every series, so edits cover the whole series
+      events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+      Set<String> seen = new HashSet<>();
+      List<IEvent> first = new ArrayList<>();
+      for (IEvent event : events) {
+        if (seen.add(event.getSubject())) {
+          first.add(event);
+        }
+        if (first.size() == SAMPLES) {
+          break;
+        }
+      }
+      events = first;
+    }
+    Collections.shuffle(events, new Random(SEED));
+    IEvent[] samples = new IEvent[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      samples[i] = events.get(i % events.size());
+    }
+    return samples;
+  }
+
+  /**
+   * Draw sample weekdays within the days the calendar has events on.
+   *
+   * @param manager the manager whose active calendar is sampled.
+   * @return the sample dates.
+   */
+  static LocalDate[] sampleWeekdays(CalendarManager manager) {
+    IEvent[] events = sampleEvents(manager, false);
+    LocalDate[] dates = new LocalDate[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      LocalDate date = events[i].getStartTime().toLocalDate();
+      while (date.getDayOfWeek().getValue() > 5) {
+        date = date.minusDays(1);
+      }
+      dates[i] = date;
+    }
+    return dates;
+  }
+
+  /**
+   * Draw sample times within the span of the calendar, half of them at the start of an event.
+   *
+   * @param manager the manager whose active calendar is sampled.
+   * @return the sample times.
+   */
+  static LocalDateTime[] sampleTimes(CalendarManager manager) {
+    IEvent[] events = sampleEvents(manager, false);
+    Random random = new Random(SEED);
+    LocalDateTime[] times = new LocalDateTime[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      times[i] = events[i].getStartTime().plusMinutes(random.nextBoolean() ? 0 : 600);
+    }
+    return times;
+  }
+}
@@ -0,0 +1,178 @@
+package calendar.benchmark.jmh;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import calendar.manager.CalendarManager;
+import calendar.manager.IEventManager;
+import calendar.model.EventPrinter;
+import calendar.model.IEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks of the event operations of one calendar, by calendar size. Operations that add
+ * events remove them again, so the calendar keeps its size across invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventManagerBenchmark {
+  @Param({"1000", "10000", "100000"})
+  public int size;
+
+  private IEventManager events;
+  private IEvent[] samples;
+  private IEvent[] series;
+  private LocalDate[] weekdays;
+  private LocalDateTime[] times;
+  private int next;
+  private boolean edited;
+
+  /**
+   * Load the calendar and draw the samples.
+   */
+  @Setup
+  public void setUp() {
+    CalendarManager manager = Datasets.load(size);
+    events = manager.getActiveCalendar().getEventManager();
+    samples = Datasets.sampleEvents(manager, false);
+    series = Datasets.sampleEvents(manager, true);
+    weekdays = Datasets.sampleWeekdays(manager);
+    times = Datasets.sampleTimes(manager);
+  }
+
+  private int nextSample() {
+    next = (next + 1) & (Datasets.SAMPLES - 1);
+    return next;
+  }
+
+  /**
+   * Add an event after the working hours of a busy weekday, checking it against the events of
+   * that day, and remove it again.
+   */
+  @Benchmark
+  public void addEvent() {
+    LocalDateTime start = weekdays[nextSample()].atTime(18, 0);
+    events.addEvent("Probe", "", start, start.plusMinutes(30), true);
+    removeStartingAt(start, "Probe");
+  }
+
+  /**
+   * Add a series of ten occurrences after working hours, and remove it again.
+   */
+  @Benchmark
+  public void addRecurringEvents() {
+    LocalDateTime start = weekdays[nextSample()].atTime(18, 0);
+    events.addRecurringEvents("Series", "", start, start.plusMinutes(30), null, "MWF", 10);
+    Iterator<IEvent> added = events.eventIterator(start, start.plusWeeks(4));
+    List<IEvent> removed = new ArrayList<>();
+    while (added.hasNext()) {
+      IEvent event = added.next();
+      if (event.getSubject().equals("Series")) {
+        removed.add(event);
+      }
+    }
+    for (IEvent event : removed) {
+      events.removeEvent(event);
+    }
+  }
+
+  /**
+   * The search window, a parameter of the search benchmark only.
+   */
+  @State(Scope.Thread)
+  public static class Window {
+    @Param({"day", "month", "year"})
+    public String window;
+  }
+
+  /**
+   * Search the events of one subject within a day, a month or a year from a sample event.
+   *
+   * @param window the search window.
+   * @return the found events.
+   */
+  @Benchmark
+  public List<IEvent> searchEvents(Window window) {
+    IEvent sample = samples[nextSample()];
+    LocalDateTime start = sample.getStartTime().toLocalDate().atStartOfDay();
+    LocalDateTime end;
+    switch (window.window) {
+      case "day":
+        end = start.plusDays(1);
+        break;
+      case "month":
+        end = start.plusMonths(1);
+        break;
+      default:
+        end = start.plusYears(1);
+    }
+    return events.searchEvents(sample.getSubject(), start, end);
+  }
+
+  /**
+   * Check the status at a sample time.
+   *
+   * @param blackhole receives the status.
+   */
+  @Benchmark
+  public void isBusy(Blackhole blackhole) {
+    events.isBusy(times[nextSample()], new EventPrinter() {
+      @Override
+      public void printDay(LocalDate date) {
+        blackhole.consume(date);
+      }
+
+      @Override
+      public void printEvent(IEvent event) {
+        blackhole.consume(event);
+      }
+
+      @Override
+      public void printStatus(LocalDateTime dateTime, boolean busy) {
+        blackhole.consume(busy);
+      }
+    });
+  }
+
+  /**
+   * Edit the description of a whole recurring series, alternating between two values.
+   */
+  @Benchmark
+  public void editEventRecurring() {
+    IEvent first = series[nextSample()];
+    edited = !edited;
+    events.editEventRecurring(first.getSubject(), first.getStartTime(), "description",
+            edited ? "Edited" : "");
+  }
+
+  private void removeStartingAt(LocalDateTime start, String subject) {
+    Iterator<IEvent> candidates = events.eventIterator(start, start);
+    while (candidates.hasNext()) {
+      IEvent event = candidates.next();
+      if (event.getSubject().equals(subject)) {
+        events.removeEvent(event);
+        return;
+      }
+    }
+  }
+}